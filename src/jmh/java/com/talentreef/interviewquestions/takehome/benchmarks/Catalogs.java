@@ -0,0 +1,57 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import org.springframework.util.unit.DataSize;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Prices;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.respositories.HeapWidgetStore;
+import com.talentreef.interviewquestions.takehome.respositories.MappedWidgetStore;
+import com.talentreef.interviewquestions.takehome.respositories.SnapshotWidgetStore;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetStore;
+
+/**
+ * Builds the catalogs the benchmarks run against.
+ */
+final class Catalogs {
+
+	private Catalogs() {
+	}
+
+	static String[] names(int size) {
+		String[] names = new String[size];
+		for (int i = 0; i < size; i++) {
+			names[i] = String.format("Widget %08d", i);
+		}
+		return names;
+	}
+
+	static WidgetRepository repository(String backend, String[] names) {
+		WidgetRepository widgetRepository = new WidgetRepository(store(backend));
+		for (String name : names) {
+			widgetRepository.save(widget(name));
+		}
+		return widgetRepository;
+	}
+
+	static Widget widget(String name) {
+		return Widget.builder()
+				.name(name)
+				.description("A widget description that is about as long as a real one")
+				.packedPrice(Prices.of((name.hashCode() & 0x7fffffff) % 1_999_900 + 100, 2))
+				.build();
+	}
+
+	private static WidgetStore store(String backend) {
+		if ("mapped".equals(backend)) {
+			WidgetProperties properties = new WidgetProperties();
+			properties.getStorage().setChunkSize(DataSize.ofMegabytes(256));
+			return new MappedWidgetStore(properties);
+		}
+		if ("snapshot".equals(backend)) {
+			return new SnapshotWidgetStore();
+		}
+		return new HeapWidgetStore();
+	}
+
+}
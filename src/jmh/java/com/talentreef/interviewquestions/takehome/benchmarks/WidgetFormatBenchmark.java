@@ -0,0 +1,72 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.services.WidgetFormat;
+
+/**
+ * Encoding and decoding a listing of {@code size} DTOs in each {@link WidgetFormat}, with
+ * the mapper each format's message converter gets. The size of the listing is printed
+ * when a trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WidgetFormatBenchmark {
+
+	@Param({ "1000", "100000" })
+	int size;
+
+	@Param({ "JSON", "SMILE", "CBOR" })
+	WidgetFormat format;
+
+	private ObjectWriter listWriter;
+
+	private ObjectReader listReader;
+
+	private List<WidgetDTO> list;
+
+	private byte[] encoded;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		ObjectMapper objectMapper = format.mapper(new ObjectMapper());
+		TypeReference<List<WidgetDTO>> listType = new TypeReference<>() {
+		};
+		listWriter = objectMapper.writerFor(listType);
+		listReader = objectMapper.readerFor(listType);
+		list = new ArrayList<>(size);
+		for (String name : Catalogs.names(size)) {
+			list.add(new WidgetDTO(Catalogs.widget(name)));
+		}
+		encoded = listWriter.writeValueAsBytes(list);
+		System.out.printf("%n%s listing of %d widgets: %,d bytes%n", format, size, encoded.length);
+	}
+
+	@Benchmark
+	public byte[] encodeList() throws IOException {
+		return listWriter.writeValueAsBytes(list);
+	}
+
+	@Benchmark
+	public List<WidgetDTO> decodeList() throws IOException {
+		return listReader.readValue(encoded);
+	}
+
+}
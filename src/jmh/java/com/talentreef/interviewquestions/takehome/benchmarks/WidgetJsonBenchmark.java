@@ -0,0 +1,116 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+
+/**
+ * Jackson (de)serialization of single widgets and of a listing of {@code size} DTOs, with
+ * readers and writers resolved once as the controllers' message converters do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WidgetJsonBenchmark {
+
+	@Param({ "1000", "100000" })
+	int size;
+
+	private ObjectWriter widgetWriter;
+
+	private ObjectWriter dtoWriter;
+
+	private ObjectReader dtoReader;
+
+	private ObjectWriter listWriter;
+
+	private ObjectReader listReader;
+
+	private Widget widget;
+
+	private WidgetDTO dto;
+
+	private byte[] dtoJson;
+
+	private List<WidgetDTO> list;
+
+	private byte[] listJson;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		ObjectMapper objectMapper = new ObjectMapper();
+		TypeReference<List<WidgetDTO>> listType = new TypeReference<>() {
+		};
+		widgetWriter = objectMapper.writerFor(Widget.class);
+		dtoWriter = objectMapper.writerFor(WidgetDTO.class);
+		dtoReader = objectMapper.readerFor(WidgetDTO.class);
+		listWriter = objectMapper.writerFor(listType);
+		listReader = objectMapper.readerFor(listType);
+
+		widget = Catalogs.widget("Widget 00000042");
+		dto = new WidgetDTO(widget);
+		dtoJson = dtoWriter.writeValueAsBytes(dto);
+		list = new ArrayList<>(size);
+		for (String name : Catalogs.names(size)) {
+			list.add(new WidgetDTO(Catalogs.widget(name)));
+		}
+		listJson = listWriter.writeValueAsBytes(list);
+	}
+
+	@Benchmark
+	public byte[] serializeWidget() throws IOException {
+		return widgetWriter.writeValueAsBytes(widget);
+	}
+
+	@Benchmark
+	public byte[] serializeWidgetDTO() throws IOException {
+		return dtoWriter.writeValueAsBytes(dto);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public byte[] serializeWidgetDTOContended() throws IOException {
+		return dtoWriter.writeValueAsBytes(dto);
+	}
+
+	@Benchmark
+	public WidgetDTO deserializeWidgetDTO() throws IOException {
+		return dtoReader.readValue(dtoJson);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public WidgetDTO deserializeWidgetDTOContended() throws IOException {
+		return dtoReader.readValue(dtoJson);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public byte[] serializeList() throws IOException {
+		return listWriter.writeValueAsBytes(list);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public List<WidgetDTO> deserializeList() throws IOException {
+		return listReader.readValue(listJson);
+	}
+
+}
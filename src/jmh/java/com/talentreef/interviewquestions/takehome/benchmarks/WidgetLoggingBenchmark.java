@@ -0,0 +1,94 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.talentreef.interviewquestions.config.AsyncLogAppender;
+import com.talentreef.interviewquestions.config.StreamingJsonEncoder;
+import net.logstash.logback.argument.StructuredArguments;
+import net.logstash.logback.encoder.LogstashEncoder;
+
+/**
+ * What an access log line costs the request thread: with the default console appender,
+ * which encodes and writes it there and then, and with the {@link AsyncLogAppender} of
+ * the async-logging profile. All write to a discarding stream. A logging thread that
+ * outpaces the writer fills the ring, and then async measures dropping INFO events;
+ * async-blocking waits for the writer instead, so it measures encoding and writing them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WidgetLoggingBenchmark {
+
+	@Param({ "sync", "async", "async-blocking" })
+	String appender;
+
+	private LoggerContext loggerContext;
+
+	private Logger logger;
+
+	private AsyncLogAppender asyncAppender;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		loggerContext = new LoggerContext();
+		logger = loggerContext.getLogger("widgets.access");
+		if ("sync".equals(appender)) {
+			LogstashEncoder encoder = new LogstashEncoder();
+			encoder.setContext(loggerContext);
+			encoder.start();
+			OutputStreamAppender<ILoggingEvent> console = new OutputStreamAppender<>();
+			console.setContext(loggerContext);
+			console.setEncoder(encoder);
+			console.setOutputStream(OutputStream.nullOutputStream());
+			console.start();
+			logger.addAppender(console);
+		} else {
+			StreamingJsonEncoder encoder = new StreamingJsonEncoder();
+			encoder.setContext(loggerContext);
+			encoder.start();
+			AsyncLogAppender async = new AsyncLogAppender();
+			async.setContext(loggerContext);
+			async.setName("benchmark");
+			async.setEncoder(encoder);
+			async.setOutputStream(OutputStream.nullOutputStream());
+			if ("async-blocking".equals(appender)) {
+				// Nothing is dropped: a full ring holds the logging thread back to the writer's pace.
+				async.setDiscardLevel(ch.qos.logback.classic.Level.TRACE);
+			}
+			async.start();
+			logger.addAppender(async);
+			asyncAppender = async;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (asyncAppender != null) {
+			System.out.println("Dropped: " + asyncAppender.getDropped(ch.qos.logback.classic.Level.INFO));
+		}
+		loggerContext.stop();
+	}
+
+	/** The line WidgetAccessLogFilter.logAccess writes. */
+	@Benchmark
+	public void accessLog() {
+		logger.info("{} {} {} {}us {}", StructuredArguments.value("method", "GET"),
+				StructuredArguments.value("path", "/v1/widgets/Widget%2042"), StructuredArguments.value("status", 200),
+				StructuredArguments.value("micros", 137L), StructuredArguments.value("requestId", "6f1c0a9e44d2b7c3"));
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+
+/**
+ * Point reads and writes against a populated {@link WidgetRepository}, on one thread and
+ * on every core. {@code findAll} copies the whole catalog, so its score is per call,
+ * not per widget.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WidgetRepositoryBenchmark {
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	int size;
+
+	@Param({ "heap", "mapped", "snapshot" })
+	String backend;
+
+	private String[] names;
+
+	private Widget[] templates;
+
+	private WidgetRepository widgetRepository;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		names = Catalogs.names(size);
+		widgetRepository = Catalogs.repository(backend, names);
+		templates = new Widget[Math.min(size, 1024)];
+		for (int i = 0; i < templates.length; i++) {
+			templates[i] = Catalogs.widget(names[i * (size / templates.length)]);
+		}
+	}
+
+	@Benchmark
+	public Optional<Widget> findById() {
+		return widgetRepository.findById(randomName());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Optional<Widget> findByIdContended() {
+		return widgetRepository.findById(randomName());
+	}
+
+	@Benchmark
+	public Widget save() {
+		return widgetRepository.save(randomTemplate().toBuilder().build());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Widget saveContended() {
+		return widgetRepository.save(randomTemplate().toBuilder().build());
+	}
+
+	/** Deletes a widget and puts it back, so the catalog keeps its size. */
+	@Benchmark
+	public Widget deleteById() {
+		Widget widget = randomTemplate();
+		widgetRepository.deleteById(widget.getName());
+		return widgetRepository.save(widget.toBuilder().build());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Widget deleteByIdContended() {
+		return deleteById();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public List<Widget> findAll() {
+		return widgetRepository.findAll();
+	}
+
+	private String randomName() {
+		return names[ThreadLocalRandom.current().nextInt(names.length)];
+	}
+
+	private Widget randomTemplate() {
+		return templates[ThreadLocalRandom.current().nextInt(templates.length)];
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import com.talentreef.interviewquestions.takehome.services.WidgetResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The listing right after a write, which is what a catalog under steady writes pays on
+ * most requests, and a write itself, with and without {@code widgets.cache.precompute}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WidgetResponseCacheBenchmark {
+
+	@Param({ "1000", "100000" })
+	int size;
+
+	@Param({ "false", "true" })
+	boolean precompute;
+
+	private WidgetRepository widgetRepository;
+
+	private WidgetResponseCache widgetResponseCache;
+
+	private Widget widget;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		widgetRepository = Catalogs.repository("heap", Catalogs.names(size));
+		WidgetProperties widgetProperties = new WidgetProperties();
+		widgetProperties.getCache().setPrecompute(precompute);
+		widgetResponseCache = new WidgetResponseCache(widgetRepository, new ObjectMapper(), widgetProperties,
+				new SimpleMeterRegistry());
+		widget = Catalogs.widget("Widget 00000042");
+	}
+
+	@Benchmark
+	public byte[] listAfterWrite() {
+		widgetRepository.save(widget);
+		return widgetResponseCache.list().body().get();
+	}
+
+	@Benchmark
+	public Widget write() {
+		return widgetRepository.save(widget);
+	}
+
+}
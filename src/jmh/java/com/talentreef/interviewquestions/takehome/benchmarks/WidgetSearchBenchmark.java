@@ -0,0 +1,79 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetSearchIndex;
+
+/**
+ * Keyword search through {@link WidgetSearchIndex}. Every catalog widget is named
+ * {@code Widget <8 digits>}, so a full number matches one widget, a number with its last
+ * digit cut off matches ten, and {@code description} matches the whole catalog. The
+ * estimated index size is printed when the trial ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WidgetSearchBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	private String[] names;
+
+	private WidgetRepository widgetRepository;
+
+	private WidgetSearchIndex widgetSearchIndex;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		names = Catalogs.names(size);
+		widgetRepository = Catalogs.repository("heap", names);
+		widgetSearchIndex = new WidgetSearchIndex(widgetRepository, new SimpleMeterRegistry());
+	}
+
+	@TearDown(Level.Trial)
+	public void reportFootprint() {
+		System.out.printf("%nsearch index: %d terms, ~%d MB%n", widgetSearchIndex.termCount(),
+				widgetSearchIndex.footprintBytes() >> 20);
+	}
+
+	@Benchmark
+	public List<String> searchOneMatch() {
+		return widgetSearchIndex.search("widget " + number(), 20);
+	}
+
+	@Benchmark
+	public List<String> searchPrefix() {
+		String number = number();
+		return widgetSearchIndex.search(number.substring(0, number.length() - 1), 20);
+	}
+
+	@Benchmark
+	public List<String> searchEveryWidget() {
+		return widgetSearchIndex.search("description", 20);
+	}
+
+	@Benchmark
+	public void saveReindexed() {
+		widgetRepository.save(Catalogs.widget(names[ThreadLocalRandom.current().nextInt(size)]));
+	}
+
+	private String number() {
+		String name = names[ThreadLocalRandom.current().nextInt(size)];
+		return name.substring(name.indexOf(' ') + 1);
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetPageDTO;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetPriceStatistics;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetSearchIndex;
+import com.talentreef.interviewquestions.takehome.services.WidgetResponseCache;
+import com.talentreef.interviewquestions.takehome.services.WidgetService;
+import com.talentreef.interviewquestions.takehome.services.WidgetValidator;
+
+/**
+ * DTO mapping in {@link WidgetService}: the full {@code getAllWidgets} listing and a
+ * 100-widget page, which is what paginated clients pay instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WidgetServiceBenchmark {
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	int size;
+
+	private WidgetService widgetService;
+
+	private WidgetQuery page;
+
+	private WidgetQuery pricePage;
+
+	@Setup(Level.Trial)
+	public void setUp() throws ReflectiveOperationException {
+		WidgetRepository widgetRepository = Catalogs.repository("heap", Catalogs.names(size));
+		// The service is normally built by Spring through its private constructor.
+		Constructor<WidgetService> constructor = WidgetService.class.getDeclaredConstructor(WidgetRepository.class, ObjectMapper.class,
+				WidgetValidator.class, WidgetResponseCache.class, WidgetSearchIndex.class, WidgetPriceStatistics.class,
+				MeterRegistry.class);
+		constructor.setAccessible(true);
+		ObjectMapper objectMapper = new ObjectMapper();
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WidgetResponseCache widgetResponseCache = new WidgetResponseCache(widgetRepository, objectMapper, new WidgetProperties(),
+				meterRegistry);
+		widgetService = constructor.newInstance(widgetRepository, objectMapper, new WidgetValidator(), widgetResponseCache,
+				new WidgetSearchIndex(widgetRepository, meterRegistry), new WidgetPriceStatistics(widgetRepository), meterRegistry);
+		page = WidgetQuery.builder().namePrefix("Widget 0").limit(100).build();
+		// The catalog's prices cluster around 19,300 (see Catalogs#widget), so this bound splits it.
+		pricePage = WidgetQuery.builder().sort(WidgetQuery.Sort.PRICE).minPriceCents(1_930_000L).limit(100).build();
+	}
+
+	@Benchmark
+	public List<WidgetDTO> getAllWidgets() {
+		return widgetService.getAllWidgets();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public List<WidgetDTO> getAllWidgetsContended() {
+		return widgetService.getAllWidgets();
+	}
+
+	@Benchmark
+	public byte[] getAllWidgetsJson() {
+		return widgetService.getAllWidgetsJson().body().get();
+	}
+
+	@Benchmark
+	public WidgetPageDTO findWidgetsPage() {
+		return widgetService.findWidgets(page, null);
+	}
+
+	@Benchmark
+	public WidgetPageDTO findWidgetsPricePage() {
+		return widgetService.findWidgets(pricePage, null);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public WidgetPageDTO findWidgetsPageContended() {
+		return widgetService.findWidgets(page, null);
+	}
+
+}
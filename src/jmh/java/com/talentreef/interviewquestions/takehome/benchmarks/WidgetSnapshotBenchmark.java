@@ -0,0 +1,65 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+
+/**
+ * What a write costs to keep full listings consistent: the snapshot backend, which copies
+ * the path to the widget in a persistent tree, against replacing a copy of the whole
+ * catalog list, as the repository once did on every write. Run with
+ * {@code -PjmhProfilers=gc} to compare the bytes allocated per write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WidgetSnapshotBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	private String[] names;
+
+	private WidgetRepository widgetRepository;
+
+	private volatile List<Widget> list;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		names = Catalogs.names(size);
+		widgetRepository = Catalogs.repository("snapshot", names);
+		list = new ArrayList<>(widgetRepository.findAll());
+	}
+
+	@Benchmark
+	public Widget saveSnapshot() {
+		return widgetRepository.save(Catalogs.widget(names[ThreadLocalRandom.current().nextInt(size)]));
+	}
+
+	@Benchmark
+	public List<Widget> saveCopyOnWriteList() {
+		int index = ThreadLocalRandom.current().nextInt(size);
+		List<Widget> copy = new ArrayList<>(list);
+		copy.set(index, Catalogs.widget(names[index]));
+		list = copy;
+		return copy;
+	}
+
+	@Benchmark
+	public List<Widget> findAllSnapshot() {
+		return widgetRepository.findAll();
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetPriceStatistics;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+
+/**
+ * Reading the {@link WidgetPriceStatistics} of catalogs of different sizes, and what
+ * keeping them current adds to a write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WidgetStatisticsBenchmark {
+
+	@Param({ "1000", "1000000" })
+	int size;
+
+	private String[] names;
+
+	private WidgetRepository widgetRepository;
+
+	private WidgetPriceStatistics widgetPriceStatistics;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		names = Catalogs.names(size);
+		widgetRepository = Catalogs.repository("heap", names);
+		widgetPriceStatistics = new WidgetPriceStatistics(widgetRepository);
+	}
+
+	@Benchmark
+	public WidgetPriceStatistics.Summary summary() {
+		return widgetPriceStatistics.summary();
+	}
+
+	/** Compare with WidgetRepositoryBenchmark.save, which has no statistics to update. */
+	@Benchmark
+	public Widget save() {
+		return widgetRepository.save(Catalogs.widget(names[ThreadLocalRandom.current().nextInt(size)]));
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.config.WidgetProperties.Persistence.FsyncPolicy;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetWriteAheadLog;
+
+/**
+ * What the write-ahead log costs: a save with each fsync policy against no journal at
+ * all, and recovering a catalog of {@code widgets} from the log alone or from a snapshot.
+ * The log is written to a temporary directory, so fsync costs what that file system
+ * charges for it.
+ */
+public class WidgetWriteAheadLogBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Journaled {
+
+		@Param({ "none", "always", "interval", "never" })
+		String fsync;
+
+		private Path directory;
+
+		private String[] names;
+
+		private WidgetRepository widgetRepository;
+
+		private WidgetWriteAheadLog log;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			directory = Files.createTempDirectory("widget-wal");
+			names = Catalogs.names(100_000);
+			// Filled before the log is attached, so setup does not fsync every widget.
+			widgetRepository = Catalogs.repository("heap", names);
+			if (!"none".equals(fsync)) {
+				log = new WidgetWriteAheadLog(widgetRepository, properties(directory, FsyncPolicy.valueOf(fsync.toUpperCase())));
+				log.start();
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws Exception {
+			if (log != null) {
+				log.close();
+			}
+			delete(directory);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Recovered {
+
+		@Param({ "1000000" })
+		int widgets;
+
+		@Param({ "log", "snapshot" })
+		String from;
+
+		private Path directory;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			directory = Files.createTempDirectory("widget-wal");
+			WidgetRepository widgetRepository = new WidgetRepository();
+			WidgetWriteAheadLog log = new WidgetWriteAheadLog(widgetRepository, properties(directory, FsyncPolicy.NEVER));
+			log.start();
+			for (String name : Catalogs.names(widgets)) {
+				widgetRepository.save(Catalogs.widget(name));
+			}
+			if ("snapshot".equals(from)) {
+				log.snapshot();
+			}
+			log.close();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			delete(directory);
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Widget save(Journaled state) {
+		return state.widgetRepository.save(Catalogs.widget(state.names[ThreadLocalRandom.current().nextInt(state.names.length)]));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public int recover(Recovered state) throws Exception {
+		WidgetRepository widgetRepository = new WidgetRepository();
+		WidgetWriteAheadLog log = new WidgetWriteAheadLog(widgetRepository, properties(state.directory, FsyncPolicy.NEVER));
+		log.start();
+		log.close();
+		return widgetRepository.count();
+	}
+
+	private static WidgetProperties properties(Path directory, FsyncPolicy fsync) {
+		WidgetProperties widgetProperties = new WidgetProperties();
+		widgetProperties.getPersistence().setDirectory(directory.toString());
+		widgetProperties.getPersistence().setFsync(fsync);
+		// Only the benchmark takes snapshots.
+		widgetProperties.getPersistence().setSnapshotInterval(Duration.ofDays(1));
+		widgetProperties.getPersistence().setSnapshotOnShutdown(false);
+		return widgetProperties;
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+}
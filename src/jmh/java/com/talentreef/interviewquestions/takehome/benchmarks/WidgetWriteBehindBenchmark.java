@@ -0,0 +1,91 @@
+package com.talentreef.interviewquestions.takehome.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetWriteBehind;
+
+/**
+ * How long the write-behind takes to flush {@code dirty} changed widgets to an embedded H2
+ * database, in memory or in a file, with JDBC batches of {@code batchSize}. Divide
+ * {@code dirty} by the score for widgets per second. The first flush inserts; the rest
+ * update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WidgetWriteBehindBenchmark {
+
+	@Param({ "10000" })
+	int dirty;
+
+	@Param({ "100", "1000" })
+	int batchSize;
+
+	@Param({ "mem", "file" })
+	String database;
+
+	private Path directory;
+
+	private String[] names;
+
+	private WidgetRepository widgetRepository;
+
+	private HikariDataSource dataSource;
+
+	private WidgetWriteBehind writeBehind;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("widget-write-behind");
+		String url = "mem".equals(database) ? "jdbc:h2:mem:widgets;DB_CLOSE_DELAY=-1"
+				: "jdbc:h2:file:" + directory.resolve("widgets") + ";DB_CLOSE_ON_EXIT=FALSE";
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(url);
+		dataSource.setUsername("sa");
+		WidgetProperties widgetProperties = new WidgetProperties();
+		// Only the benchmark flushes.
+		widgetProperties.getJdbc().setFlushInterval(Duration.ofDays(1));
+		widgetProperties.getJdbc().setFlushThreshold(Integer.MAX_VALUE);
+		widgetProperties.getJdbc().setBatchSize(batchSize);
+		names = Catalogs.names(dirty);
+		widgetRepository = new WidgetRepository();
+		writeBehind = new WidgetWriteBehind(widgetRepository, widgetProperties, dataSource, new SimpleMeterRegistry());
+		writeBehind.start();
+	}
+
+	@Setup(Level.Invocation)
+	public void change() {
+		for (String name : names) {
+			widgetRepository.save(Catalogs.widget(name));
+		}
+	}
+
+	@Benchmark
+	public int flush() {
+		return writeBehind.flush();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		writeBehind.close();
+		dataSource.close();
+	}
+
+}
@@ -0,0 +1,203 @@
+package com.talentreef.interviewquestions.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Closed-loop HTTP load generator for the widget API, for comparing the server's platform
+ * thread pool with virtual threads ({@code widgets.threads.virtual}) on the same workload.
+ *
+ * <p>It seeds {@code --widgets} widgets through the bulk endpoint, then keeps
+ * {@code --connections} requests in flight: each slot sends its next request as soon as
+ * the previous one finishes. A {@code --write-ratio} share of the requests are PUT
+ * updates and the rest GET a widget by name, both on random widgets. After
+ * {@code --warmup} the counters are reset, and after {@code --duration} more it prints
+ * throughput and latency percentiles. Latency is per request, from send to the end of the
+ * response; a closed loop does not count the time a request would have waited to be sent.
+ *
+ * <p>Options are {@code --name=value}: url (default http://localhost:9000), connections
+ * (10000), widgets (10000), write-ratio (0.1), warmup (15s), duration (60s) and label,
+ * which is echoed in the result line.
+ */
+public final class WidgetLoadTest {
+
+	private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+	private static final int SEED_BATCH = 1000;
+
+	private final HttpClient client;
+
+	private final ExecutorService callbacks;
+
+	private final URI baseUri;
+
+	private final int widgets;
+
+	private final double writeRatio;
+
+	private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+
+	private final LongAdder errors = new LongAdder();
+
+	private volatile boolean stopped;
+
+	private CountDownLatch finished;
+
+	private WidgetLoadTest(URI baseUri, int widgets, double writeRatio) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		this.callbacks = Executors.newFixedThreadPool(threads);
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(30))
+				.executor(callbacks)
+				.build();
+		this.baseUri = baseUri;
+		this.widgets = widgets;
+		this.writeRatio = writeRatio;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parse(args);
+		URI baseUri = URI.create(options.getOrDefault("url", "http://localhost:9000"));
+		int connections = Integer.parseInt(options.getOrDefault("connections", "10000"));
+		int widgets = Integer.parseInt(options.getOrDefault("widgets", "10000"));
+		double writeRatio = Double.parseDouble(options.getOrDefault("write-ratio", "0.1"));
+		Duration warmup = duration(options.getOrDefault("warmup", "15s"));
+		Duration duration = duration(options.getOrDefault("duration", "60s"));
+		String label = options.getOrDefault("label", "run");
+
+		WidgetLoadTest loadTest = new WidgetLoadTest(baseUri, widgets, writeRatio);
+		loadTest.seed();
+		System.out.printf("%s: %d connections, %d widgets, %.0f%% writes against %s%n", label, connections, widgets,
+				writeRatio * 100, baseUri);
+
+		loadTest.start(connections);
+		Thread.sleep(warmup.toMillis());
+		loadTest.reset();
+		long start = System.nanoTime();
+		Thread.sleep(duration.toMillis());
+		Histogram result = loadTest.latencies.copy();
+		long errorCount = loadTest.errors.sum();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		loadTest.stop();
+
+		System.out.printf(Locale.ROOT,
+				"%s requests=%d throughput=%.0f/s p50=%.2fms p90=%.2fms p99=%.2fms p999=%.2fms max=%.2fms errors=%d%n",
+				label, result.getTotalCount(), result.getTotalCount() / seconds, millis(result.getValueAtPercentile(50)),
+				millis(result.getValueAtPercentile(90)), millis(result.getValueAtPercentile(99)),
+				millis(result.getValueAtPercentile(99.9)), millis(result.getMaxValue()), errorCount);
+	}
+
+	/** Upserts the widgets the load runs against, so every GET and PUT finds one. */
+	private void seed() throws Exception {
+		for (int from = 0; from < widgets; from += SEED_BATCH) {
+			StringBuilder body = new StringBuilder("[");
+			for (int i = from; i < Math.min(from + SEED_BATCH, widgets); i++) {
+				body.append(i == from ? "" : ",")
+						.append("{\"op\":\"upsert\",\"name\":\"").append(name(i))
+						.append("\",\"description\":\"Seeded for the load test\",\"price\":10.00}");
+			}
+			HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/v1/widgets/_bulk"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+					.build();
+			HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+			if (response.statusCode() != 200) {
+				throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+			}
+		}
+	}
+
+	private void start(int connections) {
+		finished = new CountDownLatch(connections);
+		for (int i = 0; i < connections; i++) {
+			sendNext();
+		}
+	}
+
+	private void reset() {
+		latencies.reset();
+		errors.reset();
+	}
+
+	private void stop() throws InterruptedException {
+		stopped = true;
+		if (!finished.await(2, TimeUnit.MINUTES)) {
+			System.out.printf("%d requests still in flight at exit%n", finished.getCount());
+		}
+		callbacks.shutdown();
+	}
+
+	/** Sends one request, and from its completion the slot's next one, until stopped. */
+	private void sendNext() {
+		if (stopped) {
+			finished.countDown();
+			return;
+		}
+		HttpRequest request = nextRequest();
+		long start = System.nanoTime();
+		client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenCompleteAsync((response, failure) -> {
+			if (failure != null || response.statusCode() >= 400) {
+				errors.increment();
+			} else {
+				latencies.recordValue(Math.min(MAX_LATENCY_MICROS, (System.nanoTime() - start) / 1000));
+			}
+			sendNext();
+		}, callbacks);
+	}
+
+	private HttpRequest nextRequest() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		URI uri = baseUri.resolve("/v1/widgets/" + name(random.nextInt(widgets)).replace(" ", "%20"));
+		if (random.nextDouble() >= writeRatio) {
+			return HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+		}
+		String body = String.format(Locale.ROOT, "{\"description\":\"Updated by the load test\",\"price\":%d.%02d}",
+				random.nextInt(1, 1000), random.nextInt(100));
+		return HttpRequest.newBuilder(uri)
+				.timeout(Duration.ofSeconds(60))
+				.header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+				.build();
+	}
+
+	private static String name(int i) {
+		return String.format("Load Widget %06d", i);
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Expected --name=value but got " + arg);
+			}
+			options.put(arg.substring(2, separator), arg.substring(separator + 1));
+		}
+		return options;
+	}
+
+	private static Duration duration(String value) {
+		return Duration.parse("PT" + value.toUpperCase(Locale.ROOT));
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+
+}
@@ -1,19 +1,16 @@
 package com.talentreef.interviewquestions;
 
+import com.talentreef.interviewquestions.config.StartupReport;
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.boot.autoconfigure.domain.EntityScan;
-import org.springframework.context.annotation.ComponentScan;
 
 @SpringBootApplication
-@ComponentScan(basePackages = "com.talentreef")
-@EntityScan(basePackages = "com.talentreef")
-@EnableAutoConfiguration
 public class InterviewQuestionsApplication {
 
   public static void main(String[] args) {
-    SpringApplication.run(InterviewQuestionsApplication.class, args);
+    SpringApplication application = new SpringApplication(InterviewQuestionsApplication.class);
+    StartupReport.install(application, args);
+    application.run(args);
   }
 
 }
@@ -1,17 +1,25 @@
 package com.talentreef.interviewquestions;
 
+import com.talentreef.interviewquestions.takehome.services.WidgetConflictException;
+import com.talentreef.interviewquestions.takehome.services.WidgetValidationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.util.List;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
 
 @RestControllerAdvice
+@Profile("!reactive")
 @Slf4j
 public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
 
@@ -29,4 +37,26 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
     return ResponseEntity.badRequest().body(errorList);
   }
 
+  @ExceptionHandler(WidgetValidationException.class)
+  protected ResponseEntity<Object> handleWidgetValidation(WidgetValidationException ex) {
+    return ResponseEntity.badRequest().body(ex.getErrors());
+  }
+
+  @ExceptionHandler(WidgetConflictException.class)
+  protected ResponseEntity<Object> handleConflict(WidgetConflictException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(List.of(ex.getMessage()));
+  }
+
+  @ExceptionHandler(OptimisticLockException.class)
+  protected ResponseEntity<Object> handleOptimisticLock(OptimisticLockException ex) {
+    // Only thrown when If-Match names a version that is no longer current.
+    log.info("Rejected conflicting update: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(List.of(ex.getMessage()));
+  }
+
+  @ExceptionHandler(EntityNotFoundException.class)
+  protected ResponseEntity<Object> handleEntityNotFound(EntityNotFoundException ex) {
+    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of(ex.getMessage()));
+  }
+
 }
@@ -0,0 +1,41 @@
+package com.talentreef.interviewquestions.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+
+import com.talentreef.interviewquestions.takehome.controllers.ReactiveWidgetAdmissionFilter;
+import com.talentreef.interviewquestions.takehome.controllers.WidgetAdmissionFilter;
+import com.talentreef.interviewquestions.takehome.services.WidgetConcurrencyLimiter;
+import com.talentreef.interviewquestions.takehome.services.WidgetRateLimiter;
+
+/**
+ * Puts admission control right after CORS, so rejections still carry CORS headers, and
+ * ahead of the other widget filters, so a rejected request costs as little as possible.
+ */
+@Configuration
+public class AdmissionConfig {
+
+    static final int ORDER = CorsConfig.ORDER + 1;
+
+    @Bean
+    @Profile("!reactive")
+    FilterRegistrationBean<WidgetAdmissionFilter> widgetAdmissionFilter(WidgetRateLimiter rateLimiter,
+            WidgetConcurrencyLimiter concurrencyLimiter, WidgetProperties widgetProperties) {
+        FilterRegistrationBean<WidgetAdmissionFilter> registration = new FilterRegistrationBean<>(new WidgetAdmissionFilter(
+                rateLimiter, concurrencyLimiter, widgetProperties.getAdmission().getRateLimit().getKeyHeader()));
+        registration.setOrder(ORDER);
+        return registration;
+    }
+
+    @Bean
+    @Profile("reactive")
+    @Order(ORDER)
+    ReactiveWidgetAdmissionFilter reactiveWidgetAdmissionFilter(WidgetRateLimiter rateLimiter,
+            WidgetConcurrencyLimiter concurrencyLimiter, WidgetProperties widgetProperties) {
+        return new ReactiveWidgetAdmissionFilter(rateLimiter, concurrencyLimiter,
+                widgetProperties.getAdmission().getRateLimit().getKeyHeader());
+    }
+}
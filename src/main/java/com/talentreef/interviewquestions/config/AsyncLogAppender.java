@@ -0,0 +1,287 @@
+package com.talentreef.interviewquestions.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logback appender that hands events to a writer thread through a bounded ring, so
+ * logging threads neither encode JSON nor wait on stdout.
+ *
+ * <p>A logging thread claims the next slot of the ring with a compare-and-set on its
+ * tail, stores the event and publishes it by advancing the slot's sequence number; the
+ * writer frees the slot the same way once it has taken the event. Nobody takes a lock.
+ * The writer drains every event published so far, encodes them one after the other into
+ * a reused buffer with a {@link StreamingJsonEncoder}, and writes and flushes the batch
+ * at once, so a burst of events costs one write.
+ *
+ * <p>When fewer than {@code discardingThreshold} slots are free (a fifth of the ring by
+ * default), events at {@code discardLevel} (INFO) or below are dropped. More severe events
+ * wait for a free slot, or are dropped as well with {@code neverBlock}. Dropped events
+ * are counted by level, and published as the {@code logback.events.dropped} metric.
+ */
+public class AsyncLogAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    /** Longest a writer with nothing to do sleeps before it looks at the ring again. */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** Pause of a logging thread waiting for a free slot. */
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /** A batch is written out early once its buffer holds this much. */
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+
+    private static final Level[] LEVELS = { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR };
+
+    private StreamingJsonEncoder encoder;
+
+    private OutputStream outputStream = System.out;
+
+    private int ringBufferSize = 8192;
+
+    private int discardingThreshold = -1;
+
+    private Level discardLevel = Level.INFO;
+
+    private boolean neverBlock;
+
+    private ILoggingEvent[] events;
+
+    /** Sequence number each slot expects next: its tail to be written, or its head plus one to be read. */
+    private AtomicLongArray sequences;
+
+    private int mask;
+
+    private int freeThreshold;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Next event the writer takes. Written by the writer only. */
+    private volatile long head;
+
+    private final LongAdder[] dropped = new LongAdder[LEVELS.length];
+
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(MAX_BATCH_BYTES);
+
+    private Thread writer;
+
+    /** Set by the writer before it parks, so logging threads know to wake it. */
+    private volatile boolean idle;
+
+    public AsyncLogAppender() {
+        for (int i = 0; i < dropped.length; i++) {
+            dropped[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + name + "].");
+            return;
+        }
+        if (ringBufferSize < 2 || ringBufferSize > 1 << 24) {
+            addError("ringBufferSize must be between 2 and 2^24: " + ringBufferSize);
+            return;
+        }
+        int slots = Integer.highestOneBit(ringBufferSize) == ringBufferSize ? ringBufferSize : Integer.highestOneBit(ringBufferSize) << 1;
+        events = new ILoggingEvent[slots];
+        sequences = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            sequences.set(i, i);
+        }
+        mask = slots - 1;
+        freeThreshold = discardingThreshold < 0 ? slots / 5 : discardingThreshold;
+        writer = new Thread(this::write, "async-log-writer-" + name);
+        writer.setDaemon(true);
+        super.start();
+        writer.start();
+    }
+
+    /** Stops taking events and waits up to a second for the writer to write out those it holds. */
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int level = levelIndex(event.getLevel());
+        boolean discardable = event.getLevel().toInt() <= discardLevel.toInt();
+        if (discardable && free() <= freeThreshold) {
+            dropped[level].increment();
+            return;
+        }
+        event.prepareForDeferredProcessing();
+        while (!offer(event)) {
+            if (discardable || neverBlock || !isStarted()) {
+                dropped[level].increment();
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private boolean offer(ILoggingEvent event) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long expected = sequences.get(slot);
+            if (expected < position) {
+                return false; // the writer has not taken the event a lap ago yet
+            }
+            if (expected == position && tail.compareAndSet(position, position + 1)) {
+                events[slot] = event;
+                sequences.set(slot, position + 1);
+                return true;
+            }
+        }
+    }
+
+    private void write() {
+        while (true) {
+            boolean running = isStarted();
+            if (drain() > 0) {
+                continue;
+            }
+            if (!running) {
+                return;
+            }
+            idle = true;
+            if (!published()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            idle = false;
+        }
+    }
+
+    /** Encodes and writes every published event; returns how many there were. */
+    private int drain() {
+        int drained = 0;
+        long position = head;
+        while (true) {
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1) {
+                break;
+            }
+            ILoggingEvent event = events[slot];
+            events[slot] = null;
+            sequences.set(slot, position + events.length);
+            head = ++position;
+            drained++;
+            try {
+                encoder.encode(event, batch);
+            } catch (IOException | RuntimeException e) {
+                addError("Could not encode a log event", e);
+            }
+            if (batch.size() >= MAX_BATCH_BYTES) {
+                flush();
+            }
+        }
+        if (batch.size() > 0) {
+            flush();
+        }
+        return drained;
+    }
+
+    private void flush() {
+        try {
+            batch.writeTo(outputStream);
+            outputStream.flush();
+        } catch (IOException e) {
+            addError("Could not write log events", e);
+        }
+        batch.reset();
+    }
+
+    private boolean published() {
+        long position = head;
+        return sequences.get((int) position & mask) == position + 1;
+    }
+
+    private int free() {
+        return events.length - (int) (tail.get() - head);
+    }
+
+    private static int levelIndex(Level level) {
+        for (int i = LEVELS.length - 1; i > 0; i--) {
+            if (level.toInt() >= LEVELS[i].toInt()) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /** Events of {@code level} dropped since the appender started. */
+    public long getDropped(Level level) {
+        return dropped[levelIndex(level)].sum();
+    }
+
+    /** Events waiting for the writer. */
+    public int getQueued() {
+        return isStarted() ? events.length - free() : 0;
+    }
+
+    public StreamingJsonEncoder getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(StreamingJsonEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    /** Where the events are written; standard output by default. */
+    public void setOutputStream(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    public int getRingBufferSize() {
+        return ringBufferSize;
+    }
+
+    /** Events the ring holds, rounded up to a power of two. */
+    public void setRingBufferSize(int ringBufferSize) {
+        this.ringBufferSize = ringBufferSize;
+    }
+
+    /** Free slots below which events at {@code discardLevel} or below are dropped; a fifth of the ring when negative. */
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public void setDiscardLevel(Level discardLevel) {
+        this.discardLevel = discardLevel;
+    }
+
+    /** Drop any event that finds the ring full instead of waiting for a free slot. */
+    public void setNeverBlock(boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+
+    /** The levels events are counted by when dropped. */
+    public static Level[] levels() {
+        return LEVELS.clone();
+    }
+
+}
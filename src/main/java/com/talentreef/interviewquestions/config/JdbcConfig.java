@@ -0,0 +1,35 @@
+package com.talentreef.interviewquestions.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * The database behind {@code widgets.jdbc}. Spring Boot's own DataSource is switched off,
+ * so an application that does not copy its catalog to a database opens no pool.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "widgets.jdbc", name = "enabled", havingValue = "true")
+public class JdbcConfig {
+
+    @Bean
+    DataSource widgetDataSource(WidgetProperties widgetProperties) {
+        WidgetProperties.Jdbc settings = widgetProperties.getJdbc();
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(settings.getUrl())
+                .username(settings.getUsername())
+                .password(settings.getPassword())
+                .build();
+        dataSource.setPoolName("widget-jdbc");
+        // One connection for the flusher, one for the health check.
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+
+}
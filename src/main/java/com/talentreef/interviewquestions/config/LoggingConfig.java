@@ -0,0 +1,76 @@
+package com.talentreef.interviewquestions.config;
+
+import java.util.Iterator;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+
+import com.talentreef.interviewquestions.takehome.controllers.ReactiveWidgetAccessLogFilter;
+import com.talentreef.interviewquestions.takehome.controllers.WidgetAccessLogFilter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Puts the access log ahead of every other filter, so it times and records requests that
+ * CORS or admission control turn away, and publishes what the {@link AsyncLogAppender}s of
+ * the async-logging profile drop and hold.
+ */
+@Configuration
+public class LoggingConfig {
+
+    static final int ORDER = CorsConfig.ORDER - 1;
+
+    @Bean
+    @Profile("!reactive")
+    @ConditionalOnProperty(prefix = "widgets.logging", name = "access-log", havingValue = "true")
+    FilterRegistrationBean<WidgetAccessLogFilter> widgetAccessLogFilter() {
+        FilterRegistrationBean<WidgetAccessLogFilter> registration = new FilterRegistrationBean<>(new WidgetAccessLogFilter());
+        registration.setOrder(ORDER);
+        return registration;
+    }
+
+    @Bean
+    @Profile("reactive")
+    @Order(ORDER)
+    @ConditionalOnProperty(prefix = "widgets.logging", name = "access-log", havingValue = "true")
+    ReactiveWidgetAccessLogFilter reactiveWidgetAccessLogFilter() {
+        return new ReactiveWidgetAccessLogFilter();
+    }
+
+    @Bean
+    MeterBinder asyncLogAppenderMetrics() {
+        return registry -> {
+            LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            for (Logger logger : context.getLoggerList()) {
+                for (Iterator<Appender<ILoggingEvent>> appenders = logger.iteratorForAppenders(); appenders.hasNext();) {
+                    if (!(appenders.next() instanceof AsyncLogAppender appender)) {
+                        continue;
+                    }
+                    for (Level level : AsyncLogAppender.levels()) {
+                        FunctionCounter.builder("logback.events.dropped", appender, dropping -> dropping.getDropped(level))
+                                .description("Log events the async appender dropped because its ring was (nearly) full")
+                                .tag("appender", appender.getName())
+                                .tag("level", level.levelStr.toLowerCase())
+                                .register(registry);
+                    }
+                    Gauge.builder("logback.events.queued", appender, AsyncLogAppender::getQueued)
+                            .description("Log events waiting for the async appender's writer")
+                            .tag("appender", appender.getName())
+                            .register(registry);
+                }
+            }
+        };
+    }
+}
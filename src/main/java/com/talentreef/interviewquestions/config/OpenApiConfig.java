@@ -3,7 +3,13 @@ package com.talentreef.interviewquestions.config;
 import org.springdoc.core.GroupedOpenApi;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
+/**
+ * Documentation only: nothing on the request path needs the group, so it is created when
+ * springdoc first asks for it rather than while the application starts.
+ */
+@Lazy
 @Configuration
 public class OpenApiConfig {
 
@@ -0,0 +1,22 @@
+package com.talentreef.interviewquestions.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Serves the reactive API from Reactor Netty. Tomcat is also on the classpath for the
+ * servlet API, and Spring Boot would otherwise prefer it, running WebFlux on a servlet
+ * container instead of on event loops.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+}
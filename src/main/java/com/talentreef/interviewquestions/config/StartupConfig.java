@@ -0,0 +1,44 @@
+package com.talentreef.interviewquestions.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Startup support: a training run for class data sharing, and the beans that must not wait
+ * for their first use when {@code spring.main.lazy-initialization} is set.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    private static final String WIDGET_PACKAGE = "com.talentreef.interviewquestions.takehome.";
+
+    /**
+     * Keeps the catalog, its indexes, listeners and filters, replication and the
+     * controllers eager, so they are recovered, registered and listening before the first
+     * request rather than created by it. Lazy initialization then only defers framework
+     * beans, which still moves their cost onto the first requests.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter widgetBeansStayEager() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && beanType.getName().startsWith(WIDGET_PACKAGE);
+    }
+
+    /**
+     * Ends a training run once it is ready, so {@code -XX:ArchiveClassesAtExit} records the
+     * classes startup loaded. Checked when the event arrives rather than with a condition,
+     * which Spring AOT would evaluate once, at build time.
+     */
+    @Bean
+    ApplicationListener<ApplicationReadyEvent> exitWhenReady(WidgetProperties widgetProperties) {
+        return event -> {
+            if (widgetProperties.getStartup().isExitWhenReady()) {
+                System.exit(SpringApplication.exit(event.getApplicationContext()));
+            }
+        };
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.talentreef.interviewquestions.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.metrics.StartupStep;
+
+/**
+ * Records every step of startup when {@code widgets.startup.report} is set and, once the
+ * application is ready, logs how long it took and its slowest beans. A bean's time leaves
+ * out the beans it depends on, which are counted on their own. With
+ * {@code widgets.startup.report-file}, the report is also written as JSON, so builds can
+ * compare theirs; {@code /actuator/startup} serves the whole timeline.
+ */
+@Slf4j
+public class StartupReport implements ApplicationListener<ApplicationReadyEvent>, Ordered {
+
+    private static final String PROPERTY = "widgets.startup.report";
+
+    private static final int CAPACITY = 10_000;
+
+    private static final int LOGGED_BEANS = 10;
+
+    private final BufferingApplicationStartup startup;
+
+    private StartupReport(BufferingApplicationStartup startup) {
+        this.startup = startup;
+    }
+
+    /**
+     * Has {@code application} record its startup when the property is set among
+     * {@code args}, the system properties or the environment; application.yml is only read
+     * once recording would have to have started.
+     */
+    public static void install(SpringApplication application, String[] args) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        if (environment.getProperty(PROPERTY, Boolean.class, false)) {
+            BufferingApplicationStartup startup = new BufferingApplicationStartup(CAPACITY);
+            application.setApplicationStartup(startup);
+            application.addListeners(new StartupReport(startup));
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        List<Map<String, Object>> beans = beans(startup.getBufferedTimeline().getEvents());
+        long startedMillis = event.getTimeTaken().toMillis();
+        log.info("Started in {} ms; slowest beans: {}", startedMillis, beans.stream()
+                .limit(LOGGED_BEANS)
+                .map(bean -> bean.get("bean") + " " + bean.get("millis") + " ms")
+                .collect(Collectors.joining(", ")));
+
+        String file = event.getApplicationContext().getEnvironment().getProperty(PROPERTY + "-file");
+        if (file != null) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("startedMillis", startedMillis);
+            report.put("beans", beans);
+            try {
+                Path path = Paths.get(file).toAbsolutePath();
+                Files.createDirectories(path.getParent());
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(path.toFile(), report);
+            } catch (IOException e) {
+                log.warn("Could not write the startup report to {}", file, e);
+            }
+        }
+    }
+
+    /** Runs before listeners that stop the application once it is ready. */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /** Each instantiated bean with the time spent in it but not in its dependencies, slowest first. */
+    private static List<Map<String, Object>> beans(List<TimelineEvent> events) {
+        Map<Long, Long> ownNanos = new HashMap<>();
+        for (TimelineEvent event : events) {
+            ownNanos.merge(event.getStartupStep().getId(), event.getDuration().toNanos(), Long::sum);
+            Long parent = event.getStartupStep().getParentId();
+            if (parent != null) {
+                ownNanos.merge(parent, -event.getDuration().toNanos(), Long::sum);
+            }
+        }
+        List<TimelineEvent> instantiations = new ArrayList<>();
+        for (TimelineEvent event : events) {
+            if (event.getStartupStep().getName().equals("spring.beans.instantiate")) {
+                instantiations.add(event);
+            }
+        }
+        instantiations.sort(Comparator.comparingLong(event -> -ownNanos.get(event.getStartupStep().getId())));
+        List<Map<String, Object>> beans = new ArrayList<>();
+        for (TimelineEvent event : instantiations) {
+            Map<String, Object> bean = new LinkedHashMap<>();
+            bean.put("bean", beanName(event.getStartupStep()));
+            bean.put("millis", ownNanos.get(event.getStartupStep().getId()) / 1_000_000);
+            bean.put("withDependenciesMillis", event.getDuration().toMillis());
+            beans.add(bean);
+        }
+        return beans;
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals("beanName")) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.talentreef.interviewquestions.config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import net.logstash.logback.encoder.LogstashEncoder;
+
+/**
+ * {@link LogstashEncoder} that can also write an event straight into a stream, so
+ * {@link AsyncLogAppender} encodes a whole batch into one reused buffer instead of
+ * allocating a buffer and a byte array for each event. Produces the same JSON lines.
+ */
+public class StreamingJsonEncoder extends LogstashEncoder {
+
+    private byte[] lineSeparatorBytes;
+
+    @Override
+    public void start() {
+        super.start();
+        String lineSeparator = getLineSeparator();
+        lineSeparatorBytes = lineSeparator == null ? new byte[0] : lineSeparator.getBytes(Charset.forName(getEncoding()));
+    }
+
+    /**
+     * Appends the event's JSON and the line separator to {@code out}. The JSON generator
+     * closes the stream it writes to, so {@code out} has to stay usable once closed, as a
+     * {@link java.io.ByteArrayOutputStream} does.
+     */
+    public void encode(ILoggingEvent event, OutputStream out) throws IOException {
+        getFormatter().writeEventToOutputStream(event, out);
+        out.write(lineSeparatorBytes);
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.talentreef.interviewquestions.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs request handling on virtual threads when {@code widgets.threads.virtual} is set.
+ *
+ * <p>Tomcat hands each request to a new virtual thread instead of its worker pool, so
+ * {@code server.tomcat.threads.max} no longer caps concurrency and
+ * {@code server.tomcat.max-connections} becomes the limit. Spring MVC uses the same
+ * executor for asynchronous work such as {@code StreamingResponseBody} exports.
+ *
+ * <p>The widget code waits on {@code ReentrantLock}s and futures rather than monitors, so
+ * a blocked request unmounts from its carrier thread instead of pinning it. Virtual
+ * threads need Java 21 (build with {@code -PjavaVersion=21}); they are created
+ * reflectively so the code still compiles for Java 17, and startup fails on a runtime
+ * without them.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "widgets.threads", name = "virtual", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    private static final String THREAD_NAME_PREFIX = "http-vt-";
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        return newVirtualThreadPerTaskExecutor(THREAD_NAME_PREFIX);
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncSupport(ExecutorService virtualThreadExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+            }
+        };
+    }
+
+    /**
+     * {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())},
+     * written reflectively.
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new IllegalStateException("widgets.threads.virtual needs Java 21 or later, but this is Java "
+                    + Runtime.version(), e);
+        } catch (InvocationTargetException e) {
+            // Java 19 and 20 only have virtual threads as a preview feature.
+            throw new IllegalStateException("Virtual threads are not available on Java " + Runtime.version(), e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.talentreef.interviewquestions.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(WidgetProperties.class)
+public class WidgetConfig {
+}
@@ -0,0 +1,82 @@
+package com.talentreef.interviewquestions.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talentreef.interviewquestions.takehome.services.WidgetFormat;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Reads and writes request and response bodies in the binary {@link WidgetFormat}s with
+ * the same Jackson configuration as JSON. Spring MVC would register Smile and CBOR
+ * converters of its own, with default mappers, and WebFlux has no CBOR codec by default.
+ * Its CBOR encoder only encodes single values, so it is handed a {@link Mono} as one; the
+ * controllers never answer with a {@link Flux} in CBOR.
+ */
+@Configuration(proxyBeanMethods = false)
+public class WidgetFormatConfig {
+
+    @Bean
+    @Profile("!reactive")
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(WidgetFormat.SMILE.mapper(objectMapper));
+    }
+
+    @Bean
+    @Profile("!reactive")
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(WidgetFormat.CBOR.mapper(objectMapper));
+    }
+
+    @Bean
+    @Profile("reactive")
+    public CodecCustomizer widgetFormatCodecCustomizer(ObjectMapper objectMapper) {
+        ObjectMapper smileMapper = WidgetFormat.SMILE.mapper(objectMapper);
+        ObjectMapper cborMapper = WidgetFormat.CBOR.mapper(objectMapper);
+        // Without media types, these constructors fall back to JSON's.
+        MediaType smile = WidgetFormat.SMILE.mediaType();
+        MediaType cbor = WidgetFormat.CBOR.mediaType();
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, smile));
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, smile));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, cbor));
+            configurer.customCodecs().register(new SingleValueCborEncoder(cborMapper, cbor));
+        };
+    }
+
+    /** Encodes a {@link Mono} through {@link #encodeValue}, where the base class refuses any publisher. */
+    private static final class SingleValueCborEncoder extends Jackson2CborEncoder {
+
+        SingleValueCborEncoder(ObjectMapper mapper, MediaType mediaType) {
+            super(mapper, mediaType);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono<?> mono) {
+                return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+
+    }
+
+}
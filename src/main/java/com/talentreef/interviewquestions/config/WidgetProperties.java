@@ -0,0 +1,312 @@
+package com.talentreef.interviewquestions.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Tuning knobs for the widget API, bound from the {@code widgets.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "widgets")
+public class WidgetProperties {
+
+    private final Bulk bulk = new Bulk();
+
+    private final Persistence persistence = new Persistence();
+
+    private final Storage storage = new Storage();
+
+    private final Cache cache = new Cache();
+
+    private final Threads threads = new Threads();
+
+    private final Changes changes = new Changes();
+
+    private final Replication replication = new Replication();
+
+    private final Admission admission = new Admission();
+
+    private final Startup startup = new Startup();
+
+    private final Logging logging = new Logging();
+
+    private final Jdbc jdbc = new Jdbc();
+
+    @Data
+    public static class Bulk {
+
+        /** Default mode of {@code POST /v1/widgets/_bulk} when the request does not choose one. */
+        private boolean atomic = false;
+
+        /** Number of operations applied per repository batch in best-effort mode. */
+        private int chunkSize = 1000;
+
+        /** Largest atomic batch accepted; an atomic batch is held in memory until it is applied. */
+        private int maxAtomicOperations = 10_000;
+    }
+
+    @Data
+    public static class Persistence {
+
+        public enum FsyncPolicy {
+            /** Every write waits until its log record has been forced to disk (group commit). */
+            ALWAYS,
+            /** The log is forced every {@code fsync-interval}; a crash can lose that much. */
+            INTERVAL,
+            /** The log is never forced explicitly; durability is up to the operating system. */
+            NEVER
+        }
+
+        /** Keep a write-ahead log and snapshots so the catalog survives restarts. */
+        private boolean enabled = false;
+
+        /** Directory holding the log segments and snapshots. */
+        private String directory = "data";
+
+        private FsyncPolicy fsync = FsyncPolicy.ALWAYS;
+
+        private Duration fsyncInterval = Duration.ofMillis(50);
+
+        /** How often a snapshot is taken so the log can be truncated and replay stays short. */
+        private Duration snapshotInterval = Duration.ofMinutes(10);
+
+        private boolean snapshotOnShutdown = true;
+
+        /**
+         * Recover the catalog on a thread of its own while the rest of the application starts;
+         * the web server still only starts once the catalog is loaded.
+         */
+        private boolean recoverInBackground = false;
+    }
+
+    @Data
+    public static class Storage {
+
+        public enum Backend {
+            /** Widgets are ordinary objects on the heap. */
+            HEAP,
+            /** Widgets are packed into off-heap buffers, memory-mapped when a directory is set. */
+            MAPPED,
+            /** Widgets are held in a persistent tree, so full listings are consistent snapshots. */
+            SNAPSHOT
+        }
+
+        private Backend backend = Backend.HEAP;
+
+        /**
+         * Directory for the files backing the mapped backend; without one it uses anonymous
+         * direct buffers. The files are scratch space, not persistence.
+         */
+        private String directory;
+
+        /** Size of each buffer (or file) the mapped backend allocates; at most 1GB. */
+        private DataSize chunkSize = DataSize.ofMegabytes(64);
+    }
+
+    @Data
+    public static class Cache {
+
+        /** Total size of the serialized single-widget responses kept in memory. */
+        private DataSize maxBytes = DataSize.ofMegabytes(64);
+
+        /** Largest serialized full listing that is kept; bigger listings are rebuilt on each request. */
+        private DataSize maxListBytes = DataSize.ofMegabytes(16);
+
+        /**
+         * Serialize each widget when it is written and keep the JSON of the whole catalog, so
+         * reads, the listing and the export only copy bytes. Costs a serialization per write
+         * and the catalog's JSON on the heap; single-widget entries then bypass the bounded cache.
+         */
+        private boolean precompute = false;
+    }
+
+    @Data
+    public static class Threads {
+
+        /**
+         * Handle requests on virtual threads instead of Tomcat's worker pool. Needs Java 21;
+         * startup fails on older runtimes.
+         */
+        private boolean virtual = false;
+    }
+
+    @Data
+    public static class Changes {
+
+        /**
+         * Number of recent mutations kept for {@code GET /v1/widgets/changes}, rounded up to a
+         * power of two. A subscriber that falls further behind is told to reload the catalog.
+         */
+        private int capacity = 65_536;
+
+        /** How often an idle change stream sends a comment, so proxies keep the connection open. */
+        private Duration heartbeat = Duration.ofSeconds(15);
+    }
+
+    @Data
+    public static class Replication {
+
+        public enum Role {
+            /** The node neither ships nor follows a change log. */
+            NONE,
+            /** The node takes writes and ships its change log to followers on {@code port}. */
+            LEADER,
+            /** The node applies the leader's change log, serves reads, and redirects writes. */
+            FOLLOWER
+        }
+
+        private Role role = Role.NONE;
+
+        /** Port the leader serves the change log on. {@code 0} picks a free port. */
+        private int port = 9100;
+
+        /** {@code host:port} of the leader's change log; followers only. */
+        private String leader;
+
+        /**
+         * Base URL of the leader's API, such as {@code http://leader:9000}, where followers
+         * redirect writes with 307. Without one, followers reject writes with 503.
+         */
+        private String leaderUrl;
+
+        /** How long a follower holds a read that asks for a newer {@code X-Widget-Sequence} before answering 503. */
+        private Duration readTimeout = Duration.ofSeconds(2);
+
+        /**
+         * How often an idle leader tells its followers it is still there. A follower that hears
+         * nothing for three times as long reconnects.
+         */
+        private Duration heartbeat = Duration.ofSeconds(1);
+
+        /** Pause before a follower reconnects after losing the leader. */
+        private Duration reconnectDelay = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Admission {
+
+        private final RateLimit rateLimit = new RateLimit();
+
+        private final Concurrency concurrency = new Concurrency();
+
+        @Data
+        public static class RateLimit {
+
+            private boolean enabled = false;
+
+            /** Requests per second each client may sustain. */
+            private double rate = 50;
+
+            /** Requests a client may make at once after being idle. */
+            private int burst = 100;
+
+            /** Requests a full listing or export counts as, since each one copies the whole catalog. */
+            private int listCost = 10;
+
+            /** Header carrying the client's API key; clients without one are limited by IP address. */
+            private String keyHeader = "X-Api-Key";
+
+            /**
+             * Buckets clients are hashed into, 8 bytes each. Clients that share a bucket share a
+             * limit, so keep this well above the number of active clients.
+             */
+            private int buckets = 65536;
+        }
+
+        @Data
+        public static class Concurrency {
+
+            private boolean enabled = false;
+
+            /** Requests in flight allowed at startup, before latency has been measured. */
+            private int initialLimit = 64;
+
+            private int minLimit = 8;
+
+            private int maxLimit = 1024;
+
+            /**
+             * How much slower than usual requests may get before the limit shrinks; {@code 2}
+             * lets latency double.
+             */
+            private double tolerance = 2;
+
+            /** How often the limit is adjusted to the latency measured since the last adjustment. */
+            private Duration window = Duration.ofSeconds(1);
+        }
+    }
+
+    @Data
+    public static class Startup {
+
+        /**
+         * Log the slowest beans once started and serve the whole startup timeline on
+         * {@code /actuator/startup}. Read before application.yml, so it has to be given as an
+         * argument, system property or environment variable.
+         */
+        private boolean report = false;
+
+        /** File the startup report is also written to as JSON, to compare across builds. */
+        private String reportFile;
+
+        /** Stop as soon as the application is ready, for training runs that record a CDS archive. */
+        private boolean exitWhenReady = false;
+    }
+
+    @Data
+    public static class Logging {
+
+        /** Log a line per widget API request on the {@code widgets.access} logger. */
+        private boolean accessLog = false;
+
+        // The rest is read by logback-spring.xml in the async-logging profile.
+
+        /** Log events the async appender holds for its writer, rounded up to a power of two. */
+        private int ringBufferSize = 8192;
+
+        /**
+         * Events at this level or below are dropped once less than a fifth of the ring is
+         * free; more severe ones wait for room.
+         */
+        private String discardLevel = "INFO";
+
+        /** Drop events of any level that find the ring full, instead of waiting. */
+        private boolean neverBlock = false;
+    }
+
+    @Data
+    public static class Jdbc {
+
+        /**
+         * Copy the catalog to a database behind the in-memory repository, and load it from
+         * there on startup. Cannot be combined with {@code widgets.persistence.enabled}.
+         */
+        private boolean enabled = false;
+
+        private String url = "jdbc:h2:file:./data/widgets;DB_CLOSE_ON_EXIT=FALSE";
+
+        private String username = "sa";
+
+        private String password = "";
+
+        /**
+         * Longest a change waits in memory before it is written; with the time a flush
+         * takes, how much a crash can lose.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /** Changed widgets written per JDBC batch, and per transaction. */
+        private int batchSize = 500;
+
+        /** Changed widgets that start a flush before the interval is up. */
+        private int flushThreshold = 5000;
+
+        /** Rows fetched per round trip while the catalog is loaded. */
+        private int fetchSize = 1000;
+
+        /** Create the widget tables on startup when they do not exist yet. */
+        private boolean initializeSchema = true;
+    }
+}
@@ -0,0 +1,34 @@
+package com.talentreef.interviewquestions.config;
+
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the storage backend and its memory footprint to {@code /actuator/info}, so the
+ * heap and mapped backends can be compared on the same catalog.
+ */
+@Component
+public class WidgetStorageInfoContributor implements InfoContributor {
+
+    private final WidgetRepository widgetRepository;
+
+    public WidgetStorageInfoContributor(WidgetRepository widgetRepository) {
+        this.widgetRepository = widgetRepository;
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        int widgets = widgetRepository.count();
+        long bytes = widgetRepository.footprintBytes();
+        Map<String, Object> storage = new LinkedHashMap<>();
+        storage.put("backend", widgetRepository.storageBackend());
+        storage.put("widgets", widgets);
+        storage.put("footprintBytes", bytes);
+        storage.put("bytesPerWidget", widgets == 0 ? 0 : bytes / widgets);
+        builder.withDetail("widgetStorage", storage);
+    }
+}
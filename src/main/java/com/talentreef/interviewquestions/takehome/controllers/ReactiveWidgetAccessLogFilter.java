@@ -0,0 +1,47 @@
+package com.talentreef.interviewquestions.takehome.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link WidgetAccessLogFilter} of the reactive API. A request moves between threads,
+ * so its id is only on its access log line, not in the MDC.
+ */
+public class ReactiveWidgetAccessLogFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        if (!path.startsWith(WidgetRequests.API_PATH) || !WidgetAccessLogFilter.isAccessLogged()) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        String requestId = WidgetAccessLogFilter.requestId(
+                request.getHeaders().getFirst(WidgetAccessLogFilter.REQUEST_ID_HEADER));
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(WidgetAccessLogFilter.REQUEST_ID_HEADER, requestId);
+        String method = request.getMethod().name();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> WidgetAccessLogFilter.logAccess(method, path, status(response.getStatusCode()), start,
+                        requestId))
+                // Errors are turned into responses further out, by the exception handlers.
+                .doOnError(e -> WidgetAccessLogFilter.logAccess(method, path,
+                        e instanceof ResponseStatusException failure ? failure.getStatusCode().value()
+                                : HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                        start, requestId));
+    }
+
+    private static int status(HttpStatusCode status) {
+        return status == null ? HttpStatus.OK.value() : status.value();
+    }
+
+}
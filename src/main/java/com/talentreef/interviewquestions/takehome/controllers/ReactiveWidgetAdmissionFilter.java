@@ -0,0 +1,73 @@
+package com.talentreef.interviewquestions.takehome.controllers;
+
+import java.net.InetSocketAddress;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.talentreef.interviewquestions.takehome.services.WidgetConcurrencyLimiter;
+import com.talentreef.interviewquestions.takehome.services.WidgetRateLimiter;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link WidgetAdmissionFilter} of the reactive API. A request stays in flight until
+ * its response has been written, so a streamed listing or export counts for as long as it
+ * streams.
+ */
+public class ReactiveWidgetAdmissionFilter implements WebFilter {
+
+    private final WidgetRateLimiter rateLimiter;
+
+    private final WidgetConcurrencyLimiter concurrencyLimiter;
+
+    private final String keyHeader;
+
+    public ReactiveWidgetAdmissionFilter(WidgetRateLimiter rateLimiter, WidgetConcurrencyLimiter concurrencyLimiter,
+            String keyHeader) {
+        Assert.notNull(rateLimiter, "rateLimiter must not be null");
+        Assert.notNull(concurrencyLimiter, "concurrencyLimiter must not be null");
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.keyHeader = keyHeader;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        if (!rateLimiter.isEnabled() && !concurrencyLimiter.isEnabled() || !path.startsWith(WidgetRequests.API_PATH)
+                || request.getMethod() == HttpMethod.OPTIONS) {
+            return chain.filter(exchange);
+        }
+        HttpHeaders responseHeaders = exchange.getResponse().getHeaders();
+        if (rateLimiter.isEnabled()) {
+            InetSocketAddress remote = request.getRemoteAddress();
+            String address = remote == null ? "unknown" : remote.getAddress().getHostAddress();
+            String client = WidgetRequests.client(request.getHeaders().getFirst(keyHeader), address);
+            long wait = rateLimiter.acquire(client, WidgetRequests.isFullScan(request.getMethod().name(), path,
+                    request.getQueryParams().containsKey("limit")));
+            if (wait > 0) {
+                responseHeaders.set(HttpHeaders.RETRY_AFTER, WidgetRequests.retryAfter(wait));
+                return Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded"));
+            }
+        }
+        if (!concurrencyLimiter.isEnabled() || WidgetRequests.isChangeStream(path)) {
+            return chain.filter(exchange);
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            responseHeaders.set(HttpHeaders.RETRY_AFTER, "1");
+            return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many requests in flight"));
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> concurrencyLimiter.release(System.nanoTime() - start));
+    }
+
+}
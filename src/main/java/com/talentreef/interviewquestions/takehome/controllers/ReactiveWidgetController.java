@@ -0,0 +1,282 @@
+package com.talentreef.interviewquestions.takehome.controllers;
+
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkResponseDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetChangeDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetStatsDTO;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+import com.talentreef.interviewquestions.takehome.services.CachedJson;
+import com.talentreef.interviewquestions.takehome.services.ReactiveWidgetService;
+import com.talentreef.interviewquestions.takehome.services.WidgetChangeService;
+import com.talentreef.interviewquestions.takehome.services.WidgetFormat;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The {@code /v1/widgets} API of {@link WidgetController} on WebFlux, active with the
+ * {@code reactive} profile. Requests, responses and status codes are the same; the full
+ * listing and the export are streamed from the repository as the client reads them
+ * instead of being built in memory first.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping(value = "/v1/widgets", produces = { MediaType.APPLICATION_JSON_VALUE, WidgetFormat.SMILE_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE })
+public class ReactiveWidgetController {
+
+    private static final int EXPORT_GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private static final int BULK_PIPE_SIZE = 64 * 1024;
+
+    private final ReactiveWidgetService widgetService;
+
+    private final WidgetChangeService widgetChangeService;
+
+    public ReactiveWidgetController(ReactiveWidgetService widgetService, WidgetChangeService widgetChangeService) {
+        Assert.notNull(widgetService, "widgetService must not be null");
+        Assert.notNull(widgetChangeService, "widgetChangeService must not be null");
+        this.widgetService = widgetService;
+        this.widgetChangeService = widgetChangeService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get all widgets", description = "Without parameters streams every widget ordered by name, "
+            + "with an ETag; If-None-Match answers 304 while the catalog is unchanged. With a limit, returns one page and a Link header (rel=\"next\") carrying the cursor of the next page.")
+    public Mono<ResponseEntity<?>> getAllWidgets(ServerHttpRequest request,
+            @Parameter(description = "Maximum number of widgets to return, up to " + WidgetRequests.MAX_PAGE_SIZE) @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor of the page to return, taken from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Sort key: name or price") @RequestParam(required = false) String sort,
+            @Parameter(description = "Sort direction: asc or desc") @RequestParam(required = false) String direction,
+            @Parameter(description = "Only widgets whose name starts with this prefix") @RequestParam(required = false) String namePrefix,
+            @Parameter(description = "Only widgets priced at or above this value", schema = @Schema(type = "number")) @RequestParam(required = false) String minPrice,
+            @Parameter(description = "Only widgets priced at or below this value", schema = @Schema(type = "number")) @RequestParam(required = false) String maxPrice,
+            @Parameter(description = "ETag of a listing the client already has") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(description = WidgetRequests.ACCEPT_DESCRIPTION) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (WidgetRequests.isFullListing(limit, cursor, sort, direction, namePrefix, minPrice, maxPrice)) {
+            WidgetFormat format = WidgetFormat.accepted(accept);
+            if (format == WidgetFormat.JSON && widgetService.isPrecomputed()) {
+                // Joined from each widget's stored JSON, so there is nothing left to stream.
+                return Mono.just(cachedJson(widgetService.getAllWidgetsJson(), ifNoneMatch, format));
+            }
+            String eTag = widgetService.getAllWidgetsETag(format);
+            if (WidgetRequests.matchesAny(ifNoneMatch, eTag)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build());
+            }
+            if (format != WidgetFormat.JSON) {
+                // Encoded whole and cached, like the servlet listing; the CBOR encoder cannot stream.
+                return widgetService.getAllWidgets(format).map(list -> cachedJson(list, ifNoneMatch, format));
+            }
+            return Mono.just(ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(MediaType.APPLICATION_JSON)
+                    .body(widgetService.getAllWidgets()));
+        }
+
+        WidgetQuery query = WidgetRequests.query(limit, sort, direction, namePrefix, minPrice, maxPrice);
+        return widgetService.findWidgets(query, cursor).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                String next = UriComponentsBuilder.fromHttpRequest(request)
+                        .replaceQueryParam("cursor", page.getNextCursor())
+                        .build()
+                        .toUriString();
+                response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(page.getItems());
+        });
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search widgets by keyword", description = "Matches widgets whose name or description contains every word of q, "
+            + "as a whole word or a word prefix, and returns them most relevant first. Name matches rank above description matches.")
+    public Mono<List<WidgetDTO>> searchWidgets(
+            @Parameter(description = "Words to search for") @RequestParam String q,
+            @Parameter(description = "Maximum number of widgets to return, up to " + WidgetRequests.MAX_SEARCH_RESULTS) @RequestParam(required = false) Integer limit) {
+        return widgetService.searchWidgets(q, WidgetRequests.searchLimit(q, limit));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get price statistics", description = "Count, sum, minimum, maximum, mean and quantiles of the widget prices, "
+            + "and a histogram of fixed price bands from 1.00 to 20,000.00. Kept up to date on every write, so it costs the same whatever the catalog size.")
+    public Mono<WidgetStatsDTO> getStatistics() {
+        return widgetService.getStatistics();
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream widget changes", description = "Server-sent events for every create, update and delete, "
+            + "named upsert or delete with the change's sequence number as id. Resumes after the given sequence number or "
+            + "Last-Event-ID; a reset event means those changes are gone and the catalog has to be reloaded.")
+    public Flux<ServerSentEvent<WidgetChangeDTO>> streamChanges(
+            @Parameter(description = "Sequence number of the last change already seen") @RequestParam(required = false) Long after,
+            @Parameter(description = "Id of the last event received, sent by EventSource on reconnect") @RequestHeader(value = WidgetRequests.LAST_EVENT_ID, required = false) String lastEventId) {
+        return widgetChangeService.changeEvents(WidgetRequests.changesAfter(after, lastEventId));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all widgets as newline-delimited JSON", description = "Streams the whole catalog with constant memory, one widget per line.")
+    public ResponseEntity<Flux<DataBuffer>> exportWidgets(ServerHttpResponse response,
+            @Parameter(description = "Compress the export with gzip") @RequestParam(defaultValue = "false") boolean gzip) {
+        Flux<byte[]> lines = widgetService.exportWidgets();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        Flux<byte[]> chunks = lines;
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            chunks = Flux.using(GzipChunks::new, gzipChunks -> lines.map(gzipChunks::compress)
+                    .concatWith(Mono.fromCallable(gzipChunks::finish)), GzipChunks::close);
+        }
+        return builder.body(chunks.map(response.bufferFactory()::wrap));
+    }
+
+    @PostMapping
+    @Operation(summary = "Create a new widget")
+    public Mono<ResponseEntity<WidgetDTO>> createWidget(@RequestBody Widget widget,
+            @Parameter(description = WidgetRequests.ACCEPT_DESCRIPTION) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return widgetService.createWidget(widget).map(createdWidget -> ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(WidgetRequests.eTag(createdWidget.getVersion(), WidgetFormat.accepted(accept))).body(createdWidget));
+    }
+
+    @PostMapping(value = "/_bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, WidgetFormat.SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE })
+    @Operation(summary = "Create, update and delete widgets in bulk", description = "Accepts a JSON array of operations "
+            + "{\"op\": \"upsert\"|\"delete\", \"name\", \"description\", \"price\"} and returns one result per operation. "
+            + "Atomic batches are applied all-or-nothing; best-effort batches apply every valid operation.")
+    public Mono<ResponseEntity<WidgetBulkResponseDTO>> bulkWidgets(@RequestBody Flux<DataBuffer> body,
+            @Parameter(description = "All-or-nothing when true, best-effort when false; defaults to widgets.bulk.atomic") @RequestParam(required = false) Boolean atomic,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) {
+        WidgetFormat format = WidgetFormat.of(contentType);
+        return Mono.using(() -> pipe(body), in -> widgetService.bulk(in, atomic, format), ReactiveWidgetController::closeQuietly)
+                .map(response -> ResponseEntity.status(response.isApplied() ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(response));
+    }
+
+    @GetMapping("/{name}")
+    @Operation(summary = "Get a widget by name")
+    public Mono<ResponseEntity<byte[]>> getWidgetByName(@Parameter(description = "Name of the widget to be obtained") @PathVariable String name,
+            @Parameter(description = "ETag of a version the client already has") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(description = WidgetRequests.ACCEPT_DESCRIPTION) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        WidgetFormat format = WidgetFormat.accepted(accept);
+        return widgetService.getWidgetJson(name, format).map(json -> cachedJson(json, ifNoneMatch, format));
+    }
+
+    @PutMapping("/{name}")
+    @Operation(summary = "Update a widget")
+    public Mono<ResponseEntity<WidgetDTO>> updateWidget(@Parameter(description = "Name of the widget to be updated") @PathVariable String name, @RequestBody WidgetDTO widgetDTO,
+            @Parameter(description = "ETag of the version the update applies to") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = WidgetRequests.ACCEPT_DESCRIPTION) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return widgetService.updateWidget(name, widgetDTO, WidgetRequests.parseVersion(ifMatch))
+                .map(updatedWidget -> ResponseEntity.ok().eTag(WidgetRequests.eTag(updatedWidget.getVersion(), WidgetFormat.accepted(accept))).body(updatedWidget));
+    }
+
+    @DeleteMapping("/{name}")
+    @Operation(summary = "Delete a widget")
+    public Mono<ResponseEntity<Void>> deleteWidget(@Parameter(description = "Name of the widget to be deleted") @PathVariable String name) {
+        return widgetService.deleteWidget(name).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    /**
+     * Answers 304 when {@code ifNoneMatch} lists the response's ETag, and only serializes
+     * otherwise. Each format has its own ETag, and the response varies by Accept.
+     */
+    private static ResponseEntity<byte[]> cachedJson(CachedJson json, String ifNoneMatch, WidgetFormat format) {
+        if (WidgetRequests.matchesAny(ifNoneMatch, json.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(json.etag()).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(json.etag()).varyBy(HttpHeaders.ACCEPT).contentType(format.mediaType()).body(json.body().get());
+    }
+
+    /**
+     * Feeds the request body into a bounded pipe from a worker thread, so the bulk parser
+     * can read it as a stream while it arrives. Closing the returned stream makes the feed
+     * fail and release the rest of the body.
+     */
+    private static PipedInputStream pipe(Flux<DataBuffer> body) throws IOException {
+        PipedInputStream in = new PipedInputStream(BULK_PIPE_SIZE);
+        PipedOutputStream out = new PipedOutputStream(in);
+        DataBufferUtils.write(body, out)
+                .map(DataBufferUtils::release)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> closeQuietly(out))
+                .subscribe(released -> { }, error -> { });
+        return in;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // nothing left to do with it
+        }
+    }
+
+    /** One gzip stream whose output is handed on after each chunk written to it. */
+    private static final class GzipChunks {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private final GZIPOutputStream gzip;
+
+        GzipChunks() throws IOException {
+            this.gzip = new GZIPOutputStream(buffer, EXPORT_GZIP_BUFFER_SIZE, true);
+        }
+
+        byte[] compress(byte[] chunk) {
+            try {
+                gzip.write(chunk);
+                gzip.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return take();
+        }
+
+        byte[] finish() throws IOException {
+            gzip.finish();
+            return take();
+        }
+
+        void close() {
+            closeQuietly(gzip);
+        }
+
+        private byte[] take() {
+            byte[] compressed = buffer.toByteArray();
+            buffer.reset();
+            return compressed;
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.talentreef.interviewquestions.takehome.controllers;
+
+import java.net.URI;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.talentreef.interviewquestions.takehome.models.WidgetLogPosition;
+import com.talentreef.interviewquestions.takehome.services.WidgetReplicationService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link WidgetReplicationFilter} of the reactive API. A read waits for the follower
+ * to catch up without holding an event loop, and a write reports its position just before
+ * the response is committed, so nothing is buffered.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveWidgetReplicationFilter implements WebFilter {
+
+    private final WidgetReplicationService replication;
+
+    public ReactiveWidgetReplicationFilter(WidgetReplicationService replication) {
+        Assert.notNull(replication, "replication must not be null");
+        this.replication = replication;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!replication.isEnabled() || !request.getPath().value().startsWith(WidgetRequests.API_PATH)) {
+            return chain.filter(exchange);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        boolean write = WidgetRequests.isWrite(request.getMethod().name());
+        if (write && replication.isFollower()) {
+            String leaderUrl = replication.leaderUrl();
+            if (leaderUrl == null) {
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "This node is a read-only replication follower"));
+            }
+            response.setStatusCode(HttpStatus.TEMPORARY_REDIRECT);
+            response.getHeaders().setLocation(URI.create(
+                    WidgetRequests.leaderLocation(leaderUrl, request.getPath().value(), request.getURI().getRawQuery())));
+            return response.setComplete();
+        }
+
+        if (write) {
+            response.beforeCommit(() -> {
+                reportPosition(response);
+                return Mono.empty();
+            });
+        }
+        Mono<Void> proceed = Mono.defer(() -> {
+            if (!write) {
+                reportPosition(response);
+            }
+            return chain.filter(exchange);
+        });
+        String wanted = request.getHeaders().getFirst(WidgetRequests.SEQUENCE_HEADER);
+        if (wanted == null) {
+            return proceed;
+        }
+        return Mono.fromCallable(() -> WidgetRequests.parsePosition(wanted))
+                .flatMap(target -> Mono.fromFuture(replication.awaitPosition(target)).flatMap(reached -> reached
+                        ? proceed
+                        : Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                "This node has not caught up with " + target + " yet"))));
+    }
+
+    private void reportPosition(ServerHttpResponse response) {
+        WidgetLogPosition position = replication.position();
+        if (position != null) {
+            response.getHeaders().set(WidgetRequests.SEQUENCE_HEADER, position.toString());
+        }
+    }
+
+}
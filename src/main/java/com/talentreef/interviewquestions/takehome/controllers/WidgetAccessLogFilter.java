@@ -0,0 +1,132 @@
+package com.talentreef.interviewquestions.takehome.controllers;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.logstash.logback.argument.StructuredArguments;
+
+/**
+ * Access log of the servlet API: one line per request on the {@code widgets.access}
+ * logger once its response is complete. The request id is returned in
+ * {@value #REQUEST_ID_HEADER} and kept in the MDC while the request runs,
+ * so whatever the controllers and services log for it carries the same id.
+ *
+ * <p>The request itself only builds the log event; with the async-logging profile, the
+ * event is encoded and written by the appender's thread.
+ */
+public class WidgetAccessLogFilter extends OncePerRequestFilter {
+
+    /**
+     * Request id, the client's or a new one, returned on every response and logged with
+     * every line the request logs.
+     */
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    static final String REQUEST_ID = "requestId";
+
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("widgets.access");
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(WidgetRequests.API_PATH) || !isAccessLogged();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        String requestId = requestId(request.getHeader(REQUEST_ID_HEADER));
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        MDC.put(REQUEST_ID, requestId);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            MDC.remove(REQUEST_ID);
+            if (completed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new LogOnComplete(request, start, requestId));
+            } else {
+                // An exception escaping the chain becomes a 500.
+                int status = completed ? response.getStatus() : HttpStatus.INTERNAL_SERVER_ERROR.value();
+                logAccess(request.getMethod(), request.getRequestURI(), status, start, requestId);
+            }
+        }
+    }
+
+    /** The client's request id when it is short printable ASCII, or a new random one. */
+    static String requestId(String header) {
+        if (header != null && !header.isEmpty() && header.length() <= MAX_REQUEST_ID_LENGTH
+                && header.chars().allMatch(c -> c > ' ' && c < 127)) {
+            return header;
+        }
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+    }
+
+    static boolean isAccessLogged() {
+        return ACCESS_LOG.isInfoEnabled();
+    }
+
+    /**
+     * Logs a finished request on the {@code widgets.access} logger, with its method, path,
+     * status, duration in microseconds and request id as JSON fields of their own.
+     */
+    static void logAccess(String method, String path, int status, long startNanos, String requestId) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        ACCESS_LOG.info("{} {} {} {}us {}", StructuredArguments.value("method", method),
+                StructuredArguments.value("path", path), StructuredArguments.value("status", status),
+                StructuredArguments.value("micros", micros), StructuredArguments.value(REQUEST_ID, requestId));
+    }
+
+    private static final class LogOnComplete implements AsyncListener {
+
+        private final HttpServletRequest request;
+
+        private final long start;
+
+        private final String requestId;
+
+        private LogOnComplete(HttpServletRequest request, long start, String requestId) {
+            this.request = request;
+            this.start = start;
+            this.requestId = requestId;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            logAccess(request.getMethod(), request.getRequestURI(), response.getStatus(), start, requestId);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Followed by onComplete.
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Followed by onComplete.
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.talentreef.interviewquestions.takehome.controllers;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.talentreef.interviewquestions.takehome.services.WidgetConcurrencyLimiter;
+import com.talentreef.interviewquestions.takehome.services.WidgetRateLimiter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admission control for the servlet API: turns away clients over their rate limit with
+ * 429, and requests over the adaptive concurrency limit with 503, both with
+ * {@code Retry-After}, before they reach a controller.
+ *
+ * <p>A request that goes asynchronous, such as the export, stays in flight until its
+ * response completes.
+ */
+public class WidgetAdmissionFilter extends OncePerRequestFilter {
+
+    private final WidgetRateLimiter rateLimiter;
+
+    private final WidgetConcurrencyLimiter concurrencyLimiter;
+
+    private final String keyHeader;
+
+    public WidgetAdmissionFilter(WidgetRateLimiter rateLimiter, WidgetConcurrencyLimiter concurrencyLimiter,
+            String keyHeader) {
+        Assert.notNull(rateLimiter, "rateLimiter must not be null");
+        Assert.notNull(concurrencyLimiter, "concurrencyLimiter must not be null");
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.keyHeader = keyHeader;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled() && !concurrencyLimiter.isEnabled()
+                || !request.getRequestURI().startsWith(WidgetRequests.API_PATH)
+                || request.getMethod().equals("OPTIONS");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        if (rateLimiter.isEnabled()) {
+            String client = WidgetRequests.client(request.getHeader(keyHeader), request.getRemoteAddr());
+            long wait = rateLimiter.acquire(client,
+                    WidgetRequests.isFullScan(request.getMethod(), path, request.getParameter("limit") != null));
+            if (wait > 0) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, WidgetRequests.retryAfter(wait));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+                return;
+            }
+        }
+        if (!concurrencyLimiter.isEnabled() || WidgetRequests.isChangeStream(path)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many requests in flight");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                concurrencyLimiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private final class ReleaseOnComplete implements AsyncListener {
+
+        private final long start;
+
+        private ReleaseOnComplete(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            concurrencyLimiter.release(System.nanoTime() - start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Followed by onComplete.
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Followed by onComplete.
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+}
@@ -1,7 +1,16 @@
 package com.talentreef.interviewquestions.takehome.controllers;
 
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkResponseDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetChangeDTO;
 import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetPageDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetStatsDTO;
 import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+import com.talentreef.interviewquestions.takehome.services.CachedJson;
+import com.talentreef.interviewquestions.takehome.services.WidgetBulkService;
+import com.talentreef.interviewquestions.takehome.services.WidgetChangeService;
+import com.talentreef.interviewquestions.takehome.services.WidgetFormat;
 import com.talentreef.interviewquestions.takehome.services.WidgetService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,9 +19,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,63 +32,193 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
-@RequestMapping(value = "/v1/widgets", produces = MediaType.APPLICATION_JSON_VALUE)
+@Profile("!reactive")
+@RequestMapping(value = "/v1/widgets", produces = { MediaType.APPLICATION_JSON_VALUE, WidgetFormat.SMILE_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE })
 public class WidgetController {
 
+	private static final int EXPORT_GZIP_BUFFER_SIZE = 64 * 1024;
+
 	private final WidgetService widgetService;
 
-	public WidgetController(WidgetService widgetService) {
+	private final WidgetBulkService widgetBulkService;
+
+	private final WidgetChangeService widgetChangeService;
+
+	public WidgetController(WidgetService widgetService, WidgetBulkService widgetBulkService,
+			WidgetChangeService widgetChangeService) {
 		Assert.notNull(widgetService, "widgetService must not be null");
+		Assert.notNull(widgetBulkService, "widgetBulkService must not be null");
+		Assert.notNull(widgetChangeService, "widgetChangeService must not be null");
 		this.widgetService = widgetService;
+		this.widgetBulkService = widgetBulkService;
+		this.widgetChangeService = widgetChangeService;
 	}
 
 	@GetMapping
-    @Operation(summary = "Get all widgets", responses = {
+    @Operation(summary = "Get all widgets", description = "Without parameters returns every widget ordered by name, "
+            + "with an ETag; If-None-Match answers 304 while the catalog is unchanged. With a limit, returns one page and a Link header (rel=\"next\") carrying the cursor of the next page.", responses = {
             @ApiResponse(description = "Successful Retrieval", responseCode = "200", content = @Content(schema = @Schema(implementation = WidgetDTO.class))),
+            @ApiResponse(description = "Not Modified", responseCode = "304"),
+            @ApiResponse(description = "Bad Request", responseCode = "400"),
+            @ApiResponse(description = "Internal Server Error", responseCode = "500")
+    })
+    public ResponseEntity<?> getAllWidgets(
+            @Parameter(description = "Maximum number of widgets to return, up to " + WidgetRequests.MAX_PAGE_SIZE) @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor of the page to return, taken from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Sort key: name or price") @RequestParam(required = false) String sort,
+            @Parameter(description = "Sort direction: asc or desc") @RequestParam(required = false) String direction,
+            @Parameter(description = "Only widgets whose name starts with this prefix") @RequestParam(required = false) String namePrefix,
+            @Parameter(description = "Only widgets priced at or above this value", schema = @Schema(type = "number")) @RequestParam(required = false) String minPrice,
+            @Parameter(description = "Only widgets priced at or below this value", schema = @Schema(type = "number")) @RequestParam(required = false) String maxPrice,
+            @Parameter(description = "ETag of a listing the client already has") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(description = WidgetRequests.ACCEPT_DESCRIPTION) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (WidgetRequests.isFullListing(limit, cursor, sort, direction, namePrefix, minPrice, maxPrice)) {
+            WidgetFormat format = WidgetFormat.accepted(accept);
+            return cachedJson(widgetService.getAllWidgetsJson(format), ifNoneMatch, format);
+        }
+
+        WidgetQuery query = WidgetRequests.query(limit, sort, direction, namePrefix, minPrice, maxPrice);
+        WidgetPageDTO page = widgetService.findWidgets(query, cursor);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .build()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.getItems());
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search widgets by keyword", description = "Matches widgets whose name or description contains every word of q, "
+            + "as a whole word or a word prefix, and returns them most relevant first. Name matches rank above description matches.", responses = {
+            @ApiResponse(description = "Successful Search", responseCode = "200", content = @Content(schema = @Schema(implementation = WidgetDTO.class))),
+            @ApiResponse(description = "Bad Request", responseCode = "400"),
+            @ApiResponse(description = "Internal Server Error", responseCode = "500")
+    })
+    public ResponseEntity<List<WidgetDTO>> searchWidgets(
+            @Parameter(description = "Words to search for") @RequestParam String q,
+            @Parameter(description = "Maximum number of widgets to return, up to " + WidgetRequests.MAX_SEARCH_RESULTS) @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(widgetService.searchWidgets(q, WidgetRequests.searchLimit(q, limit)));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get price statistics", description = "Count, sum, minimum, maximum, mean and quantiles of the widget prices, "
+            + "and a histogram of fixed price bands from 1.00 to 20,000.00. Kept up to date on every write, so it costs the same whatever the catalog size.", responses = {
+            @ApiResponse(description = "Successful Retrieval", responseCode = "200", content = @Content(schema = @Schema(implementation = WidgetStatsDTO.class))),
+            @ApiResponse(description = "Internal Server Error", responseCode = "500")
+    })
+    public ResponseEntity<WidgetStatsDTO> getStatistics() {
+        return ResponseEntity.ok(widgetService.getStatistics());
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream widget changes", description = "Server-sent events for every create, update and delete, "
+            + "named upsert or delete with the change's sequence number as id. Resumes after the given sequence number or "
+            + "Last-Event-ID; a reset event means those changes are gone and the catalog has to be reloaded.", responses = {
+            @ApiResponse(description = "Change Stream", responseCode = "200", content = @Content(schema = @Schema(implementation = WidgetChangeDTO.class))),
+            @ApiResponse(description = "Bad Request", responseCode = "400")
+    })
+    public Flux<ServerSentEvent<WidgetChangeDTO>> streamChanges(
+            @Parameter(description = "Sequence number of the last change already seen") @RequestParam(required = false) Long after,
+            @Parameter(description = "Id of the last event received, sent by EventSource on reconnect") @RequestHeader(value = WidgetRequests.LAST_EVENT_ID, required = false) String lastEventId) {
+        return widgetChangeService.changeEvents(WidgetRequests.changesAfter(after, lastEventId));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all widgets as newline-delimited JSON", description = "Streams the whole catalog with constant memory, one widget per line.", responses = {
+            @ApiResponse(description = "Successful Export", responseCode = "200"),
             @ApiResponse(description = "Internal Server Error", responseCode = "500")
     })
-    public ResponseEntity<List<WidgetDTO>> getAllWidgets() {
-        return ResponseEntity.ok(widgetService.getAllWidgets());
+    public ResponseEntity<StreamingResponseBody> exportWidgets(
+            @Parameter(description = "Compress the export with gzip") @RequestParam(defaultValue = "false") boolean gzip) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (!gzip) {
+            return response.body(widgetService::exportWidgets);
+        }
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(out -> {
+                    try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, EXPORT_GZIP_BUFFER_SIZE)) {
+                        widgetService.exportWidgets(gzipOut);
+                    }
+                });
     }
 
     @PostMapping
     @Operation(summary = "Create a new widget", responses = {
             @ApiResponse(description = "Widget Created", responseCode = "201"),
             @ApiResponse(description = "Bad Request", responseCode = "400"),
+            @ApiResponse(description = "Name Already Taken", responseCode = "409"),
             @ApiResponse(description = "Internal Server Error", responseCode = "500")
     })
-    public ResponseEntity<WidgetDTO> createWidget(@RequestBody Widget widget) {
+    public ResponseEntity<WidgetDTO> createWidget(@RequestBody Widget widget,
+            @Parameter(description = WidgetRequests.ACCEPT_DESCRIPTION) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         WidgetDTO createdWidget = widgetService.createWidget(widget);
-        return new ResponseEntity<>(createdWidget, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(WidgetRequests.eTag(createdWidget.getVersion(), WidgetFormat.accepted(accept))).body(createdWidget);
+    }
+
+    @PostMapping(value = "/_bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, WidgetFormat.SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE })
+    @Operation(summary = "Create, update and delete widgets in bulk", description = "Accepts a JSON array of operations "
+            + "{\"op\": \"upsert\"|\"delete\", \"name\", \"description\", \"price\"} and returns one result per operation. "
+            + "Atomic batches are applied all-or-nothing; best-effort batches apply every valid operation.", responses = {
+            @ApiResponse(description = "Batch Applied", responseCode = "200", content = @Content(schema = @Schema(implementation = WidgetBulkResponseDTO.class))),
+            @ApiResponse(description = "Malformed Request or Atomic Batch Rejected", responseCode = "400"),
+            @ApiResponse(description = "Atomic Batch Too Large", responseCode = "413"),
+            @ApiResponse(description = "Internal Server Error", responseCode = "500")
+    })
+    public ResponseEntity<WidgetBulkResponseDTO> bulkWidgets(InputStream body,
+            @Parameter(description = "All-or-nothing when true, best-effort when false; defaults to widgets.bulk.atomic") @RequestParam(required = false) Boolean atomic,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) throws IOException {
+        WidgetBulkResponseDTO response = widgetBulkService.bulk(body, atomic, WidgetFormat.of(contentType));
+        return ResponseEntity.status(response.isApplied() ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(response);
     }
 
     @GetMapping("/{name}")
     @Operation(summary = "Get a widget by name", responses = {
             @ApiResponse(description = "Successful Retrieval", responseCode = "200", content = @Content(schema = @Schema(implementation = WidgetDTO.class))),
+            @ApiResponse(description = "Not Modified", responseCode = "304"),
             @ApiResponse(description = "Not Found", responseCode = "404"),
             @ApiResponse(description = "Internal Server Error", responseCode = "500")
     })
-    public ResponseEntity<WidgetDTO> getWidgetByName(@Parameter(description = "Name of the widget to be obtained") @PathVariable String name) {
-        WidgetDTO widgetDTO = widgetService.getWidgetByName(name);
-        return ResponseEntity.ok(widgetDTO);
+    public ResponseEntity<byte[]> getWidgetByName(@Parameter(description = "Name of the widget to be obtained") @PathVariable String name,
+            @Parameter(description = "ETag of a version the client already has") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(description = WidgetRequests.ACCEPT_DESCRIPTION) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        WidgetFormat format = WidgetFormat.accepted(accept);
+        return cachedJson(widgetService.getWidgetJson(name, format), ifNoneMatch, format);
     }
 
     @PutMapping("/{name}")
     @Operation(summary = "Update a widget", responses = {
             @ApiResponse(description = "Successful Update", responseCode = "200", content = @Content(schema = @Schema(implementation = WidgetDTO.class))),
             @ApiResponse(description = "Not Found", responseCode = "404"),
+            @ApiResponse(description = "Precondition Failed", responseCode = "412"),
             @ApiResponse(description = "Internal Server Error", responseCode = "500")
     })
-    public ResponseEntity<WidgetDTO> updateWidget(@Parameter(description = "Name of the widget to be updated") @PathVariable String name, @RequestBody WidgetDTO widgetDTO) {
-        WidgetDTO updatedWidget = widgetService.updateWidget(name, widgetDTO);
-        return ResponseEntity.ok(updatedWidget);
+    public ResponseEntity<WidgetDTO> updateWidget(@Parameter(description = "Name of the widget to be updated") @PathVariable String name, @RequestBody WidgetDTO widgetDTO,
+            @Parameter(description = "ETag of the version the update applies to") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = WidgetRequests.ACCEPT_DESCRIPTION) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        WidgetDTO updatedWidget = widgetService.updateWidget(name, widgetDTO, WidgetRequests.parseVersion(ifMatch));
+        return ResponseEntity.ok().eTag(WidgetRequests.eTag(updatedWidget.getVersion(), WidgetFormat.accepted(accept))).body(updatedWidget);
     }
 
     @DeleteMapping("/{name}")
@@ -90,4 +232,15 @@ public class WidgetController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Answers 304 when {@code ifNoneMatch} lists the response's ETag, and only serializes
+     * otherwise. Each format has its own ETag, and the response varies by Accept.
+     */
+    private static ResponseEntity<byte[]> cachedJson(CachedJson json, String ifNoneMatch, WidgetFormat format) {
+        if (WidgetRequests.matchesAny(ifNoneMatch, json.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(json.etag()).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(json.etag()).varyBy(HttpHeaders.ACCEPT).contentType(format.mediaType()).body(json.body().get());
+    }
+
 }
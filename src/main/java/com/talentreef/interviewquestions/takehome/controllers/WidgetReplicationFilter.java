@@ -0,0 +1,96 @@
+package com.talentreef.interviewquestions.takehome.controllers;
+
+import java.io.IOException;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.talentreef.interviewquestions.takehome.models.WidgetLogPosition;
+import com.talentreef.interviewquestions.takehome.services.WidgetReplicationService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Replication for the servlet API. Followers redirect writes to the leader and hold reads
+ * that ask for a newer {@value WidgetRequests#SEQUENCE_HEADER} than they have applied;
+ * every node reports its position in that header.
+ *
+ * <p>A read reports the position from before it runs, which it reflects at least. A write
+ * reports the position after it, so its response is buffered until the controller has
+ * returned; a write answers with one widget or a bulk summary, so the buffer stays small.
+ */
+@Component
+@Profile("!reactive")
+public class WidgetReplicationFilter extends OncePerRequestFilter {
+
+    private final WidgetReplicationService replication;
+
+    public WidgetReplicationFilter(WidgetReplicationService replication) {
+        Assert.notNull(replication, "replication must not be null");
+        this.replication = replication;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !replication.isEnabled() || !request.getRequestURI().startsWith(WidgetRequests.API_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = WidgetRequests.isWrite(request.getMethod());
+        if (write && replication.isFollower()) {
+            String leaderUrl = replication.leaderUrl();
+            if (leaderUrl == null) {
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "This node is a read-only replication follower");
+                return;
+            }
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION,
+                    WidgetRequests.leaderLocation(leaderUrl, request.getRequestURI(), request.getQueryString()));
+            return;
+        }
+
+        String wanted = request.getHeader(WidgetRequests.SEQUENCE_HEADER);
+        if (wanted != null) {
+            WidgetLogPosition target;
+            try {
+                target = WidgetRequests.parsePosition(wanted);
+            } catch (ResponseStatusException e) {
+                response.sendError(e.getStatusCode().value(), e.getReason());
+                return;
+            }
+            if (!replication.awaitPosition(target).join()) {
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "This node has not caught up with " + target + " yet");
+                return;
+            }
+        }
+
+        if (!write) {
+            reportPosition(response);
+            chain.doFilter(request, response);
+            return;
+        }
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, buffered);
+        reportPosition(buffered);
+        buffered.copyBodyToResponse();
+    }
+
+    private void reportPosition(HttpServletResponse response) {
+        WidgetLogPosition position = replication.position();
+        if (position != null) {
+            response.setHeader(WidgetRequests.SEQUENCE_HEADER, position.toString());
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.talentreef.interviewquestions.takehome.controllers;
+
+import com.talentreef.interviewquestions.takehome.models.Prices;
+import com.talentreef.interviewquestions.takehome.models.WidgetLogPosition;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+import com.talentreef.interviewquestions.takehome.services.WidgetFormat;
+import com.talentreef.interviewquestions.takehome.services.WidgetResponseCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Request parameter and header handling shared by the servlet and reactive widget
+ * controllers, so both serve the same contract.
+ */
+final class WidgetRequests {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int DEFAULT_SEARCH_RESULTS = 20;
+
+    static final int MAX_SEARCH_RESULTS = 100;
+
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    /**
+     * Replication position, {@code epoch-sequence}. Responses report the position the node
+     * had reached; on a request it holds the read until the node has applied that position.
+     */
+    static final String SEQUENCE_HEADER = "X-Widget-Sequence";
+
+    static final String API_PATH = "/v1/widgets";
+
+    static final String ACCEPT_DESCRIPTION = "application/json (the default), application/x-jackson-smile or application/cbor";
+
+    private WidgetRequests() {
+    }
+
+    /** Whether a listing request asks for the whole catalog in the default order. */
+    static boolean isFullListing(Integer limit, String cursor, String sort, String direction, String namePrefix,
+            String minPrice, String maxPrice) {
+        return limit == null && cursor == null && sort == null && direction == null && namePrefix == null
+                && minPrice == null && maxPrice == null;
+    }
+
+    static WidgetQuery query(Integer limit, String sort, String direction, String namePrefix, String minPrice,
+            String maxPrice) {
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        return WidgetQuery.builder()
+                .sort(parseSort(sort))
+                .descending(parseDescending(direction))
+                .namePrefix(namePrefix)
+                .minPriceCents(minPrice == null ? null : Prices.ceilCents(parsePrice("minPrice", minPrice)))
+                .maxPriceCents(maxPrice == null ? null : Prices.floorCents(parsePrice("maxPrice", maxPrice)))
+                .limit(limit == null ? null : Math.min(limit, MAX_PAGE_SIZE))
+                .build();
+    }
+
+    /** Validates a search request and returns the number of results to return. */
+    static int searchLimit(String q, Integer limit) {
+        if (q.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must not be blank");
+        }
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        return limit == null ? DEFAULT_SEARCH_RESULTS : Math.min(limit, MAX_SEARCH_RESULTS);
+    }
+
+    /** Whether a request changes the catalog, so a replication follower must send it to the leader. */
+    static boolean isWrite(String method) {
+        return !method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS");
+    }
+
+    static WidgetLogPosition parsePosition(String header) {
+        try {
+            return WidgetLogPosition.parse(header.trim());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, SEQUENCE_HEADER + " must be epoch-sequence", e);
+        }
+    }
+
+    /** Where a follower redirects a write: the same path and query on the leader. */
+    static String leaderLocation(String leaderUrl, String path, String query) {
+        return leaderUrl + path + (query == null || query.isEmpty() ? "" : "?" + query);
+    }
+
+    /**
+     * Whether a request copies the whole catalog: an unpaged listing or the export. Such
+     * requests count as several against a client's rate limit.
+     */
+    static boolean isFullScan(String method, String path, boolean paged) {
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            return false;
+        }
+        String resource = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        return resource.equals(API_PATH) ? !paged : resource.equals(API_PATH + "/export");
+    }
+
+    /** Whether a request opens the change stream, which stays open and so is not counted as in flight. */
+    static boolean isChangeStream(String path) {
+        return path.startsWith(API_PATH + "/changes");
+    }
+
+    /**
+     * Who a request is rate limited as: its API key when it sends one, else its address.
+     * Keys are not verified here, so only keys an upstream gateway has checked make a
+     * reliable limit.
+     */
+    static String client(String apiKey, String address) {
+        return apiKey == null || apiKey.isBlank() ? "ip:" + address : "key:" + apiKey.trim();
+    }
+
+    /** {@code Retry-After} in whole seconds, rounded up and at least one. */
+    static String retryAfter(long waitNanos) {
+        return Long.toString(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000));
+    }
+
+    static String eTag(long version, WidgetFormat format) {
+        return WidgetResponseCache.etag(version, format);
+    }
+
+    /** Weak comparison of an {@code If-None-Match} list against an ETag, as RFC 9110 prescribes for GET. */
+    static boolean matchesAny(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = opaqueTag(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = opaqueTag(candidate.trim());
+            if (value.equals("*") || value.equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    /**
+     * Position to resume a change stream after: the {@code after} parameter, else the
+     * {@code Last-Event-ID} an EventSource sends when it reconnects, else {@code null} for
+     * only the changes to come.
+     */
+    static Long changesAfter(Long after, String lastEventId) {
+        if (after != null) {
+            return after;
+        }
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unrecognized Last-Event-ID: " + lastEventId);
+        }
+    }
+
+    /**
+     * Reads the widget version out of an {@code If-Match} value produced by {@link #eTag}.
+     * A missing header or {@code *} matches any version. If-Match takes the strong
+     * comparison (RFC 9110 §13.1.1), which a weak tag never passes, so it fails with 412
+     * like any other tag that is not a current version.
+     */
+    static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match needs a strong ETag: " + ifMatch);
+        }
+        value = value.substring(1, value.length() - 1);
+        for (WidgetFormat format : WidgetFormat.values()) {
+            // A tag from a binary response names the same version.
+            if (!format.etagSuffix().isEmpty() && value.endsWith(format.etagSuffix())) {
+                value = value.substring(0, value.length() - format.etagSuffix().length());
+                break;
+            }
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unrecognized If-Match value: " + ifMatch);
+        }
+    }
+
+    private static long parsePrice(String parameter, String value) {
+        try {
+            return Prices.parse(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, parameter + " must be a decimal number");
+        }
+    }
+
+    private static WidgetQuery.Sort parseSort(String sort) {
+        if (sort == null || sort.equalsIgnoreCase("name")) {
+            return WidgetQuery.Sort.NAME;
+        }
+        if (sort.equalsIgnoreCase("price")) {
+            return WidgetQuery.Sort.PRICE;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be 'name' or 'price'");
+    }
+
+    private static boolean parseDescending(String direction) {
+        if (direction == null || direction.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (direction.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "direction must be 'asc' or 'desc'");
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.talentreef.interviewquestions.takehome.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class WidgetBulkItemResultDTO {
+
+    public enum Status {
+        @JsonProperty("created")
+        CREATED,
+        @JsonProperty("updated")
+        UPDATED,
+        @JsonProperty("deleted")
+        DELETED,
+        @JsonProperty("not_found")
+        NOT_FOUND,
+        @JsonProperty("invalid")
+        INVALID,
+        /** Valid on its own but not applied because another item made an atomic batch fail. */
+        @JsonProperty("aborted")
+        ABORTED
+    }
+
+    private int index;
+    private String name;
+    private Status status;
+    private List<String> errors;
+}
@@ -0,0 +1,96 @@
+package com.talentreef.interviewquestions.takehome.dto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.talentreef.interviewquestions.takehome.models.FieldDeserializer;
+import com.talentreef.interviewquestions.takehome.models.Prices;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonDeserialize(using = WidgetBulkOperationDTO.Deserializer.class)
+public class WidgetBulkOperationDTO {
+
+    public enum Op {
+        @JsonProperty("upsert")
+        UPSERT,
+        @JsonProperty("delete")
+        DELETE
+    }
+
+    private Op op;
+    private String name;
+    private String description;
+
+    /** The {@link Prices packed price}; {@link #getPrice()} is the decimal view. */
+    @JsonIgnore
+    private long packedPrice = Prices.NONE;
+
+    public WidgetBulkOperationDTO(Op op, String name, String description, BigDecimal price) {
+        this.op = op;
+        this.name = name;
+        this.description = description;
+        this.packedPrice = Prices.of(price);
+    }
+
+    @Schema(type = "number", example = "12.50")
+    public BigDecimal getPrice() {
+        return Prices.toBigDecimal(packedPrice);
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.packedPrice = Prices.of(price);
+    }
+
+    static final class Deserializer extends FieldDeserializer<WidgetBulkOperationDTO> {
+
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() {
+            super(WidgetBulkOperationDTO.class, true);
+        }
+
+        @Override
+        protected WidgetBulkOperationDTO create() {
+            return new WidgetBulkOperationDTO();
+        }
+
+        @Override
+        protected boolean readField(WidgetBulkOperationDTO operation, String field, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (field) {
+                case "op" -> operation.setOp(readOp(p, ctxt));
+                case "name" -> operation.setName(readText(p, ctxt));
+                case "description" -> operation.setDescription(readText(p, ctxt));
+                case "price" -> operation.setPackedPrice(Prices.read(p, ctxt));
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static Op readOp(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String text = readText(p, ctxt);
+            if (text == null) {
+                return null;
+            }
+            return switch (text) {
+                case "upsert" -> Op.UPSERT;
+                case "delete" -> Op.DELETE;
+                default -> (Op) ctxt.handleWeirdStringValue(Op.class, text, "not one of the values accepted for Enum class: [upsert, delete]");
+            };
+        }
+
+    }
+}
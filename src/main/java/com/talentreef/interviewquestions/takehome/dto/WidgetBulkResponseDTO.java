@@ -0,0 +1,17 @@
+package com.talentreef.interviewquestions.takehome.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WidgetBulkResponseDTO {
+    private boolean atomic;
+    /** {@code false} only when an atomic batch was rejected and nothing was written. */
+    private boolean applied;
+    private List<WidgetBulkItemResultDTO> items;
+}
@@ -0,0 +1,40 @@
+package com.talentreef.interviewquestions.takehome.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WidgetChangeDTO {
+
+    public enum Type {
+        @JsonProperty("upsert")
+        UPSERT,
+        @JsonProperty("delete")
+        DELETE,
+        /**
+         * The changes since the requested position are no longer available; reload the
+         * catalog and apply the changes that follow this one.
+         */
+        @JsonProperty("reset")
+        RESET
+    }
+
+    /** Position in the change log; resume after it with {@code after} or Last-Event-ID. */
+    private long sequence;
+    private Type type;
+    private String name;
+    /**
+     * Store sequence number the change was applied at; for an upsert, the widget's new
+     * version. A change older than what a consumer already holds for the name can be skipped.
+     */
+    private Long version;
+    /** The widget as stored by an upsert. */
+    private WidgetDTO widget;
+}
@@ -1,27 +1,115 @@
 package com.talentreef.interviewquestions.takehome.dto;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.talentreef.interviewquestions.takehome.models.FieldDeserializer;
+import com.talentreef.interviewquestions.takehome.models.Prices;
 import com.talentreef.interviewquestions.takehome.models.Widget;
 
-import lombok.AllArgsConstructor;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * A widget as the API shows it. It is written and read by hand rather than by the bean
+ * (de)serializers, so its {@link Prices packed price} never becomes a {@code BigDecimal}
+ * on the way; {@link #getPrice()} is the decimal view.
+ */
 @Data
 @JsonTypeName("Widget")
-@AllArgsConstructor
+@JsonSerialize(using = WidgetDTO.Serializer.class)
+@JsonDeserialize(using = WidgetDTO.Deserializer.class)
 @NoArgsConstructor
 public class WidgetDTO {
     private String name;
     private String description;
-    private BigDecimal price;
-    
+
+    @JsonIgnore
+    private long packedPrice = Prices.NONE;
+
+    @JsonIgnore
+    private long version;
+
+    public WidgetDTO(String name, String description, BigDecimal price) {
+        this.name = name;
+        this.description = description;
+        this.packedPrice = Prices.of(price);
+    }
+
 	public WidgetDTO(Widget widget) {
         this.name = widget.getName();
         this.description = widget.getDescription();
-        this.price = widget.getPrice();
+        this.packedPrice = widget.getPackedPrice();
+        this.version = widget.getVersion();
+    }
+
+    @Schema(type = "number", example = "12.50")
+    public BigDecimal getPrice() {
+        return Prices.toBigDecimal(packedPrice);
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.packedPrice = Prices.of(price);
     }
-	
+
+    static final class Serializer extends StdSerializer<WidgetDTO> {
+
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(WidgetDTO.class);
+        }
+
+        @Override
+        public void serialize(WidgetDTO widget, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(widget);
+            gen.writeStringField("name", widget.getName());
+            gen.writeStringField("description", widget.getDescription());
+            gen.writeFieldName("price");
+            Prices.write(widget.getPackedPrice(), gen);
+            gen.writeEndObject();
+        }
+
+    }
+
+    static final class Deserializer extends FieldDeserializer<WidgetDTO> {
+
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() {
+            super(WidgetDTO.class, false);
+        }
+
+        @Override
+        protected WidgetDTO create() {
+            return new WidgetDTO();
+        }
+
+        @Override
+        protected boolean readField(WidgetDTO widget, String field, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (field) {
+                case "name" -> widget.setName(readText(p, ctxt));
+                case "description" -> widget.setDescription(readText(p, ctxt));
+                case "price" -> widget.setPackedPrice(Prices.read(p, ctxt));
+                // Ignored like the bean deserializer ignores a @JsonIgnore property.
+                case "version" -> p.skipChildren();
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
 }
@@ -0,0 +1,16 @@
+package com.talentreef.interviewquestions.takehome.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WidgetPageDTO {
+    private List<WidgetDTO> items;
+    /** Opaque cursor for the next page, or {@code null} when this is the last page. */
+    private String nextCursor;
+}
@@ -0,0 +1,65 @@
+package com.talentreef.interviewquestions.takehome.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.talentreef.interviewquestions.takehome.models.Prices;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Price statistics of the whole catalog. Amounts are {@link Prices packed prices}; the
+ * minimum, maximum, mean and quantiles are left out while the catalog is empty.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WidgetStatsDTO {
+    private long count;
+
+    @JsonSerialize(using = Prices.Serializer.class)
+    @Schema(type = "number", example = "1234.50")
+    private Long sum;
+
+    @JsonSerialize(using = Prices.Serializer.class)
+    @Schema(type = "number", example = "1.99")
+    private Long min;
+
+    @JsonSerialize(using = Prices.Serializer.class)
+    @Schema(type = "number", example = "19999.00")
+    private Long max;
+
+    /** Rounded to the cent. */
+    @JsonSerialize(using = Prices.Serializer.class)
+    @Schema(type = "number", example = "42.17")
+    private Long mean;
+
+    /** Nearest-rank quantiles keyed p25, p50, p75, p90 and p99. */
+    @JsonSerialize(contentUsing = Prices.Serializer.class)
+    @Schema(type = "object", example = "{\"p50\": 24.99}")
+    private Map<String, Long> quantiles;
+
+    private List<Band> histogram;
+
+    /** Widgets priced from {@code from} up to, but not including, {@code to}; the last band includes its end. */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Band {
+        @JsonSerialize(using = Prices.Serializer.class)
+        @Schema(type = "number", example = "10.00")
+        private Long from;
+
+        @JsonSerialize(using = Prices.Serializer.class)
+        @Schema(type = "number", example = "25.00")
+        private Long to;
+
+        private long count;
+    }
+}
@@ -0,0 +1,77 @@
+package com.talentreef.interviewquestions.takehome.models;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+
+/**
+ * Reads a JSON object field by field into a mutable bean, for the classes that carry a
+ * {@link Prices packed price}. A bean deserializer would box the {@code long} on its way
+ * to the setter; this one hands it over as a primitive.
+ *
+ * <p>Unknown fields are skipped when {@code ignoreUnknown} is set, and otherwise go
+ * through {@link DeserializationContext#handleUnknownProperty}, which fails or skips as
+ * the mapper is configured, like the bean deserializer does.
+ */
+public abstract class FieldDeserializer<T> extends StdDeserializer<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean ignoreUnknown;
+
+    protected FieldDeserializer(Class<T> type, boolean ignoreUnknown) {
+        super(type);
+        this.ignoreUnknown = ignoreUnknown;
+    }
+
+    protected abstract T create();
+
+    /**
+     * Reads the value of {@code field}, with the parser on its first token.
+     *
+     * @return {@code false} if the field is not one of the bean's
+     */
+    protected abstract boolean readField(T target, String field, JsonParser p, DeserializationContext ctxt) throws IOException;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        String field;
+        if (p.isExpectedStartObjectToken()) {
+            field = p.nextFieldName();
+        } else if (p.hasToken(JsonToken.FIELD_NAME)) {
+            field = p.currentName();
+        } else {
+            return (T) ctxt.handleUnexpectedToken(handledType(), p);
+        }
+        T target = create();
+        for (; field != null; field = p.nextFieldName()) {
+            p.nextToken();
+            if (!readField(target, field, p, ctxt)) {
+                if (ignoreUnknown) {
+                    p.skipChildren();
+                } else {
+                    ctxt.handleUnknownProperty(p, this, target, field);
+                }
+            }
+        }
+        return target;
+    }
+
+    /** The current token as a {@code String}, coercing scalars the way the bean deserializer does. */
+    protected static String readText(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_STRING)) {
+            return p.getText();
+        }
+        if (p.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+        if (p.currentToken().isScalarValue()) {
+            return p.getValueAsString();
+        }
+        return (String) ctxt.handleUnexpectedToken(String.class, p);
+    }
+
+}
@@ -0,0 +1,409 @@
+package com.talentreef.interviewquestions.takehome.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadCapability;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Widget prices as a single packed {@code long}, so storing, indexing, comparing and
+ * (de)serializing a price never allocates.
+ *
+ * <p>The upper 56 bits hold the price in cents, rounded down; the low 8 bits hold the
+ * number of decimals the price was written with, so {@code 12.5} and {@code 12.50} are
+ * echoed the way they came in. A price with non-zero digits past the cents is marked
+ * {@link #INEXACT} instead: it lies strictly between its cents and the next cent, which is
+ * enough to check it against the two-decimal constraints on {@link Widget#getPrice()} and
+ * to filter by it. Magnitudes beyond {@link #MAX_CENTS} are clamped and marked inexact.
+ *
+ * <p>{@link #NONE} stands for a missing price, the {@code null} of the old
+ * {@code BigDecimal} field.
+ */
+public final class Prices {
+
+    /** No price. Sorts below every real price. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    public static final long MAX_CENTS = (1L << 55) - 1;
+
+    /** Scale marker of a price with more than two significant decimals. */
+    static final int INEXACT = 0xff;
+
+    /** Largest number of written decimals that is kept for output. */
+    static final int MAX_SCALE = INEXACT - 1;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /** Mantissa digits kept while parsing; the rest only count towards the exponent. */
+    private static final long MANTISSA_LIMIT = 100_000_000_000_000_000L;
+
+    /** Long enough for any price: sign, 17 integer digits, point and {@link #MAX_SCALE} decimals. */
+    private static final int MAX_CHARS = 20 + MAX_SCALE;
+
+    private static final ThreadLocal<char[]> FORMAT_BUFFER = ThreadLocal.withInitial(() -> new char[MAX_CHARS]);
+
+    private Prices() {
+    }
+
+    /** An exact price of {@code cents}, written with {@code scale} decimals. */
+    public static long of(long cents, int scale) {
+        if (cents > MAX_CENTS || cents < -MAX_CENTS) {
+            return pack(cents < 0 ? -MAX_CENTS : MAX_CENTS, INEXACT);
+        }
+        return pack(cents, Math.max(0, Math.min(scale, MAX_SCALE)));
+    }
+
+    /** The price {@code unscaled * 10^-scale}, as {@link BigDecimal#valueOf(long, int)} would read it. */
+    public static long ofUnscaled(long unscaled, int scale) {
+        boolean negative = unscaled < 0;
+        // Long.MIN_VALUE stays negative when negated; it is far beyond MAX_CENTS either way.
+        long magnitude = negative ? (unscaled == Long.MIN_VALUE ? Long.MAX_VALUE : -unscaled) : unscaled;
+        return pack(negative, magnitude, 2L - scale, false, scale);
+    }
+
+    /** The price {@code value}, or {@link #NONE} for {@code null}. */
+    public static long of(BigDecimal value) {
+        if (value == null) {
+            return NONE;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        return unscaled.bitLength() < Long.SIZE ? ofUnscaled(unscaled.longValue(), value.scale()) : parse(value.toString());
+    }
+
+    /**
+     * The price as a {@code BigDecimal} with the decimals it was written with, or
+     * {@code null} for {@link #NONE}. An inexact price is cut to whole cents.
+     */
+    public static BigDecimal toBigDecimal(long price) {
+        if (price == NONE) {
+            return null;
+        }
+        return BigDecimal.valueOf(cents(price), 2).setScale(isExact(price) ? scale(price) : 2, RoundingMode.DOWN);
+    }
+
+    /** The price in cents, rounded down. */
+    public static long cents(long price) {
+        return price >> 8;
+    }
+
+    /** Decimals the price was written with; 2 for an {@link #isExact(long) inexact} price. */
+    public static int scale(long price) {
+        int scale = (int) (price & 0xff);
+        return scale == INEXACT ? 2 : scale;
+    }
+
+    /** Whether the price is a whole number of cents. */
+    public static boolean isExact(long price) {
+        return (price & 0xff) != INEXACT;
+    }
+
+    /** Smallest whole number of cents at or above the price, for a lower bound. */
+    public static long ceilCents(long price) {
+        return isExact(price) ? cents(price) : cents(price) + 1;
+    }
+
+    /** Largest whole number of cents at or below the price, for an upper bound. */
+    public static long floorCents(long price) {
+        return cents(price);
+    }
+
+    public static boolean isAtLeast(long price, long cents) {
+        return cents(price) >= cents;
+    }
+
+    public static boolean isAtMost(long price, long cents) {
+        return isExact(price) ? cents(price) <= cents : cents(price) < cents;
+    }
+
+    /** Whether the price has at most {@code integer} integral and {@code fraction} fractional digits, like {@code @Digits}. */
+    public static boolean hasDigits(long price, int integer, int fraction) {
+        long cents = cents(price);
+        if (!isExact(price) || (fraction < 2 && cents % POWERS_OF_TEN[2 - fraction] != 0)) {
+            return false;
+        }
+        if (integer + 2 >= POWERS_OF_TEN.length) {
+            return true;
+        }
+        long limit = POWERS_OF_TEN[integer + 2];
+        return cents > -limit && cents < limit;
+    }
+
+    public static long parse(CharSequence text) {
+        int length = text.length();
+        char[] chars = length <= MAX_CHARS ? FORMAT_BUFFER.get() : new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        return parse(chars, 0, length);
+    }
+
+    /**
+     * Parses a decimal number such as {@code 12.50}, {@code -3} or {@code 1.5e2}, the forms
+     * {@link BigDecimal#BigDecimal(String)} accepts.
+     *
+     * @throws NumberFormatException if the characters are not a decimal number
+     */
+    public static long parse(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i++] == '-';
+        }
+        long mantissa = 0;
+        long exponent = 0;
+        int digits = 0;
+        long decimals = 0;
+        boolean sticky = false;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (fraction) {
+                    decimals++;
+                }
+                if (mantissa < MANTISSA_LIMIT) {
+                    mantissa = mantissa * 10 + (c - '0');
+                } else {
+                    // Dropped digits scale the mantissa up; non-zero ones only matter as a remainder.
+                    exponent++;
+                    sticky |= c != '0';
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            throw notANumber(chars, offset, length);
+        }
+        if (i < end) {
+            if (chars[i] != 'e' && chars[i] != 'E' || ++i == end) {
+                throw notANumber(chars, offset, length);
+            }
+            boolean negativeExponent = false;
+            if (chars[i] == '-' || chars[i] == '+') {
+                negativeExponent = chars[i++] == '-';
+            }
+            if (i == end) {
+                throw notANumber(chars, offset, length);
+            }
+            long written = 0;
+            for (; i < end; i++) {
+                char c = chars[i];
+                if (c < '0' || c > '9') {
+                    throw notANumber(chars, offset, length);
+                }
+                written = Math.min(written * 10 + (c - '0'), Integer.MAX_VALUE);
+            }
+            decimals -= negativeExponent ? -written : written;
+        }
+        return pack(negative, mantissa, exponent - decimals + 2, sticky, decimals);
+    }
+
+    /** Formats the price the way it was written; an inexact price is cut to whole cents. */
+    public static String toString(long price) {
+        char[] chars = FORMAT_BUFFER.get();
+        return new String(chars, 0, format(price, chars));
+    }
+
+    /** Writes the price into {@code chars} from index 0 and returns the number of characters. */
+    public static int format(long price, char[] chars) {
+        long cents = cents(price);
+        int scale = scale(price);
+        int length = 0;
+        if (cents < 0) {
+            chars[length++] = '-';
+            cents = -cents;
+        }
+        length = formatDigits(cents / 100, chars, length);
+        if (scale > 0) {
+            chars[length++] = '.';
+            int hundredths = (int) (cents % 100);
+            chars[length++] = (char) ('0' + hundredths / 10);
+            if (scale > 1) {
+                chars[length++] = (char) ('0' + hundredths % 10);
+                for (int i = 2; i < scale; i++) {
+                    chars[length++] = '0';
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes the price as a JSON number, or {@code null} for {@link #NONE}. Binary formats,
+     * which cannot take a number as text, get a decimal with the written scale.
+     */
+    public static void write(long price, JsonGenerator gen) throws IOException {
+        if (price == NONE) {
+            gen.writeNull();
+        } else if (scale(price) == 0) {
+            gen.writeNumber(cents(price) / 100);
+        } else if (gen.canWriteFormattedNumbers()) {
+            char[] chars = FORMAT_BUFFER.get();
+            gen.writeNumber(chars, 0, format(price, chars));
+        } else {
+            gen.writeNumber(BigDecimal.valueOf(cents(price), 2).setScale(scale(price), RoundingMode.DOWN));
+        }
+    }
+
+    /**
+     * Reads the current token as a price: a number, a numeric string, or {@code null} for
+     * {@link #NONE}. A JSON number is parsed from the parser's own buffer; a binary format
+     * hands over the value it decoded.
+     */
+    public static long read(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return NONE;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            if (p.getReadCapabilities().isEnabled(StreamReadCapability.EXACT_FLOATS)) {
+                return readDecoded(p, ctxt);
+            }
+            try {
+                return parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            } catch (NumberFormatException e) {
+                return handled(ctxt.handleWeirdNumberValue(BigDecimal.class, p.getNumberValue(), "not a valid price"));
+            }
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = p.getText().trim();
+            if (text.isEmpty()) {
+                return NONE;
+            }
+            try {
+                return parse(text);
+            } catch (NumberFormatException e) {
+                return handled(ctxt.handleWeirdStringValue(BigDecimal.class, text, "not a valid price"));
+            }
+        }
+        return handled(ctxt.handleUnexpectedToken(BigDecimal.class, p));
+    }
+
+    /**
+     * The price a {@code DeserializationProblemHandler} substituted. Asked for a
+     * {@code BigDecimal}, a handler returns one, or {@code null}; any other number is read
+     * from its decimal form.
+     */
+    private static long handled(Object value) {
+        if (value == null) {
+            return NONE;
+        }
+        if (value instanceof BigDecimal decimal) {
+            return of(decimal);
+        }
+        return parse(value.toString());
+    }
+
+    /** A number from a binary format, which has no text of its own to parse. */
+    private static long readDecoded(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.getNumberType()) {
+            case INT, LONG -> {
+                return ofUnscaled(p.getLongValue(), 0);
+            }
+            case BIG_DECIMAL -> {
+                BigDecimal decimal = p.getDecimalValue();
+                if (decimal.unscaledValue().bitLength() < Long.SIZE) {
+                    return ofUnscaled(decimal.unscaledValue().longValue(), decimal.scale());
+                }
+            }
+            default -> {
+                // A float or double reads as its shortest decimal form, 12.5 rather than 12.4999...
+            }
+        }
+        try {
+            return parse(p.getText());
+        } catch (NumberFormatException e) {
+            return handled(ctxt.handleWeirdNumberValue(BigDecimal.class, p.getNumberValue(), "not a valid price"));
+        }
+    }
+
+    private static long pack(long cents, int scale) {
+        return cents << 8 | scale;
+    }
+
+    /** Packs {@code ±(mantissa * 10^power)} cents, plus a non-zero remainder if {@code sticky}. */
+    private static long pack(boolean negative, long mantissa, long power, boolean sticky, long scale) {
+        if (mantissa == 0) {
+            return pack(0, (int) Math.max(0, Math.min(scale, MAX_SCALE)));
+        }
+        long cents;
+        boolean exact = !sticky;
+        if (power >= 0) {
+            if (power >= POWERS_OF_TEN.length || mantissa > MAX_CENTS / POWERS_OF_TEN[(int) power]) {
+                return pack(negative ? -MAX_CENTS : MAX_CENTS, INEXACT);
+            }
+            cents = mantissa * POWERS_OF_TEN[(int) power];
+        } else if (-power >= POWERS_OF_TEN.length) {
+            cents = 0;
+            exact = false;
+        } else {
+            long divisor = POWERS_OF_TEN[(int) -power];
+            cents = mantissa / divisor;
+            exact &= mantissa % divisor == 0;
+        }
+        if (cents > MAX_CENTS) {
+            return pack(negative ? -MAX_CENTS : MAX_CENTS, INEXACT);
+        }
+        if (exact) {
+            return pack(negative ? -cents : cents, (int) Math.max(0, Math.min(scale, MAX_SCALE)));
+        }
+        // Round towards negative infinity, so the price is always above its cents.
+        return pack(negative ? -cents - 1 : cents, INEXACT);
+    }
+
+    private static int formatDigits(long value, char[] chars, int offset) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+
+    private static NumberFormatException notANumber(char[] chars, int offset, int length) {
+        return new NumberFormatException("Not a decimal number: " + new String(chars, offset, length));
+    }
+
+    /**
+     * Writes a packed price property of a bean serialized by Jackson. The value arrives
+     * boxed, so this is for beans off the hot path; {@code WidgetDTO} writes its price with
+     * {@link #write(long, JsonGenerator)} directly.
+     */
+    public static final class Serializer extends StdSerializer<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            write(value, gen);
+        }
+
+    }
+
+}
@@ -1,11 +1,15 @@
 package com.talentreef.interviewquestions.takehome.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
-import lombok.NoArgsConstructor;
+import java.io.IOException;
 import java.math.BigDecimal;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -23,8 +27,8 @@ import javax.validation.constraints.Size;
 @Table
 @Entity
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonDeserialize(using = Widget.Deserializer.class)
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
-@NoArgsConstructor
 @Builder(toBuilder=true)
 public class Widget {
 
@@ -42,10 +46,69 @@ public class Widget {
     @Column
     private String description;
 
+    /**
+     * The price as stored, indexed and serialized: a {@link Prices packed price}, or
+     * {@link Prices#NONE} when there is none. {@link #getPrice()} is the decimal view.
+     */
+    @Column(name = "price")
+    @JsonIgnore
+    @Builder.Default
+    private long packedPrice = Prices.NONE;
+
+    @Column
+    private long version;
+
+    public Widget() {
+        // Spelled out, since @Builder.Default keeps the initializer out of generated constructors.
+        this.packedPrice = Prices.NONE;
+    }
+
     @NotNull
     @DecimalMin(value = "1.00", message = "Price must be at least 1")
     @DecimalMax(value = "20000.00", message = "Price must be less than or equal to 20,000")
     @Digits(integer = 5, fraction = 2, message = "Price must be a number with up to 2 decimal places")
-    @Column(precision = 7, scale = 2)
-    private BigDecimal price;
+    public BigDecimal getPrice() {
+        return Prices.toBigDecimal(packedPrice);
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.packedPrice = Prices.of(price);
+    }
+
+    public static class WidgetBuilder {
+
+        public WidgetBuilder price(BigDecimal price) {
+            return packedPrice(Prices.of(price));
+        }
+
+    }
+
+    /** Reads the fields a client may send; the id and version are assigned by the server. */
+    static final class Deserializer extends FieldDeserializer<Widget> {
+
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() {
+            super(Widget.class, true);
+        }
+
+        @Override
+        protected Widget create() {
+            return new Widget();
+        }
+
+        @Override
+        protected boolean readField(Widget widget, String field, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (field) {
+                case "name" -> widget.setName(readText(p, ctxt));
+                case "description" -> widget.setDescription(readText(p, ctxt));
+                case "price" -> widget.setPackedPrice(Prices.read(p, ctxt));
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
 }
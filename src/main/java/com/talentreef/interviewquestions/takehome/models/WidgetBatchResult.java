@@ -0,0 +1,28 @@
+package com.talentreef.interviewquestions.takehome.models;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Outcome of {@code WidgetRepository.applyBatch}.
+ */
+@Value
+public class WidgetBatchResult {
+
+    /**
+     * For each mutation, in order, the widget it replaced or removed, or {@code null} if
+     * there was none. Empty when the batch was rejected.
+     */
+    List<Widget> previous;
+
+    /**
+     * Index of the delete that targeted a missing widget and made an atomic batch fail,
+     * or {@code -1} if the batch was applied.
+     */
+    int rejectedIndex;
+
+    public boolean isApplied() {
+        return rejectedIndex < 0;
+    }
+
+}
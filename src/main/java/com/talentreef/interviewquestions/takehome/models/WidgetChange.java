@@ -0,0 +1,20 @@
+package com.talentreef.interviewquestions.takehome.models;
+
+import lombok.Value;
+
+/**
+ * A mutation as recorded in the change log, at its position in the log.
+ */
+@Value
+public class WidgetChange {
+
+    /**
+     * Position of the change in the log: one more than the change before it. Unlike
+     * {@link WidgetMutation#getSequence()}, it has no gaps and follows the order changes
+     * were logged in across all names.
+     */
+    long sequence;
+
+    WidgetMutation mutation;
+
+}
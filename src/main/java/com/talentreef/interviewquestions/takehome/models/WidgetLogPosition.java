@@ -0,0 +1,47 @@
+package com.talentreef.interviewquestions.takehome.models;
+
+/**
+ * How far a node has got in a replication leader's change log: the leader's epoch, the
+ * time it started, and the {@link WidgetChange#getSequence() sequence} of the last change.
+ * Written {@code epoch-sequence}, as in the {@code X-Widget-Sequence} header.
+ *
+ * <p>Positions are ordered by epoch first. A leader that restarts serves the catalog it
+ * recovered, which holds every write it had made durable, so a position of a later epoch
+ * is ahead of every position of an earlier one.
+ */
+public record WidgetLogPosition(long epoch, long sequence) implements Comparable<WidgetLogPosition> {
+
+    /** Before any change of any leader. */
+    public static final WidgetLogPosition NONE = new WidgetLogPosition(0, 0);
+
+    /**
+     * @throws IllegalArgumentException if {@code text} is not {@code epoch-sequence}
+     */
+    public static WidgetLogPosition parse(String text) {
+        int separator = text.indexOf('-');
+        try {
+            if (separator > 0) {
+                long epoch = Long.parseLong(text, 0, separator, 10);
+                long sequence = Long.parseLong(text, separator + 1, text.length(), 10);
+                if (epoch >= 0 && sequence >= 0) {
+                    return new WidgetLogPosition(epoch, sequence);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException("Not a widget log position (epoch-sequence): " + text);
+    }
+
+    @Override
+    public int compareTo(WidgetLogPosition other) {
+        int byEpoch = Long.compare(epoch, other.epoch);
+        return byEpoch != 0 ? byEpoch : Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return epoch + "-" + sequence;
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.talentreef.interviewquestions.takehome.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * A single write against the widget store: an upsert of a whole widget or a delete by name.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class WidgetMutation {
+
+    public enum Type {
+        UPSERT,
+        DELETE
+    }
+
+    Type type;
+
+    String name;
+
+    /** The widget to store; {@code null} for deletes. */
+    Widget widget;
+
+    /**
+     * Store sequence number the mutation was applied at, or {@code 0} if it has not been
+     * applied yet. For an upsert it is the stored widget's version.
+     */
+    long sequence;
+
+    public static WidgetMutation upsert(Widget widget) {
+        return new WidgetMutation(Type.UPSERT, widget.getName(), widget, widget.getVersion());
+    }
+
+    public static WidgetMutation delete(String name) {
+        return delete(name, 0);
+    }
+
+    public static WidgetMutation delete(String name, long sequence) {
+        return new WidgetMutation(Type.DELETE, name, null, sequence);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.talentreef.interviewquestions.takehome.models;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Filter, sort order and keyset position for a listing of widgets. A {@code null}
+ * field means "no constraint"; a {@code null} limit means the whole matching range.
+ */
+@Value
+@Builder(toBuilder = true)
+public class WidgetQuery {
+
+    public enum Sort {
+        NAME,
+        PRICE
+    }
+
+    @Builder.Default
+    Sort sort = Sort.NAME;
+
+    boolean descending;
+
+    String namePrefix;
+
+    /** Lowest price in whole cents, inclusive. */
+    Long minPriceCents;
+
+    /** Highest price in whole cents, inclusive. */
+    Long maxPriceCents;
+
+    /** Name of the last widget of the previous page; the page starts right after it. */
+    String afterName;
+
+    /** Price in cents of the last widget of the previous page, used together with {@link #afterName} when sorting by price. */
+    Long afterPriceCents;
+
+    Integer limit;
+
+    /** Whether a {@link Prices packed price} lies within the bounds. */
+    public boolean matchesPrice(long price) {
+        long cents = Prices.cents(price);
+        return (minPriceCents == null || cents >= minPriceCents)
+                && (maxPriceCents == null || cents <= maxPriceCents);
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link WidgetStore}: the widgets themselves, in a {@link ConcurrentHashMap}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "widgets.storage", name = "backend", havingValue = "heap", matchIfMissing = true)
+public class HeapWidgetStore implements WidgetStore {
+
+  // Shallow sizes with compressed oops and 8-byte alignment.
+  private static final int MAP_ENTRY_BYTES = 32 + 8;
+
+  // The price is packed into the widget itself.
+  private static final int WIDGET_BYTES = 40;
+
+  private final ConcurrentHashMap<String, Widget> table = new ConcurrentHashMap<>();
+
+  private final LongAdder footprint = new LongAdder();
+
+  @Override
+  public Widget get(String name) {
+    return table.get(name);
+  }
+
+  @Override
+  public Widget put(Widget widget) {
+    Widget previous = table.put(widget.getName(), widget);
+    footprint.add(estimate(widget) - (previous == null ? 0 : estimate(previous)));
+    return previous;
+  }
+
+  @Override
+  public Widget remove(String name) {
+    Widget removed = table.remove(name);
+    if (removed != null) {
+      footprint.add(-estimate(removed));
+    }
+    return removed;
+  }
+
+  @Override
+  public boolean containsKey(String name) {
+    return table.containsKey(name);
+  }
+
+  @Override
+  public int size() {
+    return table.size();
+  }
+
+  @Override
+  public long footprintBytes() {
+    return footprint.sum();
+  }
+
+  @Override
+  public String backend() {
+    return "heap";
+  }
+
+  private static long estimate(Widget widget) {
+    return MAP_ENTRY_BYTES + WIDGET_BYTES + stringBytes(widget.getName()) + stringBytes(widget.getDescription());
+  }
+
+  /** A compact (Latin-1) string: the String object plus its byte array. */
+  static long stringBytes(String value) {
+    return value == null ? 0 : 24 + ((16 + value.length() + 7) & ~7);
+  }
+
+}
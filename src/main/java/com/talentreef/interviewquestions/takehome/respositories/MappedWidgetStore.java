@@ -0,0 +1,341 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Prices;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link WidgetStore} that packs widgets into off-heap memory instead of keeping a
+ * {@code Widget} and two {@code String}s per widget on the heap.
+ *
+ * <p>Memory comes in fixed-size chunks: files memory-mapped from
+ * {@code widgets.storage.directory}, so the operating system can page cold widgets
+ * out, or direct buffers (bounded by {@code -XX:MaxDirectMemorySize}) when no directory
+ * is set. Each widget occupies one 16-byte aligned slot:
+ *
+ * <pre>
+ * int stamp, int slotBytes, long version, long price, short nameBytes, short unused,
+ * int descriptionBytes, UTF-8 name, UTF-8 description
+ * </pre>
+ *
+ * The price is the widget's packed {@link Prices} value, stored as is. A map from name to slot address is the only per-widget
+ * structure left on the heap. Slots are rounded up to 16 bytes (powers of two above
+ * 4KB); an update rewrites the slot in place when it still fits, and freed slots are
+ * reused for records of the same slot size.
+ *
+ * <p>Reads take no lock. Each slot carries a seqlock stamp that is odd while the slot is
+ * being written; a reader that sees the stamp change, or finds the slot freed or reused
+ * for another name, retries from the index.
+ *
+ * <p>The chunks are scratch space that is discarded with the process; durability comes
+ * from the write-ahead log, as with the heap backend. Widget ids are not stored.
+ */
+@Component
+@ConditionalOnProperty(prefix = "widgets.storage", name = "backend", havingValue = "mapped")
+public class MappedWidgetStore implements WidgetStore {
+
+  private static final VarHandle STAMP = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+  private static final int CAPACITY_OFFSET = 4;
+
+  private static final int VERSION_OFFSET = 8;
+
+  private static final int PRICE_OFFSET = 16;
+
+  private static final int NAME_LENGTH_OFFSET = 24;
+
+  private static final int DESCRIPTION_LENGTH_OFFSET = 28;
+
+  private static final int HEADER_BYTES = 32;
+
+  /** Name length marking a freed slot. */
+  private static final short FREE = -1;
+
+  private static final int GRANULE = 16;
+
+  private static final int SMALL_SLOT_LIMIT = 4096;
+
+  private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+  // Heap per index entry: map node and table slot, plus the boxed address.
+  private static final int INDEX_ENTRY_BYTES = 32 + 8 + 16;
+
+  private final ConcurrentHashMap<String, Long> index = new ConcurrentHashMap<>();
+
+  private final List<ConcurrentLinkedDeque<Long>> freeSlots;
+
+  private final ReentrantLock allocationLock = new ReentrantLock();
+
+  private final Path directory;
+
+  private final int chunkBytes;
+
+  private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+  /** Next free offset in the last chunk. Guarded by {@link #allocationLock}. */
+  private int top;
+
+  private final LongAdder slotBytes = new LongAdder();
+
+  private final LongAdder indexBytes = new LongAdder();
+
+  public MappedWidgetStore(WidgetProperties widgetProperties) {
+    WidgetProperties.Storage storage = widgetProperties.getStorage();
+    long configuredChunkBytes = storage.getChunkSize().toBytes();
+    if (configuredChunkBytes < SMALL_SLOT_LIMIT || configuredChunkBytes > MAX_CHUNK_BYTES) {
+      throw new IllegalArgumentException("widgets.storage.chunk-size must be between 4KB and 1GB");
+    }
+    this.chunkBytes = (int) configuredChunkBytes & -GRANULE;
+    this.directory = storage.getDirectory() == null ? null : Paths.get(storage.getDirectory());
+    int freeLists = freeListIndex(Integer.highestOneBit(chunkBytes)) + 1;
+    this.freeSlots = new ArrayList<>(freeLists);
+    for (int i = 0; i < freeLists; i++) {
+      freeSlots.add(new ConcurrentLinkedDeque<>());
+    }
+    if (directory != null) {
+      try {
+        Files.createDirectories(directory);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  @Override
+  public Widget get(String name) {
+    while (true) {
+      Long address = index.get(name);
+      if (address == null) {
+        return null;
+      }
+      Widget widget = read(address, name);
+      if (widget != null) {
+        return widget;
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  @Override
+  public Widget put(Widget widget) {
+    String name = widget.getName();
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    byte[] descriptionBytes = widget.getDescription() == null ? null : widget.getDescription().getBytes(StandardCharsets.UTF_8);
+    if (nameBytes.length > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Widget name is too long to store");
+    }
+    int slot = slotSize(HEADER_BYTES + nameBytes.length + (descriptionBytes == null ? 0 : descriptionBytes.length));
+
+    Long existing = index.get(name);
+    // The caller holds the name's lock, so the existing slot cannot change under us.
+    Widget previous = existing == null ? null : read(existing, name);
+    if (existing != null && capacity(existing) == slot) {
+      write(existing, widget, nameBytes, descriptionBytes);
+      return previous;
+    }
+    long address = allocate(slot);
+    write(address, widget, nameBytes, descriptionBytes);
+    index.put(name, address);
+    slotBytes.add(slot);
+    if (existing == null) {
+      indexBytes.add(INDEX_ENTRY_BYTES + HeapWidgetStore.stringBytes(name));
+    } else {
+      release(existing);
+    }
+    return previous;
+  }
+
+  @Override
+  public Widget remove(String name) {
+    Long address = index.remove(name);
+    if (address == null) {
+      return null;
+    }
+    Widget removed = read(address, name);
+    release(address);
+    indexBytes.add(-(INDEX_ENTRY_BYTES + HeapWidgetStore.stringBytes(name)));
+    return removed;
+  }
+
+  @Override
+  public boolean containsKey(String name) {
+    return index.containsKey(name);
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  @Override
+  public long footprintBytes() {
+    return slotBytes.sum() + indexBytes.sum();
+  }
+
+  @Override
+  public String backend() {
+    return "mapped";
+  }
+
+  /**
+   * Reads the widget in the slot.
+   *
+   * @return the widget, or {@code null} if the slot was written concurrently, has been
+   *         freed or now holds another name
+   */
+  private Widget read(long address, String name) {
+    ByteBuffer chunk = chunks[(int) (address >>> 32)];
+    int offset = (int) address;
+    int stamp = (int) STAMP.getAcquire(chunk, offset);
+    if ((stamp & 1) != 0) {
+      return null;
+    }
+    int capacity = chunk.getInt(offset + CAPACITY_OFFSET);
+    int nameLength = chunk.getShort(offset + NAME_LENGTH_OFFSET);
+    int descriptionLength = chunk.getInt(offset + DESCRIPTION_LENGTH_OFFSET);
+    if (nameLength < 0 || descriptionLength < -1 || HEADER_BYTES + nameLength + Math.max(descriptionLength, 0) > capacity) {
+      return null;
+    }
+    long version = chunk.getLong(offset + VERSION_OFFSET);
+    long price = chunk.getLong(offset + PRICE_OFFSET);
+    byte[] nameBytes = new byte[nameLength];
+    chunk.get(offset + HEADER_BYTES, nameBytes);
+    byte[] descriptionBytes = descriptionLength < 0 ? null : new byte[descriptionLength];
+    if (descriptionBytes != null) {
+      chunk.get(offset + HEADER_BYTES + nameLength, descriptionBytes);
+    }
+    VarHandle.loadLoadFence();
+    if ((int) STAMP.getOpaque(chunk, offset) != stamp) {
+      return null;
+    }
+    if (!name.equals(new String(nameBytes, StandardCharsets.UTF_8))) {
+      return null;
+    }
+    return Widget.builder()
+        .name(name)
+        .description(descriptionBytes == null ? null : new String(descriptionBytes, StandardCharsets.UTF_8))
+        .packedPrice(price)
+        .version(version)
+        .build();
+  }
+
+  private void write(long address, Widget widget, byte[] nameBytes, byte[] descriptionBytes) {
+    ByteBuffer chunk = chunks[(int) (address >>> 32)];
+    int offset = (int) address;
+    int stamp = chunk.getInt(offset);
+    STAMP.setOpaque(chunk, offset, stamp + 1);
+    VarHandle.storeStoreFence();
+    chunk.putLong(offset + VERSION_OFFSET, widget.getVersion());
+    chunk.putLong(offset + PRICE_OFFSET, widget.getPackedPrice());
+    chunk.putShort(offset + NAME_LENGTH_OFFSET, (short) nameBytes.length);
+    chunk.putInt(offset + DESCRIPTION_LENGTH_OFFSET, descriptionBytes == null ? -1 : descriptionBytes.length);
+    chunk.put(offset + HEADER_BYTES, nameBytes);
+    if (descriptionBytes != null) {
+      chunk.put(offset + HEADER_BYTES + nameBytes.length, descriptionBytes);
+    }
+    STAMP.setRelease(chunk, offset, stamp + 2);
+  }
+
+  /** Marks the slot free and makes it available for reuse. */
+  private void release(long address) {
+    ByteBuffer chunk = chunks[(int) (address >>> 32)];
+    int offset = (int) address;
+    int stamp = chunk.getInt(offset);
+    STAMP.setOpaque(chunk, offset, stamp + 1);
+    VarHandle.storeStoreFence();
+    chunk.putShort(offset + NAME_LENGTH_OFFSET, FREE);
+    STAMP.setRelease(chunk, offset, stamp + 2);
+    int capacity = chunk.getInt(offset + CAPACITY_OFFSET);
+    slotBytes.add(-capacity);
+    freeSlots.get(freeListIndex(capacity)).push(address);
+  }
+
+  private int capacity(long address) {
+    return chunks[(int) (address >>> 32)].getInt((int) address + CAPACITY_OFFSET);
+  }
+
+  private long allocate(int slot) {
+    Long reused = freeSlots.get(freeListIndex(slot)).poll();
+    if (reused != null) {
+      return reused;
+    }
+    allocationLock.lock();
+    try {
+      ByteBuffer[] current = chunks;
+      if (current.length == 0 || top + slot > chunkBytes) {
+        current = Arrays.copyOf(current, current.length + 1);
+        current[current.length - 1] = newChunk();
+        chunks = current;
+        top = 0;
+      }
+      int offset = top;
+      current[current.length - 1].putInt(offset + CAPACITY_OFFSET, slot);
+      top += slot;
+      return ((long) (current.length - 1) << 32) | offset;
+    } finally {
+      allocationLock.unlock();
+    }
+  }
+
+  private ByteBuffer newChunk() {
+    if (directory == null) {
+      return ByteBuffer.allocateDirect(chunkBytes);
+    }
+    try {
+      Path file = Files.createTempFile(directory, "widgets-", ".bin");
+      ByteBuffer chunk;
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, 0, chunkBytes);
+      }
+      // The mapping keeps the pages alive, so the file can go right away and nothing is
+      // left behind when the process exits, cleanly or not.
+      try {
+        Files.delete(file);
+      } catch (IOException e) {
+        file.toFile().deleteOnExit();
+      }
+      return chunk;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not map widget storage in " + directory, e);
+    }
+  }
+
+  private int slotSize(int recordBytes) {
+    int slot = recordBytes <= SMALL_SLOT_LIMIT
+        ? (recordBytes + GRANULE - 1) & -GRANULE
+        : Integer.highestOneBit(recordBytes - 1) << 1;
+    if (slot <= 0 || slot > chunkBytes) {
+      throw new IllegalArgumentException("Widget record of " + recordBytes + " bytes does not fit in a storage chunk");
+    }
+    return slot;
+  }
+
+  private static int freeListIndex(int slot) {
+    return slot <= SMALL_SLOT_LIMIT
+        ? slot / GRANULE
+        : SMALL_SLOT_LIMIT / GRANULE + Integer.numberOfTrailingZeros(slot) - Integer.numberOfTrailingZeros(SMALL_SLOT_LIMIT);
+  }
+
+}
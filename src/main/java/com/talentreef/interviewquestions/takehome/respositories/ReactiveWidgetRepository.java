@@ -0,0 +1,81 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetBatchResult;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * {@link WidgetRepository} as {@link Mono}s and {@link Flux}es, for the reactive API.
+ *
+ * <p>Reads come straight from memory on the subscribing thread, which never blocks. The
+ * full listing is a {@link Flux} over the repository's weakly consistent iterator: widgets
+ * are read only as the subscriber requests them, so the catalog is never copied. Writes
+ * also run on the subscribing thread unless the attached journal makes writers wait for
+ * the disk ({@code widgets.persistence.fsync: always}). In that case they are moved to
+ * {@link Schedulers#boundedElastic()} so that event-loop threads stay free.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveWidgetRepository {
+
+  private final WidgetRepository widgetRepository;
+
+  public ReactiveWidgetRepository(WidgetRepository widgetRepository) {
+    Assert.notNull(widgetRepository, "widgetRepository must not be null");
+    this.widgetRepository = widgetRepository;
+  }
+
+  public Mono<Widget> findById(String name) {
+    return Mono.fromSupplier(() -> widgetRepository.findById(name).orElse(null));
+  }
+
+  /** Every widget in name order, read lazily under backpressure. */
+  public Flux<Widget> findAll() {
+    return Flux.fromIterable(widgetRepository::iterator);
+  }
+
+  /** One page of {@link WidgetRepository#find(WidgetQuery)}; bounded by the query's limit. */
+  public Flux<Widget> find(WidgetQuery query) {
+    return Flux.defer(() -> Flux.fromIterable(widgetRepository.find(query)));
+  }
+
+  public Mono<Widget> save(Widget widget) {
+    return write(() -> widgetRepository.save(widget));
+  }
+
+  /** Emits the widget already stored under the name, or completes empty if this one was stored. */
+  public Mono<Widget> putIfAbsent(Widget widget) {
+    return write(() -> widgetRepository.putIfAbsent(widget).orElse(null));
+  }
+
+  public Mono<Boolean> compareAndSet(Widget widget, long expectedVersion) {
+    return write(() -> widgetRepository.compareAndSet(widget, expectedVersion));
+  }
+
+  /** Emits the removed widget, or completes empty if there was none. */
+  public Mono<Widget> deleteById(String name) {
+    return write(() -> widgetRepository.deleteById(name).orElse(null));
+  }
+
+  public Mono<WidgetBatchResult> applyBatch(List<WidgetMutation> mutations, boolean atomic) {
+    return write(() -> widgetRepository.applyBatch(mutations, atomic));
+  }
+
+  private <T> Mono<T> write(Callable<T> operation) {
+    return Mono.defer(() -> {
+      Mono<T> write = Mono.fromCallable(operation);
+      return widgetRepository.writesMayBlock() ? write.subscribeOn(Schedulers.boundedElastic()) : write;
+    });
+  }
+
+}
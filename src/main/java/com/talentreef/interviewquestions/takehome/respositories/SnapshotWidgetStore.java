@@ -0,0 +1,278 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link WidgetStore} that keeps the widgets in a persistent AVL tree ordered by name,
+ * behind one atomic root, so every version of the tree stays readable as it was.
+ *
+ * <p>A write copies the path from the root down to its widget, about 1.44 log2(n) nodes,
+ * shares every other node with the previous tree and swaps the new root in with a
+ * compare-and-set, retrying against the latest root if another writer got there first.
+ * {@link #snapshot()} is then a single read of the root: the list it returns is the whole
+ * catalog as of one write, costs nothing to take and never changes, however long a reader
+ * holds on to it.
+ *
+ * <p>Lookups cost O(log n) name comparisons instead of a hash probe, and writers to
+ * different names contend for the one root, so this backend trades some write throughput
+ * for consistent full listings.
+ */
+@Component
+@ConditionalOnProperty(prefix = "widgets.storage", name = "backend", havingValue = "snapshot")
+public class SnapshotWidgetStore implements WidgetStore {
+
+  // Shallow sizes with compressed oops and 8-byte alignment.
+  private static final int NODE_BYTES = 32;
+
+  // The price is packed into the widget itself.
+  private static final int WIDGET_BYTES = 40;
+
+  private final AtomicReference<Node> root = new AtomicReference<>();
+
+  private final LongAdder footprint = new LongAdder();
+
+  @Override
+  public Widget get(String name) {
+    return find(root.get(), name);
+  }
+
+  @Override
+  public Widget put(Widget widget) {
+    while (true) {
+      Node current = root.get();
+      Widget previous = find(current, widget.getName());
+      if (root.compareAndSet(current, insert(current, widget))) {
+        footprint.add(estimate(widget) - (previous == null ? 0 : estimate(previous)));
+        return previous;
+      }
+    }
+  }
+
+  @Override
+  public Widget remove(String name) {
+    while (true) {
+      Node current = root.get();
+      Widget removed = find(current, name);
+      if (removed == null) {
+        return null;
+      }
+      if (root.compareAndSet(current, delete(current, name))) {
+        footprint.add(-estimate(removed));
+        return removed;
+      }
+    }
+  }
+
+  @Override
+  public boolean containsKey(String name) {
+    return get(name) != null;
+  }
+
+  @Override
+  public int size() {
+    return size(root.get());
+  }
+
+  @Override
+  public long footprintBytes() {
+    return footprint.sum();
+  }
+
+  @Override
+  public String backend() {
+    return "snapshot";
+  }
+
+  /** The tree as of the latest write, as an immutable list in name order. */
+  @Override
+  public List<Widget> snapshot() {
+    return new Snapshot(root.get());
+  }
+
+  private static Widget find(Node node, String name) {
+    while (node != null) {
+      int comparison = name.compareTo(node.widget.getName());
+      if (comparison == 0) {
+        return node.widget;
+      }
+      node = comparison < 0 ? node.left : node.right;
+    }
+    return null;
+  }
+
+  private static Node insert(Node node, Widget widget) {
+    if (node == null) {
+      return new Node(widget, null, null);
+    }
+    int comparison = widget.getName().compareTo(node.widget.getName());
+    if (comparison == 0) {
+      return new Node(widget, node.left, node.right);
+    }
+    return comparison < 0
+        ? balance(node.widget, insert(node.left, widget), node.right)
+        : balance(node.widget, node.left, insert(node.right, widget));
+  }
+
+  /** The tree without the widget named {@code name}, which must be in it. */
+  private static Node delete(Node node, String name) {
+    int comparison = name.compareTo(node.widget.getName());
+    if (comparison < 0) {
+      return balance(node.widget, delete(node.left, name), node.right);
+    }
+    if (comparison > 0) {
+      return balance(node.widget, node.left, delete(node.right, name));
+    }
+    if (node.left == null || node.right == null) {
+      return node.left == null ? node.right : node.left;
+    }
+    Node successor = node.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor.widget, node.left, deleteFirst(node.right));
+  }
+
+  private static Node deleteFirst(Node node) {
+    return node.left == null ? node.right : balance(node.widget, deleteFirst(node.left), node.right);
+  }
+
+  /**
+   * A node over two subtrees whose heights differ by at most two, rotated so they differ
+   * by at most one.
+   */
+  private static Node balance(Widget widget, Node left, Node right) {
+    int leftHeight = height(left);
+    int rightHeight = height(right);
+    if (leftHeight > rightHeight + 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new Node(left.widget, left.left, new Node(widget, left.right, right));
+      }
+      Node pivot = left.right;
+      return new Node(pivot.widget, new Node(left.widget, left.left, pivot.left), new Node(widget, pivot.right, right));
+    }
+    if (rightHeight > leftHeight + 1) {
+      if (height(right.right) >= height(right.left)) {
+        return new Node(right.widget, new Node(widget, left, right.left), right.right);
+      }
+      Node pivot = right.left;
+      return new Node(pivot.widget, new Node(widget, left, pivot.left), new Node(right.widget, pivot.right, right.right));
+    }
+    return new Node(widget, left, right);
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static int size(Node node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static long estimate(Widget widget) {
+    return NODE_BYTES + WIDGET_BYTES + HeapWidgetStore.stringBytes(widget.getName())
+        + HeapWidgetStore.stringBytes(widget.getDescription());
+  }
+
+  /** Immutable once built; the subtree sizes let a snapshot find its i-th widget in O(log n). */
+  private static final class Node {
+
+    private final Widget widget;
+
+    private final Node left;
+
+    private final Node right;
+
+    private final int height;
+
+    private final int size;
+
+    private Node(Widget widget, Node left, Node right) {
+      this.widget = widget;
+      this.left = left;
+      this.right = right;
+      this.height = Math.max(height(left), height(right)) + 1;
+      this.size = size(left) + size(right) + 1;
+    }
+  }
+
+  /**
+   * One version of the tree as a read-only list. Iterating it walks the tree in order;
+   * {@link #get} descends by subtree size.
+   */
+  private static final class Snapshot extends AbstractList<Widget> {
+
+    private final Node root;
+
+    private Snapshot(Node root) {
+      this.root = root;
+    }
+
+    @Override
+    public Widget get(int index) {
+      Objects.checkIndex(index, size());
+      Node node = root;
+      while (true) {
+        int leftSize = SnapshotWidgetStore.size(node.left);
+        if (index == leftSize) {
+          return node.widget;
+        }
+        if (index < leftSize) {
+          node = node.left;
+        } else {
+          index -= leftSize + 1;
+          node = node.right;
+        }
+      }
+    }
+
+    @Override
+    public int size() {
+      return SnapshotWidgetStore.size(root);
+    }
+
+    @Override
+    public Iterator<Widget> iterator() {
+      return new Iterator<>() {
+        private final Node[] path = new Node[height(root)];
+
+        private int depth;
+
+        {
+          descend(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+          return depth > 0;
+        }
+
+        @Override
+        public Widget next() {
+          if (depth == 0) {
+            throw new NoSuchElementException();
+          }
+          Node node = path[--depth];
+          descend(node.right);
+          return node.widget;
+        }
+
+        private void descend(Node node) {
+          for (; node != null; node = node.left) {
+            path[depth++] = node;
+          }
+        }
+      };
+    }
+  }
+
+}
@@ -0,0 +1,93 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.WidgetChange;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The most recent mutations of the {@link WidgetRepository}, numbered in the order they
+ * were applied, for change-data-capture consumers.
+ *
+ * <p>Changes are kept in a ring of {@code widgets.changes.capacity} slots. A writer claims
+ * the next sequence number with one atomic increment and stores the change in that
+ * number's slot, overwriting the change {@code capacity} numbers older; it never waits
+ * for readers. Readers walk the slots from their own position and stop at a slot whose
+ * change has not been stored yet. A reader that falls more than {@code capacity} changes
+ * behind finds its next change overwritten and has to start over from the current
+ * catalog.
+ */
+@Component
+public class WidgetChangeLog implements WidgetRepositoryListener {
+
+  private final AtomicReferenceArray<WidgetChange> slots;
+
+  private final int mask;
+
+  /** Last sequence number handed out; the change may not be stored in its slot yet. */
+  private final AtomicLong lastSequence = new AtomicLong();
+
+  public WidgetChangeLog(WidgetRepository widgetRepository, WidgetProperties widgetProperties) {
+    int capacity = widgetProperties.getChanges().getCapacity();
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("widgets.changes.capacity must be between 1 and 2^30: " + capacity);
+    }
+    int slotCount = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+    this.slots = new AtomicReferenceArray<>(slotCount);
+    this.mask = slotCount - 1;
+    widgetRepository.addListener(this);
+  }
+
+  @Override
+  public void onMutation(WidgetMutation mutation) {
+    long sequence = lastSequence.incrementAndGet();
+    slots.set(slot(sequence), new WidgetChange(sequence, mutation));
+  }
+
+  /** Sequence number of the latest change; {@code 0} before the first one. */
+  public long lastSequence() {
+    return lastSequence.get();
+  }
+
+  /** Number of changes the log holds before it overwrites the oldest one. */
+  public int capacity() {
+    return slots.length();
+  }
+
+  /**
+   * Returns up to {@code max} changes following sequence number {@code after}, in order.
+   * The list is cut short at a change that is still being stored, and is empty when
+   * nothing follows {@code after} yet. Returns {@link Optional#empty()} when the change
+   * after {@code after} has been overwritten, or when {@code after} is ahead of the log
+   * (a position from before a restart), so the reader cannot continue from there.
+   */
+  public Optional<List<WidgetChange>> read(long after, int max) {
+    long last = lastSequence.get();
+    if (after < 0 || after > last || last - after > slots.length()) {
+      return Optional.empty();
+    }
+    List<WidgetChange> changes = new ArrayList<>((int) Math.min(max, last - after));
+    for (long sequence = after + 1; sequence <= last && changes.size() < max; sequence++) {
+      WidgetChange change = slots.get(slot(sequence));
+      if (change == null || change.getSequence() < sequence) {
+        break;
+      }
+      if (change.getSequence() > sequence) {
+        return changes.isEmpty() ? Optional.empty() : Optional.of(changes);
+      }
+      changes.add(change);
+    }
+    return Optional.of(changes);
+  }
+
+  private int slot(long sequence) {
+    return (int) (sequence & mask);
+  }
+
+}
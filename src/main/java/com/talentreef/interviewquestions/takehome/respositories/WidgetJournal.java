@@ -0,0 +1,64 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+
+import java.util.List;
+
+/**
+ * Durable record of the mutations applied to a {@link WidgetRepository}.
+ */
+public interface WidgetJournal {
+
+  WidgetJournal NONE = new WidgetJournal() {
+    @Override
+    public void append(WidgetMutation mutation) {
+    }
+
+    @Override
+    public void awaitDurable() {
+    }
+  };
+
+  /**
+   * Throws if the journal can no longer take mutations, so a write is turned away before
+   * it is applied in memory. Called before the widget's lock is taken.
+   */
+  default void checkWritable() {
+  }
+
+  /**
+   * Queues a mutation that has just been applied in memory. Called with the widget's
+   * lock held, so mutations of one name are appended in the order they were applied;
+   * must not block on I/O. Throws if the journal cannot take the mutation, in which case
+   * it is not queued and the caller undoes it.
+   */
+  void append(WidgetMutation mutation);
+
+  /**
+   * Queues the mutations of an atomic batch, just applied in memory, so that they are
+   * recovered all together or not at all. Called with the lock of every name in the batch
+   * held. Throws if the journal cannot take the batch, in which case nothing of it is
+   * queued and the caller undoes it.
+   */
+  default void appendAll(List<WidgetMutation> mutations) {
+    checkWritable();
+    for (WidgetMutation mutation : mutations) {
+      append(mutation);
+    }
+  }
+
+  /**
+   * Blocks until everything this thread has appended is as durable as the journal's
+   * fsync policy promises. Called after the widget's lock has been released.
+   */
+  void awaitDurable();
+
+  /**
+   * Whether {@link #awaitDurable()} can actually wait for I/O, so callers on threads that
+   * must not block know to move writes elsewhere.
+   */
+  default boolean blocksWriters() {
+    return false;
+  }
+
+}
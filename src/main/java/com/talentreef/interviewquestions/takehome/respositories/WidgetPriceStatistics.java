@@ -0,0 +1,169 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.takehome.models.Prices;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Price statistics of the catalog, kept up to date on every write so that reading them
+ * never scans the widgets.
+ *
+ * <p>Widgets are counted per cent of price, from {@link #MIN_CENTS} to {@link #MAX_CENTS},
+ * in a Fenwick tree: adding or removing a price and counting the widgets priced up to a
+ * given cent each take about 21 steps. Descending the same tree finds the k-th cheapest
+ * price, and with it the minimum, maximum and any quantile, in as many steps, and a
+ * histogram band is the difference of two such counts. A read therefore costs the same
+ * whatever the size of the catalog. The tree takes 8MB whatever the size, too. Prices
+ * outside the range the API accepts, which only a journal or a leader could bring in, are
+ * counted at its nearest end.
+ *
+ * <p>The statistics follow the repository as a {@link WidgetRepositoryListener}, keeping
+ * each widget's price so an update knows which one it replaces. Writers change the tree
+ * under a {@link StampedLock}; readers read optimistically and only wait for the lock
+ * when a write overlapped their read, so a {@link Summary} is always of one state.
+ */
+@Component
+public class WidgetPriceStatistics implements WidgetRepositoryListener {
+
+  public static final long MIN_CENTS = 100;
+
+  public static final long MAX_CENTS = 2_000_000;
+
+  /** Lower bounds of the histogram bands, in cents; each band ends where the next begins. */
+  private static final long[] BANDS = { MIN_CENTS, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000,
+      500_000, 1_000_000 };
+
+  /** Quantiles reported, in hundredths of a percent so their ranks are computed exactly. */
+  private static final int[] QUANTILE_BASIS_POINTS = { 2500, 5000, 7500, 9000, 9900 };
+
+  private static final int SIZE = (int) (MAX_CENTS - MIN_CENTS + 1);
+
+  /** Largest power of two not above {@link #SIZE}, where a descent starts. */
+  private static final int TOP = Integer.highestOneBit(SIZE);
+
+  /** Fenwick tree of widget counts, 1-based: slot {@code i} is the price {@code MIN_CENTS + i - 1}. */
+  private final int[] tree = new int[SIZE + 1];
+
+  private final ConcurrentHashMap<String, Long> prices = new ConcurrentHashMap<>();
+
+  private final StampedLock lock = new StampedLock();
+
+  private long count;
+
+  private long sumCents;
+
+  public WidgetPriceStatistics(WidgetRepository widgetRepository) {
+    widgetRepository.addListenerWithReplay(this);
+  }
+
+  @Override
+  public void onMutation(WidgetMutation mutation) {
+    String name = mutation.getName();
+    Long added = null;
+    Long removed;
+    if (mutation.getType() == WidgetMutation.Type.UPSERT) {
+      added = clamp(Prices.cents(mutation.getWidget().getPackedPrice()));
+      removed = prices.put(name, added);
+    } else {
+      removed = prices.remove(name);
+    }
+    // Also covers the same widget delivered twice by a replay.
+    if (added == null ? removed == null : added.equals(removed)) {
+      return;
+    }
+    long stamp = lock.writeLock();
+    try {
+      if (removed != null) {
+        update(removed, -1);
+      }
+      if (added != null) {
+        update(added, 1);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /** The statistics as of the latest write. */
+  public Summary summary() {
+    long stamp = lock.tryOptimisticRead();
+    Summary summary = read();
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        summary = read();
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    return summary;
+  }
+
+  private Summary read() {
+    long widgets = count;
+    long[] quantiles = new long[QUANTILE_BASIS_POINTS.length];
+    long[] bands = new long[BANDS.length];
+    if (widgets == 0) {
+      return new Summary(0, 0, Prices.NONE, Prices.NONE, QUANTILE_BASIS_POINTS.clone(), quantiles, BANDS.clone(), bands);
+    }
+    for (int i = 0; i < QUANTILE_BASIS_POINTS.length; i++) {
+      quantiles[i] = select(Math.max(1, (QUANTILE_BASIS_POINTS[i] * widgets + 9_999) / 10_000));
+    }
+    long below = 0;
+    for (int i = 0; i < BANDS.length; i++) {
+      long upTo = i + 1 < BANDS.length ? prefix(BANDS[i + 1] - 1) : widgets;
+      bands[i] = upTo - below;
+      below = upTo;
+    }
+    return new Summary(widgets, sumCents, select(1), select(widgets), QUANTILE_BASIS_POINTS.clone(), quantiles, BANDS.clone(), bands);
+  }
+
+  private void update(long cents, int delta) {
+    for (int i = (int) (cents - MIN_CENTS + 1); i <= SIZE; i += i & -i) {
+      tree[i] += delta;
+    }
+    count += delta;
+    sumCents += delta * cents;
+  }
+
+  /** Widgets priced at or below {@code cents}. */
+  private long prefix(long cents) {
+    long widgets = 0;
+    for (int i = (int) (cents - MIN_CENTS + 1); i > 0; i -= i & -i) {
+      widgets += tree[i];
+    }
+    return widgets;
+  }
+
+  /** Price in cents of the {@code rank}-th cheapest widget, counting from 1. */
+  private long select(long rank) {
+    int position = 0;
+    for (int step = TOP; step > 0; step >>= 1) {
+      int next = position + step;
+      if (next <= SIZE && tree[next] < rank) {
+        position = next;
+        rank -= tree[next];
+      }
+    }
+    return Math.min(position + 1, SIZE) + MIN_CENTS - 1;
+  }
+
+  private static long clamp(long cents) {
+    return Math.max(MIN_CENTS, Math.min(MAX_CENTS, cents));
+  }
+
+  /**
+   * Statistics of one state of the catalog. Amounts are in cents; {@code minCents} and
+   * {@code maxCents} are {@link Prices#NONE} when it is empty. {@code quantileCents[i]} is the
+   * price of the widget at rank ceil({@code quantileBasisPoints[i]} / 10000 * count), and
+   * {@code bandCounts[i]} counts the widgets priced from {@code bandCents[i]} up to the
+   * next band, the last band up to {@link #MAX_CENTS} inclusive.
+   */
+  public record Summary(long count, long sumCents, long minCents, long maxCents, int[] quantileBasisPoints,
+      long[] quantileCents, long[] bandCents, long[] bandCounts) {
+  }
+
+}
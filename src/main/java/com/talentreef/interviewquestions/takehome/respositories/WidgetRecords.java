@@ -0,0 +1,281 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.takehome.models.Prices;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary encoding of {@link WidgetMutation}s shared by the write-ahead log and snapshots.
+ *
+ * <pre>
+ * record  := int payloadLength, int crc32c(payload), payload
+ * payload := byte type, long sequence, string name,
+ *            [upsert only] byte flags, [string description], [int scale, byte length, bytes unscaledPrice]
+ *          | byte batch, int records
+ * string  := int utf8Length, utf8 bytes
+ * </pre>
+ *
+ * A zero payload length marks the end of a snapshot. In the write-ahead log, a batch
+ * header is followed by the records of one atomic batch. The price is written as a
+ * {@code BigDecimal} would be (big-endian two's complement unscaled value and its scale),
+ * converted from and to the packed {@link Prices} value without going through one.
+ */
+final class WidgetRecords {
+
+  static final int HEADER_BYTES = 8;
+
+  static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+
+  static final int BATCH_HEADER_BYTES = HEADER_BYTES + 1 + 4;
+
+  private static final byte UPSERT = 0;
+
+  private static final byte DELETE = 1;
+
+  private static final byte BATCH = 2;
+
+  private static final byte HAS_DESCRIPTION = 1;
+
+  private static final byte HAS_PRICE = 2;
+
+  private WidgetRecords() {
+  }
+
+  /** Upper bound of the encoded size of a mutation, header included. */
+  static int maxSize(WidgetMutation mutation) {
+    int size = HEADER_BYTES + 1 + 8 + 4 + mutation.getName().length() * 3;
+    Widget widget = mutation.getWidget();
+    if (widget != null) {
+      size += 1;
+      if (widget.getDescription() != null) {
+        size += 4 + widget.getDescription().length() * 3;
+      }
+      if (widget.getPackedPrice() != Prices.NONE) {
+        size += 4 + 1 + Long.BYTES;
+      }
+    }
+    return size;
+  }
+
+  /** Writes the record at the buffer's position; the buffer must have {@link #maxSize} bytes left. */
+  static void write(WidgetMutation mutation, ByteBuffer buffer, CRC32C crc) {
+    int start = buffer.position();
+    buffer.position(start + HEADER_BYTES);
+    buffer.put(mutation.getType() == WidgetMutation.Type.UPSERT ? UPSERT : DELETE);
+    buffer.putLong(mutation.getSequence());
+    putString(buffer, mutation.getName());
+    Widget widget = mutation.getWidget();
+    if (widget != null) {
+      byte flags = 0;
+      if (widget.getDescription() != null) {
+        flags |= HAS_DESCRIPTION;
+      }
+      if (widget.getPackedPrice() != Prices.NONE) {
+        flags |= HAS_PRICE;
+      }
+      buffer.put(flags);
+      if (widget.getDescription() != null) {
+        putString(buffer, widget.getDescription());
+      }
+      if (widget.getPackedPrice() != Prices.NONE) {
+        putPrice(buffer, widget.getPackedPrice());
+      }
+    }
+    int end = buffer.position();
+    crc.reset();
+    crc.update(buffer.duplicate().position(start + HEADER_BYTES).limit(end));
+    buffer.putInt(start, end - start - HEADER_BYTES);
+    buffer.putInt(start + 4, (int) crc.getValue());
+  }
+
+  /** Writes the header of a batch of {@code records} records; the buffer must have {@link #BATCH_HEADER_BYTES} left. */
+  static void writeBatchHeader(int records, ByteBuffer buffer, CRC32C crc) {
+    int start = buffer.position();
+    buffer.position(start + HEADER_BYTES);
+    buffer.put(BATCH);
+    buffer.putInt(records);
+    int end = buffer.position();
+    crc.reset();
+    crc.update(buffer.duplicate().position(start + HEADER_BYTES).limit(end));
+    buffer.putInt(start, end - start - HEADER_BYTES);
+    buffer.putInt(start + 4, (int) crc.getValue());
+  }
+
+  /** Writes the end-of-snapshot marker. */
+  static void writeEnd(ByteBuffer buffer) {
+    buffer.putInt(0);
+    buffer.putInt(0);
+  }
+
+  /**
+   * Reads one record.
+   *
+   * @return the mutation, or {@code null} at the end of the input, at an end marker, at
+   *         a batch header, or at a torn or corrupt record (which ends a log that was cut
+   *         short by a crash)
+   */
+  static WidgetMutation read(DataInputStream in, CRC32C crc) throws IOException {
+    ByteBuffer payload = readPayload(in, crc);
+    return payload == null || payload.get(0) == BATCH ? null : decode(payload);
+  }
+
+  /**
+   * Reads one record of a snapshot. A snapshot is complete before the log segments it
+   * replaces are deleted, so only the end marker ends it; anything else that is not a
+   * record means the catalog cannot be recovered.
+   *
+   * @return the mutation, or {@code null} at the end marker
+   * @throws IOException if the input ends before the end marker, or at a corrupt record
+   */
+  static WidgetMutation readSnapshotRecord(DataInputStream in, CRC32C crc) throws IOException {
+    int length = in.readInt();
+    int checksum = in.readInt();
+    if (length == 0 && checksum == 0) {
+      return null;
+    }
+    if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+      throw new IOException("Corrupt widget record of " + length + " bytes");
+    }
+    byte[] payload = new byte[length];
+    in.readFully(payload);
+    crc.reset();
+    crc.update(payload);
+    if ((int) crc.getValue() != checksum || payload[0] == BATCH) {
+      throw new IOException("Corrupt widget record of " + length + " bytes");
+    }
+    return decode(ByteBuffer.wrap(payload));
+  }
+
+  /**
+   * Reads the next entry of a write-ahead log into {@code entry}, replacing what it held:
+   * one mutation, or every mutation of a batch.
+   *
+   * @return {@code false} where {@link #read} returns {@code null}; a batch that is cut
+   *         short by a torn or corrupt record is dropped whole and ends the log there
+   */
+  static boolean readEntry(DataInputStream in, CRC32C crc, List<WidgetMutation> entry) throws IOException {
+    entry.clear();
+    ByteBuffer payload = readPayload(in, crc);
+    if (payload == null) {
+      return false;
+    }
+    if (payload.get(0) != BATCH) {
+      entry.add(decode(payload));
+      return true;
+    }
+    int records = payload.getInt(1);
+    for (int i = 0; i < records; i++) {
+      WidgetMutation mutation = read(in, crc);
+      if (mutation == null) {
+        entry.clear();
+        return false;
+      }
+      entry.add(mutation);
+    }
+    return true;
+  }
+
+  private static ByteBuffer readPayload(DataInputStream in, CRC32C crc) throws IOException {
+    int length;
+    int checksum;
+    byte[] payload;
+    try {
+      length = in.readInt();
+      checksum = in.readInt();
+      if (length <= 0 || length > MAX_PAYLOAD_BYTES) {
+        return null;
+      }
+      payload = new byte[length];
+      in.readFully(payload);
+    } catch (EOFException e) {
+      return null;
+    }
+    crc.reset();
+    crc.update(payload);
+    if ((int) crc.getValue() != checksum) {
+      return null;
+    }
+    return ByteBuffer.wrap(payload);
+  }
+
+  private static WidgetMutation decode(ByteBuffer payload) {
+    byte type = payload.get();
+    long sequence = payload.getLong();
+    String name = getString(payload);
+    if (type == DELETE) {
+      return WidgetMutation.delete(name, sequence);
+    }
+    byte flags = payload.get();
+    String description = (flags & HAS_DESCRIPTION) != 0 ? getString(payload) : null;
+    long price = (flags & HAS_PRICE) != 0 ? getPrice(payload) : Prices.NONE;
+    return WidgetMutation.upsert(Widget.builder()
+        .name(name)
+        .description(description)
+        .packedPrice(price)
+        .version(sequence)
+        .build());
+  }
+
+  private static void putPrice(ByteBuffer buffer, long price) {
+    long unscaled = Prices.cents(price);
+    int scale = Prices.scale(price);
+    if (scale < 2) {
+      unscaled /= scale == 0 ? 100 : 10;
+    } else {
+      // Trailing zeros beyond what a long holds are dropped; the value stays the same.
+      for (int i = 2; i < scale; i++) {
+        if (Math.abs(unscaled) > Long.MAX_VALUE / 10) {
+          scale = i;
+          break;
+        }
+        unscaled *= 10;
+      }
+    }
+    int length = (Long.SIZE - Long.numberOfLeadingZeros(unscaled ^ (unscaled >> 63))) / 8 + 1;
+    buffer.putInt(scale);
+    buffer.put((byte) length);
+    for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+      buffer.put((byte) (unscaled >> shift));
+    }
+  }
+
+  private static long getPrice(ByteBuffer buffer) {
+    int scale = buffer.getInt();
+    int length = buffer.get();
+    if (length > Long.BYTES) {
+      // Only a price written with more decimals than a long holds; not on the write path.
+      byte[] unscaled = new byte[length];
+      buffer.get(unscaled);
+      return Prices.parse(new BigDecimal(new BigInteger(unscaled), scale).toString());
+    }
+    long unscaled = buffer.get();
+    for (int i = 1; i < length; i++) {
+      unscaled = unscaled << 8 | (buffer.get() & 0xff);
+    }
+    return Prices.ofUnscaled(unscaled, scale);
+  }
+
+  private static void putString(ByteBuffer buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+}
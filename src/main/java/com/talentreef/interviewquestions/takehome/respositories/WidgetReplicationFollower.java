@@ -0,0 +1,289 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetLogPosition;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps the local {@link WidgetRepository} a copy of a {@link WidgetReplicationLeader}'s,
+ * when {@code widgets.replication.role} is {@code follower}.
+ *
+ * <p>A single thread connects to {@code widgets.replication.leader}, sends the
+ * {@link WidgetLogPosition} it has reached, and applies what comes back in order: a
+ * snapshot when the leader cannot resume from that position, then every change. Changes
+ * go through {@link WidgetRepository#restore}, so widgets keep the leader's versions and
+ * ETags, and the caches, search index and change stream of this node follow along. While
+ * a snapshot is applied, reads see a mix of the old and the new catalog. When the leader
+ * goes quiet for three heartbeats or the connection breaks, the thread reconnects after
+ * {@code widgets.replication.reconnect-delay} and resumes from its position.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "widgets.replication", name = "role", havingValue = "follower")
+public class WidgetReplicationFollower {
+
+  private static final int BUFFER_BYTES = 64 * 1024;
+
+  private final WidgetRepository widgetRepository;
+
+  private final String host;
+
+  private final int port;
+
+  private final Duration heartbeat;
+
+  private final Duration reconnectDelay;
+
+  private volatile WidgetLogPosition position = WidgetLogPosition.NONE;
+
+  /** Sequence of the latest change the leader has announced, for the lag gauge. */
+  private volatile long leaderSequence;
+
+  /** Epoch of the leader this follower is connected to; 0 between connections. */
+  private volatile long leaderEpoch;
+
+  /** Reads waiting for a position, completed once it has been applied and removed when they time out. */
+  private final ConcurrentSkipListMap<Waiter, CompletableFuture<Void>> waiters = new ConcurrentSkipListMap<>();
+
+  private final AtomicLong waiterIds = new AtomicLong();
+
+  private final Counter snapshots;
+
+  private volatile boolean running;
+
+  private volatile Socket socket;
+
+  private Thread thread;
+
+  public WidgetReplicationFollower(WidgetRepository widgetRepository, WidgetProperties widgetProperties,
+      MeterRegistry meterRegistry) {
+    WidgetProperties.Replication settings = widgetProperties.getReplication();
+    String leader = settings.getLeader();
+    int separator = leader == null ? -1 : leader.lastIndexOf(':');
+    if (separator <= 0) {
+      throw new IllegalArgumentException("widgets.replication.leader must be host:port: " + leader);
+    }
+    this.widgetRepository = widgetRepository;
+    this.host = leader.substring(0, separator);
+    this.port = Integer.parseInt(leader.substring(separator + 1));
+    this.heartbeat = settings.getHeartbeat();
+    this.reconnectDelay = settings.getReconnectDelay();
+    Gauge.builder("widgets.replication.lag", this, follower -> follower.lag())
+        .description("Changes the leader has announced that this follower has not applied yet")
+        .register(meterRegistry);
+    this.snapshots = Counter.builder("widgets.replication.snapshots")
+        .description("Snapshots of the leader's catalog loaded by this follower")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    thread = new Thread(this::run, "widget-replication-follower");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @PreDestroy
+  public void close() throws IOException, InterruptedException {
+    running = false;
+    Socket current = socket;
+    if (current != null) {
+      current.close();
+    }
+    thread.interrupt();
+    thread.join();
+  }
+
+  /** The last position applied; {@link WidgetLogPosition#NONE} until the first snapshot or change. */
+  public WidgetLogPosition position() {
+    return position;
+  }
+
+  /**
+   * Completes with {@code true} once {@code target} has been applied, or with
+   * {@code false} if that takes longer than {@code timeout}. A target of a later epoch
+   * than the connected leader's was not handed out by it, so it completes with
+   * {@code false} at once instead of waiting for a leader that may never come.
+   */
+  public CompletableFuture<Boolean> await(WidgetLogPosition target, Duration timeout) {
+    if (position.compareTo(target) >= 0) {
+      return CompletableFuture.completedFuture(true);
+    }
+    long following = leaderEpoch;
+    if (following != 0 && target.epoch() > following) {
+      return CompletableFuture.completedFuture(false);
+    }
+    Waiter waiter = new Waiter(target, waiterIds.incrementAndGet());
+    CompletableFuture<Void> applied = new CompletableFuture<>();
+    waiters.put(waiter, applied);
+    // The position may have passed the target before the waiter was added.
+    if (position.compareTo(target) >= 0) {
+      waiters.remove(waiter);
+      applied.complete(null);
+    }
+    return applied.thenApply(ignored -> true)
+        .completeOnTimeout(false, timeout.toNanos(), TimeUnit.NANOSECONDS)
+        .whenComplete((reached, failure) -> waiters.remove(waiter));
+  }
+
+  /** Reads currently waiting in {@link #await}. */
+  int waiting() {
+    return waiters.size();
+  }
+
+  private long lag() {
+    return Math.max(0, leaderSequence - position.sequence());
+  }
+
+  private void run() {
+    while (running) {
+      try (Socket connection = new Socket()) {
+        socket = connection;
+        int timeout = (int) heartbeat.multipliedBy(3).toMillis();
+        connection.connect(new InetSocketAddress(host, port), timeout);
+        connection.setSoTimeout(timeout);
+        connection.setTcpNoDelay(true);
+        follow(connection);
+      } catch (IOException | RuntimeException e) {
+        if (running) {
+          log.warn("Lost the replication leader {}:{} ({}); reconnecting in {}", host, port, e.toString(), reconnectDelay);
+        }
+      }
+      leaderEpoch = 0;
+      try {
+        Thread.sleep(reconnectDelay.toMillis());
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private void follow(Socket connection) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+    WidgetLogPosition from = position;
+    out.writeInt(WidgetReplicationLeader.MAGIC);
+    out.writeInt(WidgetReplicationLeader.FORMAT_VERSION);
+    out.writeLong(from.epoch());
+    out.writeLong(from.sequence());
+    out.flush();
+
+    DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), BUFFER_BYTES));
+    if (in.readInt() != WidgetReplicationLeader.MAGIC || in.readInt() != WidgetReplicationLeader.FORMAT_VERSION) {
+      throw new IOException("Not a widget replication leader");
+    }
+    long epoch = in.readLong();
+    leaderEpoch = epoch;
+    CRC32C crc = new CRC32C();
+    byte start = in.readByte();
+    if (start == WidgetReplicationLeader.SNAPSHOT) {
+      loadSnapshot(in, crc, epoch);
+    } else if (start != WidgetReplicationLeader.CHANGES || epoch != from.epoch()) {
+      throw new IOException("Unexpected start of the replication stream: " + start);
+    }
+    log.info("Following the replication leader {}:{} from {}", host, port, position);
+
+    while (running) {
+      byte kind = in.readByte();
+      long sequence = in.readLong();
+      leaderSequence = sequence;
+      if (kind == WidgetReplicationLeader.CHANGE) {
+        WidgetMutation mutation = WidgetRecords.read(in, crc);
+        if (mutation == null) {
+          throw new IOException("Corrupt replication record at " + new WidgetLogPosition(epoch, sequence));
+        }
+        widgetRepository.restore(mutation);
+        advance(new WidgetLogPosition(epoch, sequence));
+      } else if (kind != WidgetReplicationLeader.HEARTBEAT) {
+        throw new IOException("Unexpected replication frame: " + kind);
+      }
+    }
+  }
+
+  /**
+   * Replaces the catalog with the leader's snapshot: overwrites every widget it holds and
+   * deletes the local widgets it does not.
+   */
+  private void loadSnapshot(DataInputStream in, CRC32C crc, long epoch) throws IOException {
+    long started = System.nanoTime();
+    long sequence = in.readLong();
+    Set<String> names = new HashSet<>();
+    for (WidgetMutation record = WidgetRecords.readSnapshotRecord(in, crc); record != null;
+        record = WidgetRecords.readSnapshotRecord(in, crc)) {
+      widgetRepository.overwrite(record);
+      names.add(record.getName());
+    }
+    long count = in.readLong();
+    long version = in.readLong();
+    if (count != names.size()) {
+      throw new IOException("Replication snapshot ended after " + names.size() + " of " + count + " widgets");
+    }
+    List<String> stale = new ArrayList<>();
+    for (Iterator<Widget> widgets = widgetRepository.iterator(); widgets.hasNext();) {
+      String name = widgets.next().getName();
+      if (!names.contains(name)) {
+        stale.add(name);
+      }
+    }
+    for (String name : stale) {
+      widgetRepository.overwrite(WidgetMutation.delete(name, version));
+    }
+    widgetRepository.advanceSequence(version);
+    snapshots.increment();
+    leaderSequence = sequence;
+    advance(new WidgetLogPosition(epoch, sequence));
+    log.info("Loaded a snapshot of {} widgets at {} and deleted {} others in {} ms", count, position, stale.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+  }
+
+  private void advance(WidgetLogPosition applied) {
+    position = applied;
+    if (!waiters.isEmpty()) {
+      Iterator<CompletableFuture<Void>> reached = waiters.headMap(new Waiter(applied, Long.MAX_VALUE), true).values().iterator();
+      while (reached.hasNext()) {
+        reached.next().complete(null);
+        reached.remove();
+      }
+    }
+  }
+
+  /** A read waiting for {@code position}; the id keeps reads waiting for the same position apart. */
+  private record Waiter(WidgetLogPosition position, long id) implements Comparable<Waiter> {
+
+    @Override
+    public int compareTo(Waiter other) {
+      int byPosition = position.compareTo(other.position);
+      return byPosition != 0 ? byPosition : Long.compare(id, other.id);
+    }
+
+  }
+
+}
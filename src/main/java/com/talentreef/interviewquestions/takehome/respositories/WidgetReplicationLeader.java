@@ -0,0 +1,305 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetChange;
+import com.talentreef.interviewquestions.takehome.models.WidgetLogPosition;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Ships the {@link WidgetChangeLog} to replication followers over TCP, when
+ * {@code widgets.replication.role} is {@code leader}.
+ *
+ * <p>A follower connects to {@code widgets.replication.port} and sends the
+ * {@link WidgetLogPosition} it has reached. If it is a position of this process and the
+ * change after it is still in the log, the leader streams the log from there. Otherwise
+ * it first sends a snapshot of the catalog taken at the current position, and streams on
+ * from that position; changes the snapshot already reflects are ignored by
+ * {@link WidgetRepository#restore}. Each follower is served by its own thread, which only
+ * reads the log, so a slow follower never holds up writers. One that falls out of the log
+ * is disconnected and gets a snapshot when it reconnects.
+ *
+ * <pre>
+ * request  := int magic, int version, long epoch, long sequence
+ * response := int magic, int version, long epoch, start, frame*
+ * start    := byte CHANGES | byte SNAPSHOT, long sequence, record*, end marker, long count, long version
+ * frame    := byte CHANGE, long sequence, record | byte HEARTBEAT, long sequence
+ * </pre>
+ *
+ * Records are {@link WidgetRecords}, as in the write-ahead log. The epoch is the time the
+ * leader started, so a restarted leader is ahead of its previous run.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "widgets.replication", name = "role", havingValue = "leader")
+public class WidgetReplicationLeader implements WidgetRepositoryListener {
+
+  static final int MAGIC = 0x57524550; // "WREP"
+
+  static final int FORMAT_VERSION = 1;
+
+  static final byte CHANGES = 0;
+
+  static final byte SNAPSHOT = 1;
+
+  static final byte CHANGE = 2;
+
+  static final byte HEARTBEAT = 3;
+
+  /** Most changes read from the log at once for one follower. */
+  private static final int READ_BATCH_SIZE = 256;
+
+  private static final int BUFFER_BYTES = 64 * 1024;
+
+  private final WidgetRepository widgetRepository;
+
+  private final WidgetChangeLog widgetChangeLog;
+
+  private final int port;
+
+  private final long heartbeatNanos;
+
+  private static final AtomicLong LAST_EPOCH = new AtomicLong();
+
+  /** Start time in milliseconds, made unique for leaders started in the same millisecond. */
+  private final long epoch = LAST_EPOCH.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+
+  private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition changed = lock.newCondition();
+
+  /** Followers waiting for a change; writers only signal while there are any. */
+  private final AtomicInteger waiting = new AtomicInteger();
+
+  private volatile boolean running;
+
+  private ServerSocket serverSocket;
+
+  public WidgetReplicationLeader(WidgetRepository widgetRepository, WidgetChangeLog widgetChangeLog,
+      WidgetProperties widgetProperties, MeterRegistry meterRegistry) {
+    this.widgetRepository = widgetRepository;
+    this.widgetChangeLog = widgetChangeLog;
+    this.port = widgetProperties.getReplication().getPort();
+    this.heartbeatNanos = widgetProperties.getReplication().getHeartbeat().toNanos();
+    Gauge.builder("widgets.replication.followers", followers, Set::size)
+        .description("Followers connected to this leader")
+        .register(meterRegistry);
+    // Registered after the change log, which registers itself when it is created, so a
+    // change is in the log by the time a waiting follower is woken for it.
+    widgetRepository.addListener(this);
+  }
+
+  @PostConstruct
+  public void start() throws IOException {
+    serverSocket = new ServerSocket();
+    serverSocket.bind(new InetSocketAddress(port));
+    running = true;
+    Thread acceptor = new Thread(this::accept, "widget-replication-leader");
+    acceptor.setDaemon(true);
+    acceptor.start();
+    log.info("Shipping the widget change log on port {} (epoch {})", localPort(), epoch);
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    running = false;
+    serverSocket.close();
+    for (Socket follower : followers) {
+      follower.close();
+    }
+  }
+
+  /** The port followers connect to; differs from {@code widgets.replication.port} when that is {@code 0}. */
+  public int localPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /** The latest position of the log; every write that has returned is at or before it. */
+  public WidgetLogPosition position() {
+    return new WidgetLogPosition(epoch, widgetChangeLog.lastSequence());
+  }
+
+  @Override
+  public void onMutation(WidgetMutation mutation) {
+    if (waiting.get() > 0) {
+      lock.lock();
+      try {
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void accept() {
+    while (running) {
+      try {
+        Socket socket = serverSocket.accept();
+        followers.add(socket);
+        if (!running) {
+          // Accepted while close() was going through the followers.
+          socket.close();
+          break;
+        }
+        Thread thread = new Thread(() -> serve(socket), "widget-replication-" + socket.getRemoteSocketAddress());
+        thread.setDaemon(true);
+        thread.start();
+      } catch (IOException e) {
+        if (running) {
+          log.warn("Could not accept a replication follower", e);
+        }
+      }
+    }
+  }
+
+  private void serve(Socket socket) {
+    SocketAddress follower = socket.getRemoteSocketAddress();
+    try (socket) {
+      socket.setTcpNoDelay(true);
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        throw new IOException("Not a widget replication request");
+      }
+      WidgetLogPosition from = new WidgetLogPosition(in.readLong(), in.readLong());
+      OutputStream out = socket.getOutputStream();
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+      CRC32C crc = new CRC32C();
+      buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(epoch);
+      long sequence = from.sequence();
+      if (from.epoch() == epoch && widgetChangeLog.read(sequence, 1).isPresent()) {
+        buffer.put(CHANGES);
+        log.info("Follower {} resumed from {}", follower, from);
+      } else {
+        sequence = widgetChangeLog.lastSequence();
+        buffer = sendSnapshot(out, buffer, crc, sequence);
+        log.info("Sent follower {} a snapshot at {}", follower, new WidgetLogPosition(epoch, sequence));
+      }
+      flush(out, buffer);
+      stream(out, buffer, crc, sequence);
+      log.info("Follower {} fell out of the change log; disconnecting it so it resyncs", follower);
+    } catch (IOException e) {
+      if (running) {
+        log.info("Follower {} disconnected: {}", follower, e.toString());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      followers.remove(socket);
+    }
+  }
+
+  /** Writes every widget, weakly consistent like {@link WidgetRepository#iterator()}. */
+  private ByteBuffer sendSnapshot(OutputStream out, ByteBuffer buffer, CRC32C crc, long sequence) throws IOException {
+    buffer.put(SNAPSHOT).putLong(sequence);
+    long count = 0;
+    Iterator<Widget> widgets = widgetRepository.iterator();
+    while (widgets.hasNext()) {
+      WidgetMutation record = WidgetMutation.upsert(widgets.next());
+      buffer = ensureRemaining(out, buffer, WidgetRecords.maxSize(record));
+      WidgetRecords.write(record, buffer, crc);
+      count++;
+    }
+    buffer = ensureRemaining(out, buffer, WidgetRecords.HEADER_BYTES + 2 * Long.BYTES);
+    WidgetRecords.writeEnd(buffer);
+    return buffer.putLong(count).putLong(widgetRepository.currentSequence());
+  }
+
+  /**
+   * Sends the changes after {@code sequence} until the follower falls out of the log,
+   * flushing whenever it has caught up.
+   */
+  private void stream(OutputStream out, ByteBuffer buffer, CRC32C crc, long sequence)
+      throws IOException, InterruptedException {
+    while (running) {
+      Optional<List<WidgetChange>> read = widgetChangeLog.read(sequence, READ_BATCH_SIZE);
+      if (read.isEmpty()) {
+        return;
+      }
+      List<WidgetChange> changes = read.get();
+      if (changes.isEmpty()) {
+        if (buffer.position() > 0) {
+          flush(out, buffer);
+        }
+        if (!awaitChange(sequence)) {
+          buffer.put(HEARTBEAT).putLong(sequence);
+          flush(out, buffer);
+        }
+        continue;
+      }
+      for (WidgetChange change : changes) {
+        buffer = ensureRemaining(out, buffer, 1 + Long.BYTES + WidgetRecords.maxSize(change.getMutation()));
+        buffer.put(CHANGE).putLong(change.getSequence());
+        WidgetRecords.write(change.getMutation(), buffer, crc);
+      }
+      sequence = changes.get(changes.size() - 1).getSequence();
+    }
+  }
+
+  /**
+   * Waits up to a heartbeat for a change after {@code sequence}.
+   *
+   * @return {@code false} if none came
+   */
+  private boolean awaitChange(long sequence) throws InterruptedException {
+    lock.lock();
+    try {
+      waiting.incrementAndGet();
+      try {
+        // A writer that logged a change before the increment above did not signal.
+        if (widgetChangeLog.lastSequence() > sequence) {
+          return true;
+        }
+        return changed.awaitNanos(heartbeatNanos) > 0;
+      } finally {
+        waiting.decrementAndGet();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Makes room for {@code bytes} more bytes, flushing the buffer or returning a bigger one if needed. */
+  private static ByteBuffer ensureRemaining(OutputStream out, ByteBuffer buffer, int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return buffer;
+    }
+    flush(out, buffer);
+    return buffer.remaining() >= bytes ? buffer : ByteBuffer.allocate(bytes);
+  }
+
+  private static void flush(OutputStream out, ByteBuffer buffer) throws IOException {
+    out.write(buffer.array(), 0, buffer.position());
+    out.flush();
+    buffer.clear();
+  }
+
+}
@@ -1,40 +1,724 @@
 package com.talentreef.interviewquestions.takehome.respositories;
 
+import com.talentreef.interviewquestions.takehome.models.Prices;
 import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetBatchResult;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * In-memory widget table keyed by name.
+ *
+ * <p>Lookups go straight to a {@link WidgetStore}: a hash map of widget objects by
+ * default, or off-heap records for very large catalogs. Two ordered skip-list indexes,
+ * one on name and one on (price, name), give {@link #findAll()} a stable (alphabetical)
+ * order and let {@link #find(WidgetQuery)} seek to a page in O(log n). Writes to the
+ * same name are serialized by a striped lock so the table and the indexes never
+ * disagree, while writes to different names proceed in parallel and reads never block.
+ *
+ * <p>A store that keeps immutable versions of itself, such as {@link SnapshotWidgetStore},
+ * serves {@link #findAll()} and {@link #iterator()} from its latest version instead: a
+ * consistent view of the catalog as of one write, taken without copying or locking.
+ *
+ * <p>Every write stamps the stored widget with the next value of a store-wide sequence,
+ * so a widget's {@code version} changes on each mutation and is never reused, even
+ * across a delete and re-create. Stored widgets must be treated as immutable; callers
+ * update by saving a copy.
+ *
+ * <p>When a {@link WidgetJournal} is attached, each mutation is appended to it while the
+ * name's lock is held, and the writing call returns once the journal reports it durable.
+ * A journal that can no longer write turns writes away before they are applied.
+ * Registered {@link WidgetRepositoryListener}s are told about each mutation at the same
+ * point.
+ *
+ * <p>Each public read and write is timed under {@code widgets.repository.operations},
+ * and the catalog size and memory estimates are published as gauges.
+ */
 @Repository
 public class WidgetRepository {
 
-  private List<Widget> table = new ArrayList<>();
+  private static final int LOCK_STRIPES = 64;
 
-  public List<Widget> deleteById(String name) {
-    this.table = table.stream()
-                      .filter((Widget widget) -> !name.equals(widget.getName()))
-                      .collect(Collectors.toCollection(ArrayList::new));
-    return table;
+  /**
+   * Estimated heap held per widget by the ordered indexes: a skip-list node (plus its
+   * share of index nodes) in each index, and the price key.
+   */
+  private static final int INDEX_BYTES_PER_WIDGET = 2 * 32 + 24;
+
+  private final WidgetStore table;
+
+  private final ConcurrentSkipListSet<String> names = new ConcurrentSkipListSet<>();
+
+  private final ConcurrentSkipListSet<PriceKey> prices = new ConcurrentSkipListSet<>();
+
+  private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  private volatile WidgetJournal journal = WidgetJournal.NONE;
+
+  private final List<WidgetRepositoryListener> listeners = new CopyOnWriteArrayList<>();
+
+  private final Timer findByIdTimer;
+
+  private final Timer findAllTimer;
+
+  private final Timer findTimer;
+
+  private final Timer saveTimer;
+
+  private final Timer putIfAbsentTimer;
+
+  private final Timer compareAndSetTimer;
+
+  private final Timer deleteTimer;
+
+  private final Timer batchTimer;
+
+  public WidgetRepository() {
+    this(new HeapWidgetStore());
+  }
+
+  public WidgetRepository(WidgetStore table) {
+    // An empty composite registry hands out no-op meters.
+    this(table, new CompositeMeterRegistry());
   }
 
+  @Autowired
+  public WidgetRepository(WidgetStore table, MeterRegistry meterRegistry) {
+    this.table = table;
+    this.findByIdTimer = timer(meterRegistry, "findById");
+    this.findAllTimer = timer(meterRegistry, "findAll");
+    this.findTimer = timer(meterRegistry, "find");
+    this.saveTimer = timer(meterRegistry, "save");
+    this.putIfAbsentTimer = timer(meterRegistry, "putIfAbsent");
+    this.compareAndSetTimer = timer(meterRegistry, "compareAndSet");
+    this.deleteTimer = timer(meterRegistry, "deleteById");
+    this.batchTimer = timer(meterRegistry, "applyBatch");
+    Gauge.builder("widgets.catalog.size", this, WidgetRepository::count)
+        .description("Number of widgets in the catalog")
+        .register(meterRegistry);
+    Gauge.builder("widgets.storage.memory", this, WidgetRepository::footprintBytes)
+        .description("Estimated memory held by the stored widgets")
+        .tag("backend", table.backend())
+        .baseUnit(BaseUnits.BYTES)
+        .register(meterRegistry);
+    Gauge.builder("widgets.index.memory", this, WidgetRepository::indexFootprintBytes)
+        .description("Estimated heap held by the name and price indexes")
+        .baseUnit(BaseUnits.BYTES)
+        .register(meterRegistry);
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  public Optional<Widget> deleteById(String name) {
+    journal.checkWritable();
+    long start = System.nanoTime();
+    try {
+      Widget removed;
+      Lock lock = lockFor(name);
+      lock.lock();
+      try {
+        removed = remove(name);
+      } finally {
+        lock.unlock();
+      }
+      if (removed != null) {
+        journal.awaitDurable();
+      }
+      return Optional.ofNullable(removed);
+    } finally {
+      deleteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Returns a point-in-time copy of the table ordered by name. The copy is weakly
+   * consistent: writes racing with the call may or may not be reflected. When the store
+   * takes {@linkplain WidgetStore#snapshot() snapshots}, returns the latest one instead,
+   * which reflects exactly the writes that completed before it and is read-only.
+   */
   public List<Widget> findAll() {
-    return table;
+    long start = System.nanoTime();
+    try {
+      List<Widget> snapshot = table.snapshot();
+      if (snapshot != null) {
+        return snapshot;
+      }
+      List<Widget> result = new ArrayList<>(table.size());
+      for (String name : names) {
+        Widget widget = table.get(name);
+        if (widget != null) {
+          result.add(widget);
+        }
+      }
+      return result;
+    } finally {
+      findAllTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Returns up to {@code query.limit} widgets matching the query, in the query's sort
+   * order, starting right after the query's keyset position. The range is located
+   * through the index for the sort key, so the cost is O(log n + page size) when the
+   * filters are on the sort key.
+   */
+  public List<Widget> find(WidgetQuery query) {
+    long start = System.nanoTime();
+    try {
+      int limit = query.getLimit() == null ? Integer.MAX_VALUE : query.getLimit();
+      List<Widget> result = new ArrayList<>(Math.min(limit, 64));
+      if (query.getSort() == WidgetQuery.Sort.PRICE) {
+        String prefix = query.getNamePrefix();
+        for (PriceKey key : priceRange(query)) {
+          if (result.size() >= limit) {
+            break;
+          }
+          if (prefix != null && !key.name().startsWith(prefix)) {
+            continue;
+          }
+          Widget widget = table.get(key.name());
+          // Skip entries whose widget was repriced after the index was read.
+          if (widget != null && Prices.cents(widget.getPackedPrice()) == key.cents()) {
+            result.add(widget);
+          }
+        }
+      } else {
+        for (String name : nameRange(query)) {
+          if (result.size() >= limit) {
+            break;
+          }
+          Widget widget = table.get(name);
+          if (widget != null && query.matchesPrice(widget.getPackedPrice())) {
+            result.add(widget);
+          }
+        }
+      }
+      return result;
+    } finally {
+      findTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Iterates the table in name order without copying it. Like {@link #findAll()} the
+   * iteration is weakly consistent, or walks a snapshot; it never throws
+   * {@code ConcurrentModificationException}.
+   */
+  public Iterator<Widget> iterator() {
+    List<Widget> snapshot = table.snapshot();
+    if (snapshot != null) {
+      return snapshot.iterator();
+    }
+    Iterator<String> nameIterator = names.iterator();
+    return new Iterator<>() {
+      private Widget next;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null && nameIterator.hasNext()) {
+          next = table.get(nameIterator.next());
+        }
+        return next != null;
+      }
+
+      @Override
+      public Widget next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        Widget widget = next;
+        next = null;
+        return widget;
+      }
+    };
   }
 
   public Optional<Widget> findById(String name) {
-    Optional<Widget> result = table.stream()
-                                   .filter((Widget widget) -> name.equals(widget.getName()))
-                                   .findAny();
-    return result;
+    long start = System.nanoTime();
+    try {
+      return Optional.ofNullable(table.get(name));
+    } finally {
+      findByIdTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
   }
 
   public Widget save(Widget widget) {
-    deleteById(widget.getName());
-    table.add(widget);
-    return widget;
+    journal.checkWritable();
+    long start = System.nanoTime();
+    try {
+      replace(widget);
+      journal.awaitDurable();
+      return widget;
+    } finally {
+      saveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Applies a batch of mutations in order, in one pass over the table.
+   *
+   * <p>In best-effort mode each mutation is applied on its own, exactly as the matching
+   * single-widget call would. In atomic mode the locks of every name in the batch are
+   * held for the whole batch, and the batch is applied only if every delete targets a
+   * widget that exists at that point of the batch; otherwise nothing is written.
+   *
+   * <p>Atomic mode is all-or-nothing for writers only: no other write to those names
+   * interleaves with the batch. Reads do not take the locks, so {@link #findById},
+   * {@link #findAll} and iterators can see a batch partly applied. The batch goes to the
+   * journal as one entry once it is applied in memory, and to the listeners after that;
+   * if the journal turns it away, every widget is put back as it was before the locks are
+   * released, and listeners hear nothing of it.
+   */
+  public WidgetBatchResult applyBatch(List<WidgetMutation> mutations, boolean atomic) {
+    journal.checkWritable();
+    long start = System.nanoTime();
+    try {
+      if (!atomic) {
+        List<Widget> previous = new ArrayList<>(mutations.size());
+        for (WidgetMutation mutation : mutations) {
+          previous.add(mutation.getType() == WidgetMutation.Type.UPSERT
+              ? replace(mutation.getWidget())
+              : removeLocked(mutation.getName()));
+        }
+        journal.awaitDurable();
+        return new WidgetBatchResult(previous, -1);
+      }
+
+      int[] stripes = mutations.stream().mapToInt(mutation -> stripe(mutation.getName())).sorted().distinct().toArray();
+      List<Widget> previous = new ArrayList<>(mutations.size());
+      int locked = 0;
+      try {
+        for (; locked < stripes.length; locked++) {
+          locks[stripes[locked]].lock();
+        }
+        Map<String, Boolean> present = new HashMap<>();
+        for (int i = 0; i < mutations.size(); i++) {
+          WidgetMutation mutation = mutations.get(i);
+          boolean exists = present.computeIfAbsent(mutation.getName(), table::containsKey);
+          if (mutation.getType() == WidgetMutation.Type.DELETE && !exists) {
+            return new WidgetBatchResult(List.of(), i);
+          }
+          present.put(mutation.getName(), mutation.getType() == WidgetMutation.Type.UPSERT);
+        }
+        List<WidgetMutation> applied = new ArrayList<>(mutations.size());
+        for (WidgetMutation mutation : mutations) {
+          String name = mutation.getName();
+          if (mutation.getType() == WidgetMutation.Type.UPSERT) {
+            Widget widget = mutation.getWidget();
+            widget.setVersion(sequence.incrementAndGet());
+            previous.add(store(widget));
+            applied.add(WidgetMutation.upsert(widget));
+          } else {
+            previous.add(unstore(name));
+            applied.add(WidgetMutation.delete(name, sequence.incrementAndGet()));
+          }
+        }
+        try {
+          journal.appendAll(applied);
+        } catch (RuntimeException e) {
+          undo(mutations, previous);
+          throw e;
+        }
+        for (WidgetMutation mutation : applied) {
+          notifyListeners(mutation);
+        }
+      } finally {
+        while (locked > 0) {
+          locks[stripes[--locked]].unlock();
+        }
+      }
+      journal.awaitDurable();
+      return new WidgetBatchResult(previous, -1);
+    } finally {
+      batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Stores the widget only if no widget with the same name exists.
+   *
+   * @return the widget already stored under that name, or empty if this one was stored
+   */
+  public Optional<Widget> putIfAbsent(Widget widget) {
+    journal.checkWritable();
+    long start = System.nanoTime();
+    try {
+      String name = widget.getName();
+      Lock lock = lockFor(name);
+      lock.lock();
+      try {
+        Widget existing = table.get(name);
+        if (existing != null) {
+          return Optional.of(existing);
+        }
+        insert(widget);
+      } finally {
+        lock.unlock();
+      }
+      journal.awaitDurable();
+      return Optional.empty();
+    } finally {
+      putIfAbsentTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Replaces the stored widget with the same name only if its version still equals
+   * {@code expectedVersion}. On success the given widget is stamped with a new version.
+   *
+   * @return {@code true} if the widget was replaced, {@code false} if it is missing or
+   *         was changed concurrently
+   */
+  public boolean compareAndSet(Widget widget, long expectedVersion) {
+    journal.checkWritable();
+    long start = System.nanoTime();
+    try {
+      String name = widget.getName();
+      Lock lock = lockFor(name);
+      lock.lock();
+      try {
+        Widget current = table.get(name);
+        if (current == null || current.getVersion() != expectedVersion) {
+          return false;
+        }
+        insert(widget);
+      } finally {
+        lock.unlock();
+      }
+      journal.awaitDurable();
+      return true;
+    } finally {
+      compareAndSetTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Applies a mutation recovered from a journal, snapshot or replication stream, keeping
+   * its sequence number instead of assigning a new one. A mutation no newer than the
+   * stored widget is ignored, so replaying a log that overlaps the current state is safe
+   * as long as the rest of the log is replayed after it.
+   */
+  public void restore(WidgetMutation mutation) {
+    apply(mutation, false);
+  }
+
+  /**
+   * Applies a mutation like {@link #restore}, whatever the version of the stored widget.
+   * A replication follower loads its leader's snapshot this way, since a leader that
+   * restarted without persistence numbers its versions from scratch.
+   */
+  public void overwrite(WidgetMutation mutation) {
+    apply(mutation, true);
+  }
+
+  private void apply(WidgetMutation mutation, boolean force) {
+    String name = mutation.getName();
+    boolean applied = false;
+    Lock lock = lockFor(name);
+    lock.lock();
+    try {
+      sequence.accumulateAndGet(mutation.getSequence(), Math::max);
+      Widget current = table.get(name);
+      if (force || current == null || current.getVersion() < mutation.getSequence()) {
+        if (mutation.getType() == WidgetMutation.Type.UPSERT) {
+          store(mutation.getWidget());
+          applied = true;
+        } else if (current != null) {
+          unstore(name);
+          applied = true;
+        }
+      }
+      if (applied) {
+        publish(mutation, current);
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (applied) {
+      journal.awaitDurable();
+    }
+  }
+
+  public int count() {
+    return table.size();
+  }
+
+  /** Estimated memory held for the stored widgets; see {@link WidgetStore#footprintBytes()}. */
+  public long footprintBytes() {
+    return table.footprintBytes();
+  }
+
+  /** Estimated heap held by the ordered name and price indexes. */
+  public long indexFootprintBytes() {
+    return (long) table.size() * INDEX_BYTES_PER_WIDGET;
+  }
+
+  public String storageBackend() {
+    return table.backend();
+  }
+
+  /** Highest sequence number assigned so far; every stored version is at most this. */
+  public long currentSequence() {
+    return sequence.get();
+  }
+
+  /**
+   * Raises the sequence to at least {@code value}, so versions recorded elsewhere (such as
+   * the sequence a snapshot was taken at) are never handed out again.
+   */
+  public void advanceSequence(long value) {
+    sequence.accumulateAndGet(value, Math::max);
+  }
+
+  /** Registers a listener for every later mutation. */
+  public void addListener(WidgetRepositoryListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Registers a listener and then hands it an upsert for every widget already stored, so
+   * it can build derived state from the current table. Each replayed upsert is delivered
+   * under the widget's lock like a live one, so a listener sees every name's mutations in
+   * order, possibly with the latest upsert twice.
+   */
+  public void addListenerWithReplay(WidgetRepositoryListener listener) {
+    listeners.add(listener);
+    for (String name : names) {
+      Lock lock = lockFor(name);
+      lock.lock();
+      try {
+        Widget widget = table.get(name);
+        if (widget != null) {
+          listener.onMutation(WidgetMutation.upsert(widget));
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /** Whether writes can block on the attached journal; see {@link WidgetJournal#blocksWriters()}. */
+  public boolean writesMayBlock() {
+    return journal.blocksWriters();
+  }
+
+  /**
+   * Attaches the journal that every later mutation is appended to. Mutations made before
+   * the call are not replayed into it.
+   */
+  public void setJournal(WidgetJournal journal) {
+    this.journal = journal == null ? WidgetJournal.NONE : journal;
+  }
+
+  /** Locked {@link #insert}: stores the widget and returns the one it replaced, if any. */
+  private Widget replace(Widget widget) {
+    Lock lock = lockFor(widget.getName());
+    lock.lock();
+    try {
+      return insert(widget);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Widget removeLocked(String name) {
+    Lock lock = lockFor(name);
+    lock.lock();
+    try {
+      return remove(name);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Stores the widget under a new version and journals it. Must hold the name's lock. */
+  private Widget insert(Widget widget) {
+    widget.setVersion(sequence.incrementAndGet());
+    Widget previous = store(widget);
+    publish(WidgetMutation.upsert(widget), previous);
+    return previous;
+  }
+
+  /** Removes the widget and journals the delete. Must hold the name's lock. */
+  private Widget remove(String name) {
+    Widget removed = unstore(name);
+    if (removed != null) {
+      publish(WidgetMutation.delete(name, sequence.incrementAndGet()), removed);
+    }
+    return removed;
+  }
+
+  /**
+   * Hands an applied mutation to the journal and the listeners. If the journal turns it
+   * away, puts back {@code previous}, the widget the mutation replaced or removed, and
+   * listeners hear nothing of it. Must hold the name's lock.
+   */
+  private void publish(WidgetMutation mutation, Widget previous) {
+    try {
+      journal.append(mutation);
+    } catch (RuntimeException e) {
+      revert(mutation.getName(), previous);
+      throw e;
+    }
+    notifyListeners(mutation);
+  }
+
+  private void notifyListeners(WidgetMutation mutation) {
+    for (WidgetRepositoryListener listener : listeners) {
+      listener.onMutation(mutation);
+    }
+  }
+
+  /**
+   * Puts back what an atomic batch replaced, last mutation first, so a name written more
+   * than once ends up as it was before the batch. Must hold the lock of every name.
+   */
+  private void undo(List<WidgetMutation> mutations, List<Widget> previous) {
+    for (int i = previous.size() - 1; i >= 0; i--) {
+      revert(mutations.get(i).getName(), previous.get(i));
+    }
+  }
+
+  /** Puts {@code before} back under the name, or removes the name if it is null. Must hold the name's lock. */
+  private void revert(String name, Widget before) {
+    if (before != null) {
+      store(before);
+    } else {
+      unstore(name);
+    }
+  }
+
+  /** Puts the widget in the table and indexes as is. Must hold the name's lock. */
+  private Widget store(Widget widget) {
+    String name = widget.getName();
+    Widget previous = table.put(widget);
+    if (previous != null) {
+      prices.remove(new PriceKey(Prices.cents(previous.getPackedPrice()), name));
+    }
+    names.add(name);
+    prices.add(new PriceKey(Prices.cents(widget.getPackedPrice()), name));
+    return previous;
+  }
+
+  /** Takes the widget out of the table and indexes. Must hold the name's lock. */
+  private Widget unstore(String name) {
+    Widget removed = table.remove(name);
+    if (removed != null) {
+      names.remove(name);
+      prices.remove(new PriceKey(Prices.cents(removed.getPackedPrice()), name));
+    }
+    return removed;
+  }
+
+  private NavigableSet<String> nameRange(WidgetQuery query) {
+    NavigableSet<String> range = names;
+    String prefix = query.getNamePrefix();
+    if (prefix != null && !prefix.isEmpty()) {
+      String end = prefixEnd(prefix);
+      range = end == null ? range.tailSet(prefix, true) : range.subSet(prefix, true, end, false);
+    }
+    if (query.isDescending()) {
+      range = range.descendingSet();
+    }
+    if (query.getAfterName() != null) {
+      range = range.tailSet(query.getAfterName(), false);
+    }
+    return range;
+  }
+
+  private NavigableSet<PriceKey> priceRange(WidgetQuery query) {
+    NavigableSet<PriceKey> range = prices;
+    if (query.getMinPriceCents() != null) {
+      range = range.tailSet(new PriceKey(query.getMinPriceCents(), ""), true);
+    }
+    if (query.getMaxPriceCents() != null) {
+      range = range.headSet(new PriceKey(query.getMaxPriceCents(), null), true);
+    }
+    if (query.isDescending()) {
+      range = range.descendingSet();
+    }
+    if (query.getAfterName() != null && query.getAfterPriceCents() != null) {
+      range = range.tailSet(new PriceKey(query.getAfterPriceCents(), query.getAfterName()), false);
+    }
+    return range;
+  }
+
+  /**
+   * Smallest string greater than every string starting with {@code prefix}, or
+   * {@code null} if there is none.
+   */
+  private static String prefixEnd(String prefix) {
+    for (int i = prefix.length() - 1; i >= 0; i--) {
+      char c = prefix.charAt(i);
+      if (c != Character.MAX_VALUE) {
+        return prefix.substring(0, i) + (char) (c + 1);
+      }
+    }
+    return null;
+  }
+
+  private static Timer timer(MeterRegistry meterRegistry, String operation) {
+    return Timer.builder("widgets.repository.operations")
+        .description("Time spent in widget repository operations")
+        .tag("operation", operation)
+        .publishPercentileHistogram()
+        .minimumExpectedValue(Duration.ofNanos(100))
+        .maximumExpectedValue(Duration.ofSeconds(1))
+        .register(meterRegistry);
+  }
+
+  private Lock lockFor(String name) {
+    return locks[stripe(name)];
+  }
+
+  private static int stripe(String name) {
+    int hash = name.hashCode();
+    return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+  }
+
+  /**
+   * Entry of the price index. Ordered by price in cents, then name; a {@code null} name
+   * sorts after every name so it can serve as an inclusive upper bound for a price.
+   */
+  private record PriceKey(long cents, String name) implements Comparable<PriceKey> {
+
+    @Override
+    public int compareTo(PriceKey other) {
+      int byPrice = Long.compare(cents, other.cents);
+      if (byPrice != 0) {
+        return byPrice;
+      }
+      if (name == null || other.name == null) {
+        return name == null ? (other.name == null ? 0 : 1) : -1;
+      }
+      return name.compareTo(other.name);
+    }
   }
 
 }
@@ -0,0 +1,18 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+
+/**
+ * Observer of the mutations applied to a {@link WidgetRepository}, for keeping derived
+ * state such as caches in step with the table.
+ */
+public interface WidgetRepositoryListener {
+
+  /**
+   * Called after the mutation is visible to readers, with the widget's lock still held,
+   * so the calls for one name arrive in the order the mutations were applied. Must be
+   * quick and must not write to the repository.
+   */
+  void onMutation(WidgetMutation mutation);
+
+}
@@ -0,0 +1,372 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inverted index over widget names and descriptions for keyword search.
+ *
+ * <p>Text is split into lower-case runs of letters and digits. Each term has a postings
+ * map from the names of the widgets containing it to a weight, where an occurrence in the
+ * name counts three times one in the description. Terms are kept in a sorted map, so a
+ * query term matches every term it is a prefix of through one range of that map.
+ *
+ * <p>The index follows the repository as a {@link WidgetRepositoryListener}: a write
+ * only touches the postings of the terms the widget gained, lost or reweighted. Writers
+ * lock the stripes of the terms they change, so writes to different widgets proceed in
+ * parallel, and queries never block.
+ *
+ * <p>A widget matches a query when each query term is a prefix of one of its terms.
+ * Candidates are drawn from the query term with the fewest postings and checked against
+ * the widget's own term list, so a query costs about as much as its rarest term is
+ * common. Matches are ranked by the sum over query terms of the best weight times idf of
+ * a widget term it matches, with prefix-only matches counted at half.
+ */
+@Component
+public class WidgetSearchIndex implements WidgetRepositoryListener {
+
+  private static final int LOCK_STRIPES = 64;
+
+  private static final int NAME_WEIGHT = 3;
+
+  private static final int DESCRIPTION_WEIGHT = 1;
+
+  private static final double PREFIX_MATCH_FACTOR = 0.5;
+
+  /** Estimated heap per posting: a hash map node and its table slot; small weights are cached boxes. */
+  private static final int BYTES_PER_POSTING = 40;
+
+  /**
+   * Estimated heap per term, besides its characters: the term string, its skip-list node
+   * and index share, and an empty postings map.
+   */
+  private static final int BYTES_PER_TERM = 40 + 40 + 24 + 64;
+
+  /** Estimated heap per widget: a hash map node and slot, its document and two array headers. */
+  private static final int BYTES_PER_DOCUMENT = 40 + 24 + 2 * 16;
+
+  /** Estimated heap per term of a widget's document: one reference and one weight. */
+  private static final int BYTES_PER_DOCUMENT_TERM = 8;
+
+  private static final Comparator<Match> RANKING = Comparator.comparingDouble(Match::score).reversed()
+      .thenComparing(Match::name);
+
+  private final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+
+  private final ConcurrentHashMap<String, Document> documents = new ConcurrentHashMap<>();
+
+  private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+  private final LongAdder termCount = new LongAdder();
+
+  private final LongAdder termChars = new LongAdder();
+
+  private final LongAdder postingCount = new LongAdder();
+
+  private final LongAdder documentTermCount = new LongAdder();
+
+  public WidgetSearchIndex(WidgetRepository widgetRepository, MeterRegistry meterRegistry) {
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    Gauge.builder("widgets.search.memory", this, WidgetSearchIndex::footprintBytes)
+        .description("Estimated heap held by the search index")
+        .baseUnit(BaseUnits.BYTES)
+        .register(meterRegistry);
+    widgetRepository.addListenerWithReplay(this);
+  }
+
+  /**
+   * Returns the names of up to {@code limit} widgets matching the query, best match
+   * first and ties in name order. A query without letters or digits matches nothing.
+   */
+  public List<String> search(String query, int limit) {
+    Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+    if (queryTerms.isEmpty() || limit < 1) {
+      return List.of();
+    }
+
+    Collection<Postings> candidates = null;
+    long fewest = Long.MAX_VALUE;
+    for (String queryTerm : queryTerms) {
+      Collection<Postings> matching = prefixRange(queryTerm).values();
+      long count = 0;
+      for (Postings postings : matching) {
+        count += postings.widgets.size();
+        if (count >= fewest) {
+          break;
+        }
+      }
+      if (count < fewest) {
+        candidates = matching;
+        fewest = count;
+      }
+    }
+    if (fewest == 0) {
+      return List.of();
+    }
+
+    String[] queryTermArray = queryTerms.toArray(new String[0]);
+    double widgetCount = Math.max(1, documents.size());
+    // A widget can appear under several terms of the range, but should be ranked once.
+    Set<String> seen = candidates.size() > 1 ? new HashSet<>() : null;
+    PriorityQueue<Match> best = new PriorityQueue<>(RANKING.reversed());
+    for (Postings postings : candidates) {
+      for (String name : postings.widgets.keySet()) {
+        if (seen != null && !seen.add(name)) {
+          continue;
+        }
+        Document document = documents.get(name);
+        double score = document == null ? -1 : score(document, queryTermArray, widgetCount);
+        if (score < 0) {
+          continue;
+        }
+        Match match = new Match(name, score);
+        if (best.size() < limit) {
+          best.add(match);
+        } else if (RANKING.compare(match, best.peek()) < 0) {
+          best.poll();
+          best.add(match);
+        }
+      }
+    }
+
+    List<Match> ranked = new ArrayList<>(best);
+    ranked.sort(RANKING);
+    return ranked.stream().map(Match::name).toList();
+  }
+
+  @Override
+  public void onMutation(WidgetMutation mutation) {
+    String name = mutation.getName();
+    Document previous = documents.get(name);
+    if (mutation.getType() == WidgetMutation.Type.DELETE) {
+      if (previous != null) {
+        for (Postings postings : previous.terms) {
+          removePosting(postings.term, name);
+        }
+        documents.remove(name);
+        documentTermCount.add(-previous.terms.length);
+      }
+      return;
+    }
+
+    Widget widget = mutation.getWidget();
+    if (previous != null && previous.version >= widget.getVersion()) {
+      // Replayed while registering; already indexed.
+      return;
+    }
+    TreeMap<String, Integer> weights = new TreeMap<>();
+    for (String term : tokenize(widget.getName())) {
+      weights.merge(term, NAME_WEIGHT, Integer::sum);
+    }
+    for (String term : tokenize(widget.getDescription())) {
+      weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+    }
+
+    Postings[] postings = new Postings[weights.size()];
+    int[] termWeights = new int[weights.size()];
+    int i = 0;
+    for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+      postings[i] = addPosting(entry.getKey(), name, entry.getValue());
+      termWeights[i] = entry.getValue();
+      i++;
+    }
+    if (previous != null) {
+      for (Postings old : previous.terms) {
+        if (!weights.containsKey(old.term)) {
+          removePosting(old.term, name);
+        }
+      }
+      documentTermCount.add(-previous.terms.length);
+    }
+    documents.put(name, new Document(widget.getVersion(), postings, termWeights));
+    documentTermCount.add(postings.length);
+  }
+
+  /** Number of distinct terms in the index. */
+  public long termCount() {
+    return termCount.sum();
+  }
+
+  /** Estimated heap held by the terms, postings and per-widget term lists. */
+  public long footprintBytes() {
+    return termCount.sum() * BYTES_PER_TERM
+        + termChars.sum()
+        + postingCount.sum() * BYTES_PER_POSTING
+        + (long) documents.size() * BYTES_PER_DOCUMENT
+        + documentTermCount.sum() * BYTES_PER_DOCUMENT_TERM;
+  }
+
+  /** Splits text into lower-case runs of letters and digits, in order, with repeats. */
+  static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null) {
+      return tokens;
+    }
+    int start = -1;
+    int i = 0;
+    while (i <= text.length()) {
+      int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+      boolean inWord = Character.isLetterOrDigit(codePoint);
+      if (inWord && start < 0) {
+        start = i;
+      } else if (!inWord && start >= 0) {
+        tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+      i += Character.charCount(codePoint);
+    }
+    return tokens;
+  }
+
+  /**
+   * Sum over query terms of the best score of a document term they prefix, or
+   * {@code -1} if some query term prefixes none.
+   */
+  private static double score(Document document, String[] queryTerms, double widgetCount) {
+    double total = 0;
+    for (String queryTerm : queryTerms) {
+      double best = -1;
+      for (int i = firstAtLeast(document.terms, queryTerm); i < document.terms.length; i++) {
+        Postings postings = document.terms[i];
+        if (!postings.term.startsWith(queryTerm)) {
+          break;
+        }
+        double idf = Math.log(1 + widgetCount / Math.max(1, postings.widgets.size()));
+        double score = document.weights[i] * idf * (postings.term.length() == queryTerm.length() ? 1 : PREFIX_MATCH_FACTOR);
+        best = Math.max(best, score);
+      }
+      if (best < 0) {
+        return -1;
+      }
+      total += best;
+    }
+    return total;
+  }
+
+  /** Index of the first term not less than {@code key} in a term-ordered array. */
+  private static int firstAtLeast(Postings[] terms, String key) {
+    int low = 0;
+    int high = terms.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (terms[mid].term.compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private NavigableMap<String, Postings> prefixRange(String prefix) {
+    String end = prefixEnd(prefix);
+    return end == null ? terms.tailMap(prefix, true) : terms.subMap(prefix, true, end, false);
+  }
+
+  /**
+   * Smallest string greater than every string starting with {@code prefix}, or
+   * {@code null} if there is none.
+   */
+  private static String prefixEnd(String prefix) {
+    for (int i = prefix.length() - 1; i >= 0; i--) {
+      char c = prefix.charAt(i);
+      if (c != Character.MAX_VALUE) {
+        return prefix.substring(0, i) + (char) (c + 1);
+      }
+    }
+    return null;
+  }
+
+  /** Adds or reweights a posting and returns the term's postings. */
+  private Postings addPosting(String term, String name, int weight) {
+    Lock lock = lockFor(term);
+    lock.lock();
+    try {
+      Postings postings = terms.get(term);
+      if (postings == null) {
+        postings = new Postings(term);
+        terms.put(term, postings);
+        termCount.increment();
+        termChars.add(term.length());
+      }
+      if (postings.widgets.put(name, weight) == null) {
+        postingCount.increment();
+      }
+      return postings;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Removes a posting, and the term with it once no widget contains it. */
+  private void removePosting(String term, String name) {
+    Lock lock = lockFor(term);
+    lock.lock();
+    try {
+      Postings postings = terms.get(term);
+      if (postings == null || postings.widgets.remove(name) == null) {
+        return;
+      }
+      postingCount.decrement();
+      if (postings.widgets.isEmpty()) {
+        terms.remove(term);
+        termCount.decrement();
+        termChars.add(-term.length());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Lock lockFor(String term) {
+    int hash = term.hashCode();
+    return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+  }
+
+  /** The widgets containing one term, with their weights. */
+  private static final class Postings {
+
+    final String term;
+
+    final Map<String, Integer> widgets = new ConcurrentHashMap<>();
+
+    Postings(String term) {
+      this.term = term;
+    }
+  }
+
+  /**
+   * Indexed form of one widget version: its terms in order, sharing the index's postings,
+   * and the widget's weight for each.
+   */
+  private record Document(long version, Postings[] terms, int[] weights) {
+  }
+
+  private record Match(String name, double score) {
+  }
+
+}
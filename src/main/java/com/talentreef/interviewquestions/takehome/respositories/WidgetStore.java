@@ -0,0 +1,46 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.takehome.models.Widget;
+
+import java.util.List;
+
+/**
+ * Name-keyed storage of widget records behind a {@link WidgetRepository}.
+ *
+ * <p>The repository serializes writes to the same name and keeps the ordered indexes
+ * itself; a store only has to let reads run concurrently with those writes. Widgets
+ * handed to and returned from a store are treated as immutable.
+ */
+public interface WidgetStore {
+
+  /** @return the stored widget, or {@code null} if there is none */
+  Widget get(String name);
+
+  /** Stores the widget under its name. @return the widget it replaced, or {@code null} */
+  Widget put(Widget widget);
+
+  /** @return the removed widget, or {@code null} if there was none */
+  Widget remove(String name);
+
+  boolean containsKey(String name);
+
+  int size();
+
+  /**
+   * Estimated bytes held for the stored widgets, on and off the heap, including the
+   * store's own lookup structure but not the repository's ordered indexes.
+   */
+  long footprintBytes();
+
+  /** Short name of the backend, as configured in {@code widgets.storage.backend}. */
+  String backend();
+
+  /**
+   * Every stored widget in name order, as of one point between writes and unaffected by
+   * later ones, or {@code null} if the store cannot take such a snapshot without copying.
+   */
+  default List<Widget> snapshot() {
+    return null;
+  }
+
+}
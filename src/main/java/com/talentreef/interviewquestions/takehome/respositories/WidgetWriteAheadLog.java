@@ -0,0 +1,595 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.config.WidgetProperties.Persistence.FsyncPolicy;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log and snapshots that make the in-memory {@link WidgetRepository} durable.
+ *
+ * <p>Mutations are queued by the writing threads and written by a single log thread in
+ * groups: while one group is being written and forced, the next one fills up, so a
+ * single {@code fsync} covers every write that arrived in the meantime (group commit).
+ * The log is split into numbered segments. A snapshot rolls the log to a new segment,
+ * writes every widget to {@code snapshot-N.bin}, and then deletes the segments it
+ * covers. Recovery loads the newest snapshot and replays the segments after it; a torn
+ * record at the end of a segment ends its replay. An atomic batch is written as a header
+ * counting its records, and is replayed only if all of them are intact.
+ *
+ * <p>The log stops at the first failed write. The segment and the buffer may then end in
+ * a torn record, after which recovery would drop anything written later, so every queued
+ * and later group fails with the same error and the repository turns writes away until
+ * the process is restarted and recovers. A mutation refused when it is appended, such as
+ * a record too large for the log buffer, is undone by the repository; one that fails
+ * while being written stays in memory until the restart. With {@code recover-in-background},
+ * recovery runs on a thread of its own while the other beans are created, and Spring waits
+ * for it before starting the web server.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "widgets.persistence", name = "enabled", havingValue = "true")
+public class WidgetWriteAheadLog implements WidgetJournal, SmartInitializingSingleton {
+
+  private static final int SEGMENT_MAGIC = 0x5757414C; // "WWAL"
+
+  private static final int SNAPSHOT_MAGIC = 0x57534E50; // "WSNP"
+
+  private static final int FORMAT_VERSION = 1;
+
+  /** Version 2 segments may hold batch headers; version 1 segments are still replayed. */
+  private static final int SEGMENT_VERSION = 2;
+
+  private static final int BUFFER_BYTES = 1024 * 1024;
+
+  private static final Pattern SEGMENT_FILE = Pattern.compile("wal-(\\d+)\\.log");
+
+  private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+  private final WidgetRepository widgetRepository;
+
+  private final Path directory;
+
+  private final FsyncPolicy fsyncPolicy;
+
+  private final long fsyncIntervalNanos;
+
+  private final WidgetProperties.Persistence settings;
+
+  private final ReentrantLock appendLock = new ReentrantLock();
+
+  private final Condition pending = appendLock.newCondition();
+
+  /** Group collecting new records. Guarded by {@link #appendLock}. */
+  private CommitGroup current = new CommitGroup();
+
+  /** Group the calling thread last appended to, waited on by {@link #awaitDurable()}. */
+  private final ThreadLocal<CommitGroup> joined = new ThreadLocal<>();
+
+  /** First write error; once set, nothing more is written. */
+  private volatile Throwable failure;
+
+  /** Outstanding request to start a new segment. Guarded by {@link #appendLock}. */
+  private CompletableFuture<Long> rollRequest;
+
+  /** Guarded by {@link #appendLock}. */
+  private boolean running;
+
+  // Owned by the log thread once started.
+  private FileChannel segment;
+
+  private long segmentIndex;
+
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+  private final CRC32C crc = new CRC32C();
+
+  private Thread logThread;
+
+  private ScheduledExecutorService snapshotScheduler;
+
+  /** Completes once the catalog is recovered and the log is open. */
+  private CompletableFuture<Void> opened;
+
+  public WidgetWriteAheadLog(WidgetRepository widgetRepository, WidgetProperties widgetProperties) {
+    this.widgetRepository = widgetRepository;
+    this.settings = widgetProperties.getPersistence();
+    this.directory = Paths.get(settings.getDirectory());
+    this.fsyncPolicy = settings.getFsync();
+    this.fsyncIntervalNanos = settings.getFsyncInterval().toNanos();
+  }
+
+  @PostConstruct
+  public void start() throws IOException {
+    Files.createDirectories(directory);
+    if (!settings.isRecoverInBackground()) {
+      open();
+      opened = CompletableFuture.completedFuture(null);
+      return;
+    }
+    opened = new CompletableFuture<>();
+    Thread recovery = new Thread(() -> {
+      try {
+        open();
+        opened.complete(null);
+      } catch (IOException | RuntimeException e) {
+        opened.completeExceptionally(e);
+      }
+    }, "widget-recovery");
+    recovery.setDaemon(true);
+    recovery.start();
+  }
+
+  /** Waits for a recovery started in the background, once every other bean has been created. */
+  @Override
+  public void afterSingletonsInstantiated() {
+    try {
+      opened.join();
+    } catch (CompletionException e) {
+      throw new IllegalStateException("Could not recover the widget catalog from " + directory.toAbsolutePath(), e.getCause());
+    }
+  }
+
+  private void open() throws IOException {
+    long started = System.nanoTime();
+    long lastIndex = recover();
+    log.info("Recovered {} widgets up to sequence {} from {} in {} ms", widgetRepository.count(),
+        widgetRepository.currentSequence(), directory.toAbsolutePath(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+    segmentIndex = lastIndex + 1;
+    segment = openSegment(segmentIndex);
+    appendLock.lock();
+    try {
+      running = true;
+    } finally {
+      appendLock.unlock();
+    }
+    logThread = new Thread(this::runLog, "widget-wal");
+    logThread.setDaemon(true);
+    logThread.start();
+    widgetRepository.setJournal(this);
+
+    long interval = settings.getSnapshotInterval().toMillis();
+    snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "widget-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+    snapshotScheduler.scheduleWithFixedDelay(() -> {
+      try {
+        snapshot();
+      } catch (IOException | RuntimeException e) {
+        log.error("Widget snapshot failed", e);
+      }
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void close() throws IOException, InterruptedException {
+    try {
+      opened.join();
+    } catch (CompletionException e) {
+      return; // nothing was opened
+    }
+    snapshotScheduler.shutdownNow();
+    if (settings.isSnapshotOnShutdown() && failure == null) {
+      snapshot();
+    }
+    widgetRepository.setJournal(NONE);
+    appendLock.lock();
+    try {
+      running = false;
+      pending.signal();
+    } finally {
+      appendLock.unlock();
+    }
+    logThread.join();
+    try {
+      if (failure == null) {
+        segment.force(false);
+      }
+    } finally {
+      segment.close();
+    }
+  }
+
+  @Override
+  public boolean blocksWriters() {
+    return fsyncPolicy == FsyncPolicy.ALWAYS;
+  }
+
+  @Override
+  public void checkWritable() {
+    Throwable cause = failure;
+    if (cause != null) {
+      throw new IllegalStateException("Widget write-ahead log stopped after a failed write", cause);
+    }
+  }
+
+  @Override
+  public void append(WidgetMutation mutation) {
+    appendLock.lock();
+    try {
+      // Checked under the lock the log thread takes groups with, so a refused mutation was
+      // never queued and the repository can undo it.
+      checkWritable();
+      checkFits(mutation);
+      current.records.add(mutation);
+      if (current.records.size() == 1) {
+        pending.signal();
+      }
+      if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+        joined.set(current);
+      }
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  @Override
+  public void appendAll(List<WidgetMutation> mutations) {
+    appendLock.lock();
+    try {
+      // Checked under the lock the log thread takes groups with, so a batch is queued
+      // whole or not at all.
+      checkWritable();
+      for (WidgetMutation mutation : mutations) {
+        checkFits(mutation);
+      }
+      if (mutations.isEmpty()) {
+        return;
+      }
+      current.batches.add(new BatchMark(current.records.size(), mutations.size()));
+      current.records.addAll(mutations);
+      if (current.records.size() == mutations.size()) {
+        pending.signal();
+      }
+      if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+        joined.set(current);
+      }
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * Stops the log if the record could never be written, as the log thread would once it
+   * got there, but before the mutation is queued. Must hold the append lock.
+   */
+  private void checkFits(WidgetMutation mutation) {
+    int size = WidgetRecords.maxSize(mutation);
+    if (size > BUFFER_BYTES) {
+      IOException e = new IOException("Widget record of " + size + " bytes exceeds the log buffer");
+      log.error("Widget write-ahead log write failed; rejecting writes until restarted", e);
+      failure = e;
+      checkWritable();
+    }
+  }
+
+  @Override
+  public void awaitDurable() {
+    // Groups complete in order, so the last group joined covers every earlier record too.
+    CommitGroup group = joined.get();
+    if (group != null) {
+      joined.remove();
+      try {
+        group.done.join();
+      } catch (CompletionException e) {
+        throw new IllegalStateException("Widget write-ahead log write failed", e.getCause());
+      }
+    }
+    checkWritable();
+  }
+
+  /**
+   * Writes a snapshot of the whole catalog and drops the log segments it makes redundant.
+   */
+  public void snapshot() throws IOException {
+    long started = System.nanoTime();
+    long index = requestRoll().join();
+    long sequence = widgetRepository.currentSequence();
+    Path target = directory.resolve(snapshotName(index));
+    Path temporary = directory.resolve(snapshotName(index) + ".tmp");
+    int count = 0;
+    ByteBuffer snapshotBuffer = ByteBuffer.allocate(BUFFER_BYTES);
+    CRC32C snapshotCrc = new CRC32C();
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      snapshotBuffer.putInt(SNAPSHOT_MAGIC).putInt(FORMAT_VERSION).putLong(sequence);
+      Iterator<Widget> widgets = widgetRepository.iterator();
+      while (widgets.hasNext()) {
+        WidgetMutation record = WidgetMutation.upsert(widgets.next());
+        snapshotBuffer = ensureRemaining(channel, snapshotBuffer, WidgetRecords.maxSize(record));
+        WidgetRecords.write(record, snapshotBuffer, snapshotCrc);
+        count++;
+      }
+      snapshotBuffer = ensureRemaining(channel, snapshotBuffer, WidgetRecords.HEADER_BYTES);
+      WidgetRecords.writeEnd(snapshotBuffer);
+      drain(channel, snapshotBuffer);
+      channel.force(true);
+    }
+    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    forceDirectory();
+
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.toList()) {
+        long fileIndex = indexOf(file, SEGMENT_FILE);
+        if (fileIndex < 0) {
+          fileIndex = indexOf(file, SNAPSHOT_FILE);
+        }
+        if (fileIndex >= 0 && fileIndex < index) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+    log.info("Wrote snapshot of {} widgets at sequence {} in {} ms", count, sequence,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+  }
+
+  /**
+   * Loads the newest snapshot and replays the log segments written after it.
+   *
+   * @return the highest segment index found, or the snapshot's index minus one
+   */
+  private long recover() throws IOException {
+    List<Long> segments = new ArrayList<>();
+    long snapshotIndex = -1;
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.toList()) {
+        long index = indexOf(file, SEGMENT_FILE);
+        if (index >= 0) {
+          segments.add(index);
+        }
+        snapshotIndex = Math.max(snapshotIndex, indexOf(file, SNAPSHOT_FILE));
+      }
+    }
+    segments.sort(null);
+
+    long lastIndex = 0;
+    if (snapshotIndex >= 0) {
+      loadSnapshot(directory.resolve(snapshotName(snapshotIndex)));
+      lastIndex = snapshotIndex - 1;
+    }
+    for (long index : segments) {
+      if (index >= snapshotIndex) {
+        replaySegment(directory.resolve(segmentName(index)));
+      }
+      lastIndex = Math.max(lastIndex, index);
+    }
+    return lastIndex;
+  }
+
+  private void loadSnapshot(Path file) throws IOException {
+    try (DataInputStream in = open(file)) {
+      if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION) {
+        throw new IOException("Unrecognized widget snapshot " + file);
+      }
+      widgetRepository.advanceSequence(in.readLong());
+      CRC32C readCrc = new CRC32C();
+      for (WidgetMutation record = WidgetRecords.readSnapshotRecord(in, readCrc); record != null;
+          record = WidgetRecords.readSnapshotRecord(in, readCrc)) {
+        widgetRepository.restore(record);
+      }
+    }
+  }
+
+  private void replaySegment(Path file) throws IOException {
+    try (DataInputStream in = open(file)) {
+      if (Files.size(file) < 8) {
+        return;
+      }
+      int magic = in.readInt();
+      int version = in.readInt();
+      if (magic != SEGMENT_MAGIC || version < FORMAT_VERSION || version > SEGMENT_VERSION) {
+        throw new IOException("Unrecognized widget log segment " + file);
+      }
+      CRC32C readCrc = new CRC32C();
+      List<WidgetMutation> entry = new ArrayList<>();
+      while (WidgetRecords.readEntry(in, readCrc, entry)) {
+        for (WidgetMutation record : entry) {
+          widgetRepository.restore(record);
+        }
+      }
+    }
+  }
+
+  private void runLog() {
+    long lastForce = System.nanoTime();
+    boolean dirty = false;
+    while (true) {
+      CommitGroup group;
+      CompletableFuture<Long> roll;
+      appendLock.lock();
+      try {
+        while (running && current.records.isEmpty() && rollRequest == null) {
+          if (dirty && fsyncPolicy == FsyncPolicy.INTERVAL) {
+            long wait = fsyncIntervalNanos - (System.nanoTime() - lastForce);
+            if (wait <= 0) {
+              break;
+            }
+            pending.awaitNanos(wait);
+          } else {
+            pending.awaitUninterruptibly();
+          }
+        }
+        if (!running && current.records.isEmpty() && rollRequest == null) {
+          return;
+        }
+        group = current;
+        current = new CommitGroup();
+        roll = rollRequest;
+        rollRequest = null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        appendLock.unlock();
+      }
+
+      if (failure != null) {
+        dirty = false;
+        group.done.completeExceptionally(failure);
+        if (roll != null) {
+          roll.completeExceptionally(failure);
+        }
+        continue;
+      }
+      try {
+        Iterator<BatchMark> batches = group.batches.iterator();
+        BatchMark batch = batches.hasNext() ? batches.next() : null;
+        for (int i = 0; i < group.records.size(); i++) {
+          if (batch != null && batch.start() == i) {
+            ensureRemaining(segment, buffer, WidgetRecords.BATCH_HEADER_BYTES);
+            WidgetRecords.writeBatchHeader(batch.size(), buffer, crc);
+            batch = batches.hasNext() ? batches.next() : null;
+          }
+          WidgetMutation record = group.records.get(i);
+          ensureRemaining(segment, buffer, WidgetRecords.maxSize(record));
+          WidgetRecords.write(record, buffer, crc);
+        }
+        drain(segment, buffer);
+        dirty |= !group.records.isEmpty();
+        if (dirty && (fsyncPolicy == FsyncPolicy.ALWAYS || roll != null
+            || (fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos))) {
+          segment.force(false);
+          lastForce = System.nanoTime();
+          dirty = false;
+        }
+        group.done.complete(null);
+        if (roll != null) {
+          segment.close();
+          segment = openSegment(++segmentIndex);
+          roll.complete(segmentIndex);
+        }
+      } catch (IOException | RuntimeException e) {
+        log.error("Widget write-ahead log write failed; rejecting writes until restarted", e);
+        failure = e;
+        group.done.completeExceptionally(e);
+        if (roll != null) {
+          roll.completeExceptionally(e);
+        }
+      }
+    }
+  }
+
+  private CompletableFuture<Long> requestRoll() {
+    appendLock.lock();
+    try {
+      if (rollRequest == null) {
+        rollRequest = new CompletableFuture<>();
+        pending.signal();
+      }
+      return rollRequest;
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  private FileChannel openSegment(long index) throws IOException {
+    FileChannel channel = FileChannel.open(directory.resolve(segmentName(index)), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE);
+    channel.write(ByteBuffer.allocate(8).putInt(SEGMENT_MAGIC).putInt(SEGMENT_VERSION).flip());
+    channel.force(true);
+    forceDirectory();
+    return channel;
+  }
+
+  /** Makes room for {@code bytes} more bytes, flushing the buffer or returning a bigger one if needed. */
+  private static ByteBuffer ensureRemaining(FileChannel channel, ByteBuffer target, int bytes) throws IOException {
+    if (target.remaining() >= bytes) {
+      return target;
+    }
+    drain(channel, target);
+    if (target.remaining() >= bytes) {
+      return target;
+    }
+    if (target.isDirect()) {
+      throw new IOException("Widget record of " + bytes + " bytes exceeds the log buffer");
+    }
+    return ByteBuffer.allocate(bytes);
+  }
+
+  private static void drain(FileChannel channel, ByteBuffer source) throws IOException {
+    source.flip();
+    while (source.hasRemaining()) {
+      channel.write(source);
+    }
+    source.clear();
+  }
+
+  private void forceDirectory() {
+    try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+      dir.force(true);
+    } catch (IOException e) {
+      // Not every platform lets a directory be opened and forced; the rename is still atomic.
+      log.debug("Could not force directory {}", directory, e);
+    }
+  }
+
+  private static DataInputStream open(Path file) throws IOException {
+    InputStream in = Files.newInputStream(file);
+    return new DataInputStream(new BufferedInputStream(in, BUFFER_BYTES));
+  }
+
+  private static long indexOf(Path file, Pattern pattern) {
+    Matcher matcher = pattern.matcher(file.getFileName().toString());
+    return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+  }
+
+  private static String segmentName(long index) {
+    return String.format("wal-%016d.log", index);
+  }
+
+  private static String snapshotName(long index) {
+    return String.format("snapshot-%016d.bin", index);
+  }
+
+  /** Records written and forced together. */
+  private static final class CommitGroup {
+
+    private final List<WidgetMutation> records = new ArrayList<>();
+
+    /** Atomic batches among the records, in order. */
+    private final List<BatchMark> batches = new ArrayList<>();
+
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+  }
+
+  /** The {@code size} records from {@code start} of a group form one atomic batch. */
+  private record BatchMark(int start, int size) {
+  }
+
+}
@@ -0,0 +1,351 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Prices;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Copies the in-memory {@link WidgetRepository} to a database behind its back, when
+ * {@code widgets.jdbc.enabled} is set. Memory stays the only thing requests read and wait
+ * for; the database is how the catalog outlives a restart.
+ *
+ * <p>Each mutation marks its widget's name dirty. A name changed several times before
+ * the next flush is written once, with its latest state. A single thread flushes every
+ * {@code flush-interval}, or as soon as {@code flush-threshold} names are dirty, in
+ * batches of {@code batch-size} names: deletes, then updates, then inserts for the names
+ * the updates did not find, each as one JDBC batch and all in one transaction. A flush that fails puts its names back
+ * and is retried on the next one. On startup, the catalog is loaded from the database
+ * with streaming fetches of {@code fetch-size} rows, before the web server opens.
+ *
+ * <p>A crash loses what has not been flushed: at most {@code flush-interval} plus the
+ * time a flush takes. The age of the oldest change at each commit is recorded as
+ * {@code widgets.jdbc.exposure}, so its maximum is the window actually seen. Updates rely
+ * on the driver reporting the rows each statement of a batch changed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "widgets.jdbc", name = "enabled", havingValue = "true")
+public class WidgetWriteBehind implements WidgetRepositoryListener {
+
+  private static final String SCHEMA = "db/widgets-schema.sql";
+
+  private static final String SELECT_WIDGETS = "SELECT name, description, price, price_scale, version FROM widget";
+
+  private static final String UPDATE_WIDGET = "UPDATE widget SET description = ?, price = ?, price_scale = ?, version = ? WHERE name = ?";
+
+  private static final String INSERT_WIDGET = "INSERT INTO widget (name, description, price, price_scale, version) VALUES (?, ?, ?, ?, ?)";
+
+  private static final String DELETE_WIDGET = "DELETE FROM widget WHERE name = ?";
+
+  private static final String SELECT_SEQUENCE = "SELECT highest FROM widget_sequence WHERE id = 1";
+
+  private static final String INSERT_SEQUENCE = "INSERT INTO widget_sequence (id, highest) VALUES (1, 0)";
+
+  private static final String UPDATE_SEQUENCE = "UPDATE widget_sequence SET highest = ? WHERE id = 1 AND highest < ?";
+
+  private final WidgetRepository widgetRepository;
+
+  private final DataSource dataSource;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final WidgetProperties.Jdbc settings;
+
+  private final long flushIntervalNanos;
+
+  private final int batchSize;
+
+  private final int flushThreshold;
+
+  /** Latest unwritten mutation of each dirty name. */
+  private final ConcurrentHashMap<String, Pending> dirty = new ConcurrentHashMap<>();
+
+  private final Timer flushTimer;
+
+  private final Timer exposure;
+
+  private final Counter rows;
+
+  private final Counter failures;
+
+  private volatile boolean running;
+
+  /** Set once {@code flush-threshold} names are dirty, until the flusher takes them. */
+  private volatile boolean flushRequested;
+
+  private Thread flusher;
+
+  public WidgetWriteBehind(WidgetRepository widgetRepository, WidgetProperties widgetProperties, DataSource dataSource,
+      MeterRegistry meterRegistry) {
+    if (widgetProperties.getPersistence().isEnabled()) {
+      throw new IllegalStateException("widgets.jdbc and widgets.persistence each load the catalog; enable only one");
+    }
+    this.widgetRepository = widgetRepository;
+    this.dataSource = dataSource;
+    this.settings = widgetProperties.getJdbc();
+    this.flushIntervalNanos = settings.getFlushInterval().toNanos();
+    this.batchSize = settings.getBatchSize();
+    this.flushThreshold = settings.getFlushThreshold();
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.setFetchSize(settings.getFetchSize());
+    this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    Gauge.builder("widgets.jdbc.pending", dirty, Map::size)
+        .description("Changed widgets not written to the database yet")
+        .register(meterRegistry);
+    this.flushTimer = Timer.builder("widgets.jdbc.flush")
+        .description("Time to write a batch of changed widgets to the database")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.exposure = Timer.builder("widgets.jdbc.exposure")
+        .description("Age of the oldest change in a batch when it was committed, i.e. what a crash would have lost")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.rows = Counter.builder("widgets.jdbc.rows")
+        .description("Widgets written to or deleted from the database")
+        .register(meterRegistry);
+    this.failures = Counter.builder("widgets.jdbc.failures")
+        .description("Batches the database rejected, to be retried")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void start() {
+    if (settings.isInitializeSchema()) {
+      new ResourceDatabasePopulator(new ClassPathResource(SCHEMA)).execute(dataSource);
+    }
+    load();
+    widgetRepository.addListener(this);
+    running = true;
+    flusher = new Thread(this::runFlusher, "widget-jdbc-flush");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /** Stops the flusher once it has written what is still dirty. */
+  @PreDestroy
+  public void close() throws InterruptedException {
+    running = false;
+    if (flusher == null) {
+      // start() failed before listening, so nothing was changed.
+      return;
+    }
+    LockSupport.unpark(flusher);
+    flusher.join();
+    if (!dirty.isEmpty()) {
+      log.error("{} widget changes could not be written to the database", dirty.size());
+    }
+  }
+
+  @Override
+  public void onMutation(WidgetMutation mutation) {
+    dirty.merge(mutation.getName(), new Pending(mutation, System.nanoTime()),
+        (unwritten, latest) -> new Pending(latest.mutation(), unwritten.since()));
+    if (!flushRequested && dirty.size() >= flushThreshold) {
+      flushRequested = true;
+      LockSupport.unpark(flusher);
+    }
+  }
+
+  /**
+   * Writes every dirty widget, {@code batch-size} at a time, and returns how many were
+   * written. Stops at the first batch that fails, leaving it and the rest dirty.
+   */
+  public synchronized int flush() {
+    int written = 0;
+    List<Pending> batch = new ArrayList<>(Math.min(batchSize, dirty.size()));
+    for (Map.Entry<String, Pending> entry : dirty.entrySet()) {
+      if (dirty.remove(entry.getKey(), entry.getValue())) {
+        batch.add(entry.getValue());
+      }
+      if (batch.size() == batchSize) {
+        if (!write(batch)) {
+          return written;
+        }
+        written += batch.size();
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty() && write(batch)) {
+      written += batch.size();
+    }
+    return written;
+  }
+
+  /** Changed widgets not written yet. */
+  public int pending() {
+    return dirty.size();
+  }
+
+  private void runFlusher() {
+    long nextFlush = System.nanoTime() + flushIntervalNanos;
+    while (true) {
+      boolean stopping = !running;
+      long wait = nextFlush - System.nanoTime();
+      if (!stopping && !flushRequested && wait > 0) {
+        LockSupport.parkNanos(this, wait);
+        continue;
+      }
+      nextFlush = System.nanoTime() + flushIntervalNanos;
+      flushRequested = false;
+      flush();
+      if (stopping) {
+        return;
+      }
+    }
+  }
+
+  private boolean write(List<Pending> batch) {
+    long started = System.nanoTime();
+    long oldest = started;
+    List<String> deletes = new ArrayList<>();
+    List<Widget> upserts = new ArrayList<>();
+    long highest = 0;
+    for (Pending pending : batch) {
+      WidgetMutation mutation = pending.mutation();
+      if (mutation.getType() == WidgetMutation.Type.DELETE) {
+        deletes.add(mutation.getName());
+      } else {
+        upserts.add(mutation.getWidget());
+      }
+      highest = Math.max(highest, mutation.getSequence());
+      oldest = Math.min(oldest, pending.since());
+    }
+    long sequence = highest;
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        batchUpdate(DELETE_WIDGET, deletes, (statement, name) -> statement.setString(1, name));
+        int[][] updated = batchUpdate(UPDATE_WIDGET, upserts, (statement, widget) -> {
+          statement.setString(1, widget.getDescription());
+          setPrice(statement, 2, widget.getPackedPrice());
+          statement.setLong(4, widget.getVersion());
+          statement.setString(5, widget.getName());
+        });
+        List<Widget> inserts = new ArrayList<>();
+        int i = 0;
+        for (int[] counts : updated) {
+          for (int count : counts) {
+            if (count == 0) {
+              inserts.add(upserts.get(i));
+            }
+            i++;
+          }
+        }
+        batchUpdate(INSERT_WIDGET, inserts, (statement, widget) -> {
+          statement.setString(1, widget.getName());
+          statement.setString(2, widget.getDescription());
+          setPrice(statement, 3, widget.getPackedPrice());
+          statement.setLong(5, widget.getVersion());
+        });
+        jdbcTemplate.update(UPDATE_SEQUENCE, sequence, sequence);
+      });
+    } catch (DataAccessException | TransactionException e) {
+      log.error("Could not write {} widget changes to the database; retrying with the next flush", batch.size(), e);
+      failures.increment();
+      for (Pending pending : batch) {
+        // A newer change made since stays; only the oldest time is kept.
+        dirty.merge(pending.mutation().getName(), pending,
+            (newer, failed) -> new Pending(newer.mutation(), Math.min(newer.since(), failed.since())));
+      }
+      return false;
+    }
+    long committed = System.nanoTime();
+    flushTimer.record(committed - started, TimeUnit.NANOSECONDS);
+    exposure.record(committed - oldest, TimeUnit.NANOSECONDS);
+    rows.increment(batch.size());
+    return true;
+  }
+
+  /** Runs the statement once per item, as a single JDBC batch. */
+  private <T> int[][] batchUpdate(String sql, List<T> items, ParameterizedPreparedStatementSetter<T> setter) {
+    return items.isEmpty() ? new int[0][] : jdbcTemplate.batchUpdate(sql, items, items.size(), setter);
+  }
+
+  /** Loads every stored widget into the repository, keeping their versions. */
+  private void load() {
+    long started = System.nanoTime();
+    int[] count = new int[1];
+    String[] url = new String[1];
+    long sequence = transactionTemplate.execute(status -> {
+      url[0] = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+      List<Long> highest = jdbcTemplate.queryForList(SELECT_SEQUENCE, Long.class);
+      if (highest.isEmpty()) {
+        jdbcTemplate.update(INSERT_SEQUENCE);
+      }
+      // Inside a transaction, so drivers such as PostgreSQL stream the rows with a cursor.
+      jdbcTemplate.query(SELECT_WIDGETS, resultSet -> {
+        widgetRepository.restore(WidgetMutation.upsert(widget(resultSet)));
+        count[0]++;
+      });
+      return highest.isEmpty() ? 0L : highest.get(0);
+    });
+    widgetRepository.advanceSequence(sequence);
+    log.info("Loaded {} widgets up to sequence {} from {} in {} ms", count[0], widgetRepository.currentSequence(),
+        url[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+  }
+
+  private static Widget widget(ResultSet resultSet) throws SQLException {
+    BigDecimal price = resultSet.getBigDecimal("price");
+    int scale = resultSet.getInt("price_scale");
+    return Widget.builder()
+        .name(resultSet.getString("name"))
+        .description(resultSet.getString("description"))
+        .packedPrice(price == null ? Prices.NONE
+            : resultSet.wasNull() ? Prices.ofUnscaled(price.unscaledValue().longValueExact(), price.scale())
+            : Prices.of(price.movePointRight(2).longValueExact(), scale))
+        .version(resultSet.getLong("version"))
+        .build();
+  }
+
+  /**
+   * Sets the price in cents at {@code index} and the number of decimals it was written
+   * with at {@code index + 1}, so 12.5 and 12.500 come back as they were sent.
+   */
+  private static void setPrice(PreparedStatement statement, int index, long price) throws SQLException {
+    if (price == Prices.NONE) {
+      statement.setNull(index, Types.DECIMAL);
+      statement.setNull(index + 1, Types.SMALLINT);
+    } else {
+      statement.setBigDecimal(index, BigDecimal.valueOf(Prices.cents(price), 2));
+      statement.setShort(index + 1, (short) Prices.scale(price));
+    }
+  }
+
+  /** A name's latest unwritten mutation, and when the name first became dirty. */
+  private record Pending(WidgetMutation mutation, long since) {
+  }
+
+}
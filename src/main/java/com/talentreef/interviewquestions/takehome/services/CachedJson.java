@@ -0,0 +1,14 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import java.util.function.Supplier;
+
+/**
+ * A JSON response known by its strong ETag before its body is needed, so a conditional
+ * request that matches the ETag is answered without serializing anything. The body may
+ * also be in one of the binary {@link WidgetFormat}s, under that format's ETag.
+ *
+ * @param etag quoted entity tag of the body
+ * @param body the serialized body, taken from the cache or serialized on demand
+ */
+public record CachedJson(String etag, Supplier<byte[]> body) {
+}
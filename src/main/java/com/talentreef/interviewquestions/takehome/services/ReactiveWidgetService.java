@@ -0,0 +1,283 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkResponseDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetPageDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetStatsDTO;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+import com.talentreef.interviewquestions.takehome.respositories.ReactiveWidgetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
+
+/**
+ * The operations of {@link WidgetService} for the reactive API, on top of
+ * {@link ReactiveWidgetRepository}.
+ *
+ * <p>Widgets are checked by the same {@link WidgetValidator} and single widgets come from
+ * the same {@link WidgetResponseCache}, so both stacks answer alike and share their
+ * metrics. Paging and search are answered from memory by {@link WidgetService} and only
+ * wrapped here. Bulk requests are parsed from a blocking stream and run on
+ * {@link Schedulers#boundedElastic()}.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveWidgetService {
+
+	/** Widgets serialized into each chunk of an export. */
+	private static final int EXPORT_BATCH_SIZE = 256;
+
+	private final ReactiveWidgetRepository reactiveWidgetRepository;
+
+	private final WidgetService widgetService;
+
+	private final WidgetBulkService widgetBulkService;
+
+	private final WidgetValidator widgetValidator;
+
+	private final WidgetResponseCache widgetResponseCache;
+
+	private final ObjectWriter widgetWriter;
+
+	private final Timer getTimer;
+
+	private final Timer createTimer;
+
+	private final Timer updateTimer;
+
+	private final Timer deleteTimer;
+
+	private final Counter notFound;
+
+	private final Counter duplicates;
+
+	private final Counter validationFailures;
+
+	public ReactiveWidgetService(ReactiveWidgetRepository reactiveWidgetRepository, WidgetService widgetService,
+			WidgetBulkService widgetBulkService, WidgetValidator widgetValidator, WidgetResponseCache widgetResponseCache,
+			ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+		Assert.notNull(reactiveWidgetRepository, "reactiveWidgetRepository must not be null");
+		Assert.notNull(widgetService, "widgetService must not be null");
+		Assert.notNull(widgetBulkService, "widgetBulkService must not be null");
+		Assert.notNull(widgetValidator, "widgetValidator must not be null");
+		Assert.notNull(widgetResponseCache, "widgetResponseCache must not be null");
+		Assert.notNull(objectMapper, "objectMapper must not be null");
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+		this.reactiveWidgetRepository = reactiveWidgetRepository;
+		this.widgetService = widgetService;
+		this.widgetBulkService = widgetBulkService;
+		this.widgetValidator = widgetValidator;
+		this.widgetResponseCache = widgetResponseCache;
+		this.widgetWriter = objectMapper.writerFor(WidgetDTO.class);
+		this.getTimer = WidgetService.timer(meterRegistry, "get");
+		this.createTimer = WidgetService.timer(meterRegistry, "create");
+		this.updateTimer = WidgetService.timer(meterRegistry, "update");
+		this.deleteTimer = WidgetService.timer(meterRegistry, "delete");
+		this.notFound = WidgetService.failures(meterRegistry, "not_found");
+		this.duplicates = WidgetService.failures(meterRegistry, "duplicate");
+		this.validationFailures = WidgetService.failures(meterRegistry, "validation");
+	}
+
+	/** Every widget in name order, mapped to DTOs as the subscriber requests them. */
+	public Flux<WidgetDTO> getAllWidgets() {
+		return reactiveWidgetRepository.findAll().map(WidgetDTO::new);
+	}
+
+	/**
+	 * ETag of the full listing in {@code format} as of now. A listing streamed after this call reflects at
+	 * least the same writes, so the tag never claims a newer catalog than the body.
+	 */
+	public String getAllWidgetsETag(WidgetFormat format) {
+		return widgetResponseCache.list(format).etag();
+	}
+
+	/** See {@link WidgetResponseCache#isPrecomputed()}. */
+	public boolean isPrecomputed() {
+		return widgetResponseCache.isPrecomputed();
+	}
+
+	/**
+	 * The full listing and its ETag from the response cache. When precomputing, building it
+	 * only joins each widget's JSON, which is cheap enough to do on the calling thread.
+	 */
+	public CachedJson getAllWidgetsJson() {
+		return widgetResponseCache.list();
+	}
+
+	/**
+	 * The full listing in a binary {@code format}, cached like the JSON one. Encoding it
+	 * walks the whole catalog, so it is done on a worker thread.
+	 */
+	public Mono<CachedJson> getAllWidgets(WidgetFormat format) {
+		return Mono.fromSupplier(() -> {
+			CachedJson list = widgetResponseCache.list(format);
+			// Encoded here, off the event loop; the response only takes the bytes.
+			byte[] body = list.body().get();
+			return new CachedJson(list.etag(), () -> body);
+		}).subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+	 * The catalog as newline-delimited JSON, in chunks of {@value #EXPORT_BATCH_SIZE}
+	 * widgets so a large export is not flushed line by line.
+	 */
+	public Flux<byte[]> exportWidgets() {
+		if (widgetResponseCache.isPrecomputed()) {
+			return Flux.fromIterable(widgetResponseCache.widgetsJson())
+					.buffer(EXPORT_BATCH_SIZE)
+					.map(ReactiveWidgetService::joinLines);
+		}
+		return getAllWidgets().buffer(EXPORT_BATCH_SIZE).map(this::toJsonLines);
+	}
+
+	public Mono<WidgetPageDTO> findWidgets(WidgetQuery query, String cursor) {
+		return Mono.fromSupplier(() -> widgetService.findWidgets(query, cursor));
+	}
+
+	public Mono<List<WidgetDTO>> searchWidgets(String query, int limit) {
+		return Mono.fromSupplier(() -> widgetService.searchWidgets(query, limit));
+	}
+
+	public Mono<WidgetStatsDTO> getStatistics() {
+		return Mono.fromSupplier(widgetService::getStatistics);
+	}
+
+	public Mono<CachedJson> getWidgetJson(String name) {
+		return getWidgetJson(name, WidgetFormat.JSON);
+	}
+
+	public Mono<CachedJson> getWidgetJson(String name, WidgetFormat format) {
+		return timed(getTimer, reactiveWidgetRepository.findById(name)
+				.switchIfEmpty(Mono.error(() -> notFound(name)))
+				.map(widget -> widgetResponseCache.widget(widget, format)));
+	}
+
+	public Mono<WidgetDTO> createWidget(Widget widget) {
+		return timed(createTimer, Mono.defer(() -> {
+			Widget newWidget = Widget.builder()
+					.name(widget.getName())
+					.description(widget.getDescription())
+					.packedPrice(widget.getPackedPrice())
+					.build();
+			validate(newWidget);
+			return reactiveWidgetRepository.putIfAbsent(newWidget)
+					.flatMap(existing -> Mono.<WidgetDTO>error(duplicate(newWidget.getName())))
+					.switchIfEmpty(Mono.fromSupplier(() -> new WidgetDTO(newWidget)));
+		}));
+	}
+
+	/**
+	 * Updates a widget with an optimistic compare-and-set, like
+	 * {@link WidgetService#updateWidget(String, WidgetDTO, Long)}: pinned to
+	 * {@code expectedVersion} when given, retried against the current version otherwise.
+	 */
+	public Mono<WidgetDTO> updateWidget(String name, WidgetDTO widgetDTO, Long expectedVersion) {
+		Mono<WidgetDTO> attempt = reactiveWidgetRepository.findById(name)
+				.switchIfEmpty(Mono.error(() -> notFound(name)))
+				.flatMap(current -> {
+					if (expectedVersion != null && current.getVersion() != expectedVersion) {
+						return Mono.error(versionConflict(name));
+					}
+					Widget widget = current.toBuilder()
+							.description(widgetDTO.getDescription())
+							.packedPrice(widgetDTO.getPackedPrice())
+							.build();
+					validate(widget);
+					return reactiveWidgetRepository.compareAndSet(widget, current.getVersion()).flatMap(replaced -> {
+						if (replaced) {
+							return Mono.just(new WidgetDTO(widget));
+						}
+						// Lost a race; without a pinned version, complete empty so the update is retried.
+						return expectedVersion != null ? Mono.error(versionConflict(name)) : Mono.empty();
+					});
+				});
+		return timed(updateTimer, attempt.repeatWhenEmpty(repeats -> repeats));
+	}
+
+	public Mono<Void> deleteWidget(String name) {
+		return timed(deleteTimer, reactiveWidgetRepository.deleteById(name)
+				.switchIfEmpty(Mono.error(() -> notFound(name)))
+				.then());
+	}
+
+	/** {@link WidgetBulkService#bulk(InputStream, Boolean, WidgetFormat)} off the event loop, since it reads a blocking stream. */
+	public Mono<WidgetBulkResponseDTO> bulk(InputStream body, Boolean atomic, WidgetFormat format) {
+		return Mono.fromCallable(() -> widgetBulkService.bulk(body, atomic, format)).subscribeOn(Schedulers.boundedElastic());
+	}
+
+	private void validate(Widget widget) {
+		List<String> errors = widgetValidator.validate(widget);
+		if (!errors.isEmpty()) {
+			validationFailures.increment();
+			throw new WidgetValidationException(errors);
+		}
+	}
+
+	private EntityNotFoundException notFound(String name) {
+		notFound.increment();
+		return new EntityNotFoundException("Widget not found with name: " + name);
+	}
+
+	private WidgetConflictException duplicate(String name) {
+		duplicates.increment();
+		return new WidgetConflictException("Widget with name '" + name + "' already exists");
+	}
+
+	private OptimisticLockException versionConflict(String name) {
+		return new OptimisticLockException("Widget with name '" + name + "' was modified concurrently");
+	}
+
+	private byte[] toJsonLines(List<WidgetDTO> widgets) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(widgets.size() * 128);
+		try {
+			for (WidgetDTO widget : widgets) {
+				out.writeBytes(widgetWriter.writeValueAsBytes(widget));
+				out.write('\n');
+			}
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	/** The precomputed JSON of {@code widgets}, one per line. */
+	private static byte[] joinLines(List<byte[]> widgets) {
+		int length = widgets.size();
+		for (byte[] widget : widgets) {
+			length += widget.length;
+		}
+		byte[] lines = new byte[length];
+		int position = 0;
+		for (byte[] widget : widgets) {
+			System.arraycopy(widget, 0, lines, position, widget.length);
+			position += widget.length;
+			lines[position++] = '\n';
+		}
+		return lines;
+	}
+
+	private static <T> Mono<T> timed(Timer timer, Mono<T> operation) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return operation.doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+		});
+	}
+
+}
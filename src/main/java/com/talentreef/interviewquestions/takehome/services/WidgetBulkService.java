@@ -0,0 +1,209 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkItemResultDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkItemResultDTO.Status;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkOperationDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkResponseDTO;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetBatchResult;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies a JSON array of upsert/delete operations read incrementally from a stream.
+ *
+ * <p>Best-effort batches are validated and written in chunks of
+ * {@code widgets.bulk.chunk-size}, so memory does not grow with the request; each valid
+ * item is applied even if others fail. Atomic batches are buffered (up to
+ * {@code widgets.bulk.max-atomic-operations}) and applied all-or-nothing.
+ */
+@Slf4j
+@Service
+public class WidgetBulkService {
+
+	private final WidgetRepository widgetRepository;
+
+	private final WidgetValidator widgetValidator;
+
+	/** Readers of bulk operations, by {@link WidgetFormat#ordinal()}. */
+	private final ObjectReader[] operationReaders;
+
+	private final WidgetProperties widgetProperties;
+
+	private final Counter notFound;
+
+	private final Counter validationFailures;
+
+	public WidgetBulkService(WidgetRepository widgetRepository, WidgetValidator widgetValidator, ObjectMapper objectMapper,
+			WidgetProperties widgetProperties, MeterRegistry meterRegistry) {
+		Assert.notNull(widgetRepository, "widgetRepository must not be null");
+		Assert.notNull(widgetValidator, "widgetValidator must not be null");
+		Assert.notNull(objectMapper, "objectMapper must not be null");
+		Assert.notNull(widgetProperties, "widgetProperties must not be null");
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+		this.widgetRepository = widgetRepository;
+		this.widgetValidator = widgetValidator;
+		this.operationReaders = new ObjectReader[WidgetFormat.values().length];
+		for (WidgetFormat format : WidgetFormat.values()) {
+			operationReaders[format.ordinal()] = format.mapper(objectMapper).readerFor(WidgetBulkOperationDTO.class);
+		}
+		this.widgetProperties = widgetProperties;
+		this.notFound = WidgetService.failures(meterRegistry, "not_found");
+		this.validationFailures = WidgetService.failures(meterRegistry, "validation");
+	}
+
+	/**
+	 * @param atomic all-or-nothing when {@code true}, best-effort when {@code false}, the
+	 *               configured default when {@code null}
+	 */
+	public WidgetBulkResponseDTO bulk(InputStream body, Boolean atomic) throws IOException {
+		return bulk(body, atomic, WidgetFormat.JSON);
+	}
+
+	/** Reads the operations as an array in {@code format}; see {@link #bulk(InputStream, Boolean)}. */
+	public WidgetBulkResponseDTO bulk(InputStream body, Boolean atomic, WidgetFormat format) throws IOException {
+		boolean atomicMode = atomic != null ? atomic : widgetProperties.getBulk().isAtomic();
+		List<WidgetBulkItemResultDTO> results = new ArrayList<>();
+		boolean applied;
+		try (MappingIterator<WidgetBulkOperationDTO> operations = operationReaders[format.ordinal()].readValues(body)) {
+			applied = atomicMode ? applyAtomic(operations, results) : applyBestEffort(operations, results);
+		} catch (JsonProcessingException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed bulk request after " + results.size() + " operations: " + e.getOriginalMessage());
+		}
+		return new WidgetBulkResponseDTO(atomicMode, applied, results);
+	}
+
+	private boolean applyBestEffort(MappingIterator<WidgetBulkOperationDTO> operations, List<WidgetBulkItemResultDTO> results) throws IOException {
+		int chunkSize = widgetProperties.getBulk().getChunkSize();
+		Chunk chunk = new Chunk(chunkSize);
+		while (operations.hasNextValue()) {
+			if (accept(operations.nextValue(), results, chunk) && chunk.mutations.size() >= chunkSize) {
+				apply(chunk, false, results);
+				chunk = new Chunk(chunkSize);
+			}
+		}
+		apply(chunk, false, results);
+		return true;
+	}
+
+	private boolean applyAtomic(MappingIterator<WidgetBulkOperationDTO> operations, List<WidgetBulkItemResultDTO> results) throws IOException {
+		int maxOperations = widgetProperties.getBulk().getMaxAtomicOperations();
+		Chunk chunk = new Chunk(64);
+		boolean valid = true;
+		while (operations.hasNextValue()) {
+			if (results.size() >= maxOperations) {
+				throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Atomic bulk requests are limited to " + maxOperations + " operations");
+			}
+			valid &= accept(operations.nextValue(), results, chunk);
+		}
+		if (!valid) {
+			abort(chunk, results);
+			return false;
+		}
+		return apply(chunk, true, results);
+	}
+
+	/**
+	 * Validates one operation. Invalid operations get their result right away; valid ones
+	 * are queued on the chunk with a placeholder result.
+	 *
+	 * @return whether the operation is valid
+	 */
+	private boolean accept(WidgetBulkOperationDTO operation, List<WidgetBulkItemResultDTO> results, Chunk chunk) {
+		int index = results.size();
+		List<String> errors = new ArrayList<>();
+		WidgetMutation mutation = null;
+		if (operation.getOp() == null) {
+			errors.add("op: must be 'upsert' or 'delete'");
+		}
+		if (operation.getName() == null) {
+			errors.add("name: must not be null");
+		} else if (operation.getOp() == WidgetBulkOperationDTO.Op.DELETE) {
+			mutation = WidgetMutation.delete(operation.getName());
+		} else if (operation.getOp() == WidgetBulkOperationDTO.Op.UPSERT) {
+			Widget widget = Widget.builder()
+					.name(operation.getName())
+					.description(operation.getDescription())
+					.packedPrice(operation.getPackedPrice())
+					.build();
+			errors.addAll(widgetValidator.validate(widget));
+			mutation = WidgetMutation.upsert(widget);
+		}
+
+		if (!errors.isEmpty()) {
+			validationFailures.increment();
+			results.add(new WidgetBulkItemResultDTO(index, operation.getName(), Status.INVALID, errors));
+			return false;
+		}
+		results.add(null);
+		chunk.mutations.add(mutation);
+		chunk.indexes.add(index);
+		return true;
+	}
+
+	private boolean apply(Chunk chunk, boolean atomic, List<WidgetBulkItemResultDTO> results) {
+		if (chunk.mutations.isEmpty()) {
+			return true;
+		}
+		WidgetBatchResult batch = widgetRepository.applyBatch(chunk.mutations, atomic);
+		if (!batch.isApplied()) {
+			int rejected = batch.getRejectedIndex();
+			notFound.increment();
+			abort(chunk, results);
+			results.set(chunk.indexes.get(rejected), new WidgetBulkItemResultDTO(chunk.indexes.get(rejected),
+					chunk.mutations.get(rejected).getName(), Status.NOT_FOUND, null));
+			return false;
+		}
+		for (int i = 0; i < chunk.mutations.size(); i++) {
+			WidgetMutation mutation = chunk.mutations.get(i);
+			Widget previous = batch.getPrevious().get(i);
+			Status status;
+			if (mutation.getType() == WidgetMutation.Type.UPSERT) {
+				status = previous == null ? Status.CREATED : Status.UPDATED;
+			} else {
+				status = previous == null ? Status.NOT_FOUND : Status.DELETED;
+				if (previous == null) {
+					notFound.increment();
+				}
+			}
+			results.set(chunk.indexes.get(i), new WidgetBulkItemResultDTO(chunk.indexes.get(i), mutation.getName(), status, null));
+		}
+		return true;
+	}
+
+	private void abort(Chunk chunk, List<WidgetBulkItemResultDTO> results) {
+		for (int i = 0; i < chunk.mutations.size(); i++) {
+			results.set(chunk.indexes.get(i), new WidgetBulkItemResultDTO(chunk.indexes.get(i), chunk.mutations.get(i).getName(), Status.ABORTED, null));
+		}
+	}
+
+	/** Valid operations waiting to be written, with their positions in the request. */
+	private static final class Chunk {
+
+		private final List<WidgetMutation> mutations;
+
+		private final List<Integer> indexes;
+
+		private Chunk(int capacity) {
+			this.mutations = new ArrayList<>(capacity);
+			this.indexes = new ArrayList<>(capacity);
+		}
+	}
+
+}
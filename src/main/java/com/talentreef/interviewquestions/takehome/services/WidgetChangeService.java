@@ -0,0 +1,180 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.dto.WidgetChangeDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.models.WidgetChange;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetChangeLog;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the {@link WidgetChangeLog} to subscribers of {@code GET /v1/widgets/changes}.
+ *
+ * <p>Each subscription keeps its own position in the log and only reads as many changes
+ * as its client has asked for, so a slow client lags behind instead of buffering. Writers
+ * never touch a subscription: the first write after the subscriptions have caught up
+ * schedules one pass over all of them on {@link Schedulers#parallel()}, and writes made
+ * before that pass runs are picked up by it. A subscription that falls out of the log is
+ * sent a {@link WidgetChangeDTO.Type#RESET} and carries on from the latest change.
+ */
+@Service
+public class WidgetChangeService {
+
+	/** Most changes read from the log at once for one subscription. */
+	private static final int READ_BATCH_SIZE = 256;
+
+	private final WidgetChangeLog widgetChangeLog;
+
+	private final Duration heartbeat;
+
+	private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+	/** Set while no pass over the subscriptions is scheduled. */
+	private final AtomicBoolean idle = new AtomicBoolean(true);
+
+	private final Scheduler scheduler = Schedulers.parallel();
+
+	private final Counter resets;
+
+	public WidgetChangeService(WidgetChangeLog widgetChangeLog, WidgetRepository widgetRepository,
+			WidgetProperties widgetProperties, MeterRegistry meterRegistry) {
+		Assert.notNull(widgetChangeLog, "widgetChangeLog must not be null");
+		Assert.notNull(widgetRepository, "widgetRepository must not be null");
+		Assert.notNull(widgetProperties, "widgetProperties must not be null");
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+		this.widgetChangeLog = widgetChangeLog;
+		this.heartbeat = widgetProperties.getChanges().getHeartbeat();
+		Gauge.builder("widgets.changes.subscribers", subscriptions, Set::size)
+				.description("Open change streams")
+				.register(meterRegistry);
+		this.resets = Counter.builder("widgets.changes.resets")
+				.description("Change streams that fell out of the change log and were reset")
+				.register(meterRegistry);
+		// Registered after the change log, which registers itself when it is created, so
+		// a change is in the log by the time this listener is told about it.
+		widgetRepository.addListener(mutation -> signal());
+	}
+
+	/**
+	 * Changes after sequence number {@code after}, or only those to come when it is
+	 * {@code null}, then every later change as it happens. Never completes.
+	 */
+	public Flux<WidgetChangeDTO> changes(Long after) {
+		return Flux.create(sink -> {
+			Subscription subscription = new Subscription(sink, after == null ? widgetChangeLog.lastSequence() : after);
+			subscriptions.add(subscription);
+			sink.onRequest(n -> subscription.drain());
+			sink.onDispose(() -> subscriptions.remove(subscription));
+		});
+	}
+
+	/**
+	 * {@link #changes(Long)} as server-sent events named after the change type, each with
+	 * its sequence number as id, interleaved with a comment every
+	 * {@code widgets.changes.heartbeat}. The first comment is sent right away so the
+	 * response starts before the first change.
+	 */
+	public Flux<ServerSentEvent<WidgetChangeDTO>> changeEvents(Long after) {
+		Flux<ServerSentEvent<WidgetChangeDTO>> changes = changes(after).map(change -> ServerSentEvent.builder(change)
+				.id(Long.toString(change.getSequence()))
+				.event(change.getType().name().toLowerCase(Locale.ROOT))
+				.build());
+		Flux<ServerSentEvent<WidgetChangeDTO>> heartbeats = Flux.interval(Duration.ZERO, heartbeat)
+				.onBackpressureDrop()
+				.map(tick -> ServerSentEvent.<WidgetChangeDTO>builder().comment("heartbeat").build());
+		return Flux.merge(changes, heartbeats);
+	}
+
+	public int subscriberCount() {
+		return subscriptions.size();
+	}
+
+	private void signal() {
+		if (!subscriptions.isEmpty() && idle.compareAndSet(true, false)) {
+			scheduler.schedule(this::drainAll);
+		}
+	}
+
+	private void drainAll() {
+		idle.set(true);
+		for (Subscription subscription : subscriptions) {
+			subscription.drain();
+		}
+	}
+
+	private static WidgetChangeDTO toDTO(WidgetChange change) {
+		WidgetMutation mutation = change.getMutation();
+		if (mutation.getType() == WidgetMutation.Type.DELETE) {
+			return new WidgetChangeDTO(change.getSequence(), WidgetChangeDTO.Type.DELETE, mutation.getName(),
+					mutation.getSequence(), null);
+		}
+		return new WidgetChangeDTO(change.getSequence(), WidgetChangeDTO.Type.UPSERT, mutation.getName(),
+				mutation.getSequence(), new WidgetDTO(mutation.getWidget()));
+	}
+
+	/** One subscriber's position in the log. Drained by one thread at a time. */
+	private final class Subscription {
+
+		private final FluxSink<WidgetChangeDTO> sink;
+
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private long position;
+
+		Subscription(FluxSink<WidgetChangeDTO> sink, long position) {
+			this.sink = sink;
+			this.position = position;
+		}
+
+		/** Sends the changes after the current position, as far as the subscriber's demand allows. */
+		void drain() {
+			if (pending.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				long demand = sink.requestedFromDownstream();
+				while (demand > 0 && !sink.isCancelled()) {
+					Optional<List<WidgetChange>> read = widgetChangeLog.read(position, (int) Math.min(demand, READ_BATCH_SIZE));
+					if (read.isEmpty()) {
+						position = widgetChangeLog.lastSequence();
+						resets.increment();
+						sink.next(new WidgetChangeDTO(position, WidgetChangeDTO.Type.RESET, null, null, null));
+						demand--;
+						continue;
+					}
+					List<WidgetChange> changes = read.get();
+					if (changes.isEmpty()) {
+						break;
+					}
+					for (WidgetChange change : changes) {
+						sink.next(toDTO(change));
+					}
+					position = changes.get(changes.size() - 1).getSequence();
+					demand -= changes.size();
+				}
+				missed = pending.addAndGet(-missed);
+			} while (missed != 0);
+		}
+	}
+
+}
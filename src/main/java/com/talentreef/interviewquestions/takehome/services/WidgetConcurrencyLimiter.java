@@ -0,0 +1,157 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds load by capping the widget API requests in flight, when
+ * {@code widgets.admission.concurrency.enabled} is set, and adapts the cap to latency.
+ *
+ * <p>Once per {@code window}, the average latency of the window is compared with a
+ * long-term average. While it stays within {@code tolerance} times that average and the
+ * requests in flight reach half the limit, the limit grows by about its square root; once
+ * latency rises past that, the limit shrinks in proportion, by at most half per window.
+ * Queueing inside the server shows up as latency before it shows up as errors, so the
+ * limit settles near the concurrency the server can take without queueing. Requests over
+ * the limit are turned away at once.
+ *
+ * <p>Admitting and completing a request each touch one atomic counter; whichever request
+ * completes first after a window has passed adjusts the limit.
+ */
+@Service
+public class WidgetConcurrencyLimiter {
+
+	/** Weight of the newest window in the limit. */
+	private static final double SMOOTHING = 0.2;
+
+	/** Windows the long-term average latency mostly reflects. */
+	private static final int BASELINE_WINDOWS = 60;
+
+	private final boolean enabled;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final double tolerance;
+
+	private final long windowNanos;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private volatile int limit;
+
+	/** Long-term average latency in nanoseconds; {@code 0} until the first window closes. */
+	private volatile double baselineNanos;
+
+	private final LongAdder windowLatency = new LongAdder();
+
+	private final LongAdder windowSamples = new LongAdder();
+
+	/** Most requests in flight at once during the window. */
+	private final AtomicInteger windowPeak = new AtomicInteger();
+
+	private final AtomicLong windowEnd;
+
+	private final Counter rejected;
+
+	public WidgetConcurrencyLimiter(WidgetProperties widgetProperties, MeterRegistry meterRegistry) {
+		Assert.notNull(widgetProperties, "widgetProperties must not be null");
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+		WidgetProperties.Admission.Concurrency settings = widgetProperties.getAdmission().getConcurrency();
+		Assert.isTrue(settings.getMinLimit() >= 1 && settings.getMinLimit() <= settings.getMaxLimit(),
+				"widgets.admission.concurrency needs 1 <= min-limit <= max-limit");
+		Assert.isTrue(settings.getTolerance() >= 1, "widgets.admission.concurrency.tolerance must be at least 1");
+		this.enabled = settings.isEnabled();
+		this.minLimit = settings.getMinLimit();
+		this.maxLimit = settings.getMaxLimit();
+		this.tolerance = settings.getTolerance();
+		this.windowNanos = settings.getWindow().toNanos();
+		this.limit = clamp(settings.getInitialLimit());
+		this.windowEnd = new AtomicLong(System.nanoTime() + windowNanos);
+		Gauge.builder("widgets.admission.limit", this, WidgetConcurrencyLimiter::limit)
+				.description("Widget API requests allowed in flight")
+				.register(meterRegistry);
+		Gauge.builder("widgets.admission.inflight", inFlight, AtomicInteger::get)
+				.description("Widget API requests in flight")
+				.register(meterRegistry);
+		this.rejected = Counter.builder("widgets.admission.rejected")
+				.description("Requests turned away before reaching the widget API")
+				.tag("reason", "concurrency")
+				.register(meterRegistry);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public int limit() {
+		return limit;
+	}
+
+	/**
+	 * Admits a request if fewer than {@link #limit()} are in flight. An admitted request
+	 * must be {@link #release released}.
+	 */
+	public boolean tryAcquire() {
+		int current = inFlight.incrementAndGet();
+		if (current > limit) {
+			inFlight.decrementAndGet();
+			rejected.increment();
+			return false;
+		}
+		if (current > windowPeak.get()) {
+			windowPeak.accumulateAndGet(current, Math::max);
+		}
+		return true;
+	}
+
+	/** Completes an admitted request that took {@code latencyNanos}. */
+	public void release(long latencyNanos) {
+		inFlight.decrementAndGet();
+		windowLatency.add(latencyNanos);
+		windowSamples.increment();
+		long now = System.nanoTime();
+		long end = windowEnd.get();
+		if (now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+			adjust();
+		}
+	}
+
+	private void adjust() {
+		long samples = windowSamples.sumThenReset();
+		long latency = windowLatency.sumThenReset();
+		int peak = windowPeak.getAndSet(0);
+		if (samples == 0) {
+			return;
+		}
+		double average = (double) latency / samples;
+		double baseline = baselineNanos == 0 ? average : baselineNanos + (average - baselineNanos) / BASELINE_WINDOWS;
+		// After a slow spell, let the baseline come back down quickly.
+		if (baseline > 2 * average) {
+			baseline *= 0.95;
+		}
+		baselineNanos = baseline;
+
+		int current = limit;
+		double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / average));
+		double target = current * gradient + Math.sqrt(current);
+		if (target > current && peak < current / 2) {
+			// Requests did not come close to the limit, so latency says nothing about a higher one.
+			target = current;
+		}
+		limit = clamp((int) Math.round(current * (1 - SMOOTHING) + target * SMOOTHING));
+	}
+
+	private int clamp(int value) {
+		return Math.max(minLimit, Math.min(maxLimit, value));
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+/**
+ * Thrown when a write collides with the current state of the catalog, such as creating a
+ * widget whose name is taken; answered with 409.
+ */
+public class WidgetConflictException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public WidgetConflictException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * The representations the widget API reads and writes. Smile and CBOR are binary
+ * encodings of the same JSON data model, so every DTO and its (de)serializers carry over
+ * unchanged; they skip number and string parsing and are smaller on the wire, which
+ * matters for high-volume service-to-service traffic.
+ */
+public enum WidgetFormat {
+
+	JSON(MediaType.APPLICATION_JSON),
+	SMILE(MediaType.parseMediaType(WidgetFormat.SMILE_VALUE)),
+	CBOR(MediaType.APPLICATION_CBOR);
+
+	public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+	private final MediaType mediaType;
+
+	WidgetFormat(MediaType mediaType) {
+		this.mediaType = mediaType;
+	}
+
+	public MediaType mediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * What this format appends to an entity tag, so the same widget version or listing has
+	 * a different strong ETag in every format; empty for JSON.
+	 */
+	public String etagSuffix() {
+		return switch (this) {
+			case JSON -> "";
+			case SMILE -> "-smile";
+			case CBOR -> "-cbor";
+		};
+	}
+
+	/** A mapper for this format with the configuration of {@code jsonMapper}, or {@code jsonMapper} itself for JSON. */
+	public ObjectMapper mapper(ObjectMapper jsonMapper) {
+		return switch (this) {
+			case JSON -> jsonMapper;
+			case SMILE -> jsonMapper.copyWith(new SmileFactory());
+			case CBOR -> jsonMapper.copyWith(new CBORFactory());
+		};
+	}
+
+	/**
+	 * The format an {@code Accept} header prefers: the one it gives the highest quality,
+	 * the earliest listed on a tie. JSON when the header is absent, only has wildcards or
+	 * names no format; the controllers' {@code produces} has turned away the latter.
+	 */
+	public static WidgetFormat accepted(String accept) {
+		WidgetFormat best = JSON;
+		if (accept == null || accept.isBlank()) {
+			return best;
+		}
+		double bestQuality = 0;
+		for (MediaType type : MediaType.parseMediaTypes(accept)) {
+			double quality = type.getQualityValue();
+			if (quality <= bestQuality) {
+				continue;
+			}
+			for (WidgetFormat format : values()) {
+				if (type.includes(format.mediaType)) {
+					best = format;
+					bestQuality = quality;
+					break;
+				}
+			}
+		}
+		return best;
+	}
+
+	/** The format of a request body by its {@code Content-Type}; JSON when absent or unknown. */
+	public static WidgetFormat of(String contentType) {
+		if (contentType == null || contentType.isBlank()) {
+			return JSON;
+		}
+		try {
+			MediaType type = MediaType.parseMediaType(contentType);
+			for (WidgetFormat format : values()) {
+				if (format.mediaType.isCompatibleWith(type)) {
+					return format;
+				}
+			}
+		} catch (InvalidMediaTypeException e) {
+			// read as JSON, which reports what is wrong with the body
+		}
+		return JSON;
+	}
+
+}
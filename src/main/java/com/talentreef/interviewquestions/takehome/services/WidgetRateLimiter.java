@@ -0,0 +1,109 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-client token buckets for the widget API, when
+ * {@code widgets.admission.rate-limit.enabled} is set.
+ *
+ * <p>Each bucket is a single long, the time at which it will be full again (the generic
+ * cell rate algorithm): a request is admitted if adding its cost to that time keeps it
+ * within {@code burst} requests of now, and the bucket is then moved forward with one
+ * compare-and-set. Clients are hashed into a fixed array of buckets, so memory does not
+ * grow with the number of clients and nothing has to be evicted; the hash is seeded per
+ * process, so clients cannot pick keys that share a bucket with someone else's.
+ */
+@Service
+public class WidgetRateLimiter {
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final boolean enabled;
+
+	/** Time one request's token takes to refill. */
+	private final long intervalNanos;
+
+	/** How far ahead of now a bucket may be: the time {@code burst} tokens take to refill. */
+	private final long toleranceNanos;
+
+	private final int listCost;
+
+	/** Per bucket, when it is full again, in nanoseconds since {@link #origin}; at or before now means full. */
+	private final AtomicLongArray buckets;
+
+	private final int mask;
+
+	private final long seed = ThreadLocalRandom.current().nextLong();
+
+	private final long origin = System.nanoTime();
+
+	private final Counter rejected;
+
+	public WidgetRateLimiter(WidgetProperties widgetProperties, MeterRegistry meterRegistry) {
+		Assert.notNull(widgetProperties, "widgetProperties must not be null");
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+		WidgetProperties.Admission.RateLimit settings = widgetProperties.getAdmission().getRateLimit();
+		Assert.isTrue(settings.getRate() > 0, "widgets.admission.rate-limit.rate must be positive");
+		Assert.isTrue(settings.getBurst() >= 1, "widgets.admission.rate-limit.burst must be at least 1");
+		Assert.isTrue(settings.getBuckets() >= 1 && settings.getBuckets() <= 1 << 30,
+				"widgets.admission.rate-limit.buckets must be between 1 and 2^30");
+		this.enabled = settings.isEnabled();
+		this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / settings.getRate()));
+		this.toleranceNanos = intervalNanos * settings.getBurst();
+		this.listCost = Math.min(Math.max(1, settings.getListCost()), settings.getBurst());
+		int count = Integer.highestOneBit(settings.getBuckets());
+		count = count == settings.getBuckets() ? count : count << 1;
+		this.buckets = new AtomicLongArray(enabled ? count : 1);
+		this.mask = buckets.length() - 1;
+		this.rejected = Counter.builder("widgets.admission.rejected")
+				.description("Requests turned away before reaching the widget API")
+				.tag("reason", "rate_limit")
+				.register(meterRegistry);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Takes the tokens for one request of {@code client}: one, or
+	 * {@code widgets.admission.rate-limit.list-cost} for a {@code fullScan}.
+	 *
+	 * @return {@code 0} if the request is admitted, otherwise the nanoseconds until the
+	 *         client has enough tokens again
+	 */
+	public long acquire(String client, boolean fullScan) {
+		int bucket = bucket(client);
+		long cost = fullScan ? listCost * intervalNanos : intervalNanos;
+		long now = System.nanoTime() - origin;
+		while (true) {
+			long full = buckets.get(bucket);
+			long next = Math.max(full, now) + cost;
+			long excess = next - now - toleranceNanos;
+			if (excess > 0) {
+				rejected.increment();
+				return excess;
+			}
+			if (buckets.compareAndSet(bucket, full, next)) {
+				return 0;
+			}
+		}
+	}
+
+	/** Seeded FNV-1a over the key's characters. */
+	private int bucket(String client) {
+		long hash = seed;
+		for (int i = 0; i < client.length(); i++) {
+			hash = (hash ^ client.charAt(i)) * FNV_PRIME;
+		}
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.WidgetLogPosition;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetReplicationFollower;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetReplicationLeader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * What the API needs to know about replication: whether this node takes writes, how far
+ * it has got in the leader's change log, and how to hold a read until it has got far
+ * enough for the client to see its own writes.
+ */
+@Service
+public class WidgetReplicationService {
+
+	private final WidgetReplicationLeader leader;
+
+	private final WidgetReplicationFollower follower;
+
+	private final String leaderUrl;
+
+	private final Duration readTimeout;
+
+	public WidgetReplicationService(ObjectProvider<WidgetReplicationLeader> leader,
+			ObjectProvider<WidgetReplicationFollower> follower, WidgetProperties widgetProperties) {
+		this.leader = leader.getIfAvailable();
+		this.follower = follower.getIfAvailable();
+		String url = widgetProperties.getReplication().getLeaderUrl();
+		this.leaderUrl = url == null || url.isBlank() ? null : url.replaceAll("/+$", "");
+		this.readTimeout = widgetProperties.getReplication().getReadTimeout();
+	}
+
+	public boolean isEnabled() {
+		return leader != null || follower != null;
+	}
+
+	/** Whether this node only serves reads and leaves writes to the leader. */
+	public boolean isFollower() {
+		return follower != null;
+	}
+
+	/** Base URL of the leader's API, without a trailing slash, or {@code null} if none is configured. */
+	public String leaderUrl() {
+		return leaderUrl;
+	}
+
+	/**
+	 * The position every read on this node reflects, and on the leader every write that has
+	 * returned; {@code null} if replication is off or the follower has not loaded anything yet.
+	 */
+	public WidgetLogPosition position() {
+		if (leader != null) {
+			return leader.position();
+		}
+		if (follower != null && follower.position().epoch() != 0) {
+			return follower.position();
+		}
+		return null;
+	}
+
+	/**
+	 * Completes with {@code true} once this node has applied {@code target}, or with
+	 * {@code false} after {@code widgets.replication.read-timeout}, or at once for a later
+	 * epoch than the followed leader's; see {@link WidgetReplicationFollower#await}. The
+	 * leader has applied every position it handed out.
+	 */
+	public CompletableFuture<Boolean> awaitPosition(WidgetLogPosition target) {
+		if (follower == null) {
+			return CompletableFuture.completedFuture(true);
+		}
+		return follower.await(target, readTimeout);
+	}
+
+}
@@ -0,0 +1,282 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepositoryListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+/**
+ * Serialized JSON of single widgets and of the full listing, so polling clients do not
+ * rebuild DTOs and re-serialize unchanged data.
+ *
+ * <p>Single-widget entries are keyed by name and tagged with the widget version, which
+ * is also the ETag; an entry is only served for the version it was built from. They are
+ * held in a Caffeine cache bounded by {@code widgets.cache.max-bytes} (W-TinyLFU
+ * eviction) and dropped as soon as the repository reports a write to the name.
+ *
+ * <p>The listing is tagged with a generation that every repository mutation advances
+ * after it becomes visible. A listing built while the generation was {@code g} contains
+ * at least every mutation counted in {@code g}, so serving it (or answering 304) while
+ * the generation is still {@code g} never hides a write. Generations restart with the
+ * process, so listing ETags carry a per-process epoch. Two listings of one generation can
+ * still differ, since a write is visible before it advances the generation and listings
+ * too big to keep are rebuilt, or streamed, per request; the listing ETag is therefore
+ * weak.
+ *
+ * <p>With {@code widgets.cache.precompute} set, the JSON of every widget is built when it
+ * is written instead, under the repository's write lock, and kept in name order for as
+ * long as the widget exists. Single widgets are then served without serializing, and the
+ * listing and the export are concatenations of those bytes, without a DTO or a Jackson
+ * call per widget. The output is the same, since each entry comes from the same writer.
+ *
+ * <p>Responses in a binary {@link WidgetFormat} carry the JSON ETag with the format's
+ * {@link WidgetFormat#etagSuffix() suffix}, since a tag must tell the formats apart.
+ * The listing is kept per format, like the JSON one; a single widget is small enough to
+ * encode per request.
+ */
+@Component
+public class WidgetResponseCache implements WidgetRepositoryListener {
+
+	private final WidgetRepository widgetRepository;
+
+	/** Writers of a {@link WidgetDTO} and of a list of them, by {@link WidgetFormat#ordinal()}. */
+	private final ObjectWriter[] widgetWriters;
+
+	private final ObjectWriter[] listWriters;
+
+	private final Cache<String, WidgetEntry> widgets;
+
+	private final long maxListBytes;
+
+	private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+	private final AtomicLong listGeneration = new AtomicLong();
+
+	/** Latest listing built, by {@link WidgetFormat#ordinal()}. */
+	private final AtomicReferenceArray<ListEntry> lists = new AtomicReferenceArray<>(WidgetFormat.values().length);
+
+	/** Every widget's JSON by name when precomputing; {@code null} otherwise. */
+	private final ConcurrentSkipListMap<String, WidgetEntry> precomputed;
+
+	private final AtomicLong precomputedBytes = new AtomicLong();
+
+	public WidgetResponseCache(WidgetRepository widgetRepository, ObjectMapper objectMapper, WidgetProperties widgetProperties,
+			MeterRegistry meterRegistry) {
+		Assert.notNull(widgetRepository, "widgetRepository must not be null");
+		Assert.notNull(objectMapper, "objectMapper must not be null");
+		Assert.notNull(widgetProperties, "widgetProperties must not be null");
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+		this.widgetRepository = widgetRepository;
+		WidgetFormat[] formats = WidgetFormat.values();
+		this.widgetWriters = new ObjectWriter[formats.length];
+		this.listWriters = new ObjectWriter[formats.length];
+		for (WidgetFormat format : formats) {
+			ObjectMapper mapper = format.mapper(objectMapper);
+			widgetWriters[format.ordinal()] = mapper.writerFor(WidgetDTO.class);
+			listWriters[format.ordinal()] = mapper.writerFor(new TypeReference<List<WidgetDTO>>() {
+			});
+		}
+		this.widgets = Caffeine.newBuilder()
+				.maximumWeight(widgetProperties.getCache().getMaxBytes().toBytes())
+				.weigher((String name, WidgetEntry entry) -> entry.json().length)
+				.recordStats()
+				.build();
+		this.maxListBytes = widgetProperties.getCache().getMaxListBytes().toBytes();
+		CaffeineCacheMetrics.monitor(meterRegistry, widgets, "widgets.responses");
+		if (widgetProperties.getCache().isPrecompute()) {
+			this.precomputed = new ConcurrentSkipListMap<>();
+			Gauge.builder("widgets.responses.memory", precomputedBytes, AtomicLong::get)
+					.description("Bytes of precomputed widget JSON")
+					.baseUnit(BaseUnits.BYTES)
+					.register(meterRegistry);
+			widgetRepository.addListenerWithReplay(this);
+		} else {
+			this.precomputed = null;
+			widgetRepository.addListener(this);
+		}
+	}
+
+	/** Whether every widget's JSON is kept from the time it is written; see {@link #widgetsJson()}. */
+	public boolean isPrecomputed() {
+		return precomputed != null;
+	}
+
+	/**
+	 * The JSON of every widget in name order, as written by the {@link WidgetDTO} writer.
+	 * Weakly consistent, like the repository's iterator.
+	 *
+	 * @throws IllegalStateException unless {@link #isPrecomputed()}
+	 */
+	public Iterable<byte[]> widgetsJson() {
+		if (precomputed == null) {
+			throw new IllegalStateException("widgets.cache.precompute is not enabled");
+		}
+		return () -> {
+			Iterator<WidgetEntry> entries = precomputed.values().iterator();
+			return new Iterator<>() {
+				@Override
+				public boolean hasNext() {
+					return entries.hasNext();
+				}
+
+				@Override
+				public byte[] next() {
+					return entries.next().json();
+				}
+			};
+		};
+	}
+
+	public CachedJson widget(Widget widget) {
+		return widget(widget, WidgetFormat.JSON);
+	}
+
+	public CachedJson widget(Widget widget, WidgetFormat format) {
+		if (format != WidgetFormat.JSON) {
+			return new CachedJson(etag(widget.getVersion(), format),
+					() -> serialize(widgetWriters[format.ordinal()], new WidgetDTO(widget)));
+		}
+		return new CachedJson(etag(widget.getVersion()), () -> widgetJson(widget));
+	}
+
+	/** The full listing in name order, as served by {@code GET /v1/widgets}. */
+	public CachedJson list() {
+		return list(WidgetFormat.JSON);
+	}
+
+	/** The full listing in {@code format}, under a weak ETag of the generation it reflects. */
+	public CachedJson list(WidgetFormat format) {
+		long generation = listGeneration.get();
+		return new CachedJson("W/\"" + epoch + "-" + generation + format.etagSuffix() + "\"", () -> listBody(generation, format));
+	}
+
+	/** Called under the name's write lock, so entries for a name are replaced in write order. */
+	@Override
+	public void onMutation(WidgetMutation mutation) {
+		if (precomputed != null) {
+			WidgetEntry previous;
+			if (mutation.getType() == WidgetMutation.Type.UPSERT) {
+				Widget widget = mutation.getWidget();
+				WidgetEntry entry = new WidgetEntry(widget.getVersion(),
+						serialize(widgetWriters[WidgetFormat.JSON.ordinal()], new WidgetDTO(widget)));
+				previous = precomputed.put(mutation.getName(), entry);
+				precomputedBytes.addAndGet(entry.json().length);
+			} else {
+				previous = precomputed.remove(mutation.getName());
+			}
+			if (previous != null) {
+				precomputedBytes.addAndGet(-previous.json().length);
+			}
+		} else {
+			widgets.invalidate(mutation.getName());
+		}
+		listGeneration.incrementAndGet();
+	}
+
+	/** Strong ETag of a widget version in JSON. */
+	public static String etag(long version) {
+		return etag(version, WidgetFormat.JSON);
+	}
+
+	/** Strong ETag of a widget version in {@code format}, as used by every single-widget response. */
+	public static String etag(long version, WidgetFormat format) {
+		return "\"" + version + format.etagSuffix() + "\"";
+	}
+
+	private byte[] widgetJson(Widget widget) {
+		if (precomputed != null) {
+			WidgetEntry entry = precomputed.get(widget.getName());
+			// A different version means a write raced with this read; serialize what was read.
+			return entry != null && entry.version() == widget.getVersion()
+					? entry.json()
+					: serialize(widgetWriters[WidgetFormat.JSON.ordinal()], new WidgetDTO(widget));
+		}
+		WidgetEntry cached = widgets.getIfPresent(widget.getName());
+		if (cached != null && cached.version() == widget.getVersion()) {
+			return cached.json();
+		}
+		byte[] json = serialize(widgetWriters[WidgetFormat.JSON.ordinal()], new WidgetDTO(widget));
+		// Keep the newest version when a slow reader races with a fresh one.
+		widgets.asMap().merge(widget.getName(), new WidgetEntry(widget.getVersion(), json),
+				(current, built) -> current.version() >= built.version() ? current : built);
+		return json;
+	}
+
+	private byte[] listBody(long generation, WidgetFormat format) {
+		ListEntry cached = lists.get(format.ordinal());
+		if (cached != null && cached.generation() == generation) {
+			return cached.json();
+		}
+		byte[] json;
+		if (precomputed != null && format == WidgetFormat.JSON) {
+			json = concatenate();
+		} else {
+			List<WidgetDTO> dtos = widgetRepository.findAll().stream().map(WidgetDTO::new).collect(Collectors.toList());
+			json = serialize(listWriters[format.ordinal()], dtos);
+		}
+		if (json.length <= maxListBytes && (cached == null || cached.generation() < generation)) {
+			lists.set(format.ordinal(), new ListEntry(generation, json));
+		}
+		return json;
+	}
+
+	/** The precomputed entries as a JSON array, laid out as the list writer would write it. */
+	private byte[] concatenate() {
+		List<byte[]> parts = new ArrayList<>();
+		int length = 2;
+		for (WidgetEntry entry : precomputed.values()) {
+			parts.add(entry.json());
+			length = Math.addExact(length, entry.json().length + (parts.size() > 1 ? 1 : 0));
+		}
+		byte[] json = new byte[length];
+		json[0] = '[';
+		int position = 1;
+		for (byte[] part : parts) {
+			if (position > 1) {
+				json[position++] = ',';
+			}
+			System.arraycopy(part, 0, json, position, part.length);
+			position += part.length;
+		}
+		json[position] = ']';
+		return json;
+	}
+
+	private static byte[] serialize(ObjectWriter writer, Object value) {
+		try {
+			return writer.writeValueAsBytes(value);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private record WidgetEntry(long version, byte[] json) {
+	}
+
+	private record ListEntry(long generation, byte[] json) {
+	}
+
+}
@@ -1,16 +1,43 @@
 package com.talentreef.interviewquestions.takehome.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetPageDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetStatsDTO;
+import com.talentreef.interviewquestions.takehome.models.Prices;
 import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetPriceStatistics;
 import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetSearchIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.web.server.ResponseStatusException;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
 
 @Slf4j
 @Service
@@ -18,44 +45,361 @@ public class WidgetService {
 
 	private final WidgetRepository widgetRepository;
 
-	private WidgetService(WidgetRepository widgetRepository) {
+	private final ObjectMapper objectMapper;
+
+	private final WidgetValidator widgetValidator;
+
+	private final WidgetResponseCache widgetResponseCache;
+
+	private final WidgetSearchIndex widgetSearchIndex;
+
+	private final WidgetPriceStatistics widgetPriceStatistics;
+
+	private final Timer listTimer;
+
+	private final Timer exportTimer;
+
+	private final Timer findTimer;
+
+	private final Timer searchTimer;
+
+	private final Timer statsTimer;
+
+	private final Timer createTimer;
+
+	private final Timer getTimer;
+
+	private final Timer updateTimer;
+
+	private final Timer deleteTimer;
+
+	private final Counter notFound;
+
+	private final Counter duplicates;
+
+	private final Counter validationFailures;
+
+	private WidgetService(WidgetRepository widgetRepository, ObjectMapper objectMapper, WidgetValidator widgetValidator,
+			WidgetResponseCache widgetResponseCache, WidgetSearchIndex widgetSearchIndex,
+			WidgetPriceStatistics widgetPriceStatistics, MeterRegistry meterRegistry) {
 		Assert.notNull(widgetRepository, "widgetRepository must not be null");
+		Assert.notNull(objectMapper, "objectMapper must not be null");
+		Assert.notNull(widgetValidator, "widgetValidator must not be null");
+		Assert.notNull(widgetResponseCache, "widgetResponseCache must not be null");
+		Assert.notNull(widgetSearchIndex, "widgetSearchIndex must not be null");
+		Assert.notNull(widgetPriceStatistics, "widgetPriceStatistics must not be null");
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
 		this.widgetRepository = widgetRepository;
+		this.objectMapper = objectMapper;
+		this.widgetValidator = widgetValidator;
+		this.widgetResponseCache = widgetResponseCache;
+		this.widgetSearchIndex = widgetSearchIndex;
+		this.widgetPriceStatistics = widgetPriceStatistics;
+		this.listTimer = timer(meterRegistry, "list");
+		this.exportTimer = timer(meterRegistry, "export");
+		this.findTimer = timer(meterRegistry, "find");
+		this.searchTimer = timer(meterRegistry, "search");
+		this.statsTimer = timer(meterRegistry, "stats");
+		this.createTimer = timer(meterRegistry, "create");
+		this.getTimer = timer(meterRegistry, "get");
+		this.updateTimer = timer(meterRegistry, "update");
+		this.deleteTimer = timer(meterRegistry, "delete");
+		this.notFound = failures(meterRegistry, "not_found");
+		this.duplicates = failures(meterRegistry, "duplicate");
+		this.validationFailures = failures(meterRegistry, "validation");
+	}
+
+	/** Counter of rejected widget operations, shared with {@link WidgetBulkService}. */
+	static Counter failures(MeterRegistry meterRegistry, String reason) {
+		return Counter.builder("widgets.failures")
+				.description("Widget operations rejected, by reason")
+				.tag("reason", reason)
+				.register(meterRegistry);
+	}
+
+	/** Timer of one service operation, shared with {@link ReactiveWidgetService}. */
+	static Timer timer(MeterRegistry meterRegistry, String operation) {
+		return Timer.builder("widgets.service.operations")
+				.description("Time spent in widget service operations")
+				.tag("operation", operation)
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofNanos(500))
+				.maximumExpectedValue(Duration.ofSeconds(10))
+				.register(meterRegistry);
 	}
 
 	public List<WidgetDTO> getAllWidgets() {
-		return widgetRepository.findAll().stream().map(widget -> new WidgetDTO(widget)).collect(Collectors.toList());
+		long start = System.nanoTime();
+		try {
+			return widgetRepository.findAll().stream().map(widget -> new WidgetDTO(widget)).collect(Collectors.toList());
+		} finally {
+			listTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * The full listing of {@link #getAllWidgets()} as cached JSON with an ETag.
+	 */
+	public CachedJson getAllWidgetsJson() {
+		return getAllWidgetsJson(WidgetFormat.JSON);
+	}
+
+	/** The full listing in {@code format}, cached like the JSON one. */
+	public CachedJson getAllWidgetsJson(WidgetFormat format) {
+		long start = System.nanoTime();
+		try {
+			return widgetResponseCache.list(format);
+		} finally {
+			listTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Writes every widget to {@code out} as newline-delimited JSON, one widget per line,
+	 * straight from the repository iterator. Memory use does not depend on the catalog size.
+	 */
+	public void exportWidgets(OutputStream out) throws IOException {
+		long start = System.nanoTime();
+		try {
+			if (widgetResponseCache.isPrecomputed()) {
+				// Buffered so a compressing stream is not handed one widget at a time.
+				BufferedOutputStream buffered = new BufferedOutputStream(out, 8192);
+				for (byte[] json : widgetResponseCache.widgetsJson()) {
+					buffered.write(json);
+					buffered.write('\n');
+				}
+				buffered.flush();
+				return;
+			}
+			ObjectWriter writer = objectMapper.writerFor(WidgetDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+				generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				generator.setRootValueSeparator(new SerializedString("\n"));
+				Iterator<Widget> widgets = widgetRepository.iterator();
+				boolean empty = true;
+				while (widgets.hasNext()) {
+					writer.writeValue(generator, convertToDTO(widgets.next()));
+					empty = false;
+				}
+				if (!empty) {
+					generator.writeRaw('\n');
+				}
+			}
+		} finally {
+			exportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Returns one page of widgets matching the query. {@code cursor} is the
+	 * {@link WidgetPageDTO#getNextCursor()} of the previous page, or {@code null} for the
+	 * first page; it must come from a query with the same sort.
+	 */
+	public WidgetPageDTO findWidgets(WidgetQuery query, String cursor) {
+		long start = System.nanoTime();
+		try {
+			if (cursor != null) {
+				query = applyCursor(query, cursor);
+			}
+			Integer limit = query.getLimit();
+			List<Widget> widgets = widgetRepository.find(limit == null ? query : query.toBuilder().limit(limit + 1).build());
+
+			String nextCursor = null;
+			if (limit != null && widgets.size() > limit) {
+				widgets = widgets.subList(0, limit);
+				nextCursor = encodeCursor(query.getSort(), widgets.get(limit - 1));
+			}
+			return new WidgetPageDTO(widgets.stream().map(this::convertToDTO).collect(Collectors.toList()), nextCursor);
+		} finally {
+			findTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Returns up to {@code limit} widgets whose name or description contains every word of
+	 * the query, as a word or word prefix, most relevant first.
+	 */
+	public List<WidgetDTO> searchWidgets(String query, int limit) {
+		long start = System.nanoTime();
+		try {
+			return widgetSearchIndex.search(query, limit).stream()
+					.map(widgetRepository::findById)
+					.flatMap(Optional::stream)
+					.map(this::convertToDTO)
+					.collect(Collectors.toList());
+		} finally {
+			searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/** Price statistics of the catalog, read from aggregates the repository keeps current. */
+	public WidgetStatsDTO getStatistics() {
+		long start = System.nanoTime();
+		try {
+			WidgetPriceStatistics.Summary summary = widgetPriceStatistics.summary();
+			List<WidgetStatsDTO.Band> histogram = new ArrayList<>(summary.bandCents().length);
+			for (int i = 0; i < summary.bandCents().length; i++) {
+				long to = i + 1 < summary.bandCents().length ? summary.bandCents()[i + 1] : WidgetPriceStatistics.MAX_CENTS;
+				histogram.add(new WidgetStatsDTO.Band(price(summary.bandCents()[i]), price(to), summary.bandCounts()[i]));
+			}
+			WidgetStatsDTO stats = new WidgetStatsDTO();
+			stats.setCount(summary.count());
+			stats.setSum(price(summary.sumCents()));
+			stats.setHistogram(histogram);
+			if (summary.count() > 0) {
+				stats.setMin(price(summary.minCents()));
+				stats.setMax(price(summary.maxCents()));
+				stats.setMean(price(Math.round((double) summary.sumCents() / summary.count())));
+				Map<String, Long> quantiles = new LinkedHashMap<>();
+				for (int i = 0; i < summary.quantileBasisPoints().length; i++) {
+					quantiles.put("p" + summary.quantileBasisPoints()[i] / 100, price(summary.quantileCents()[i]));
+				}
+				stats.setQuantiles(quantiles);
+			}
+			return stats;
+		} finally {
+			statsTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static Long price(long cents) {
+		return Prices.of(cents, 2);
 	}
 
 	public WidgetDTO createWidget(Widget widget) {
-        if (widgetRepository.findById(widget.getName()).isPresent()) {
-        	throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Widget with name '" + widget.getName() + "' already exists");
-        }
-		Widget newWidget = new Widget();
-		newWidget.setName(widget.getName());
-		newWidget.setDescription(widget.getDescription());
-		newWidget.setPrice(widget.getPrice());
-		return convertToDTO(widgetRepository.save(newWidget));
+		long start = System.nanoTime();
+		try {
+			Widget newWidget = new Widget();
+			newWidget.setName(widget.getName());
+			newWidget.setDescription(widget.getDescription());
+			newWidget.setPackedPrice(widget.getPackedPrice());
+			validate(newWidget);
+			if (widgetRepository.putIfAbsent(newWidget).isPresent()) {
+				duplicates.increment();
+				throw new WidgetConflictException("Widget with name '" + widget.getName() + "' already exists");
+			}
+			return convertToDTO(newWidget);
+		} finally {
+			createTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
 	}
 
 	public WidgetDTO getWidgetByName(String name) {
-		return widgetRepository.findById(name).map(this::convertToDTO)
-				.orElseThrow(() -> new EntityNotFoundException("Widget not found with name: " + name));
+		long start = System.nanoTime();
+		try {
+			return widgetRepository.findById(name).map(this::convertToDTO)
+					.orElseThrow(() -> notFound(name));
+		} finally {
+			getTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * The widget as cached JSON; its ETag is the widget version, and the body is only
+	 * serialized once per version.
+	 */
+	public CachedJson getWidgetJson(String name) {
+		return getWidgetJson(name, WidgetFormat.JSON);
+	}
+
+	/** The widget in {@code format}, with the format's ETag for its version. */
+	public CachedJson getWidgetJson(String name, WidgetFormat format) {
+		long start = System.nanoTime();
+		try {
+			Widget widget = widgetRepository.findById(name).orElseThrow(() -> notFound(name));
+			return widgetResponseCache.widget(widget, format);
+		} finally {
+			getTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
 	}
 
 	public WidgetDTO updateWidget(String name, WidgetDTO widgetDTO) {
-		Widget widget = widgetRepository.findById(name)
-				.orElseThrow(() -> new EntityNotFoundException("Widget not found with name: " + name));
+		return updateWidget(name, widgetDTO, null);
+	}
 
-		widget.setDescription(widgetDTO.getDescription());
-		widget.setPrice(widgetDTO.getPrice());
-		return convertToDTO(widgetRepository.save(widget));
+	/**
+	 * Updates a widget with an optimistic compare-and-set. When {@code expectedVersion}
+	 * is given the update only applies to that version of the widget; otherwise it is
+	 * retried against whatever version is current until it wins.
+	 */
+	public WidgetDTO updateWidget(String name, WidgetDTO widgetDTO, Long expectedVersion) {
+		long start = System.nanoTime();
+		try {
+			while (true) {
+				Widget current = widgetRepository.findById(name)
+						.orElseThrow(() -> notFound(name));
+				if (expectedVersion != null && current.getVersion() != expectedVersion) {
+					throw versionConflict(name);
+				}
+
+				Widget widget = current.toBuilder()
+						.description(widgetDTO.getDescription())
+						.packedPrice(widgetDTO.getPackedPrice())
+						.build();
+				validate(widget);
+				if (widgetRepository.compareAndSet(widget, current.getVersion())) {
+					return convertToDTO(widget);
+				}
+				if (expectedVersion != null) {
+					throw versionConflict(name);
+				}
+			}
+		} finally {
+			updateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
 	}
 
 	public void deleteWidget(String name) {
-		Widget widget = widgetRepository.findById(name)
-				.orElseThrow(() -> new EntityNotFoundException("Widget not found with name: " + name));
-		widgetRepository.deleteById(widget.getName());
+		long start = System.nanoTime();
+		try {
+			widgetRepository.deleteById(name)
+					.orElseThrow(() -> notFound(name));
+		} finally {
+			deleteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void validate(Widget widget) {
+		List<String> errors = widgetValidator.validate(widget);
+		if (!errors.isEmpty()) {
+			validationFailures.increment();
+			throw new WidgetValidationException(errors);
+		}
+	}
+
+	private EntityNotFoundException notFound(String name) {
+		notFound.increment();
+		return new EntityNotFoundException("Widget not found with name: " + name);
+	}
+
+	private OptimisticLockException versionConflict(String name) {
+		return new OptimisticLockException("Widget with name '" + name + "' was modified concurrently");
+	}
+
+	private static String encodeCursor(WidgetQuery.Sort sort, Widget last) {
+		String position = sort == WidgetQuery.Sort.PRICE
+				? "p" + Prices.toString(last.getPackedPrice()) + ":" + last.getName()
+				: "n" + last.getName();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static WidgetQuery applyCursor(WidgetQuery query, String cursor) {
+		try {
+			String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (query.getSort() == WidgetQuery.Sort.PRICE && position.startsWith("p")) {
+				int separator = position.indexOf(':');
+				return query.toBuilder()
+						.afterPriceCents(Prices.cents(Prices.parse(position.substring(1, separator))))
+						.afterName(position.substring(separator + 1))
+						.build();
+			}
+			if (query.getSort() == WidgetQuery.Sort.NAME && position.startsWith("n")) {
+				return query.toBuilder().afterName(position.substring(1)).build();
+			}
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			// fall through to the error below
+		}
+		throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor for sort '" + query.getSort().name().toLowerCase() + "'");
 	}
 
 	private WidgetDTO convertToDTO(Widget widget) {
@@ -0,0 +1,24 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import java.util.List;
+
+/**
+ * Thrown when a widget violates the constraints declared on {@code Widget}; answered
+ * with 400 and the list of {@code "field: message"} errors.
+ */
+public class WidgetValidationException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<String> errors;
+
+	public WidgetValidationException(List<String> errors) {
+		super(String.join("; ", errors));
+		this.errors = List.copyOf(errors);
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import com.talentreef.interviewquestions.takehome.models.Prices;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import org.springframework.stereotype.Component;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Checks a {@link Widget} against the bean-validation constraints declared on its fields.
+ *
+ * <p>The constraints are read once, by reflection, so the rules stay defined in one place
+ * (the model) while the check itself is a handful of comparisons per field with no
+ * validation provider on the hot path. Only the constraint types used by the model are
+ * supported. The price constraints are declared on the {@code BigDecimal} getter but
+ * checked against the {@link Prices packed price} behind it, so validating a price
+ * allocates nothing.
+ */
+@Component
+public class WidgetValidator {
+
+	private static final List<FieldConstraint> CONSTRAINTS = readConstraints();
+
+	/**
+	 * @return one {@code "field: message"} entry per violated constraint; empty if the
+	 *         widget is valid
+	 */
+	public List<String> validate(Widget widget) {
+		List<String> errors = null;
+		for (FieldConstraint constraint : CONSTRAINTS) {
+			boolean holds;
+			try {
+				holds = constraint.holds(widget);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+			if (!holds) {
+				if (errors == null) {
+					errors = new ArrayList<>(2);
+				}
+				errors.add(constraint.property() + ": " + constraint.message());
+			}
+		}
+		return errors == null ? Collections.emptyList() : errors;
+	}
+
+	private static List<FieldConstraint> readConstraints() {
+		List<FieldConstraint> constraints = new ArrayList<>();
+		for (Field field : Widget.class.getDeclaredFields()) {
+			field.setAccessible(true);
+			if (field.getType() == long.class) {
+				continue;
+			}
+			NotNull notNull = field.getAnnotation(NotNull.class);
+			if (notNull != null) {
+				constraints.add(FieldConstraint.of(field, value -> value != null, message(notNull.message(), "must not be null")));
+			}
+			Size size = field.getAnnotation(Size.class);
+			if (size != null) {
+				constraints.add(FieldConstraint.of(field,
+						value -> value == null || (((CharSequence) value).length() >= size.min() && ((CharSequence) value).length() <= size.max()),
+						message(size.message(), "size must be between " + size.min() + " and " + size.max())));
+			}
+		}
+		readPriceConstraints(constraints);
+		return List.copyOf(constraints);
+	}
+
+	private static void readPriceConstraints(List<FieldConstraint> constraints) {
+		Method getter;
+		Field field;
+		try {
+			getter = Widget.class.getMethod("getPrice");
+			field = Widget.class.getDeclaredField("packedPrice");
+		} catch (NoSuchMethodException | NoSuchFieldException e) {
+			throw new IllegalStateException(e);
+		}
+		field.setAccessible(true);
+		NotNull notNull = getter.getAnnotation(NotNull.class);
+		if (notNull != null) {
+			constraints.add(FieldConstraint.ofPrice(field, price -> price != Prices.NONE, message(notNull.message(), "must not be null")));
+		}
+		DecimalMin decimalMin = getter.getAnnotation(DecimalMin.class);
+		if (decimalMin != null) {
+			long min = boundCents(decimalMin.value(), decimalMin.inclusive());
+			constraints.add(FieldConstraint.ofPrice(field, price -> price == Prices.NONE || Prices.isAtLeast(price, min),
+					message(decimalMin.message(), "must be greater than or equal to " + decimalMin.value())));
+		}
+		DecimalMax decimalMax = getter.getAnnotation(DecimalMax.class);
+		if (decimalMax != null) {
+			long max = boundCents(decimalMax.value(), decimalMax.inclusive());
+			constraints.add(FieldConstraint.ofPrice(field, price -> price == Prices.NONE || Prices.isAtMost(price, max),
+					message(decimalMax.message(), "must be less than or equal to " + decimalMax.value())));
+		}
+		Digits digits = getter.getAnnotation(Digits.class);
+		if (digits != null) {
+			constraints.add(FieldConstraint.ofPrice(field, price -> price == Prices.NONE || Prices.hasDigits(price, digits.integer(), digits.fraction()),
+					message(digits.message(), "numeric value out of bounds (<" + digits.integer() + " digits>.<" + digits.fraction() + " digits> expected)")));
+		}
+	}
+
+	/** Only inclusive bounds in whole cents are supported, which is what the model declares. */
+	private static long boundCents(String value, boolean inclusive) {
+		long bound = Prices.parse(value);
+		if (!inclusive || !Prices.isExact(bound)) {
+			throw new IllegalStateException("Price bound " + value + " is not an inclusive whole number of cents");
+		}
+		return Prices.cents(bound);
+	}
+
+	/** Annotation messages that are still message-interpolation keys fall back to a plain default. */
+	private static String message(String declared, String fallback) {
+		return declared.startsWith("{") ? fallback : declared;
+	}
+
+	/**
+	 * A check on a field; {@code priceCheck} is used instead of {@code check} for a packed
+	 * price, which is reported under the property name {@code price}.
+	 */
+	private record FieldConstraint(String property, Field field, Predicate<Object> check, LongPredicate priceCheck, String message) {
+
+		static FieldConstraint of(Field field, Predicate<Object> check, String message) {
+			return new FieldConstraint(field.getName(), field, check, null, message);
+		}
+
+		static FieldConstraint ofPrice(Field field, LongPredicate priceCheck, String message) {
+			return new FieldConstraint("price", field, null, priceCheck, message);
+		}
+
+		boolean holds(Widget widget) throws IllegalAccessException {
+			return priceCheck != null ? priceCheck.test(field.getLong(widget)) : check.test(field.get(widget));
+		}
+	}
+
+}
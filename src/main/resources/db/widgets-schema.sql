@@ -0,0 +1,17 @@
+-- Tables of widgets.jdbc, following the JPA mapping of Widget. The in-memory catalog is
+-- keyed by name; id is left to the database.
+CREATE TABLE IF NOT EXISTS widget (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name VARCHAR(100) NOT NULL UNIQUE,
+  description VARCHAR(1000) NOT NULL,
+  price DECIMAL(7, 2),
+  -- Decimals the price was sent with, which the in-memory catalog echoes back.
+  price_scale SMALLINT,
+  version BIGINT NOT NULL
+);
+
+-- Highest catalog sequence written, so versions of deleted widgets are not handed out again.
+CREATE TABLE IF NOT EXISTS widget_sequence (
+  id INT PRIMARY KEY,
+  highest BIGINT NOT NULL
+);
@@ -0,0 +1,171 @@
+package com.talentreef.interviewquestions.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import net.logstash.logback.encoder.LogstashEncoder;
+
+public class AsyncLogAppenderTests {
+
+	private static final Pattern MESSAGE = Pattern.compile("\"message\":\"([^\"]*)\"");
+
+	private LoggerContext loggerContext;
+
+	private Logger logger;
+
+	private AsyncLogAppender appender;
+
+	@BeforeEach
+	void setUp() {
+		loggerContext = new LoggerContext();
+		logger = loggerContext.getLogger("widgets.test");
+		StreamingJsonEncoder encoder = new StreamingJsonEncoder();
+		encoder.setContext(loggerContext);
+		encoder.start();
+		appender = new AsyncLogAppender();
+		appender.setContext(loggerContext);
+		appender.setName("test");
+		appender.setEncoder(encoder);
+	}
+
+	@AfterEach
+	void tearDown() {
+		appender.stop();
+		loggerContext.stop();
+	}
+
+	@Test
+	public void when_eventsAppended_expect_sameLinesAsLogstashEncoder() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		appender.setOutputStream(out);
+		appender.start();
+		LogstashEncoder reference = new LogstashEncoder();
+		reference.setContext(loggerContext);
+		reference.start();
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+		for (int i = 0; i < 100; i++) {
+			LoggingEvent event = event(i % 2 == 0 ? Level.INFO : Level.WARN, "widget " + i);
+			appender.doAppend(event);
+			expected.writeBytes(reference.encode(event));
+		}
+		appender.stop();
+
+		assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(expected.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void when_ringNearlyFull_expect_infoDroppedAndErrorsKept() throws Exception {
+		BlockingOutputStream out = new BlockingOutputStream();
+		appender.setOutputStream(out);
+		appender.setRingBufferSize(8);
+		appender.start();
+
+		// The writer takes the first event and then waits on the stream.
+		appender.doAppend(event(Level.INFO, "first"));
+		out.writing.await();
+		for (int i = 0; i < 10; i++) {
+			appender.doAppend(event(Level.INFO, "info " + i));
+		}
+		// The last free slot is kept for events above INFO.
+		appender.doAppend(event(Level.ERROR, "kept"));
+		appender.setNeverBlock(true);
+		appender.doAppend(event(Level.ERROR, "dropped"));
+
+		assertThat(appender.getQueued()).isEqualTo(8);
+		assertThat(appender.getDropped(Level.INFO)).isEqualTo(3);
+		assertThat(appender.getDropped(Level.ERROR)).isEqualTo(1);
+
+		out.release.countDown();
+		appender.stop();
+
+		assertThat(messages(out.written.toString(StandardCharsets.UTF_8))).containsExactly("first", "info 0", "info 1",
+				"info 2", "info 3", "info 4", "info 5", "info 6", "kept");
+	}
+
+	@Test
+	public void when_concurrentProducers_expect_everyEventWrittenOnce() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		appender.setOutputStream(out);
+		appender.setRingBufferSize(64);
+		appender.start();
+
+		List<Thread> producers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int producer = t;
+			producers.add(new Thread(() -> {
+				for (int i = 0; i < 2_000; i++) {
+					appender.doAppend(event(Level.WARN, producer + "-" + i));
+				}
+			}));
+		}
+		producers.forEach(Thread::start);
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		appender.stop();
+
+		List<String> messages = messages(out.toString(StandardCharsets.UTF_8));
+		Set<String> distinct = new HashSet<>(messages);
+		assertThat(messages).hasSize(8_000);
+		assertThat(distinct).hasSize(8_000);
+		assertThat(appender.getDropped(Level.WARN)).isZero();
+	}
+
+	private LoggingEvent event(Level level, String message) {
+		return new LoggingEvent(Logger.class.getName(), logger, level, message, null, null);
+	}
+
+	private static List<String> messages(String lines) {
+		List<String> messages = new ArrayList<>();
+		Matcher matcher = MESSAGE.matcher(lines);
+		while (matcher.find()) {
+			messages.add(matcher.group(1));
+		}
+		return messages;
+	}
+
+	/** Holds the writer on its first write until released. */
+	private static class BlockingOutputStream extends OutputStream {
+
+		private final CountDownLatch writing = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			writing.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+			written.write(b, off, len);
+		}
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.talentreef.interviewquestions.takehome.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkResponseDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetChangeDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.services.WidgetFormat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveWidgetControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void when_createWidget_expect_201_and_304_for_its_etag() {
+        String eTag = create("Reactive Widget", "Served by WebFlux", "12.50")
+                .expectStatus().isCreated()
+                .expectBody(WidgetDTO.class).value(widget -> assertThat(widget.getName()).isEqualTo("Reactive Widget"))
+                .returnResult().getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/v1/widgets/{name}", "Reactive Widget").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody(WidgetDTO.class).value(widget -> assertThat(widget.getPrice()).isEqualTo(new BigDecimal("12.50")));
+        webTestClient.get().uri("/v1/widgets/{name}", "Reactive Widget").header(HttpHeaders.IF_NONE_MATCH, eTag).exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    public void when_createWidget_twice_expect_400() {
+        create("Duplicated Reactive Widget", "Created twice", "3.00").expectStatus().isCreated();
+
+        create("Duplicated Reactive Widget", "Created twice", "3.00").expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    public void when_createWidget_invalid_expect_400_with_errors() {
+        create("x", "Too short a name", "-1.00")
+                .expectStatus().isBadRequest()
+                .expectBodyList(String.class).value(errors -> assertThat(errors).isNotEmpty());
+    }
+
+    @Test
+    public void when_getAllWidgets_expect_streamed_array_and_304_while_unchanged() {
+        create("Listed Reactive Widget", "Appears in the listing", "4.00").expectStatus().isCreated();
+
+        String eTag = webTestClient.get().uri("/v1/widgets").exchange()
+                .expectStatus().isOk()
+                .expectBodyList(WidgetDTO.class)
+                .value(widgets -> assertThat(widgets).extracting(WidgetDTO::getName).contains("Listed Reactive Widget"))
+                .returnResult().getResponseHeaders().getETag();
+        assertThat(eTag).startsWith("W/\"");
+
+        webTestClient.get().uri("/v1/widgets").header(HttpHeaders.IF_NONE_MATCH, eTag).exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    public void when_updateWidget_with_stale_etag_expect_412() {
+        String eTag = create("Updated Reactive Widget", "Before the update", "5.00")
+                .expectStatus().isCreated()
+                .expectBody(WidgetDTO.class).returnResult().getResponseHeaders().getETag();
+        Map<String, Object> update = Map.of("description", "After the update", "price", new BigDecimal("6.00"));
+
+        webTestClient.put().uri("/v1/widgets/{name}", "Updated Reactive Widget").header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(update).exchange()
+                .expectStatus().isOk()
+                .expectBody(WidgetDTO.class).value(widget -> assertThat(widget.getDescription()).isEqualTo("After the update"));
+        webTestClient.put().uri("/v1/widgets/{name}", "Updated Reactive Widget").header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(update).exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    public void when_deleteWidget_expect_204_then_404() {
+        create("Deleted Reactive Widget", "Deleted right away", "7.00").expectStatus().isCreated();
+
+        webTestClient.delete().uri("/v1/widgets/{name}", "Deleted Reactive Widget").exchange()
+                .expectStatus().isNoContent();
+        webTestClient.get().uri("/v1/widgets/{name}", "Deleted Reactive Widget").exchange()
+                .expectStatus().isNotFound();
+        webTestClient.delete().uri("/v1/widgets/{name}", "Deleted Reactive Widget").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void when_bulkWidgets_expect_results_per_operation() {
+        String body = "[{\"op\":\"upsert\",\"name\":\"Bulk Reactive Widget\",\"description\":\"Created in bulk\",\"price\":8.00},"
+                + "{\"op\":\"delete\",\"name\":\"Missing Reactive Widget\"}]";
+
+        webTestClient.post().uri("/v1/widgets/_bulk").contentType(MediaType.APPLICATION_JSON).bodyValue(body).exchange()
+                .expectStatus().isOk()
+                .expectBody(WidgetBulkResponseDTO.class).value(response -> assertThat(response.getItems()).hasSize(2));
+        webTestClient.get().uri("/v1/widgets/{name}", "Bulk Reactive Widget").exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    public void when_bulkAndListInCbor_expect_cborRoundTrip() throws IOException {
+        ObjectMapper cborMapper = WidgetFormat.CBOR.mapper(new ObjectMapper());
+        byte[] body = cborMapper.writeValueAsBytes(List.of(Map.of("op", "upsert", "name", "Cbor Reactive Widget",
+                "description", "Sent as CBOR", "price", new BigDecimal("6.50"))));
+
+        webTestClient.post().uri("/v1/widgets/_bulk").contentType(MediaType.APPLICATION_CBOR).accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(body).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR);
+        byte[] list = webTestClient.get().uri("/v1/widgets").accept(MediaType.APPLICATION_CBOR).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectHeader().valueEquals(HttpHeaders.VARY, "Accept")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        List<WidgetDTO> widgets = cborMapper.readValue(list, new TypeReference<List<WidgetDTO>>() {
+        });
+        assertThat(widgets).filteredOn(widget -> widget.getName().equals("Cbor Reactive Widget"))
+                .singleElement().satisfies(widget -> assertThat(widget.getPrice()).isEqualTo(new BigDecimal("6.50")));
+    }
+
+    @Test
+    public void when_exportWidgets_gzip_expect_ndjson() throws IOException {
+        create("Exported Reactive Widget", "Appears in the export", "9.00").expectStatus().isCreated();
+
+        // A client that leaves the body compressed, so the test sees what the server sent.
+        WebTestClient rawClient = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create().compress(false)))
+                .baseUrl("http://localhost:" + port)
+                .build();
+
+        byte[] body = rawClient.get().uri("/v1/widgets/export?gzip=true").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectBody().returnResult().getResponseBody();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            List<String> lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            assertThat(lines).anyMatch(line -> line.contains("\"Exported Reactive Widget\""));
+        }
+    }
+
+    @Test
+    public void when_streamChanges_expect_event_per_write() {
+        Flux<ServerSentEvent<WidgetChangeDTO>> events = webTestClient.get().uri("/v1/widgets/changes")
+                .accept(MediaType.TEXT_EVENT_STREAM).exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<WidgetChangeDTO>>() { })
+                .getResponseBody();
+
+        create("Streamed Reactive Widget", "Announced on the change stream", "10.00").expectStatus().isCreated();
+
+        ServerSentEvent<WidgetChangeDTO> event = events.filter(sse -> sse.event() != null)
+                .blockFirst(Duration.ofSeconds(5));
+        assertThat(event.event()).isEqualTo("upsert");
+        assertThat(event.id()).isEqualTo(Long.toString(event.data().getSequence()));
+        assertThat(event.data().getName()).isEqualTo("Streamed Reactive Widget");
+    }
+
+    private WebTestClient.ResponseSpec create(String name, String description, String price) {
+        return webTestClient.post().uri("/v1/widgets").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name", name, "description", description, "price", new BigDecimal(price)))
+                .exchange();
+    }
+
+}
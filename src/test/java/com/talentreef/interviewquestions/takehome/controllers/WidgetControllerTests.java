@@ -1,21 +1,34 @@
 package com.talentreef.interviewquestions.takehome.controllers;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.matchesPattern;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,12 +43,21 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
-import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talentreef.interviewquestions.RestResponseEntityExceptionHandler;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkItemResultDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkResponseDTO;
 import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetPageDTO;
 import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+import com.talentreef.interviewquestions.takehome.services.CachedJson;
+import com.talentreef.interviewquestions.takehome.services.WidgetBulkService;
+import com.talentreef.interviewquestions.takehome.services.WidgetChangeService;
+import com.talentreef.interviewquestions.takehome.services.WidgetConflictException;
+import com.talentreef.interviewquestions.takehome.services.WidgetFormat;
 import com.talentreef.interviewquestions.takehome.services.WidgetService;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -49,6 +71,12 @@ public class WidgetControllerTests {
     @Mock
     private WidgetService widgetService;
 
+    @Mock
+    private WidgetBulkService widgetBulkService;
+
+    @Mock
+    private WidgetChangeService widgetChangeService;
+
     @InjectMocks
     private WidgetController widgetController;
 
@@ -67,9 +95,11 @@ public class WidgetControllerTests {
 		widgetDTO.setPrice(new BigDecimal("10.00"));
 		List<WidgetDTO> allWidgetsDTO = List.of(widgetDTO);
 
-		when(widgetService.getAllWidgets()).thenReturn(allWidgetsDTO);
+		byte[] json = objectMapper.writeValueAsBytes(allWidgetsDTO);
+		when(widgetService.getAllWidgetsJson(WidgetFormat.JSON)).thenReturn(new CachedJson("\"abc-1\"", () -> json));
 
-		MvcResult result = mockMvc.perform(get("/v1/widgets")).andExpect(status().isOk()).andDo(print()).andReturn();
+		MvcResult result = mockMvc.perform(get("/v1/widgets")).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"abc-1\"")).andDo(print()).andReturn();
 
 		List<WidgetDTO> parsedResult = objectMapper.readValue(result.getResponse().getContentAsString(),
 				new TypeReference<List<WidgetDTO>>() {
@@ -78,6 +108,63 @@ public class WidgetControllerTests {
 		assertThat(parsedResult).usingRecursiveComparison().isEqualTo(allWidgetsDTO);
 	}
 
+	@Test
+	public void when_exportWidgetsGzip_expect_compressedNdjson() throws Exception {
+		doAnswer(invocation -> {
+			invocation.<OutputStream>getArgument(0).write("{\"name\":\"Widget A\"}\n".getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(widgetService).exportWidgets(any(OutputStream.class));
+
+		MvcResult started = mockMvc.perform(get("/v1/widgets/export").param("gzip", "true"))
+				.andExpect(request().asyncStarted()).andReturn();
+		MvcResult result = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "application/x-ndjson"))
+				.andExpect(header().string("Content-Encoding", "gzip"))
+				.andReturn();
+
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"name\":\"Widget A\"}\n");
+		}
+	}
+
+	@Test
+	public void when_getWidgetsPage_expect_linkToNextPage() throws Exception {
+		WidgetDTO widgetDTO = new WidgetDTO("Widget A", "A widget description", new BigDecimal("10.00"));
+		WidgetQuery expectedQuery = WidgetQuery.builder().sort(WidgetQuery.Sort.PRICE).descending(true)
+				.minPriceCents(500L).limit(1).build();
+
+		when(widgetService.findWidgets(expectedQuery, null)).thenReturn(new WidgetPageDTO(List.of(widgetDTO), "abc"));
+
+		mockMvc.perform(get("/v1/widgets?limit=1&sort=price&direction=desc&minPrice=5"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Link",
+						"<http://localhost/v1/widgets?limit=1&sort=price&direction=desc&minPrice=5&cursor=abc>; rel=\"next\""))
+				.andDo(print());
+	}
+
+	@Test
+	public void when_getWidgetsWithUnknownSort_expect_badRequest() throws Exception {
+		mockMvc.perform(get("/v1/widgets").param("sort", "color")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void when_searchWidgets_expect_limitCappedAndResultsReturned() throws Exception {
+		WidgetDTO widgetDTO = new WidgetDTO("Blue Gear", "A widget description", new BigDecimal("10.00"));
+		when(widgetService.searchWidgets("blue ge", WidgetRequests.MAX_SEARCH_RESULTS)).thenReturn(List.of(widgetDTO));
+
+		MvcResult result = mockMvc.perform(get("/v1/widgets/search").param("q", "blue ge").param("limit", "5000"))
+				.andExpect(status().isOk()).andReturn();
+
+		assertThat(objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<List<WidgetDTO>>() {
+		})).extracting(WidgetDTO::getName).containsExactly("Blue Gear");
+	}
+
+	@Test
+	public void when_searchWidgetsWithBlankQuery_expect_badRequest() throws Exception {
+		mockMvc.perform(get("/v1/widgets/search").param("q", " ")).andExpect(status().isBadRequest());
+	}
+
 	@Test
     public void when_createWidget_expect_CreatedResponse() {
         WidgetDTO createdWidgetDTO = new WidgetDTO();
@@ -92,7 +179,7 @@ public class WidgetControllerTests {
 
         when(widgetService.createWidget(any(Widget.class))).thenReturn(createdWidgetDTO);
 
-        ResponseEntity<WidgetDTO> response = widgetController.createWidget(newWidget);
+        ResponseEntity<WidgetDTO> response = widgetController.createWidget(newWidget, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
         assertThat(response.getBody()).isEqualTo(createdWidgetDTO);
@@ -101,27 +188,23 @@ public class WidgetControllerTests {
         Widget capturedWidget = widgetCaptor.getValue();
         assertThat(capturedWidget.getName()).isEqualTo("Test Widget");
         assertThat(capturedWidget.getDescription()).isEqualTo("Test Widget Description");
-        assertThat(capturedWidget.getPrice()).isEqualByComparingTo(new BigDecimal("10.99"));
+        assertThat(capturedWidget.getPrice()).isEqualTo(new BigDecimal("10.99"));
     }
 
     @Test
-    public void when_createDuplicateWidget_expect_BadRequestResponse() {
-        Widget existingWidget = new Widget();
-        existingWidget.setName("Duplicate Widget Name");
-
-        Widget newWidget = new Widget();
-        newWidget.setName("Duplicate Widget Name");
-        newWidget.setDescription("Duplicate Widget Description");
-        newWidget.setPrice(new BigDecimal("20.99"));
-
-        when(widgetService.createWidget(any(Widget.class))).thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Widget with name 'Duplicate Widget Name' already exists"));
-
-        assertThatThrownBy(() -> widgetController.createWidget(newWidget))
-                .isInstanceOf(ResponseStatusException.class)
-                .hasMessageContaining("Widget with name 'Duplicate Widget Name' already exists")
-                .hasFieldOrPropertyWithValue("status", HttpStatus.BAD_REQUEST);
-
-        verify(widgetService, times(1)).createWidget(newWidget);
+    public void when_createDuplicateWidget_expect_ConflictResponse() throws Exception {
+        WidgetDTO newWidget = new WidgetDTO("Duplicate Widget Name", "Duplicate Widget Description", new BigDecimal("20.99"));
+        when(widgetService.createWidget(any(Widget.class)))
+                .thenThrow(new WidgetConflictException("Widget with name 'Duplicate Widget Name' already exists"));
+        MockMvc advisedMvc = MockMvcBuilders.standaloneSetup(widgetController)
+                .setControllerAdvice(new RestResponseEntityExceptionHandler()).build();
+
+        MvcResult result = advisedMvc.perform(post("/v1/widgets").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newWidget)))
+                .andExpect(status().isConflict()).andReturn();
+
+        assertThat(result.getResponse().getContentAsString()).contains("Widget with name 'Duplicate Widget Name' already exists");
+        verify(widgetService, times(1)).createWidget(any(Widget.class));
     }
 
 	@Test
@@ -129,9 +212,50 @@ public class WidgetControllerTests {
 		String widgetName = "Existing Widget";
 		WidgetDTO existingWidgetDTO = new WidgetDTO("Existing Widget", "An existing widget description",
 				new BigDecimal("29.99"));
-		when(widgetService.getWidgetByName(widgetName)).thenReturn(existingWidgetDTO);
+		byte[] json = objectMapper.writeValueAsBytes(existingWidgetDTO);
+		when(widgetService.getWidgetJson(widgetName, WidgetFormat.JSON)).thenReturn(new CachedJson("\"3\"", () -> json));
+
+		MvcResult result = mockMvc.perform(get("/v1/widgets/{name}", widgetName)).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"3\"")).andDo(print()).andReturn();
+
+		assertThat(objectMapper.readValue(result.getResponse().getContentAsByteArray(), WidgetDTO.class))
+				.usingRecursiveComparison().isEqualTo(existingWidgetDTO);
+	}
+
+	@Test
+	public void whenGetWidgetByNameAcceptingSmile_expect_smileBodyVaryingByAccept() throws Exception {
+		WidgetDTO existingWidgetDTO = new WidgetDTO("Existing Widget", "An existing widget description",
+				new BigDecimal("29.90"));
+		ObjectMapper smileMapper = WidgetFormat.SMILE.mapper(objectMapper);
+		byte[] smile = smileMapper.writeValueAsBytes(existingWidgetDTO);
+		when(widgetService.getWidgetJson("Existing Widget", WidgetFormat.SMILE)).thenReturn(new CachedJson("\"3-smile\"", () -> smile));
+
+		MvcResult result = mockMvc.perform(get("/v1/widgets/{name}", "Existing Widget")
+						.accept(WidgetFormat.SMILE_VALUE + ", application/json;q=0.5"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", WidgetFormat.SMILE_VALUE))
+				.andExpect(header().string("ETag", "\"3-smile\""))
+				.andExpect(header().string("Vary", "Accept"))
+				.andReturn();
+
+		WidgetDTO parsed = smileMapper.readValue(result.getResponse().getContentAsByteArray(), WidgetDTO.class);
+		assertThat(parsed).usingRecursiveComparison().isEqualTo(existingWidgetDTO);
+		assertThat(parsed.getPrice()).isEqualTo(new BigDecimal("29.90"));
+	}
 
-		mockMvc.perform(get("/v1/widgets/{name}", widgetName)).andExpect(status().isOk()).andDo(print());
+	@Test
+	public void whenGetWidgetByNameWithMatchingIfNoneMatch_expect_notModifiedWithoutSerializing() throws Exception {
+		AtomicBoolean serialized = new AtomicBoolean();
+		when(widgetService.getWidgetJson("Existing Widget", WidgetFormat.JSON)).thenReturn(new CachedJson("\"3\"", () -> {
+			serialized.set(true);
+			return new byte[0];
+		}));
+
+		mockMvc.perform(get("/v1/widgets/{name}", "Existing Widget").header("If-None-Match", "\"2\", W/\"3\""))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", "\"3\""));
+
+		assertThat(serialized).isFalse();
 	}
 
 	@Test
@@ -139,7 +263,7 @@ public class WidgetControllerTests {
 		String widgetName = "Existing Widget";
 		WidgetDTO updatedWidgetDTO = new WidgetDTO("Existing Widget", "An updated widget description",
 				new BigDecimal("39.99"));
-		when(widgetService.updateWidget(eq(widgetName), any())).thenReturn(updatedWidgetDTO);
+		when(widgetService.updateWidget(eq(widgetName), any(), isNull())).thenReturn(updatedWidgetDTO);
 
 		String widgetDtoJson = objectMapper.writeValueAsString(updatedWidgetDTO);
 
@@ -148,6 +272,56 @@ public class WidgetControllerTests {
 				.andExpect(status().isOk()).andDo(print());
 	}
 
+	@Test
+	public void whenUpdateWidgetWithIfMatch_expect_versionPassedToService() throws Exception {
+		String widgetName = "Existing Widget";
+		WidgetDTO updatedWidgetDTO = new WidgetDTO("Existing Widget", "An updated widget description",
+				new BigDecimal("39.99"));
+		updatedWidgetDTO.setVersion(8L);
+		when(widgetService.updateWidget(eq(widgetName), any(), eq(7L))).thenReturn(updatedWidgetDTO);
+
+		mockMvc.perform(put("/v1/widgets/{name}", widgetName).header("If-Match", "\"7\"")
+				.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(updatedWidgetDTO)))
+				.andExpect(status().isOk()).andExpect(header().string("ETag", "\"8\"")).andDo(print());
+	}
+
+	@Test
+	public void whenUpdateWidgetWithWeakIfMatch_expect_preconditionFailed() throws Exception {
+		WidgetDTO updatedWidgetDTO = new WidgetDTO("Existing Widget", "An updated widget description",
+				new BigDecimal("39.99"));
+
+		mockMvc.perform(put("/v1/widgets/{name}", "Existing Widget").header("If-Match", "W/\"7\"")
+				.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(updatedWidgetDTO)))
+				.andExpect(status().isPreconditionFailed());
+
+		verify(widgetService, never()).updateWidget(any(), any(), any());
+	}
+
+	@Test
+	public void whenUpdateWidgetWithCborIfMatch_expect_versionPassedAndCborEtag() throws Exception {
+		WidgetDTO updatedWidgetDTO = new WidgetDTO("Existing Widget", "An updated widget description",
+				new BigDecimal("39.99"));
+		updatedWidgetDTO.setVersion(8L);
+		when(widgetService.updateWidget(eq("Existing Widget"), any(), eq(7L))).thenReturn(updatedWidgetDTO);
+
+		mockMvc.perform(put("/v1/widgets/{name}", "Existing Widget").header("If-Match", "\"7-cbor\"")
+				.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_CBOR)
+				.content(objectMapper.writeValueAsString(updatedWidgetDTO)))
+				.andExpect(status().isOk()).andExpect(header().string("ETag", "\"8-cbor\""));
+	}
+
+	@Test
+	public void whenBulkAtomicBatchRejected_expect_badRequest() throws Exception {
+		WidgetBulkResponseDTO rejected = new WidgetBulkResponseDTO(true, false, List.of(
+				new WidgetBulkItemResultDTO(0, "Missing Widget", WidgetBulkItemResultDTO.Status.NOT_FOUND, null)));
+		when(widgetBulkService.bulk(any(InputStream.class), eq(true), eq(WidgetFormat.JSON))).thenReturn(rejected);
+
+		mockMvc.perform(post("/v1/widgets/_bulk").param("atomic", "true").contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"op\":\"delete\",\"name\":\"Missing Widget\"}]"))
+				.andExpect(status().isBadRequest())
+				.andDo(print());
+	}
+
 	@Test
 	public void whenDeleteWidget_expect_noContent() throws Exception {
 		String widgetName = "WidgetToDelete";
@@ -155,4 +329,17 @@ public class WidgetControllerTests {
 
 		mockMvc.perform(delete("/v1/widgets/{name}", widgetName)).andExpect(status().isNoContent()).andDo(print());
 	}
+
+	@Test
+	public void whenAccessLogged_expect_requestIdReturned() throws Exception {
+		MockMvc accessLoggedMockMvc = MockMvcBuilders.standaloneSetup(widgetController)
+				.addFilters(new WidgetAccessLogFilter()).build();
+		doNothing().when(widgetService).deleteWidget("WidgetToDelete");
+
+		accessLoggedMockMvc.perform(delete("/v1/widgets/{name}", "WidgetToDelete").header("X-Request-Id", "checkout-42"))
+				.andExpect(status().isNoContent()).andExpect(header().string("X-Request-Id", "checkout-42"));
+		accessLoggedMockMvc.perform(delete("/v1/widgets/{name}", "WidgetToDelete").header("X-Request-Id", "bad\nid"))
+				.andExpect(status().isNoContent())
+				.andExpect(header().string("X-Request-Id", matchesPattern("[0-9a-f]{16}")));
+	}
 }
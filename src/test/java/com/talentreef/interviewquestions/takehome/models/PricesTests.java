@@ -0,0 +1,141 @@
+package com.talentreef.interviewquestions.takehome.models;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.services.WidgetFormat;
+
+public class PricesTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	public void when_parsed_expect_centsAndWrittenScale() {
+		assertThat(Prices.cents(Prices.parse("12.50"))).isEqualTo(1250);
+		assertThat(Prices.scale(Prices.parse("12.50"))).isEqualTo(2);
+		assertThat(Prices.cents(Prices.parse("12.5"))).isEqualTo(1250);
+		assertThat(Prices.scale(Prices.parse("12.5"))).isEqualTo(1);
+		assertThat(Prices.cents(Prices.parse("-3"))).isEqualTo(-300);
+		assertThat(Prices.cents(Prices.parse("1.5e2"))).isEqualTo(15000);
+		assertThat(Prices.cents(Prices.parse("125E-2"))).isEqualTo(125);
+	}
+
+	@Test
+	public void when_formatted_expect_sameTextAsBigDecimal() {
+		for (String price : new String[] { "0", "1", "12.5", "12.50", "12.500", "-0.01", "-7.25", "20000.00", "0.00" }) {
+			assertThat(Prices.toString(Prices.parse(price))).isEqualTo(new BigDecimal(price).toString());
+		}
+	}
+
+	@Test
+	public void when_moreThanTwoDecimals_expect_inexactBetweenCents() {
+		long price = Prices.parse("1.005");
+		long negative = Prices.parse("-1.005");
+
+		assertThat(Prices.isExact(price)).isFalse();
+		assertThat(Prices.cents(price)).isEqualTo(100);
+		assertThat(Prices.ceilCents(price)).isEqualTo(101);
+		assertThat(Prices.cents(negative)).isEqualTo(-101);
+		assertThat(Prices.isExact(Prices.parse("1.000"))).isTrue();
+	}
+
+	@Test
+	public void when_comparedWithBounds_expect_sameAnswersAsBigDecimal() {
+		String[] prices = { "0.99", "0.999", "1", "1.00", "1.001", "19999.99", "20000", "20000.001", "99999.99", "100000", "-0.5" };
+		for (String text : prices) {
+			long price = Prices.parse(text);
+			BigDecimal value = new BigDecimal(text);
+			assertThat(Prices.isAtLeast(price, 100)).as(text).isEqualTo(value.compareTo(BigDecimal.ONE) >= 0);
+			assertThat(Prices.isAtMost(price, 2_000_000)).as(text).isEqualTo(value.compareTo(new BigDecimal("20000")) <= 0);
+			BigDecimal stripped = value.stripTrailingZeros();
+			boolean fits = stripped.precision() - stripped.scale() <= 5 && Math.max(stripped.scale(), 0) <= 2;
+			assertThat(Prices.hasDigits(price, 5, 2)).as(text).isEqualTo(fits);
+		}
+	}
+
+	@Test
+	public void when_notANumber_expect_numberFormatException() {
+		for (String text : new String[] { "", "-", ".", "1.2.3", "1e", "12a", "e5" }) {
+			assertThatThrownBy(() -> Prices.parse(text)).as(text).isInstanceOf(NumberFormatException.class);
+		}
+	}
+
+	@Test
+	public void when_tooLarge_expect_clampedAndInexact() {
+		long price = Prices.parse("1e40");
+
+		assertThat(Prices.cents(price)).isEqualTo(Prices.MAX_CENTS);
+		assertThat(Prices.isExact(price)).isFalse();
+	}
+
+	@Test
+	public void when_widgetDTOSerialized_expect_priceWrittenAsReceived() throws Exception {
+		String json = "{\"name\":\"Gear\",\"description\":\"A widget\",\"price\":12.5}";
+
+		WidgetDTO widget = objectMapper.readValue(json, WidgetDTO.class);
+
+		assertThat(objectMapper.writeValueAsString(widget)).isEqualTo(json);
+		assertThat(objectMapper.writeValueAsString(new WidgetDTO("Gear", null, null)))
+				.isEqualTo("{\"name\":\"Gear\",\"description\":null,\"price\":null}");
+	}
+
+	@Test
+	public void when_writtenInBinaryFormats_expect_priceReadBackAsWritten() throws Exception {
+		for (WidgetFormat format : new WidgetFormat[] { WidgetFormat.SMILE, WidgetFormat.CBOR }) {
+			ObjectMapper mapper = format.mapper(objectMapper);
+			for (String price : new String[] { "12", "12.5", "12.50", "12.500", "-0.01", "20000.00" }) {
+				WidgetDTO widget = new WidgetDTO("Gear", "A widget", new BigDecimal(price));
+
+				WidgetDTO read = mapper.readValue(mapper.writeValueAsBytes(widget), WidgetDTO.class);
+
+				assertThat(read.getPrice()).as(format + " " + price).isEqualTo(new BigDecimal(price));
+			}
+			// Clients may send plain doubles; they read as their shortest decimal form.
+			byte[] doublePrice = mapper.writeValueAsBytes(Map.of("name", "Gear", "price", 12.1));
+			assertThat(mapper.readValue(doublePrice, Widget.class).getPrice()).isEqualTo(new BigDecimal("12.1"));
+		}
+	}
+
+	@Test
+	public void when_priceIsString_expect_parsed_and_badStringRejected() throws Exception {
+		Widget widget = objectMapper.readValue("{\"name\":\"Gear\",\"price\":\" 7.25 \",\"id\":3}", Widget.class);
+
+		assertThat(widget.getPrice()).isEqualTo(new BigDecimal("7.25"));
+		assertThat(objectMapper.readValue("{\"name\":\"Gear\"}", Widget.class).getPrice()).isNull();
+		assertThatThrownBy(() -> objectMapper.readValue("{\"price\":\"cheap\"}", Widget.class))
+				.isInstanceOf(InvalidFormatException.class);
+	}
+
+	@Test
+	public void when_problemHandlerReturnsDecimal_expect_itsPrice() throws Exception {
+		ObjectMapper lenient = new ObjectMapper().addHandler(new DeserializationProblemHandler() {
+			@Override
+			public Object handleWeirdStringValue(DeserializationContext ctxt, Class<?> targetType, String valueToConvert, String failureMsg) {
+				return new BigDecimal("9.90");
+			}
+		});
+
+		Widget widget = lenient.readValue("{\"price\":\"cheap\"}", Widget.class);
+
+		assertThat(widget.getPrice()).isEqualTo(new BigDecimal("9.90"));
+	}
+
+	@Test
+	public void when_convertedFromDecimal_expect_sameDecimalBack() {
+		for (String price : new String[] { "0", "12", "12.5", "12.50", "12.500", "-0.01", "20000.00" }) {
+			assertThat(Prices.toBigDecimal(Prices.of(new BigDecimal(price)))).as(price).isEqualTo(new BigDecimal(price));
+		}
+		assertThat(Prices.of(null)).isEqualTo(Prices.NONE);
+		assertThat(Prices.toBigDecimal(Prices.NONE)).isNull();
+		assertThat(Prices.toBigDecimal(Prices.of(new BigDecimal("1.005")))).isEqualTo(new BigDecimal("1.00"));
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+
+public class MappedWidgetStoreTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void when_put_expect_widgetReadBackUnchanged() {
+		MappedWidgetStore store = store(null);
+		Widget widget = widget("Widget A", "Ünïcode description", "10.50", 7);
+		Widget noDescription = widget("Widget B", null, "3.0", 8);
+
+		assertThat(store.put(widget)).isNull();
+		store.put(noDescription);
+
+		assertThat(store.get("Widget A")).isEqualTo(widget);
+		assertThat(store.get("Widget A").getPrice().scale()).isEqualTo(2);
+		assertThat(store.get("Widget B")).isEqualTo(noDescription);
+		assertThat(store.get("Widget C")).isNull();
+		assertThat(store.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void when_updatedAndRemoved_expect_previousReturnedAndSlotsReused() {
+		MappedWidgetStore store = store(null);
+		Widget original = widget("Widget A", "Short", "10.00", 1);
+		store.put(original);
+		long footprint = store.footprintBytes();
+
+		Widget grown = widget("Widget A", "A much longer description than before, moved to a bigger slot", "10.00", 2);
+		assertThat(store.put(grown)).isEqualTo(original);
+		assertThat(store.get("Widget A")).isEqualTo(grown);
+		assertThat(store.remove("Widget A")).isEqualTo(grown);
+		assertThat(store.get("Widget A")).isNull();
+		assertThat(store.footprintBytes()).isZero();
+
+		store.put(original);
+		assertThat(store.footprintBytes()).isEqualTo(footprint);
+	}
+
+	@Test
+	public void when_usedByRepository_expect_queriesWorkOnMappedFiles() {
+		WidgetRepository widgetRepository = new WidgetRepository(store(directory));
+		widgetRepository.save(widget("Widget A", "A widget description", "30.00", 0));
+		widgetRepository.save(widget("Widget B", "A widget description", "10.00", 0));
+		widgetRepository.deleteById("Widget A");
+
+		assertThat(widgetRepository.find(WidgetQuery.builder().sort(WidgetQuery.Sort.PRICE).build()))
+				.extracting(Widget::getName).containsExactly("Widget B");
+		assertThat(widgetRepository.storageBackend()).isEqualTo("mapped");
+		assertThat(directory.toFile().list()).isEmpty();
+	}
+
+	@Test
+	public void when_readDuringRewrites_expect_noTornWidgets() throws Exception {
+		MappedWidgetStore store = store(null);
+		int names = 64;
+		for (int n = 0; n < names; n++) {
+			store.put(versioned("Widget " + n, 0));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		try {
+			List<Future<?>> readers = new ArrayList<>();
+			for (int r = 0; r < 3; r++) {
+				readers.add(executor.submit(() -> {
+					int n = 0;
+					while (writing.get()) {
+						Widget widget = store.get("Widget " + (n++ % names));
+						assertThat(widget.getDescription()).isEqualTo(versioned(widget.getName(), widget.getVersion()).getDescription());
+					}
+				}));
+			}
+			executor.submit(() -> {
+				for (int version = 1; version <= 200_000; version++) {
+					store.put(versioned("Widget " + (version % names), version));
+				}
+			}).get(2, TimeUnit.MINUTES);
+			writing.set(false);
+			for (Future<?> reader : readers) {
+				reader.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void when_compared_expect_smallerFootprintThanHeap() {
+		MappedWidgetStore mapped = store(null);
+		HeapWidgetStore heap = new HeapWidgetStore();
+		for (int i = 0; i < 100_000; i++) {
+			Widget widget = widget("Widget " + i, "A widget description", "19.99", i);
+			mapped.put(widget);
+			heap.put(widget);
+		}
+
+		assertThat(mapped.footprintBytes() / mapped.size()).isLessThan(heap.footprintBytes() / heap.size());
+	}
+
+	private static MappedWidgetStore store(Path directory) {
+		WidgetProperties properties = new WidgetProperties();
+		properties.getStorage().setDirectory(directory == null ? null : directory.toString());
+		properties.getStorage().setChunkSize(DataSize.ofMegabytes(1));
+		return new MappedWidgetStore(properties);
+	}
+
+	/** A widget whose description length and content depend on its version. */
+	private static Widget versioned(String name, long version) {
+		return widget(name, ("v" + version + " ").repeat((int) (version % 20) + 1), "1.00", version);
+	}
+
+	private static Widget widget(String name, String description, String price, long version) {
+		return Widget.builder()
+				.name(name)
+				.description(description)
+				.price(new BigDecimal(price))
+				.version(version)
+				.build();
+	}
+
+}
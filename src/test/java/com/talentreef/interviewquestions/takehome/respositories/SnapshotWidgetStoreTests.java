@@ -0,0 +1,118 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+
+public class SnapshotWidgetStoreTests {
+
+	@Test
+	public void when_putAndRemoved_expect_previousReturnedAndFootprintTracked() {
+		SnapshotWidgetStore store = new SnapshotWidgetStore();
+		Widget original = widget("Widget A", 1);
+		Widget updated = widget("Widget A", 2);
+
+		assertThat(store.put(original)).isNull();
+		assertThat(store.put(updated)).isEqualTo(original);
+		assertThat(store.get("Widget A")).isEqualTo(updated);
+		assertThat(store.containsKey("Widget B")).isFalse();
+		assertThat(store.remove("Widget B")).isNull();
+		assertThat(store.remove("Widget A")).isEqualTo(updated);
+		assertThat(store.size()).isZero();
+		assertThat(store.footprintBytes()).isZero();
+	}
+
+	@Test
+	public void when_randomWrites_expect_sameContentsAndOrderAsSortedMap() {
+		SnapshotWidgetStore store = new SnapshotWidgetStore();
+		TreeMap<String, Widget> expected = new TreeMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 50_000; i++) {
+			String name = "Widget " + random.nextInt(5_000);
+			if (random.nextInt(3) == 0) {
+				assertThat(store.remove(name)).isEqualTo(expected.remove(name));
+			} else {
+				Widget widget = widget(name, i);
+				assertThat(store.put(widget)).isEqualTo(expected.put(name, widget));
+			}
+		}
+
+		List<Widget> snapshot = store.snapshot();
+		assertThat(snapshot).containsExactlyElementsOf(expected.values());
+		assertThat(snapshot.get(snapshot.size() / 2)).isEqualTo(new ArrayList<>(expected.values()).get(snapshot.size() / 2));
+		assertThat(store.size()).isEqualTo(expected.size());
+	}
+
+	@Test
+	public void when_writtenAfterSnapshot_expect_snapshotUnchangedAndReadOnly() {
+		SnapshotWidgetStore store = new SnapshotWidgetStore();
+		for (int i = 0; i < 100; i++) {
+			store.put(widget(String.format("Widget %03d", i), 1));
+		}
+		List<Widget> before = store.snapshot();
+		List<Widget> copy = new ArrayList<>(before);
+
+		store.remove("Widget 000");
+		store.put(widget("Widget 050", 2));
+		store.put(widget("Widget 999", 1));
+
+		assertThat(before).isEqualTo(copy);
+		assertThat(store.snapshot()).hasSize(100).doesNotContain(copy.get(0), copy.get(50));
+		assertThatThrownBy(() -> before.remove(0)).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void when_readDuringBalancedTransfers_expect_everyListingConsistent() throws Exception {
+		WidgetRepository widgetRepository = new WidgetRepository(new SnapshotWidgetStore());
+		for (int i = 0; i < 1_000; i++) {
+			widgetRepository.save(widget(String.format("Widget %06d", i), 0));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		try {
+			// Moves a widget from the front of the catalog to its back, one write at a time;
+			// a listing reflects some prefix of those writes, so it always holds the widgets in
+			// one contiguous run of names.
+			Future<?> writer = executor.submit(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					String first = widgetRepository.findAll().get(0).getName();
+					widgetRepository.save(widget(String.format("Widget %06d", Integer.parseInt(first.substring(7)) + 1_000), 0));
+					widgetRepository.deleteById(first);
+				}
+				writing.set(false);
+			});
+			Future<?> reader = executor.submit(() -> {
+				while (writing.get()) {
+					List<Widget> listing = widgetRepository.findAll();
+					int first = Integer.parseInt(listing.get(0).getName().substring(7));
+					int last = Integer.parseInt(listing.get(listing.size() - 1).getName().substring(7));
+					assertThat(last - first + 1).isEqualTo(listing.size());
+					assertThat(listing.size()).isBetween(1_000, 1_001);
+				}
+			});
+			writer.get(2, TimeUnit.MINUTES);
+			reader.get(2, TimeUnit.MINUTES);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Widget widget(String name, long version) {
+		Widget widget = Widget.builder().name(name).description("A widget description").price(new BigDecimal("1.00")).build();
+		widget.setVersion(version);
+		return widget;
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetChange;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+
+public class WidgetChangeLogTests {
+
+	private WidgetRepository widgetRepository;
+
+	private WidgetChangeLog widgetChangeLog;
+
+	@BeforeEach
+	void setUp() {
+		WidgetProperties widgetProperties = new WidgetProperties();
+		widgetProperties.getChanges().setCapacity(3);
+		widgetRepository = new WidgetRepository();
+		widgetChangeLog = new WidgetChangeLog(widgetRepository, widgetProperties);
+	}
+
+	@Test
+	public void when_capacityNotPowerOfTwo_expect_roundedUp() {
+		assertThat(widgetChangeLog.capacity()).isEqualTo(4);
+	}
+
+	@Test
+	public void when_widgetsWritten_expect_changesNumberedInOrder() {
+		widgetRepository.save(widget("Gear"));
+		widgetRepository.save(widget("Sprocket"));
+		widgetRepository.deleteById("Gear");
+
+		List<WidgetChange> changes = widgetChangeLog.read(0, 10).orElseThrow();
+
+		assertThat(changes).extracting(WidgetChange::getSequence).containsExactly(1L, 2L, 3L);
+		assertThat(changes).extracting(change -> change.getMutation().getType())
+				.containsExactly(WidgetMutation.Type.UPSERT, WidgetMutation.Type.UPSERT, WidgetMutation.Type.DELETE);
+		assertThat(changes.get(2).getMutation().getName()).isEqualTo("Gear");
+		assertThat(widgetChangeLog.lastSequence()).isEqualTo(3);
+	}
+
+	@Test
+	public void when_readAfterPosition_expect_onlyLaterChangesUpToMax() {
+		widgetRepository.save(widget("Gear"));
+		widgetRepository.save(widget("Sprocket"));
+		widgetRepository.save(widget("Cog"));
+
+		assertThat(widgetChangeLog.read(1, 1).orElseThrow()).extracting(WidgetChange::getSequence).containsExactly(2L);
+		assertThat(widgetChangeLog.read(3, 10).orElseThrow()).isEmpty();
+	}
+
+	@Test
+	public void when_readerFallsOutOfLog_expect_empty() {
+		for (int i = 0; i < 6; i++) {
+			widgetRepository.save(widget("Gear " + i));
+		}
+
+		assertThat(widgetChangeLog.read(1, 10)).isEmpty();
+		assertThat(widgetChangeLog.read(2, 10).orElseThrow()).extracting(WidgetChange::getSequence).containsExactly(3L, 4L, 5L, 6L);
+	}
+
+	@Test
+	public void when_positionAheadOfLog_expect_empty() {
+		widgetRepository.save(widget("Gear"));
+
+		assertThat(widgetChangeLog.read(5, 10)).isEmpty();
+	}
+
+	private static Widget widget(String name) {
+		return Widget.builder().name(name).description("A widget").price(new BigDecimal("1.00")).build();
+	}
+
+}
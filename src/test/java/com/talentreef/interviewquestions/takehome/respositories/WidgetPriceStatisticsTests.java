@@ -0,0 +1,80 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import com.talentreef.interviewquestions.takehome.models.Prices;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+
+public class WidgetPriceStatisticsTests {
+
+	@Test
+	public void when_empty_expect_zeroCountAndNoPrices() {
+		WidgetPriceStatistics.Summary summary = new WidgetPriceStatistics(new WidgetRepository()).summary();
+
+		assertThat(summary.count()).isZero();
+		assertThat(summary.sumCents()).isZero();
+		assertThat(summary.minCents()).isEqualTo(Prices.NONE);
+		assertThat(Arrays.stream(summary.bandCounts()).sum()).isZero();
+	}
+
+	@Test
+	public void when_randomWrites_expect_sameStatisticsAsSortingThePrices() {
+		WidgetRepository widgetRepository = new WidgetRepository();
+		WidgetPriceStatistics statistics = new WidgetPriceStatistics(widgetRepository);
+		Map<String, Long> expected = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 20_000; i++) {
+			String name = "Widget " + random.nextInt(3_000);
+			if (random.nextInt(4) == 0) {
+				widgetRepository.deleteById(name);
+				expected.remove(name);
+			} else {
+				// Mostly cheap widgets, with some at either end of the range.
+				long cents = random.nextInt(10) == 0 ? (random.nextBoolean() ? 100 : 2_000_000) : 100 + random.nextInt(50_000);
+				widgetRepository.save(widget(name, cents));
+				expected.put(name, cents);
+			}
+		}
+
+		WidgetPriceStatistics.Summary summary = statistics.summary();
+		long[] sorted = expected.values().stream().mapToLong(Long::longValue).sorted().toArray();
+		assertThat(summary.count()).isEqualTo(sorted.length);
+		assertThat(summary.sumCents()).isEqualTo(Arrays.stream(sorted).sum());
+		assertThat(summary.minCents()).isEqualTo(sorted[0]);
+		assertThat(summary.maxCents()).isEqualTo(sorted[sorted.length - 1]);
+		for (int i = 0; i < summary.quantileBasisPoints().length; i++) {
+			int rank = (int) Math.ceil(summary.quantileBasisPoints()[i] / 10_000.0 * sorted.length);
+			assertThat(summary.quantileCents()[i]).isEqualTo(sorted[rank - 1]);
+		}
+		long[] bands = summary.bandCents();
+		for (int i = 0; i < bands.length; i++) {
+			long from = bands[i];
+			long to = i + 1 < bands.length ? bands[i + 1] : Long.MAX_VALUE;
+			assertThat(summary.bandCounts()[i]).isEqualTo(Arrays.stream(sorted).filter(cents -> cents >= from && cents < to).count());
+		}
+	}
+
+	@Test
+	public void when_createdAfterWrites_expect_catalogReplayedOnce() {
+		WidgetRepository widgetRepository = new WidgetRepository();
+		widgetRepository.save(widget("Widget A", 1_000));
+		widgetRepository.save(widget("Widget B", 3_000));
+		WidgetPriceStatistics statistics = new WidgetPriceStatistics(widgetRepository);
+
+		widgetRepository.save(widget("Widget A", 2_000));
+
+		assertThat(statistics.summary().count()).isEqualTo(2);
+		assertThat(statistics.summary().sumCents()).isEqualTo(5_000);
+	}
+
+	private static Widget widget(String name, long cents) {
+		return Widget.builder().name(name).description("A widget description").price(BigDecimal.valueOf(cents, 2)).build();
+	}
+
+}
@@ -0,0 +1,220 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetLogPosition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Leaders and followers in one JVM, talking over localhost as separate instances would.
+ */
+public class WidgetReplicationTests {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private WidgetReplicationLeader leader;
+
+	private WidgetReplicationFollower follower;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (follower != null) {
+			follower.close();
+		}
+		if (leader != null) {
+			leader.close();
+		}
+	}
+
+	@Test
+	public void when_leaderWrites_expect_followerConvergesWithSameVersions() throws Exception {
+		WidgetRepository leaderRepository = new WidgetRepository();
+		leaderRepository.save(widget("Widget A", "10.00"));
+		leader = leader(leaderRepository, 0, 65_536);
+		WidgetRepository followerRepository = new WidgetRepository();
+		follower = follower(followerRepository, leader.localPort());
+
+		for (int i = 0; i < 1000; i++) {
+			leaderRepository.save(widget("Widget " + i, "1.99"));
+		}
+		leaderRepository.save(widget("Widget 7", "7.77"));
+		leaderRepository.deleteById("Widget A");
+
+		assertThat(follower.await(leader.position(), TIMEOUT).get()).isTrue();
+		assertThat(followerRepository.findAll()).isEqualTo(leaderRepository.findAll());
+		assertThat(followerRepository.findById("Widget 7").orElseThrow().getVersion())
+				.isEqualTo(leaderRepository.findById("Widget 7").orElseThrow().getVersion());
+		assertThat(snapshots()).isEqualTo(1);
+	}
+
+	@Test
+	public void when_followerHasWidgetsTheLeaderLacks_expect_snapshotDeletesThem() throws Exception {
+		WidgetRepository leaderRepository = new WidgetRepository();
+		leaderRepository.save(widget("Widget A", "10.00"));
+		leader = leader(leaderRepository, 0, 65_536);
+		WidgetRepository followerRepository = new WidgetRepository();
+		for (int i = 0; i < 5; i++) {
+			followerRepository.save(widget("Stale " + i, "1.00"));
+		}
+
+		follower = follower(followerRepository, leader.localPort());
+
+		assertThat(follower.await(leader.position(), TIMEOUT).get()).isTrue();
+		assertThat(followerRepository.findAll()).extracting(Widget::getName).containsExactly("Widget A");
+	}
+
+	@Test
+	public void when_leaderRestartsWithLowerVersions_expect_followerTakesItsCatalog() throws Exception {
+		int port = freePort();
+		WidgetRepository firstRepository = new WidgetRepository();
+		for (int i = 0; i < 10; i++) {
+			firstRepository.save(widget("Widget " + i, "1.00"));
+		}
+		leader = leader(firstRepository, port, 65_536);
+		WidgetRepository followerRepository = new WidgetRepository();
+		follower = follower(followerRepository, port);
+		WidgetLogPosition before = leader.position();
+		assertThat(follower.await(before, TIMEOUT).get()).isTrue();
+		leader.close();
+
+		WidgetRepository secondRepository = new WidgetRepository();
+		secondRepository.save(widget("Widget 3", "3.00"));
+		leader = rebind(secondRepository, port);
+		WidgetLogPosition after = leader.position();
+
+		assertThat(after).isGreaterThan(before);
+		assertThat(awaitFollowing(after)).isTrue();
+		assertThat(followerRepository.findAll()).isEqualTo(secondRepository.findAll());
+		assertThat(followerRepository.findById("Widget 3").orElseThrow().getVersion()).isEqualTo(1);
+	}
+
+	@Test
+	public void when_writesOutrunASmallLog_expect_followerStillConverges() throws Exception {
+		WidgetRepository leaderRepository = new WidgetRepository();
+		leader = leader(leaderRepository, 0, 16);
+		WidgetRepository followerRepository = new WidgetRepository();
+		follower = follower(followerRepository, leader.localPort());
+
+		// A follower that falls out of the log is disconnected and resyncs from a snapshot.
+		for (int i = 0; i < 20_000; i++) {
+			leaderRepository.save(widget("Widget " + (i % 500), "1.00"));
+			if (i % 7 == 0) {
+				leaderRepository.deleteById("Widget " + (i % 300));
+			}
+		}
+
+		assertThat(follower.await(leader.position(), TIMEOUT).get()).isTrue();
+		assertThat(followerRepository.findAll()).isEqualTo(leaderRepository.findAll());
+	}
+
+	@Test
+	public void when_positionNotReached_expect_awaitTimesOut() throws Exception {
+		leader = leader(new WidgetRepository(), 0, 65_536);
+		follower = follower(new WidgetRepository(), leader.localPort());
+		WidgetLogPosition current = leader.position();
+		assertThat(follower.await(current, TIMEOUT).get()).isTrue();
+
+		WidgetLogPosition ahead = new WidgetLogPosition(current.epoch(), current.sequence() + 1);
+
+		assertThat(follower.await(ahead, Duration.ofMillis(100)).get()).isFalse();
+		assertThat(follower.waiting()).isZero();
+	}
+
+	@Test
+	public void when_positionOfLaterEpoch_expect_awaitFailsAtOnce() throws Exception {
+		leader = leader(new WidgetRepository(), 0, 65_536);
+		follower = follower(new WidgetRepository(), leader.localPort());
+		WidgetLogPosition current = leader.position();
+		assertThat(follower.await(current, TIMEOUT).get()).isTrue();
+
+		WidgetLogPosition later = new WidgetLogPosition(current.epoch() + 1, 1);
+
+		assertThat(follower.await(later, TIMEOUT).getNow(null)).isFalse();
+		assertThat(follower.await(new WidgetLogPosition(1, Long.MAX_VALUE), TIMEOUT).getNow(null)).isTrue();
+		assertThat(follower.waiting()).isZero();
+	}
+
+	/**
+	 * Awaits a position of a restarted leader's epoch, which fails at once while the
+	 * follower is still connected to the old leader, as a client retrying its 503 would.
+	 */
+	private boolean awaitFollowing(WidgetLogPosition target) throws Exception {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (!follower.await(target, TIMEOUT).get()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			Thread.sleep(10);
+		}
+		return true;
+	}
+
+	private WidgetReplicationLeader leader(WidgetRepository repository, int port, int capacity) throws IOException {
+		WidgetProperties properties = properties();
+		properties.getReplication().setPort(port);
+		properties.getChanges().setCapacity(capacity);
+		WidgetReplicationLeader started = new WidgetReplicationLeader(repository, new WidgetChangeLog(repository, properties),
+				properties, meterRegistry);
+		started.start();
+		return started;
+	}
+
+	/**
+	 * Starts a leader on a port a previous one used. The port is in the ephemeral range, so
+	 * one of the follower's reconnects may briefly have connected to itself on it.
+	 */
+	private WidgetReplicationLeader rebind(WidgetRepository repository, int port) throws Exception {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (true) {
+			try {
+				return leader(repository, port, 65_536);
+			} catch (BindException e) {
+				if (System.nanoTime() > deadline) {
+					throw e;
+				}
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	private WidgetReplicationFollower follower(WidgetRepository repository, int port) {
+		WidgetProperties properties = properties();
+		properties.getReplication().setLeader("localhost:" + port);
+		WidgetReplicationFollower started = new WidgetReplicationFollower(repository, properties, meterRegistry);
+		started.start();
+		return started;
+	}
+
+	private static WidgetProperties properties() {
+		WidgetProperties properties = new WidgetProperties();
+		properties.getReplication().setHeartbeat(Duration.ofMillis(200));
+		properties.getReplication().setReconnectDelay(Duration.ofMillis(50));
+		return properties;
+	}
+
+	private double snapshots() {
+		return meterRegistry.get("widgets.replication.snapshots").counter().count();
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static Widget widget(String name, String price) {
+		return Widget.builder().name(name).description("A widget description").price(new BigDecimal(price)).build();
+	}
+
+}
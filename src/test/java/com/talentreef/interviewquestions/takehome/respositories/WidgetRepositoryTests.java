@@ -0,0 +1,260 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
+
+public class WidgetRepositoryTests {
+
+	private WidgetRepository widgetRepository;
+
+	@BeforeEach
+	void setUp() {
+		widgetRepository = new WidgetRepository();
+	}
+
+	@Test
+	public void when_save_expect_findByIdReturnsWidget() {
+		Widget widget = widget("Widget A");
+
+		widgetRepository.save(widget);
+
+		assertThat(widgetRepository.findById("Widget A")).contains(widget);
+		assertThat(widgetRepository.findById("Widget B")).isEmpty();
+	}
+
+	@Test
+	public void when_saveExistingName_expect_widgetReplaced() {
+		widgetRepository.save(widget("Widget A"));
+		Widget replacement = widget("Widget A");
+		replacement.setDescription("Replaced description");
+
+		widgetRepository.save(replacement);
+
+		assertThat(widgetRepository.findAll()).containsExactly(replacement);
+	}
+
+	@Test
+	public void when_deleteById_expect_widgetRemoved() {
+		Widget widget = widgetRepository.save(widget("Widget A"));
+		widgetRepository.save(widget("Widget B"));
+
+		assertThat(widgetRepository.deleteById("Widget A")).contains(widget);
+		assertThat(widgetRepository.deleteById("Widget A")).isEmpty();
+		assertThat(widgetRepository.findAll()).extracting(Widget::getName).containsExactly("Widget B");
+	}
+
+	@Test
+	public void when_findAll_expect_widgetsOrderedByName() {
+		widgetRepository.save(widget("Widget C"));
+		widgetRepository.save(widget("Widget A"));
+		widgetRepository.save(widget("Widget B"));
+
+		assertThat(widgetRepository.findAll()).extracting(Widget::getName)
+				.containsExactly("Widget A", "Widget B", "Widget C");
+	}
+
+	@Test
+	public void when_findByNamePrefix_expect_matchingPageAfterCursor() {
+		for (String name : List.of("Gadget", "Widget A", "Widget B", "Widget C", "Widgets", "Wx")) {
+			widgetRepository.save(widget(name));
+		}
+
+		WidgetQuery query = WidgetQuery.builder().namePrefix("Widget ").limit(2).build();
+		assertThat(widgetRepository.find(query)).extracting(Widget::getName).containsExactly("Widget A", "Widget B");
+		assertThat(widgetRepository.find(query.toBuilder().afterName("Widget B").build()))
+				.extracting(Widget::getName).containsExactly("Widget C");
+		assertThat(widgetRepository.find(query.toBuilder().descending(true).build()))
+				.extracting(Widget::getName).containsExactly("Widget C", "Widget B");
+	}
+
+	@Test
+	public void when_findByPriceRange_expect_widgetsOrderedByPriceThenName() {
+		widgetRepository.save(widget("Widget A", "30.00"));
+		widgetRepository.save(widget("Widget B", "10.00"));
+		widgetRepository.save(widget("Widget C", "20.00"));
+		widgetRepository.save(widget("Widget D", "20.00"));
+		widgetRepository.save(widget("Widget E", "5.00"));
+
+		WidgetQuery query = WidgetQuery.builder().sort(WidgetQuery.Sort.PRICE)
+				.minPriceCents(1000L).maxPriceCents(2000L).build();
+		assertThat(widgetRepository.find(query)).extracting(Widget::getName)
+				.containsExactly("Widget B", "Widget C", "Widget D");
+		assertThat(widgetRepository.find(query.toBuilder().afterPriceCents(2000L).afterName("Widget C").build()))
+				.extracting(Widget::getName).containsExactly("Widget D");
+		assertThat(widgetRepository.find(query.toBuilder().descending(true).limit(2).build()))
+				.extracting(Widget::getName).containsExactly("Widget D", "Widget C");
+	}
+
+	@Test
+	public void when_widgetRepriced_expect_priceIndexUpdated() {
+		Widget original = widgetRepository.save(widget("Widget A", "10.00"));
+		widgetRepository.save(original.toBuilder().price(new BigDecimal("50.00")).build());
+
+		WidgetQuery cheap = WidgetQuery.builder().sort(WidgetQuery.Sort.PRICE).maxPriceCents(2000L).build();
+		assertThat(widgetRepository.find(cheap)).isEmpty();
+		widgetRepository.deleteById("Widget A");
+		assertThat(widgetRepository.find(WidgetQuery.builder().sort(WidgetQuery.Sort.PRICE).build())).isEmpty();
+	}
+
+	@Test
+	public void when_putIfAbsentOnExistingName_expect_existingWidgetKept() {
+		Widget existing = widgetRepository.save(widget("Widget A"));
+
+		assertThat(widgetRepository.putIfAbsent(widget("Widget A"))).contains(existing);
+		assertThat(widgetRepository.putIfAbsent(widget("Widget B"))).isEmpty();
+		assertThat(widgetRepository.findById("Widget A")).contains(existing);
+	}
+
+	@Test
+	public void when_compareAndSet_expect_onlyMatchingVersionReplaced() {
+		Widget original = widgetRepository.save(widget("Widget A"));
+		long originalVersion = original.getVersion();
+		Widget first = original.toBuilder().description("First update").build();
+		Widget second = original.toBuilder().description("Second update").build();
+
+		assertThat(widgetRepository.compareAndSet(first, originalVersion)).isTrue();
+		assertThat(widgetRepository.compareAndSet(second, originalVersion)).isFalse();
+		assertThat(widgetRepository.findById("Widget A")).contains(first);
+		assertThat(first.getVersion()).isGreaterThan(originalVersion);
+	}
+
+	@Test
+	public void when_meterRegistryGiven_expect_operationsTimedAndCatalogGauged() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WidgetRepository instrumented = new WidgetRepository(new HeapWidgetStore(), meterRegistry);
+		instrumented.save(widget("Widget A"));
+		instrumented.findById("Widget A");
+		instrumented.findById("Widget B");
+
+		assertThat(meterRegistry.get("widgets.repository.operations").tag("operation", "findById").timer().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("widgets.repository.operations").tag("operation", "save").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("widgets.catalog.size").gauge().value()).isEqualTo(1);
+		assertThat(meterRegistry.get("widgets.storage.memory").tag("backend", "heap").gauge().value()).isPositive();
+		assertThat(meterRegistry.get("widgets.index.memory").gauge().value()).isPositive();
+	}
+
+	@Test
+	public void when_concurrentCreatesOfSameName_expect_singleWinner() throws Exception {
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < 1_000; round++) {
+				String name = "Widget " + round;
+				List<Future<Boolean>> futures = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					futures.add(executor.submit(() -> widgetRepository.putIfAbsent(widget(name)).isEmpty()));
+				}
+				int winners = 0;
+				for (Future<Boolean> future : futures) {
+					winners += future.get(1, TimeUnit.MINUTES) ? 1 : 0;
+				}
+				assertThat(winners).isEqualTo(1);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void when_parallelWriters_expect_noLostUpdates() throws Exception {
+		int writers = 8;
+		int widgetsPerWriter = 125_000;
+		ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		try {
+			Future<?> reader = executor.submit(() -> {
+				while (writing.get()) {
+					assertThat(widgetRepository.findAll()).doesNotContainNull();
+				}
+			});
+			List<Future<?>> futures = new ArrayList<>();
+			for (int w = 0; w < writers; w++) {
+				int writer = w;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < widgetsPerWriter; i++) {
+						widgetRepository.save(widget("Widget " + writer + "-" + i));
+						if (i % 10 == 0) {
+							widgetRepository.deleteById("Widget " + writer + "-" + i);
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(2, TimeUnit.MINUTES);
+			}
+			writing.set(false);
+			reader.get(2, TimeUnit.MINUTES);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		int expected = writers * (widgetsPerWriter - widgetsPerWriter / 10);
+		assertThat(widgetRepository.count()).isEqualTo(expected);
+		assertThat(widgetRepository.findAll()).hasSize(expected);
+		assertThat(widgetRepository.findById("Widget 7-124999")).isPresent();
+		assertThat(widgetRepository.findById("Widget 7-124990")).isEmpty();
+	}
+
+	@Test
+	public void when_journalRejectsAtomicBatch_expect_batchUndoneAndListenersNotTold() {
+		Widget a = widgetRepository.save(widget("Widget A", "10.00"));
+		Widget b = widgetRepository.save(widget("Widget B", "20.00"));
+		List<WidgetMutation> heard = new ArrayList<>();
+		widgetRepository.addListener(heard::add);
+		widgetRepository.setJournal(new WidgetJournal() {
+			@Override
+			public void appendAll(List<WidgetMutation> mutations) {
+				throw new IllegalStateException("Journal failed");
+			}
+
+			@Override
+			public void append(WidgetMutation mutation) {
+			}
+
+			@Override
+			public void awaitDurable() {
+			}
+		});
+
+		assertThatThrownBy(() -> widgetRepository.applyBatch(List.of(
+				WidgetMutation.upsert(widget("Widget A", "11.00")),
+				WidgetMutation.upsert(widget("Widget C", "30.00")),
+				WidgetMutation.delete("Widget B"),
+				WidgetMutation.upsert(widget("Widget A", "12.00"))), true))
+				.isInstanceOf(IllegalStateException.class);
+
+		assertThat(widgetRepository.findAll()).containsExactly(a, b);
+		assertThat(widgetRepository.findById("Widget A").get().getVersion()).isEqualTo(a.getVersion());
+		assertThat(widgetRepository.find(WidgetQuery.builder().sort(WidgetQuery.Sort.PRICE).build()))
+				.extracting(Widget::getName).containsExactly("Widget A", "Widget B");
+		assertThat(heard).isEmpty();
+	}
+
+	private static Widget widget(String name) {
+		return widget(name, "10.99");
+	}
+
+	private static Widget widget(String name, String price) {
+		Widget widget = new Widget();
+		widget.setName(name);
+		widget.setDescription("A widget description");
+		widget.setPrice(new BigDecimal(price));
+		return widget;
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+
+public class WidgetSearchIndexTests {
+
+	private WidgetRepository widgetRepository;
+
+	private WidgetSearchIndex widgetSearchIndex;
+
+	@BeforeEach
+	void setUp() {
+		widgetRepository = new WidgetRepository();
+		widgetSearchIndex = new WidgetSearchIndex(widgetRepository, new SimpleMeterRegistry());
+	}
+
+	@Test
+	public void when_tokenize_expect_lowerCaseWordsAndDigits() {
+		assertThat(WidgetSearchIndex.tokenize("Blue-Gear, 2000 Édition!")).containsExactly("blue", "gear", "2000", "édition");
+	}
+
+	@Test
+	public void when_searchEveryWord_expect_onlyWidgetsContainingAllWords() {
+		widgetRepository.save(widget("Blue Gear", "A small gear"));
+		widgetRepository.save(widget("Red Gear", "A large gear"));
+		widgetRepository.save(widget("Blue Sprocket", "A small sprocket"));
+
+		assertThat(widgetSearchIndex.search("blue small", 10)).containsExactlyInAnyOrder("Blue Gear", "Blue Sprocket");
+		assertThat(widgetSearchIndex.search("GEAR large", 10)).containsExactly("Red Gear");
+		assertThat(widgetSearchIndex.search("green", 10)).isEmpty();
+		assertThat(widgetSearchIndex.search("--", 10)).isEmpty();
+	}
+
+	@Test
+	public void when_searchPrefix_expect_exactAndNameMatchesRankedFirst() {
+		widgetRepository.save(widget("Sprocketeer", "A tool"));
+		widgetRepository.save(widget("Plain", "Works with any sprocket"));
+		widgetRepository.save(widget("Sprocket", "A tool"));
+
+		assertThat(widgetSearchIndex.search("sprocket", 10)).containsExactly("Sprocket", "Sprocketeer", "Plain");
+		assertThat(widgetSearchIndex.search("sprocket", 2)).containsExactly("Sprocket", "Sprocketeer");
+	}
+
+	@Test
+	public void when_widgetUpdatedOrDeleted_expect_indexFollows() {
+		widgetRepository.save(widget("Gear", "Made of brass"));
+		widgetRepository.save(widget("Gear", "Made of steel"));
+
+		assertThat(widgetSearchIndex.search("brass", 10)).isEmpty();
+		assertThat(widgetSearchIndex.search("steel", 10)).containsExactly("Gear");
+
+		widgetRepository.deleteById("Gear");
+
+		assertThat(widgetSearchIndex.search("gear", 10)).isEmpty();
+		assertThat(widgetSearchIndex.termCount()).isZero();
+		assertThat(widgetSearchIndex.footprintBytes()).isZero();
+	}
+
+	@Test
+	public void when_indexCreatedOverExistingWidgets_expect_themSearchable() {
+		WidgetRepository populated = new WidgetRepository();
+		populated.save(widget("Blue Gear", "A small gear"));
+
+		WidgetSearchIndex index = new WidgetSearchIndex(populated, new SimpleMeterRegistry());
+
+		assertThat(index.search("gea", 10)).containsExactly("Blue Gear");
+		assertThat(index.footprintBytes()).isPositive();
+	}
+
+	private static Widget widget(String name, String description) {
+		Widget widget = new Widget();
+		widget.setName(name);
+		widget.setDescription(description);
+		widget.setPrice(new BigDecimal("10.99"));
+		return widget;
+	}
+
+}
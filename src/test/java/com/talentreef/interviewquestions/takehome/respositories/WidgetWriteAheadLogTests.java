@@ -0,0 +1,245 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.config.WidgetProperties.Persistence.FsyncPolicy;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetMutation;
+
+public class WidgetWriteAheadLogTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void when_restarted_expect_writesAndDeletesRecoveredFromLog() throws Exception {
+		WidgetRepository first = new WidgetRepository();
+		WidgetWriteAheadLog log = start(first, FsyncPolicy.ALWAYS, false);
+		first.save(widget("Widget A", "10.00"));
+		Widget b = first.save(widget("Widget B", "20.00"));
+		first.compareAndSet(b.toBuilder().description("Updated").build(), b.getVersion());
+		first.deleteById("Widget A");
+		long sequence = first.currentSequence();
+		log.close();
+
+		WidgetRepository second = new WidgetRepository();
+		start(second, FsyncPolicy.ALWAYS, false).close();
+
+		assertThat(second.findAll()).extracting(Widget::getName).containsExactly("Widget B");
+		assertThat(second.findById("Widget B").get().getDescription()).isEqualTo("Updated");
+		assertThat(second.findById("Widget B").get().getPrice()).isEqualTo(new BigDecimal("20.00"));
+		assertThat(second.currentSequence()).isEqualTo(sequence);
+	}
+
+	@Test
+	public void when_snapshotTaken_expect_oldSegmentsDroppedAndTailReplayed() throws Exception {
+		int widgets = 250_000;
+		WidgetRepository first = new WidgetRepository();
+		WidgetWriteAheadLog log = start(first, FsyncPolicy.NEVER, false);
+		for (int i = 0; i < widgets; i++) {
+			first.save(widget("Widget " + i, "1.99"));
+		}
+		log.snapshot();
+		first.deleteById("Widget 0");
+		first.save(widget("Widget new", "3.50"));
+		log.close();
+
+		assertThat(files("snapshot-")).hasSize(1);
+		assertThat(files("wal-")).hasSize(1);
+
+		WidgetRepository second = new WidgetRepository();
+		start(second, FsyncPolicy.NEVER, false).close();
+
+		assertThat(second.count()).isEqualTo(widgets);
+		assertThat(second.findById("Widget 0")).isEmpty();
+		assertThat(second.findById("Widget new")).isPresent();
+		assertThat(second.findById("Widget 249999").get().getPrice()).isEqualTo(new BigDecimal("1.99"));
+		assertThat(second.currentSequence()).isEqualTo(first.currentSequence());
+	}
+
+	@Test
+	public void when_logTailTorn_expect_recordsBeforeTearRecovered() throws Exception {
+		WidgetRepository first = new WidgetRepository();
+		WidgetWriteAheadLog log = start(first, FsyncPolicy.ALWAYS, false);
+		first.save(widget("Widget A", "10.00"));
+		first.save(widget("Widget B", "20.00"));
+		log.close();
+
+		Path segment = files("wal-").get(0);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+
+		WidgetRepository second = new WidgetRepository();
+		WidgetWriteAheadLog recovered = start(second, FsyncPolicy.ALWAYS, false);
+		assertThat(second.findAll()).extracting(Widget::getName).containsExactly("Widget A");
+		second.save(widget("Widget C", "30.00"));
+		recovered.close();
+
+		WidgetRepository third = new WidgetRepository();
+		start(third, FsyncPolicy.ALWAYS, false).close();
+		assertThat(third.findAll()).extracting(Widget::getName).containsExactly("Widget A", "Widget C");
+	}
+
+	@Test
+	public void when_atomicBatchTorn_expect_wholeBatchDropped() throws Exception {
+		WidgetRepository first = new WidgetRepository();
+		WidgetWriteAheadLog log = start(first, FsyncPolicy.ALWAYS, false);
+		first.save(widget("Widget A", "10.00"));
+		first.applyBatch(List.of(
+				WidgetMutation.upsert(widget("Widget B", "20.00")),
+				WidgetMutation.delete("Widget A")), true);
+		log.close();
+
+		WidgetRepository second = new WidgetRepository();
+		start(second, FsyncPolicy.ALWAYS, false).close();
+		assertThat(second.findAll()).extracting(Widget::getName).containsExactly("Widget B");
+
+		// Cut into the batch's last record: neither of its mutations is replayed.
+		Path segment = files("wal-").get(0);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+
+		WidgetRepository third = new WidgetRepository();
+		start(third, FsyncPolicy.ALWAYS, false).close();
+		assertThat(third.findAll()).extracting(Widget::getName).containsExactly("Widget A");
+	}
+
+	@Test
+	public void when_versionOneSegmentFound_expect_replayed() throws Exception {
+		// Written before atomic batches had a header: magic, version 1, then plain records.
+		ByteBuffer buffer = ByteBuffer.allocate(4096).putInt(0x5757414C).putInt(1);
+		CRC32C crc = new CRC32C();
+		Widget a = widget("Widget A", "10.00");
+		a.setVersion(1);
+		Widget b = widget("Widget B", "12.5");
+		b.setVersion(2);
+		for (WidgetMutation mutation : List.of(WidgetMutation.upsert(a), WidgetMutation.upsert(b), WidgetMutation.delete("Widget A", 3))) {
+			WidgetRecords.write(mutation, buffer, crc);
+		}
+		Files.write(directory.resolve("wal-0000000000000001.log"), Arrays.copyOf(buffer.array(), buffer.position()));
+
+		WidgetRepository repository = new WidgetRepository();
+		WidgetWriteAheadLog log = start(repository, FsyncPolicy.ALWAYS, false);
+		repository.save(widget("Widget C", "30.00"));
+		log.close();
+
+		assertThat(repository.findAll()).extracting(Widget::getName).containsExactly("Widget B", "Widget C");
+		assertThat(repository.findById("Widget B").get().getPrice()).isEqualTo(new BigDecimal("12.5"));
+		assertThat(repository.findById("Widget C").get().getVersion()).isEqualTo(4);
+		WidgetRepository restarted = new WidgetRepository();
+		start(restarted, FsyncPolicy.ALWAYS, false).close();
+		assertThat(restarted.findAll()).extracting(Widget::getName).containsExactly("Widget B", "Widget C");
+	}
+
+	@Test
+	public void when_snapshotCutShortOrCorrupt_expect_recoveryRefused() throws Exception {
+		WidgetRepository first = new WidgetRepository();
+		WidgetWriteAheadLog log = start(first, FsyncPolicy.ALWAYS, false);
+		first.save(widget("Widget A", "10.00"));
+		first.save(widget("Widget B", "20.00"));
+		log.snapshot();
+		log.close();
+
+		// The segments the snapshot replaced are gone, so a partial snapshot cannot be trusted.
+		Path snapshot = files("snapshot-").get(0);
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+		assertThatThrownBy(() -> start(new WidgetRepository(), FsyncPolicy.ALWAYS, false)).isInstanceOf(IOException.class);
+
+		byte[] bytes = Files.readAllBytes(snapshot);
+		bytes[30] ^= 1;
+		Files.write(snapshot, bytes);
+		assertThatThrownBy(() -> start(new WidgetRepository(), FsyncPolicy.ALWAYS, false)).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	public void when_recoveredInBackground_expect_catalogLoadedOnceAwaitedAndWritesJournaled() throws Exception {
+		WidgetRepository first = new WidgetRepository();
+		WidgetWriteAheadLog log = start(first, FsyncPolicy.NEVER, true);
+		for (int i = 0; i < 10_000; i++) {
+			first.save(widget("Widget " + i, "1.99"));
+		}
+		log.close();
+
+		WidgetRepository second = new WidgetRepository();
+		WidgetWriteAheadLog recovering = new WidgetWriteAheadLog(second, properties(FsyncPolicy.NEVER, false, true));
+		recovering.start();
+		recovering.afterSingletonsInstantiated();
+		assertThat(second.count()).isEqualTo(10_000);
+		second.deleteById("Widget 0");
+		recovering.close();
+
+		WidgetRepository third = new WidgetRepository();
+		start(third, FsyncPolicy.NEVER, false).close();
+		assertThat(third.count()).isEqualTo(9_999);
+	}
+
+	@Test
+	public void when_logWriteFails_expect_laterWritesRejectedAndNotRecovered() throws Exception {
+		WidgetRepository first = new WidgetRepository();
+		WidgetWriteAheadLog log = start(first, FsyncPolicy.ALWAYS, false);
+		first.save(widget("Widget A", "10.00"));
+		// A record larger than the log buffer fails the write.
+		Widget oversized = widget("Widget B", "20.00");
+		oversized.setDescription("x".repeat(400_000));
+		assertThatThrownBy(() -> first.save(oversized)).isInstanceOf(IllegalStateException.class);
+		assertThat(first.findById("Widget B")).isEmpty();
+		assertThatThrownBy(() -> first.save(widget("Widget C", "30.00"))).isInstanceOf(IllegalStateException.class);
+		assertThat(first.findById("Widget C")).isEmpty();
+		log.close();
+
+		WidgetRepository second = new WidgetRepository();
+		start(second, FsyncPolicy.ALWAYS, false).close();
+		assertThat(second.findAll()).extracting(Widget::getName).containsExactly("Widget A");
+	}
+
+	private WidgetWriteAheadLog start(WidgetRepository repository, FsyncPolicy fsync, boolean snapshotOnShutdown) throws IOException {
+		WidgetWriteAheadLog log = new WidgetWriteAheadLog(repository, properties(fsync, snapshotOnShutdown, false));
+		log.start();
+		return log;
+	}
+
+	private WidgetProperties properties(FsyncPolicy fsync, boolean snapshotOnShutdown, boolean recoverInBackground) {
+		WidgetProperties properties = new WidgetProperties();
+		properties.getPersistence().setDirectory(directory.toString());
+		properties.getPersistence().setFsync(fsync);
+		properties.getPersistence().setSnapshotInterval(Duration.ofHours(1));
+		properties.getPersistence().setSnapshotOnShutdown(snapshotOnShutdown);
+		properties.getPersistence().setRecoverInBackground(recoverInBackground);
+		return properties;
+	}
+
+	private List<Path> files(String prefix) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().startsWith(prefix)).sorted().toList();
+		}
+	}
+
+	private static Widget widget(String name, String price) {
+		Widget widget = new Widget();
+		widget.setName(name);
+		widget.setDescription("A widget description");
+		widget.setPrice(new BigDecimal(price));
+		return widget;
+	}
+
+}
@@ -0,0 +1,172 @@
+package com.talentreef.interviewquestions.takehome.respositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+
+public class WidgetWriteBehindTests {
+
+	private DataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	public void when_widgetChangedSeveralTimes_expect_latestWrittenOnce() throws Exception {
+		WidgetRepository widgetRepository = new WidgetRepository();
+		WidgetWriteBehind writeBehind = start(widgetRepository, Duration.ofHours(1), 500);
+		Widget a = widgetRepository.save(widget("Widget A", "10.00"));
+		widgetRepository.compareAndSet(a.toBuilder().description("Updated").build(), a.getVersion());
+		widgetRepository.save(widget("Widget B", "20.00"));
+		widgetRepository.save(widget("Widget C", "30.00"));
+		widgetRepository.deleteById("Widget C");
+
+		assertThat(writeBehind.pending()).isEqualTo(3);
+		assertThat(writeBehind.flush()).isEqualTo(3);
+
+		List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT name, description, price, version FROM widget ORDER BY name");
+		assertThat(rows).extracting(row -> row.get("NAME")).containsExactly("Widget A", "Widget B");
+		assertThat(rows.get(0).get("DESCRIPTION")).isEqualTo("Updated");
+		assertThat(rows.get(0).get("VERSION")).isEqualTo(widgetRepository.findById("Widget A").get().getVersion());
+		assertThat(writeBehind.pending()).isZero();
+		assertThat(meterRegistry.get("widgets.jdbc.rows").counter().count()).isEqualTo(3);
+		writeBehind.close();
+	}
+
+	@Test
+	public void when_restarted_expect_catalogLoadedFromDatabase() throws Exception {
+		WidgetRepository first = new WidgetRepository();
+		WidgetWriteBehind writeBehind = start(first, Duration.ofHours(1), 500);
+		first.save(widget("Widget A", "10.00"));
+		Widget b = first.save(widget("Widget B", "20.50"));
+		first.compareAndSet(b.toBuilder().description("Updated").build(), b.getVersion());
+		first.deleteById("Widget A");
+		long sequence = first.currentSequence();
+		// Closing writes what is still dirty.
+		writeBehind.close();
+
+		WidgetRepository second = new WidgetRepository();
+		start(second, Duration.ofHours(1), 500).close();
+
+		assertThat(second.findAll()).extracting(Widget::getName).containsExactly("Widget B");
+		assertThat(second.findById("Widget B").get().getDescription()).isEqualTo("Updated");
+		assertThat(second.findById("Widget B").get().getPrice()).isEqualTo(new BigDecimal("20.50"));
+		assertThat(second.findById("Widget B").get().getVersion()).isEqualTo(first.findById("Widget B").get().getVersion());
+		// The delete of Widget A took the last version.
+		assertThat(second.currentSequence()).isEqualTo(sequence);
+	}
+
+	@Test
+	public void when_restarted_expect_pricesWithTheirDecimals() throws Exception {
+		WidgetRepository first = new WidgetRepository();
+		WidgetWriteBehind writeBehind = start(first, Duration.ofHours(1), 500);
+		first.save(widget("Widget A", "12"));
+		first.save(widget("Widget B", "12.5"));
+		first.save(widget("Widget C", "12.500"));
+		first.save(Widget.builder().name("Widget D").description("A widget description").price(null).build());
+		writeBehind.close();
+
+		WidgetRepository second = new WidgetRepository();
+		start(second, Duration.ofHours(1), 500).close();
+
+		assertThat(second.findAll()).extracting(Widget::getPrice)
+				.containsExactly(new BigDecimal("12"), new BigDecimal("12.5"), new BigDecimal("12.500"), null);
+	}
+
+	@Test
+	public void when_closedWithoutStarting_expect_nothingWritten() throws Exception {
+		WidgetProperties widgetProperties = new WidgetProperties();
+		widgetProperties.getJdbc().setEnabled(true);
+
+		new WidgetWriteBehind(new WidgetRepository(), widgetProperties, dataSource, meterRegistry).close();
+	}
+
+	@Test
+	public void when_flushThresholdReached_expect_flushBeforeInterval() throws Exception {
+		WidgetRepository widgetRepository = new WidgetRepository();
+		WidgetWriteBehind writeBehind = start(widgetRepository, Duration.ofHours(1), 10);
+		for (int i = 0; i < 10; i++) {
+			widgetRepository.save(widget("Widget " + i, "1.99"));
+		}
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (count() < 10 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(count()).isEqualTo(10);
+		assertThat(meterRegistry.get("widgets.jdbc.exposure").timer().count()).isEqualTo(1);
+		writeBehind.close();
+	}
+
+	@Test
+	public void when_flushIntervalElapsed_expect_changesWritten() throws Exception {
+		WidgetRepository widgetRepository = new WidgetRepository();
+		WidgetWriteBehind writeBehind = start(widgetRepository, Duration.ofMillis(50), 500);
+		widgetRepository.save(widget("Widget A", "10.00"));
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (count() < 1 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(count()).isEqualTo(1);
+		writeBehind.close();
+	}
+
+	@Test
+	public void when_databaseRejectsBatch_expect_changesKeptForRetry() throws Exception {
+		WidgetRepository widgetRepository = new WidgetRepository();
+		WidgetWriteBehind writeBehind = start(widgetRepository, Duration.ofHours(1), 500);
+		widgetRepository.save(widget("Widget A", "10.00"));
+		jdbcTemplate.execute("ALTER TABLE widget RENAME TO widget_moved");
+
+		assertThat(writeBehind.flush()).isZero();
+		assertThat(writeBehind.pending()).isEqualTo(1);
+		assertThat(meterRegistry.get("widgets.jdbc.failures").counter().count()).isEqualTo(1);
+
+		jdbcTemplate.execute("ALTER TABLE widget_moved RENAME TO widget");
+		assertThat(writeBehind.flush()).isEqualTo(1);
+		assertThat(count()).isEqualTo(1);
+		writeBehind.close();
+	}
+
+	private WidgetWriteBehind start(WidgetRepository widgetRepository, Duration flushInterval, int flushThreshold) {
+		WidgetProperties widgetProperties = new WidgetProperties();
+		widgetProperties.getJdbc().setEnabled(true);
+		widgetProperties.getJdbc().setFlushInterval(flushInterval);
+		widgetProperties.getJdbc().setFlushThreshold(flushThreshold);
+		WidgetWriteBehind writeBehind = new WidgetWriteBehind(widgetRepository, widgetProperties, dataSource, meterRegistry);
+		writeBehind.start();
+		return writeBehind;
+	}
+
+	private int count() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM widget", Integer.class);
+	}
+
+	private static Widget widget(String name, String price) {
+		return Widget.builder().name(name).description("A widget description").price(new BigDecimal(price)).build();
+	}
+
+}
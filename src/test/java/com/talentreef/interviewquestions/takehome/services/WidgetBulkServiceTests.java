@@ -0,0 +1,118 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.math.BigDecimal;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkItemResultDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkItemResultDTO.Status;
+import com.talentreef.interviewquestions.takehome.dto.WidgetBulkResponseDTO;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+
+public class WidgetBulkServiceTests {
+
+	private WidgetRepository widgetRepository;
+
+	private WidgetProperties widgetProperties;
+
+	private WidgetBulkService widgetBulkService;
+
+	@BeforeEach
+	void setUp() {
+		widgetRepository = new WidgetRepository();
+		widgetProperties = new WidgetProperties();
+		widgetProperties.getBulk().setChunkSize(2);
+		widgetBulkService = new WidgetBulkService(widgetRepository, new WidgetValidator(), new ObjectMapper(), widgetProperties,
+				new SimpleMeterRegistry());
+		widgetRepository.save(Widget.builder().name("Existing Widget").description("An existing widget").price(new BigDecimal("5.00")).build());
+	}
+
+	@Test
+	public void when_bestEffortBulk_expect_validItemsAppliedAcrossChunks() throws Exception {
+		WidgetBulkResponseDTO response = widgetBulkService.bulk(json("""
+				[{"op":"upsert","name":"New Widget","description":"A new widget","price":10.00},
+				 {"op":"upsert","name":"Existing Widget","description":"Repriced widget","price":7.50},
+				 {"op":"upsert","name":"X","description":"Name too short","price":10.00},
+				 {"op":"delete","name":"Missing Widget"},
+				 {"op":"delete","name":"New Widget"}]
+				"""), false);
+
+		assertThat(response.isApplied()).isTrue();
+		assertThat(response.getItems()).extracting(WidgetBulkItemResultDTO::getStatus)
+				.containsExactly(Status.CREATED, Status.UPDATED, Status.INVALID, Status.NOT_FOUND, Status.DELETED);
+		assertThat(response.getItems().get(2).getErrors()).containsExactly("name: Name must be between 3 and 100 characters");
+		assertThat(widgetRepository.findById("Existing Widget")).map(Widget::getPrice).contains(new BigDecimal("7.50"));
+		assertThat(widgetRepository.findById("New Widget")).isEmpty();
+	}
+
+	@Test
+	public void when_atomicBulkWithInvalidItem_expect_nothingApplied() throws Exception {
+		WidgetBulkResponseDTO response = widgetBulkService.bulk(json("""
+				[{"op":"upsert","name":"New Widget","description":"A new widget","price":10.00},
+				 {"op":"upsert","name":"Too Expensive","description":"Over the limit","price":20000.01}]
+				"""), true);
+
+		assertThat(response.isApplied()).isFalse();
+		assertThat(response.getItems()).extracting(WidgetBulkItemResultDTO::getStatus)
+				.containsExactly(Status.ABORTED, Status.INVALID);
+		assertThat(widgetRepository.findById("New Widget")).isEmpty();
+	}
+
+	@Test
+	public void when_atomicBulkDeletesMissingWidget_expect_nothingApplied() throws Exception {
+		WidgetBulkResponseDTO response = widgetBulkService.bulk(json("""
+				[{"op":"delete","name":"Existing Widget"},
+				 {"op":"upsert","name":"New Widget","description":"A new widget","price":10.00},
+				 {"op":"delete","name":"Existing Widget"}]
+				"""), true);
+
+		assertThat(response.isApplied()).isFalse();
+		assertThat(response.getItems()).extracting(WidgetBulkItemResultDTO::getStatus)
+				.containsExactly(Status.ABORTED, Status.ABORTED, Status.NOT_FOUND);
+		assertThat(widgetRepository.findById("Existing Widget")).isPresent();
+		assertThat(widgetRepository.findById("New Widget")).isEmpty();
+	}
+
+	@Test
+	public void when_bulkModeNotGiven_expect_configuredDefault() throws Exception {
+		widgetProperties.getBulk().setAtomic(true);
+
+		WidgetBulkResponseDTO response = widgetBulkService.bulk(json("[]"), null);
+
+		assertThat(response.isAtomic()).isTrue();
+		assertThat(response.getItems()).isEmpty();
+	}
+
+	@Test
+	public void when_atomicBulkTooLarge_expect_ResponseStatusException() {
+		widgetProperties.getBulk().setMaxAtomicOperations(1);
+
+		assertThatThrownBy(() -> widgetBulkService.bulk(json("""
+				[{"op":"delete","name":"Existing Widget"},{"op":"delete","name":"Other Widget"}]
+				"""), true))
+				.isInstanceOf(ResponseStatusException.class)
+				.hasFieldOrPropertyWithValue("status", HttpStatus.PAYLOAD_TOO_LARGE);
+	}
+
+	@Test
+	public void when_bulkMalformed_expect_ResponseStatusException() {
+		assertThatThrownBy(() -> widgetBulkService.bulk(json("[{\"op\":\"upsert\","), false))
+				.isInstanceOf(ResponseStatusException.class)
+				.hasFieldOrPropertyWithValue("status", HttpStatus.BAD_REQUEST);
+	}
+
+	private static InputStream json(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
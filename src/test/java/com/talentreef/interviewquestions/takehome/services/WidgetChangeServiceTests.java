@@ -0,0 +1,128 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.dto.WidgetChangeDTO;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetChangeLog;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class WidgetChangeServiceTests {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private WidgetRepository widgetRepository;
+
+	private WidgetChangeService widgetChangeService;
+
+	@BeforeEach
+	void setUp() {
+		WidgetProperties widgetProperties = new WidgetProperties();
+		widgetProperties.getChanges().setCapacity(4);
+		widgetRepository = new WidgetRepository();
+		WidgetChangeLog widgetChangeLog = new WidgetChangeLog(widgetRepository, widgetProperties);
+		widgetChangeService = new WidgetChangeService(widgetChangeLog, widgetRepository, widgetProperties, new SimpleMeterRegistry());
+	}
+
+	@Test
+	public void when_subscribedBeforeWrites_expect_liveChanges() throws Exception {
+		widgetRepository.save(widget("Old Gear"));
+		CompletableFuture<List<WidgetChangeDTO>> changes = widgetChangeService.changes(null).take(2).collectList().toFuture();
+		awaitSubscribers(1);
+
+		widgetRepository.save(widget("Gear"));
+		widgetRepository.deleteById("Gear");
+
+		assertThat(changes.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS))
+				.extracting(WidgetChangeDTO::getSequence, WidgetChangeDTO::getType, WidgetChangeDTO::getName)
+				.containsExactly(
+						tuple(2L, WidgetChangeDTO.Type.UPSERT, "Gear"),
+						tuple(3L, WidgetChangeDTO.Type.DELETE, "Gear"));
+		assertThat(widgetChangeService.subscriberCount()).isZero();
+	}
+
+	@Test
+	public void when_resumedAfterPosition_expect_missedChangesFirst() {
+		widgetRepository.save(widget("Gear"));
+		widgetRepository.save(widget("Sprocket"));
+		widgetRepository.save(widget("Cog"));
+
+		List<WidgetChangeDTO> changes = widgetChangeService.changes(1L).take(2).collectList().block(TIMEOUT);
+
+		assertThat(changes).extracting(WidgetChangeDTO::getName).containsExactly("Sprocket", "Cog");
+		assertThat(changes.get(0).getWidget().getName()).isEqualTo("Sprocket");
+		assertThat(changes.get(0).getVersion()).isEqualTo(2L);
+	}
+
+	@Test
+	public void when_resumedOutsideLog_expect_resetThenLiveChanges() throws Exception {
+		for (int i = 0; i < 6; i++) {
+			widgetRepository.save(widget("Gear " + i));
+		}
+		CompletableFuture<List<WidgetChangeDTO>> changes = widgetChangeService.changes(0L).take(2).collectList().toFuture();
+		awaitSubscribers(1);
+
+		widgetRepository.save(widget("Sprocket"));
+
+		List<WidgetChangeDTO> received = changes.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+		assertThat(received.get(0).getType()).isEqualTo(WidgetChangeDTO.Type.RESET);
+		assertThat(received.get(0).getSequence()).isEqualTo(6L);
+		assertThat(received.get(1).getName()).isEqualTo("Sprocket");
+	}
+
+	@Test
+	public void when_subscriberRequestsNothing_expect_writesNotBlocked() {
+		widgetChangeService.changes(null).subscribe(new Subscriber<>() {
+			@Override
+			public void onSubscribe(Subscription subscription) {
+				// never requests
+			}
+
+			@Override
+			public void onNext(WidgetChangeDTO change) {
+			}
+
+			@Override
+			public void onError(Throwable error) {
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		});
+
+		for (int i = 0; i < 100; i++) {
+			widgetRepository.save(widget("Gear " + i));
+		}
+
+		assertThat(widgetRepository.count()).isEqualTo(100);
+		assertThat(widgetChangeService.subscriberCount()).isEqualTo(1);
+	}
+
+	private void awaitSubscribers(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (widgetChangeService.subscriberCount() < count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static Widget widget(String name) {
+		return Widget.builder().name(name).description("A widget").price(new BigDecimal("1.00")).build();
+	}
+
+}
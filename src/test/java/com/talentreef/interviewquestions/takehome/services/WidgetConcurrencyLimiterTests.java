@@ -0,0 +1,89 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+
+public class WidgetConcurrencyLimiterTests {
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private WidgetConcurrencyLimiter widgetConcurrencyLimiter;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		WidgetProperties widgetProperties = new WidgetProperties();
+		WidgetProperties.Admission.Concurrency settings = widgetProperties.getAdmission().getConcurrency();
+		settings.setEnabled(true);
+		settings.setInitialLimit(16);
+		settings.setMinLimit(4);
+		settings.setMaxLimit(64);
+		// Every completed request closes a window.
+		settings.setWindow(Duration.ofNanos(1));
+		widgetConcurrencyLimiter = new WidgetConcurrencyLimiter(widgetProperties, meterRegistry);
+	}
+
+	@Test
+	public void when_limitReached_expect_rejected() {
+		for (int i = 0; i < 16; i++) {
+			assertThat(widgetConcurrencyLimiter.tryAcquire()).isTrue();
+		}
+
+		assertThat(widgetConcurrencyLimiter.tryAcquire()).isFalse();
+		assertThat(meterRegistry.get("widgets.admission.rejected").tag("reason", "concurrency").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("widgets.admission.inflight").gauge().value()).isEqualTo(16);
+	}
+
+	@Test
+	public void when_busyAndLatencySteady_expect_limitGrows() {
+		for (int round = 0; round < 20; round++) {
+			runRound(widgetConcurrencyLimiter.limit(), millis(10));
+		}
+
+		assertThat(widgetConcurrencyLimiter.limit()).isGreaterThan(16);
+	}
+
+	@Test
+	public void when_idle_expect_limitHeld() {
+		for (int round = 0; round < 20; round++) {
+			runRound(1, millis(10));
+		}
+
+		assertThat(widgetConcurrencyLimiter.limit()).isEqualTo(16);
+	}
+
+	@Test
+	public void when_latencyRises_expect_limitShrinks() {
+		for (int round = 0; round < 5; round++) {
+			runRound(16, millis(10));
+		}
+		int grown = widgetConcurrencyLimiter.limit();
+
+		for (int round = 0; round < 3; round++) {
+			runRound(widgetConcurrencyLimiter.limit(), millis(100));
+		}
+
+		assertThat(grown).isGreaterThan(16);
+		assertThat(widgetConcurrencyLimiter.limit()).isLessThan(16);
+	}
+
+	/** Admits {@code count} requests at once, then completes them, each taking {@code latencyNanos}. */
+	private void runRound(int count, long latencyNanos) {
+		for (int i = 0; i < count; i++) {
+			assertThat(widgetConcurrencyLimiter.tryAcquire()).isTrue();
+		}
+		for (int i = 0; i < count; i++) {
+			widgetConcurrencyLimiter.release(latencyNanos);
+		}
+	}
+
+	private static long millis(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+}
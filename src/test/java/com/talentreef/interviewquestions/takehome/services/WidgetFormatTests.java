@@ -0,0 +1,31 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class WidgetFormatTests {
+
+	@Test
+	public void when_acceptMissingOrWildcard_expect_json() {
+		assertThat(WidgetFormat.accepted(null)).isEqualTo(WidgetFormat.JSON);
+		assertThat(WidgetFormat.accepted("*/*")).isEqualTo(WidgetFormat.JSON);
+		assertThat(WidgetFormat.accepted("application/*")).isEqualTo(WidgetFormat.JSON);
+	}
+
+	@Test
+	public void when_acceptListsFormats_expect_highestQualityThenFirstListed() {
+		assertThat(WidgetFormat.accepted("application/cbor")).isEqualTo(WidgetFormat.CBOR);
+		assertThat(WidgetFormat.accepted("application/json;q=0.5, application/x-jackson-smile")).isEqualTo(WidgetFormat.SMILE);
+		assertThat(WidgetFormat.accepted("application/cbor, application/x-jackson-smile")).isEqualTo(WidgetFormat.CBOR);
+		assertThat(WidgetFormat.accepted("text/html, application/cbor;q=0.1")).isEqualTo(WidgetFormat.CBOR);
+	}
+
+	@Test
+	public void when_contentType_expect_itsFormat() {
+		assertThat(WidgetFormat.of("application/cbor")).isEqualTo(WidgetFormat.CBOR);
+		assertThat(WidgetFormat.of("application/json;charset=UTF-8")).isEqualTo(WidgetFormat.JSON);
+		assertThat(WidgetFormat.of(null)).isEqualTo(WidgetFormat.JSON);
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+
+public class WidgetRateLimiterTests {
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private WidgetRateLimiter widgetRateLimiter;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		WidgetProperties widgetProperties = new WidgetProperties();
+		WidgetProperties.Admission.RateLimit settings = widgetProperties.getAdmission().getRateLimit();
+		settings.setEnabled(true);
+		settings.setRate(1);
+		settings.setBurst(5);
+		settings.setListCost(3);
+		widgetRateLimiter = new WidgetRateLimiter(widgetProperties, meterRegistry);
+	}
+
+	@Test
+	public void when_burstSpent_expect_rejectedWithWaitForOneToken() {
+		for (int i = 0; i < 5; i++) {
+			assertThat(widgetRateLimiter.acquire("key:a", false)).isZero();
+		}
+
+		long wait = widgetRateLimiter.acquire("key:a", false);
+
+		assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+		assertThat(meterRegistry.get("widgets.admission.rejected").tag("reason", "rate_limit").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void when_fullScan_expect_listCostTaken() {
+		assertThat(widgetRateLimiter.acquire("key:a", true)).isZero();
+		assertThat(widgetRateLimiter.acquire("key:a", false)).isZero();
+		assertThat(widgetRateLimiter.acquire("key:a", false)).isZero();
+
+		assertThat(widgetRateLimiter.acquire("key:a", true)).isGreaterThan(TimeUnit.SECONDS.toNanos(2));
+	}
+
+	@Test
+	public void when_oneClientLimited_expect_othersAdmitted() {
+		for (int i = 0; i < 5; i++) {
+			widgetRateLimiter.acquire("ip:10.0.0.1", false);
+		}
+		assertThat(widgetRateLimiter.acquire("ip:10.0.0.1", false)).isPositive();
+
+		int admitted = 0;
+		for (int i = 0; i < 100; i++) {
+			if (widgetRateLimiter.acquire("ip:10.0.1." + i, false) == 0) {
+				admitted++;
+			}
+		}
+
+		// 65536 buckets: a collision with the limited client is possible but very unlikely.
+		assertThat(admitted).isGreaterThanOrEqualTo(99);
+	}
+
+}
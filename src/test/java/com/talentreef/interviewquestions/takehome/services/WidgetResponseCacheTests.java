@@ -0,0 +1,136 @@
+package com.talentreef.interviewquestions.takehome.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talentreef.interviewquestions.config.WidgetProperties;
+import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class WidgetResponseCacheTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private WidgetRepository widgetRepository;
+
+	private WidgetResponseCache widgetResponseCache;
+
+	@BeforeEach
+	void setUp() {
+		widgetRepository = new WidgetRepository();
+		widgetResponseCache = new WidgetResponseCache(widgetRepository, objectMapper, new WidgetProperties(),
+				new SimpleMeterRegistry());
+	}
+
+	@Test
+	public void when_widgetRequestedTwice_expect_sameSerializedBody() {
+		Widget widget = widgetRepository.save(widget("Widget A", "10.99"));
+
+		byte[] first = widgetResponseCache.widget(widget).body().get();
+		byte[] second = widgetResponseCache.widget(widgetRepository.findById("Widget A").orElseThrow()).body().get();
+
+		assertThat(second).isSameAs(first);
+	}
+
+	@Test
+	public void when_widgetSaved_expect_newEtagAndRebuiltBody() throws Exception {
+		Widget original = widgetRepository.save(widget("Widget A", "10.99"));
+		CachedJson before = widgetResponseCache.widget(original);
+		before.body().get();
+
+		Widget updated = widgetRepository.save(widget("Widget A", "12.50"));
+		CachedJson after = widgetResponseCache.widget(updated);
+
+		assertThat(after.etag()).isNotEqualTo(before.etag()).isEqualTo(WidgetResponseCache.etag(updated.getVersion()));
+		assertThat(objectMapper.readValue(after.body().get(), WidgetDTO.class).getPrice()).isEqualTo(new BigDecimal("12.50"));
+	}
+
+	@Test
+	public void when_listUnchanged_expect_sameEtagAndBody() {
+		widgetRepository.save(widget("Widget A", "10.99"));
+
+		CachedJson first = widgetResponseCache.list();
+		CachedJson second = widgetResponseCache.list();
+
+		assertThat(second.etag()).isEqualTo(first.etag());
+		assertThat(second.body().get()).isSameAs(first.body().get());
+	}
+
+	@Test
+	public void when_widgetSavedOrDeleted_expect_listEtagChangesAndBodyReflectsWrite() throws Exception {
+		widgetRepository.save(widget("Widget A", "10.99"));
+		CachedJson initial = widgetResponseCache.list();
+		initial.body().get();
+
+		widgetRepository.save(widget("Widget B", "5.00"));
+		CachedJson afterSave = widgetResponseCache.list();
+		assertThat(names(afterSave.body().get())).containsExactly("Widget A", "Widget B");
+		widgetRepository.deleteById("Widget A");
+		CachedJson afterDelete = widgetResponseCache.list();
+
+		assertThat(List.of(initial.etag(), afterSave.etag(), afterDelete.etag())).doesNotHaveDuplicates()
+				.allMatch(etag -> etag.startsWith("W/\""));
+		assertThat(names(afterDelete.body().get())).containsExactly("Widget B");
+	}
+
+	@Test
+	public void when_listRequestedAsCbor_expect_sameWidgetsUnderCborEtag() throws Exception {
+		widgetRepository.save(widget("Widget B", "5.00"));
+		widgetRepository.save(widget("Widget A", "10.9"));
+		ObjectMapper cborMapper = WidgetFormat.CBOR.mapper(objectMapper);
+		TypeReference<List<WidgetDTO>> listType = new TypeReference<>() {
+		};
+
+		CachedJson json = widgetResponseCache.list();
+		CachedJson cbor = widgetResponseCache.list(WidgetFormat.CBOR);
+
+		assertThat(cbor.etag()).isEqualTo(json.etag().replaceFirst("\"$", "-cbor\""));
+		assertThat(widgetResponseCache.list(WidgetFormat.SMILE).etag()).isNotIn(json.etag(), cbor.etag());
+		assertThat(cbor.body().get()).isSameAs(cbor.body().get()).isNotEqualTo(json.body().get());
+		assertThat(cborMapper.readValue(cbor.body().get(), listType)).usingRecursiveComparison()
+				.isEqualTo(objectMapper.readValue(json.body().get(), listType));
+	}
+
+	@Test
+	public void when_precomputed_expect_sameBytesAsSerializedOnRequest() {
+		widgetRepository.save(widget("Widget B", "5.00"));
+		widgetRepository.save(widget("Widget A", "10.99"));
+		WidgetProperties properties = new WidgetProperties();
+		properties.getCache().setPrecompute(true);
+		WidgetResponseCache precomputed = new WidgetResponseCache(widgetRepository, objectMapper, properties,
+				new SimpleMeterRegistry());
+
+		widgetRepository.save(widget("Widget C", "1.5e2"));
+		widgetRepository.save(widget("Widget A", "12.500"));
+		widgetRepository.deleteById("Widget B");
+		Widget widget = widgetRepository.findById("Widget A").orElseThrow();
+
+		assertThat(precomputed.list().body().get()).isEqualTo(widgetResponseCache.list().body().get());
+		assertThat(precomputed.widget(widget).body().get()).isEqualTo(widgetResponseCache.widget(widget).body().get());
+		assertThat(precomputed.widgetsJson()).hasSize(2);
+		widgetRepository.deleteById("Widget A");
+		widgetRepository.deleteById("Widget C");
+		assertThat(precomputed.list().body().get()).isEqualTo(widgetResponseCache.list().body().get()).asString().isEqualTo("[]");
+	}
+
+	private List<String> names(byte[] json) throws Exception {
+		return objectMapper.readValue(json, new TypeReference<List<WidgetDTO>>() {
+		}).stream().map(WidgetDTO::getName).toList();
+	}
+
+	private static Widget widget(String name, String price) {
+		Widget widget = new Widget();
+		widget.setName(name);
+		widget.setDescription("A widget description");
+		widget.setPrice(new BigDecimal(price));
+		return widget;
+	}
+
+}
@@ -3,13 +3,20 @@ package com.talentreef.interviewquestions.takehome.services;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.math.BigDecimal;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -17,17 +24,45 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import com.talentreef.interviewquestions.takehome.dto.WidgetDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetPageDTO;
+import com.talentreef.interviewquestions.takehome.dto.WidgetStatsDTO;
+import com.talentreef.interviewquestions.takehome.models.Prices;
 import com.talentreef.interviewquestions.takehome.models.Widget;
+import com.talentreef.interviewquestions.takehome.models.WidgetQuery;
 import com.talentreef.interviewquestions.takehome.respositories.WidgetRepository;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetPriceStatistics;
+import com.talentreef.interviewquestions.takehome.respositories.WidgetSearchIndex;
 
 public class WidgetServiceTests {
 
 	@Mock
 	private WidgetRepository widgetRepository;
 
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+
+	@Spy
+	private WidgetValidator widgetValidator = new WidgetValidator();
+
+	@Mock
+	private WidgetResponseCache widgetResponseCache;
+
+	@Mock
+	private WidgetSearchIndex widgetSearchIndex;
+
+	@Mock
+	private WidgetPriceStatistics widgetPriceStatistics;
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
 	@InjectMocks
 	private WidgetService widgetService;
 
@@ -58,6 +93,98 @@ public class WidgetServiceTests {
 		assertThat(resultDto.getPrice()).isEqualTo(existingWidget.getPrice());
 	}
 
+	@Test
+	public void when_exportWidgets_expect_oneJsonLinePerWidget() throws Exception {
+		Widget first = Widget.builder().name("Widget A").description("First description").price(new BigDecimal("10.00")).build();
+		Widget second = Widget.builder().name("Widget B").description("Second description").price(new BigDecimal("20.50")).build();
+		when(widgetRepository.iterator()).thenReturn(List.of(first, second).iterator());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		widgetService.exportWidgets(out);
+
+		assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+				"{\"name\":\"Widget A\",\"description\":\"First description\",\"price\":10.00}\n"
+						+ "{\"name\":\"Widget B\",\"description\":\"Second description\",\"price\":20.50}\n");
+	}
+
+	@Test
+	public void when_exportEmptyCatalog_expect_emptyOutput() throws Exception {
+		when(widgetRepository.iterator()).thenReturn(Collections.emptyIterator());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		widgetService.exportWidgets(out);
+
+		assertThat(out.size()).isZero();
+	}
+
+	@Test
+	public void when_searchWidgets_expect_rankedWidgetsSkippingOnesDeletedSinceIndexed() {
+		Widget first = Widget.builder().name("Blue Gear").description("A widget description").price(new BigDecimal("10.00")).build();
+		Widget second = Widget.builder().name("Gear Blue").description("A widget description").price(new BigDecimal("20.00")).build();
+		when(widgetSearchIndex.search("blue", 10)).thenReturn(List.of("Gear Blue", "Gone", "Blue Gear"));
+		when(widgetRepository.findById("Gear Blue")).thenReturn(Optional.of(second));
+		when(widgetRepository.findById("Gone")).thenReturn(Optional.empty());
+		when(widgetRepository.findById("Blue Gear")).thenReturn(Optional.of(first));
+
+		List<WidgetDTO> results = widgetService.searchWidgets("blue", 10);
+
+		assertThat(results).extracting(WidgetDTO::getName).containsExactly("Gear Blue", "Blue Gear");
+	}
+
+	@Test
+	public void when_getStatistics_expect_pricesInDollarsAndBandsUpToTheMaximum() throws Exception {
+		when(widgetPriceStatistics.summary()).thenReturn(new WidgetPriceStatistics.Summary(3, 6_000, 1_000, 3_000,
+				new int[] { 5000 }, new long[] { 2_000 }, new long[] { 100, 1_000 }, new long[] { 0, 3 }));
+
+		WidgetStatsDTO stats = widgetService.getStatistics();
+
+		assertThat(objectMapper.writeValueAsString(stats)).isEqualTo("{\"count\":3,\"sum\":60.00,\"min\":10.00,\"max\":30.00,"
+				+ "\"mean\":20.00,\"quantiles\":{\"p50\":20.00},\"histogram\":[{\"from\":1.00,\"to\":10.00,\"count\":0},"
+				+ "{\"from\":10.00,\"to\":20000.00,\"count\":3}]}");
+	}
+
+	@Test
+	public void when_getStatisticsOfEmptyCatalog_expect_onlyCountSumAndHistogram() throws Exception {
+		when(widgetPriceStatistics.summary()).thenReturn(new WidgetPriceStatistics.Summary(0, 0, Prices.NONE, Prices.NONE,
+				new int[] { 5000 }, new long[1], new long[] { 100 }, new long[1]));
+
+		assertThat(objectMapper.writeValueAsString(widgetService.getStatistics()))
+				.isEqualTo("{\"count\":0,\"sum\":0.00,\"histogram\":[{\"from\":1.00,\"to\":20000.00,\"count\":0}]}");
+	}
+
+	@Test
+	public void when_findWidgetsPage_expect_nextCursorResumingAfterLastWidget() {
+		Widget first = Widget.builder().name("Widget A").description("A widget description").price(new BigDecimal("10.00")).build();
+		Widget second = Widget.builder().name("Widget B").description("A widget description").price(new BigDecimal("20.00")).build();
+		Widget third = Widget.builder().name("Widget C").description("A widget description").price(new BigDecimal("30.00")).build();
+		WidgetQuery query = WidgetQuery.builder().sort(WidgetQuery.Sort.PRICE).limit(2).build();
+
+		when(widgetRepository.find(query.toBuilder().limit(3).build())).thenReturn(List.of(first, second, third));
+
+		WidgetPageDTO page = widgetService.findWidgets(query, null);
+
+		assertThat(page.getItems()).extracting(WidgetDTO::getName).containsExactly("Widget A", "Widget B");
+		assertThat(page.getNextCursor()).isNotNull();
+
+		widgetService.findWidgets(query, page.getNextCursor());
+
+		verify(widgetRepository).find(query.toBuilder().limit(3).afterPriceCents(2000L).afterName("Widget B").build());
+	}
+
+	@Test
+	public void when_findWidgetsWithCursorOfOtherSort_expect_ResponseStatusException() {
+		WidgetQuery byName = WidgetQuery.builder().limit(1).build();
+		when(widgetRepository.find(any(WidgetQuery.class))).thenReturn(List.of(
+				Widget.builder().name("Widget A").price(new BigDecimal("10.00")).build(),
+				Widget.builder().name("Widget B").price(new BigDecimal("20.00")).build()));
+
+		String cursor = widgetService.findWidgets(byName, null).getNextCursor();
+
+		assertThatThrownBy(() -> widgetService.findWidgets(byName.toBuilder().sort(WidgetQuery.Sort.PRICE).build(), cursor))
+				.isInstanceOf(ResponseStatusException.class)
+				.hasFieldOrPropertyWithValue("status", HttpStatus.BAD_REQUEST);
+	}
+
 	@Test
 	public void when_createWidget_expect_widgetSaved() {
 		Widget newWidget = new Widget();
@@ -65,11 +192,11 @@ public class WidgetServiceTests {
 		newWidget.setDescription("Widget Description");
 		newWidget.setPrice(new BigDecimal("10.99"));
 
-		when(widgetRepository.save(any(Widget.class))).thenReturn(newWidget);
+		when(widgetRepository.putIfAbsent(any(Widget.class))).thenReturn(Optional.empty());
 
 		WidgetDTO resultDTO = widgetService.createWidget(newWidget);
 
-		verify(widgetRepository).save(widgetCaptor.capture());
+		verify(widgetRepository).putIfAbsent(widgetCaptor.capture());
 		Widget capturedWidget = widgetCaptor.getValue();
 
 		assertThat(capturedWidget).usingRecursiveComparison().isEqualTo(newWidget);
@@ -83,22 +210,65 @@ public class WidgetServiceTests {
 	}
 
 	@Test
-	public void when_createDuplicateWidget_expect_ResponseStatusException() {
+	public void when_createDuplicateWidget_expect_WidgetConflictException() {
 		Widget existingWidget = new Widget();
 		existingWidget.setName("Duplicate Widget Name");
 
-		when(widgetRepository.findById(anyString())).thenReturn(Optional.of(existingWidget));
+		when(widgetRepository.putIfAbsent(any(Widget.class))).thenReturn(Optional.of(existingWidget));
 
 		Widget newWidget = new Widget();
 		newWidget.setName("Duplicate Widget Name");
 		newWidget.setDescription("Duplicate Widget Description");
 		newWidget.setPrice(new BigDecimal("20.99"));
 
-		assertThatThrownBy(() -> widgetService.createWidget(newWidget)).isInstanceOf(ResponseStatusException.class)
-				.hasMessageContaining("Widget with name 'Duplicate Widget Name' already exists")
-				.hasFieldOrPropertyWithValue("status", HttpStatus.BAD_REQUEST);
+		assertThatThrownBy(() -> widgetService.createWidget(newWidget)).isInstanceOf(WidgetConflictException.class)
+				.hasMessageContaining("Widget with name 'Duplicate Widget Name' already exists");
 
 		verify(widgetRepository, never()).save(any(Widget.class));
+		assertThat(meterRegistry.get("widgets.failures").tag("reason", "duplicate").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void when_createInvalidWidget_expect_WidgetValidationException() {
+		Widget newWidget = new Widget();
+		newWidget.setName("X");
+		newWidget.setDescription("A widget description");
+		newWidget.setPrice(new BigDecimal("0.50"));
+
+		assertThatThrownBy(() -> widgetService.createWidget(newWidget)).isInstanceOf(WidgetValidationException.class)
+				.extracting("errors").asList()
+				.containsExactlyInAnyOrder("name: Name must be between 3 and 100 characters", "price: Price must be at least 1");
+
+		verify(widgetRepository, never()).putIfAbsent(any(Widget.class));
+		assertThat(meterRegistry.get("widgets.failures").tag("reason", "validation").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("widgets.service.operations").tag("operation", "create").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void when_priceAtOrPastItsBounds_expect_onlyPricesPastThemRejected() {
+		Widget newWidget = new Widget();
+		newWidget.setName("Widget A");
+		newWidget.setDescription("A widget description");
+
+		newWidget.setPrice(new BigDecimal("1.00"));
+		assertThat(widgetValidator.validate(newWidget)).isEmpty();
+		newWidget.setPrice(new BigDecimal("20000.00"));
+		assertThat(widgetValidator.validate(newWidget)).isEmpty();
+		newWidget.setPrice(new BigDecimal("20000.01"));
+		assertThat(widgetValidator.validate(newWidget)).containsExactly("price: Price must be less than or equal to 20,000");
+		newWidget.setPrice(new BigDecimal("12.345"));
+		assertThat(widgetValidator.validate(newWidget)).containsExactly("price: Price must be a number with up to 2 decimal places");
+		newWidget.setPrice(null);
+		assertThat(widgetValidator.validate(newWidget)).containsExactly("price: must not be null");
+	}
+
+	@Test
+	public void when_getMissingWidget_expect_notFoundCounted() {
+		when(widgetRepository.findById("Missing Widget")).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> widgetService.getWidgetByName("Missing Widget")).isInstanceOf(EntityNotFoundException.class);
+
+		assertThat(meterRegistry.get("widgets.failures").tag("reason", "not_found").counter().count()).isEqualTo(1);
 	}
 
 	@Test
@@ -116,11 +286,11 @@ public class WidgetServiceTests {
 
 		when(widgetRepository.findById(widgetName)).thenReturn(Optional.of(existingWidget));
 
-		when(widgetRepository.save(any(Widget.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		when(widgetRepository.compareAndSet(any(Widget.class), anyLong())).thenReturn(true);
 
 		WidgetDTO resultDTO = widgetService.updateWidget(widgetName, updateDTO);
 
-		verify(widgetRepository).save(widgetCaptor.capture());
+		verify(widgetRepository).compareAndSet(widgetCaptor.capture(), eq(existingWidget.getVersion()));
 		Widget capturedWidget = widgetCaptor.getValue();
 
 		assertThat(capturedWidget.getName()).isEqualTo(widgetName);
@@ -132,6 +302,40 @@ public class WidgetServiceTests {
 		assertThat(resultDTO.getPrice()).isEqualTo(updateDTO.getPrice());
 	}
 
+	@Test
+	public void when_updateWidgetLosesRace_expect_retriedAgainstCurrentVersion() {
+		String widgetName = "existingWidget";
+		Widget stale = Widget.builder().name(widgetName).description("Any description")
+				.price(new BigDecimal("10.99")).version(4L).build();
+		Widget current = stale.toBuilder().version(5L).build();
+
+		WidgetDTO updateDTO = new WidgetDTO(widgetName, "Updated Description", new BigDecimal("99.99"));
+
+		when(widgetRepository.findById(widgetName)).thenReturn(Optional.of(stale)).thenReturn(Optional.of(current));
+		when(widgetRepository.compareAndSet(any(Widget.class), eq(4L))).thenReturn(false);
+		when(widgetRepository.compareAndSet(any(Widget.class), eq(5L))).thenReturn(true);
+
+		WidgetDTO resultDTO = widgetService.updateWidget(widgetName, updateDTO);
+
+		verify(widgetRepository, times(2)).compareAndSet(any(Widget.class), anyLong());
+		assertThat(resultDTO.getDescription()).isEqualTo("Updated Description");
+	}
+
+	@Test
+	public void when_updateWidgetWithStaleVersion_expect_OptimisticLockException() {
+		String widgetName = "existingWidget";
+		Widget current = Widget.builder().name(widgetName).description("Any description")
+				.price(new BigDecimal("10.99")).version(5L).build();
+		WidgetDTO updateDTO = new WidgetDTO(widgetName, "Updated Description", new BigDecimal("99.99"));
+
+		when(widgetRepository.findById(widgetName)).thenReturn(Optional.of(current));
+
+		assertThatThrownBy(() -> widgetService.updateWidget(widgetName, updateDTO, 4L))
+				.isInstanceOf(OptimisticLockException.class);
+
+		verify(widgetRepository, never()).compareAndSet(any(Widget.class), anyLong());
+	}
+
 	@Test
 	public void when_getWidgetByName_expect_correctWidgetDTO() {
 		String widgetName = "TestWidget";
@@ -158,6 +362,7 @@ public class WidgetServiceTests {
 	    widgetToDelete.setPrice(new BigDecimal("15.99"));
 
 	    when(widgetRepository.findById(widgetName)).thenReturn(Optional.of(widgetToDelete));
+	    when(widgetRepository.deleteById(widgetName)).thenReturn(Optional.of(widgetToDelete));
 
 	    // Ensure setup is correct; the widget to delete exists
 	    assertThat(widgetService.getWidgetByName(widgetName)).isNotNull();